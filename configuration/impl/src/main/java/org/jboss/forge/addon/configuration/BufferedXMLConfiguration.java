@@ -0,0 +1,697 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.addon.configuration;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.enterprise.inject.Vetoed;
+
+import org.apache.commons.configuration.HierarchicalConfiguration;
+import org.apache.commons.configuration.SubnodeConfiguration;
+import org.apache.commons.configuration.XMLConfiguration;
+import org.apache.commons.configuration.event.ConfigurationEvent;
+import org.apache.commons.configuration.tree.DefaultConfigurationKey;
+import org.apache.commons.configuration.tree.DefaultExpressionEngine;
+import org.jboss.forge.addon.resource.FileResource;
+import org.jboss.forge.addon.resource.ResourceFactory;
+import org.jboss.forge.addon.resource.events.ResourceEvent;
+import org.jboss.forge.addon.resource.monitor.ResourceListener;
+import org.jboss.forge.addon.resource.monitor.ResourceMonitor;
+
+/**
+ * An {@link XMLConfiguration} kept in memory and written to its file behind the scenes. Changes are written together
+ * once no further change was made for <code>configuration.flush.delay</code> milliseconds, or on {@link #flush()}.
+ * The file is written to a temporary file first and then renamed, so that it is never seen half written.
+ * <p>
+ * Changes made to the file by other processes are picked up through a {@link ResourceMonitor} instead of checking the
+ * file on every read, and again before each write. If changes are pending in memory, the file is loaded again and the
+ * pending changes are applied on top of it, so that neither side is lost. If the file or its directory was deleted, the
+ * pending changes are discarded and the configuration is released from its factory, which stops watching the file.
+ * A released configuration is closed: it passes all further reads and writes on to the configuration the factory
+ * holds for the file, so that a file is never written by two configurations.
+ * <p>
+ * Changes made through a {@link SubnodeConfiguration} are written as well. Those made through a subnode returned by
+ * {@link #configurationAt(String, boolean)} with updates supported are also applied again when the file is changed by
+ * another process meanwhile.
+ * <p>
+ * All reads and writes synchronize on the configuration, so that readers never see it while it is changed, loaded or
+ * saved.
+ */
+@Vetoed
+class BufferedXMLConfiguration extends XMLConfiguration
+{
+   private static final long serialVersionUID = 6263839424817542393L;
+
+   /**
+    * The time in milliseconds to wait for further changes before writing the file. Can be changed with the
+    * <code>configuration.flush.delay</code> system property.
+    */
+   private static final long FLUSH_DELAY = Long.getLong("configuration.flush.delay", 500L);
+
+   /**
+    * The longest time in milliseconds a change is kept in memory while further changes keep coming in.
+    */
+   private static final long MAX_FLUSH_DELAY = FLUSH_DELAY * 10;
+
+   private static final Logger log = Logger.getLogger(BufferedXMLConfiguration.class.getName());
+
+   private final File file;
+   private final boolean directoryExisted;
+   private final ScheduledExecutorService flusher;
+   private final ResourceFactory resourceFactory;
+   private final ConfigurationFactoryImpl factory;
+
+   /**
+    * The changes made since the file was last written, to be applied again if the file is changed meanwhile
+    */
+   private final List<Change> pendingChanges = new ArrayList<Change>();
+   private ScheduledFuture<?> scheduledFlush;
+   private ResourceMonitor monitor;
+   private boolean loading;
+   private boolean released;
+   private boolean dirty;
+   private long dirtySince;
+   private long lastModified;
+   private long length;
+
+   /**
+    * @param directoryExisted whether the directory of the file existed, so that the configuration is not written once
+    *           the directory is deleted
+    */
+   BufferedXMLConfiguration(File file, boolean directoryExisted, ScheduledExecutorService flusher,
+            ResourceFactory resourceFactory, ConfigurationFactoryImpl factory)
+            throws org.apache.commons.configuration.ConfigurationException
+   {
+      this.file = file;
+      this.directoryExisted = directoryExisted;
+      this.flusher = flusher;
+      this.resourceFactory = resourceFactory;
+      this.factory = factory;
+      setEncoding("UTF-8");
+      setFile(file);
+      load();
+      monitor();
+   }
+
+   /**
+    * Writes the pending changes, if any, to the file.
+    */
+   synchronized void flush()
+   {
+      if (!dirty)
+      {
+         return;
+      }
+      if (isDeleted())
+      {
+         discard();
+         return;
+      }
+      cancelScheduledFlush();
+      dirty = false;
+      if (isChangedExternally())
+      {
+         merge();
+      }
+      File parent = file.getParentFile();
+      File temp = null;
+      try
+      {
+         parent.mkdirs();
+         temp = File.createTempFile(file.getName(), ".tmp", parent);
+         Writer writer = new OutputStreamWriter(new FileOutputStream(temp), "UTF-8");
+         try
+         {
+            save(writer);
+         }
+         finally
+         {
+            writer.close();
+         }
+         try
+         {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                     StandardCopyOption.ATOMIC_MOVE);
+         }
+         catch (AtomicMoveNotSupportedException e)
+         {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+         }
+         rememberFileState();
+         pendingChanges.clear();
+         monitor();
+      }
+      catch (IOException | org.apache.commons.configuration.ConfigurationException e)
+      {
+         dirty = true;
+         log.log(Level.SEVERE, "Could not write configuration to [" + file + "]", e);
+         if (temp != null)
+         {
+            temp.delete();
+         }
+      }
+   }
+
+   /**
+    * Writes the pending changes and stops watching the file.
+    */
+   synchronized void close()
+   {
+      flush();
+      stopMonitoring();
+   }
+
+   @Override
+   public void addProperty(String key, Object value)
+   {
+      synchronized (this)
+      {
+         if (!released)
+         {
+            super.addProperty(key, value);
+            changed(new Change(ChangeType.ADD, key, value));
+            return;
+         }
+      }
+      successor().addProperty(key, value);
+   }
+
+   @Override
+   public void setProperty(String key, Object value)
+   {
+      synchronized (this)
+      {
+         if (!released)
+         {
+            super.setProperty(key, value);
+            changed(new Change(ChangeType.SET, key, value));
+            return;
+         }
+      }
+      successor().setProperty(key, value);
+   }
+
+   @Override
+   public void clearProperty(String key)
+   {
+      synchronized (this)
+      {
+         if (!released)
+         {
+            super.clearProperty(key);
+            changed(new Change(ChangeType.CLEAR_PROPERTY, key, null));
+            return;
+         }
+      }
+      successor().clearProperty(key);
+   }
+
+   @Override
+   public void clearTree(String key)
+   {
+      synchronized (this)
+      {
+         if (!released)
+         {
+            super.clearTree(key);
+            changed(new Change(ChangeType.CLEAR_TREE, key, null));
+            return;
+         }
+      }
+      successor().clearTree(key);
+   }
+
+   @Override
+   public void clear()
+   {
+      synchronized (this)
+      {
+         if (!released)
+         {
+            super.clear();
+            changed(new Change(ChangeType.CLEAR, null, null));
+            return;
+         }
+      }
+      successor().clear();
+   }
+
+   @Override
+   public Object getProperty(String key)
+   {
+      synchronized (this)
+      {
+         if (!released)
+         {
+            return super.getProperty(key);
+         }
+      }
+      return successor().getProperty(key);
+   }
+
+   @Override
+   public boolean containsKey(String key)
+   {
+      synchronized (this)
+      {
+         if (!released)
+         {
+            return super.containsKey(key);
+         }
+      }
+      return successor().containsKey(key);
+   }
+
+   @Override
+   public boolean isEmpty()
+   {
+      synchronized (this)
+      {
+         if (!released)
+         {
+            return super.isEmpty();
+         }
+      }
+      return successor().isEmpty();
+   }
+
+   @Override
+   public Iterator<String> getKeys()
+   {
+      synchronized (this)
+      {
+         if (!released)
+         {
+            return super.getKeys();
+         }
+      }
+      return successor().getKeys();
+   }
+
+   @Override
+   public Iterator<String> getKeys(String prefix)
+   {
+      synchronized (this)
+      {
+         if (!released)
+         {
+            return super.getKeys(prefix);
+         }
+      }
+      return successor().getKeys(prefix);
+   }
+
+   @Override
+   public int getMaxIndex(String key)
+   {
+      synchronized (this)
+      {
+         if (!released)
+         {
+            return super.getMaxIndex(key);
+         }
+      }
+      return successor().getMaxIndex(key);
+   }
+
+   @Override
+   public org.apache.commons.configuration.Configuration subset(String prefix)
+   {
+      synchronized (this)
+      {
+         if (!released)
+         {
+            return super.subset(prefix);
+         }
+      }
+      return successor().subset(prefix);
+   }
+
+   @Override
+   public SubnodeConfiguration configurationAt(String key, boolean supportUpdates)
+   {
+      synchronized (this)
+      {
+         if (!released)
+         {
+            return super.configurationAt(key, supportUpdates);
+         }
+      }
+      return successor().configurationAt(key, supportUpdates);
+   }
+
+   @Override
+   public List<HierarchicalConfiguration> configurationsAt(String key)
+   {
+      synchronized (this)
+      {
+         if (!released)
+         {
+            return super.configurationsAt(key);
+         }
+      }
+      return successor().configurationsAt(key);
+   }
+
+   /**
+    * Marks the configuration as changed when it was changed through one of its subnodes, which change the nodes of the
+    * configuration directly.
+    */
+   @Override
+   protected void subnodeConfigurationChanged(ConfigurationEvent event)
+   {
+      super.subnodeConfigurationChanged(event);
+      if (event.isBeforeUpdate())
+      {
+         return;
+      }
+      Change change = toChange(event);
+      synchronized (this)
+      {
+         if (!released)
+         {
+            changed(change);
+            return;
+         }
+      }
+      if (change != null)
+      {
+         change.applyTo(successor());
+      }
+   }
+
+   @Override
+   public synchronized void save(Writer writer) throws org.apache.commons.configuration.ConfigurationException
+   {
+      super.save(writer);
+   }
+
+   @Override
+   public synchronized void load() throws org.apache.commons.configuration.ConfigurationException
+   {
+      loading = true;
+      try
+      {
+         if (file.exists())
+         {
+            super.load();
+         }
+         rememberFileState();
+      }
+      finally
+      {
+         loading = false;
+      }
+   }
+
+   /**
+    * Watches the file for changes made by other processes, once it exists.
+    */
+   private void monitor()
+   {
+      if (monitor == null && file.exists())
+      {
+         try
+         {
+            FileResource<?> resource = resourceFactory.create(file).reify(FileResource.class);
+            monitor = resourceFactory.monitor(resource);
+            monitor.addResourceListener(new ResourceListener()
+            {
+               @Override
+               public void processEvent(ResourceEvent event)
+               {
+                  fileChanged();
+               }
+            });
+         }
+         catch (RuntimeException e)
+         {
+            log.log(Level.FINE, "Could not monitor [" + file + "] for changes", e);
+         }
+      }
+   }
+
+   private synchronized void fileChanged()
+   {
+      if (released || !isChangedExternally())
+      {
+         // Our own write
+         return;
+      }
+      if (isDeleted())
+      {
+         discard();
+      }
+      else if (dirty)
+      {
+         merge();
+      }
+      else
+      {
+         reload();
+      }
+   }
+
+   private boolean isChangedExternally()
+   {
+      return file.lastModified() != lastModified || file.length() != length;
+   }
+
+   /**
+    * Returns whether the file, or the directory it was to be written to, was deleted since it was read.
+    */
+   private boolean isDeleted()
+   {
+      return (lastModified != 0L && !file.exists()) || (directoryExisted && !file.getParentFile().exists());
+   }
+
+   /**
+    * Drops the pending changes of a deleted file and releases the configuration, so that the file is not written again
+    * and no longer watched. Later reads and writes go to the configuration the factory holds for the file from then on.
+    */
+   private void discard()
+   {
+      log.fine("[" + file + "] was deleted, discarding pending configuration changes");
+      cancelScheduledFlush();
+      dirty = false;
+      pendingChanges.clear();
+      reload();
+      stopMonitoring();
+      factory.release(file, this);
+      released = true;
+   }
+
+   /**
+    * Returns the configuration which took over the file from this released one. Must not be called while holding the
+    * lock of this configuration, as the factory is locked to create it.
+    */
+   private BufferedXMLConfiguration successor()
+   {
+      return factory.getConfiguration(file, directoryExisted);
+   }
+
+   /**
+    * Loads the file again and applies the pending changes on top of it.
+    */
+   private void merge()
+   {
+      log.fine("[" + file + "] was changed while configuration changes are pending, merging them");
+      reload();
+      loading = true;
+      try
+      {
+         for (Change change : pendingChanges)
+         {
+            change.applyTo(this);
+         }
+      }
+      finally
+      {
+         loading = false;
+      }
+   }
+
+   private void reload()
+   {
+      loading = true;
+      try
+      {
+         super.clear();
+         load();
+      }
+      catch (org.apache.commons.configuration.ConfigurationException e)
+      {
+         log.log(Level.WARNING, "Could not reload configuration from [" + file + "]", e);
+      }
+      finally
+      {
+         loading = false;
+      }
+   }
+
+   /**
+    * Schedules the pending changes to be written. A <code>null</code> change is written, but cannot be applied again
+    * on top of the file if it is changed by another process meanwhile.
+    */
+   private void changed(Change change)
+   {
+      if (loading)
+      {
+         return;
+      }
+      if (change != null)
+      {
+         pendingChanges.add(change);
+      }
+      long now = System.currentTimeMillis();
+      if (!dirty)
+      {
+         dirty = true;
+         dirtySince = now;
+      }
+      if (scheduledFlush != null)
+      {
+         if (now - dirtySince >= MAX_FLUSH_DELAY)
+         {
+            // Let the scheduled flush happen, so that a stream of changes is not kept in memory indefinitely
+            return;
+         }
+         scheduledFlush.cancel(false);
+      }
+      scheduledFlush = flusher.schedule(new Runnable()
+      {
+         @Override
+         public void run()
+         {
+            flush();
+         }
+      }, FLUSH_DELAY, TimeUnit.MILLISECONDS);
+   }
+
+   private void cancelScheduledFlush()
+   {
+      if (scheduledFlush != null)
+      {
+         scheduledFlush.cancel(false);
+         scheduledFlush = null;
+      }
+   }
+
+   private void stopMonitoring()
+   {
+      if (monitor != null)
+      {
+         monitor.cancel();
+         monitor = null;
+      }
+   }
+
+   private void rememberFileState()
+   {
+      lastModified = file.lastModified();
+      length = file.length();
+   }
+
+   /**
+    * Returns the change made through a subnode as a change of this configuration, or <code>null</code> if it cannot be
+    * told which of its nodes was changed.
+    */
+   private Change toChange(ConfigurationEvent event)
+   {
+      if (!(event.getSource() instanceof SubnodeConfiguration)
+               || !(getExpressionEngine() instanceof DefaultExpressionEngine))
+      {
+         return null;
+      }
+      String subnodeKey = ((SubnodeConfiguration) event.getSource()).getSubnodeKey();
+      if (subnodeKey == null)
+      {
+         // The subnode does not support updates, so it is not known where its nodes are
+         return null;
+      }
+      ChangeType type;
+      switch (event.getType())
+      {
+      case EVENT_ADD_PROPERTY:
+         type = ChangeType.ADD;
+         break;
+      case EVENT_SET_PROPERTY:
+         type = ChangeType.SET;
+         break;
+      case EVENT_CLEAR_PROPERTY:
+         type = ChangeType.CLEAR_PROPERTY;
+         break;
+      case EVENT_CLEAR_TREE:
+         type = ChangeType.CLEAR_TREE;
+         break;
+      default:
+         return null;
+      }
+      String key = new DefaultConfigurationKey((DefaultExpressionEngine) getExpressionEngine(), subnodeKey)
+               .append(event.getPropertyName()).toString();
+      return new Change(type, key, event.getPropertyValue());
+   }
+
+   private enum ChangeType
+   {
+      ADD, SET, CLEAR_PROPERTY, CLEAR_TREE, CLEAR
+   }
+
+   /**
+    * A change made in memory, kept until it is written
+    */
+   private static class Change
+   {
+      private final ChangeType type;
+      private final String key;
+      private final Object value;
+
+      Change(ChangeType type, String key, Object value)
+      {
+         this.type = type;
+         this.key = key;
+         this.value = value;
+      }
+
+      void applyTo(BufferedXMLConfiguration configuration)
+      {
+         switch (type)
+         {
+         case ADD:
+            configuration.addProperty(key, value);
+            break;
+         case SET:
+            configuration.setProperty(key, value);
+            break;
+         case CLEAR_PROPERTY:
+            configuration.clearProperty(key);
+            break;
+         case CLEAR_TREE:
+            configuration.clearTree(key);
+            break;
+         case CLEAR:
+            configuration.clear();
+            break;
+         }
+      }
+   }
+}
@@ -1,13 +1,26 @@
 package org.jboss.forge.addon.configuration;
 
 import java.io.File;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
 import javax.enterprise.inject.Produces;
+import javax.inject.Inject;
 
-import org.apache.commons.configuration.XMLConfiguration;
-import org.apache.commons.configuration.reloading.FileChangedReloadingStrategy;
 import org.jboss.forge.addon.resource.FileResource;
+import org.jboss.forge.addon.resource.ResourceFactory;
+import org.jboss.forge.addon.resource.events.ResourceEvent;
+import org.jboss.forge.addon.resource.transaction.ResourceTransaction;
+import org.jboss.forge.addon.resource.transaction.ResourceTransactionListener;
+import org.jboss.forge.furnace.container.cdi.events.Local;
+import org.jboss.forge.furnace.event.PreShutdown;
+import org.jboss.forge.furnace.spi.ListenerRegistration;
 import org.jboss.forge.furnace.util.OperatingSystemUtils;
 
 @ApplicationScoped
@@ -15,6 +28,19 @@ public class ConfigurationFactoryImpl implements ConfigurationFactory
 {
    private Configuration userConfiguration;
 
+   @Inject
+   private ResourceFactory resourceFactory;
+
+   /**
+    * The configurations read so far by file, so that all users of a file share the same snapshot. Configurations are
+    * removed once their file is deleted. Only creating them synchronizes on the factory, as configurations release
+    * themselves while holding their own lock.
+    */
+   private final ConcurrentMap<File, BufferedXMLConfiguration> configurations =
+            new ConcurrentHashMap<File, BufferedXMLConfiguration>();
+   private ScheduledExecutorService flusher;
+   private ListenerRegistration<ResourceTransactionListener> transactionListener;
+
    @Override
    @Produces
    @ApplicationScoped
@@ -36,20 +62,106 @@ public class ConfigurationFactoryImpl implements ConfigurationFactory
 
    private Configuration getConfiguration(File file)
    {
-      XMLConfiguration commonsConfig;
-      try
+      File key = file.getAbsoluteFile();
+      return new ConfigurationAdapter(getConfiguration(key, key.getParentFile().isDirectory()));
+   }
+
+   /**
+    * Returns the configuration of the given file, reading it if it is not held yet. Released configurations pass their
+    * reads and writes on to the configuration returned here.
+    * 
+    * @param directoryExisted whether a configuration created for the file must not recreate its directory once deleted
+    */
+   synchronized BufferedXMLConfiguration getConfiguration(File file, boolean directoryExisted)
+   {
+      BufferedXMLConfiguration commonsConfig = configurations.get(file);
+      if (commonsConfig == null)
       {
-         commonsConfig = new XMLConfiguration(file);
-         commonsConfig.setEncoding("UTF-8");
-         commonsConfig.setReloadingStrategy(new FileChangedReloadingStrategy());
-         commonsConfig.setAutoSave(true);
+         try
+         {
+            commonsConfig = new BufferedXMLConfiguration(file, directoryExisted, getFlusher(), resourceFactory, this);
+         }
+         catch (org.apache.commons.configuration.ConfigurationException e)
+         {
+            throw new ConfigurationException(e);
+         }
+         configurations.put(file, commonsConfig);
+      }
+      return commonsConfig;
+   }
 
-         return new ConfigurationAdapter(commonsConfig);
+   /**
+    * Writes the pending changes of all configurations to their files.
+    */
+   void flush()
+   {
+      for (BufferedXMLConfiguration configuration : configurations.values())
+      {
+         configuration.flush();
       }
-      catch (org.apache.commons.configuration.ConfigurationException e)
+   }
+
+   /**
+    * Forgets the given configuration of a deleted file, so that it is read again the next time it is asked for.
+    */
+   void release(File file, BufferedXMLConfiguration configuration)
+   {
+      configurations.remove(file, configuration);
+   }
+
+   synchronized void shutdown(@Observes @Local PreShutdown event)
+   {
+      if (transactionListener != null)
+      {
+         transactionListener.removeListener();
+         transactionListener = null;
+      }
+      for (BufferedXMLConfiguration configuration : configurations.values())
+      {
+         configuration.close();
+      }
+      configurations.clear();
+      if (flusher != null)
       {
-         throw new ConfigurationException(e);
+         flusher.shutdownNow();
+         flusher = null;
       }
    }
 
+   private ScheduledExecutorService getFlusher()
+   {
+      if (flusher == null)
+      {
+         flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+         {
+            @Override
+            public Thread newThread(Runnable r)
+            {
+               Thread thread = new Thread(r, "Configuration Writer");
+               thread.setDaemon(true);
+               return thread;
+            }
+         });
+         // Changes made while working on the resources of a transaction are written when it is committed
+         transactionListener = resourceFactory.addTransactionListener(new ResourceTransactionListener()
+         {
+            @Override
+            public void transactionStarted(ResourceTransaction transaction)
+            {
+            }
+
+            @Override
+            public void transactionCommitted(ResourceTransaction transaction, Set<ResourceEvent> changeSet)
+            {
+               flush();
+            }
+
+            @Override
+            public void transactionRolledBack(ResourceTransaction transaction)
+            {
+            }
+         });
+      }
+      return flusher;
+   }
 }
@@ -19,6 +19,7 @@ import org.jboss.forge.arquillian.AddonDependency;
 import org.jboss.forge.arquillian.Dependencies;
 import org.jboss.forge.arquillian.archive.ForgeArchive;
 import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
+import org.jboss.forge.furnace.util.OperatingSystemUtils;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.junit.Assert;
 import org.junit.Test;
@@ -67,6 +68,114 @@ public class ConfigurationFactoryTest
       config.setProperty("key", "value");
       Assert.assertEquals("value", config.getString("key"));
       // Check if the file was written
+      waitForFile(resource);
       Assert.assertTrue(resource.getSize() > 0L);
    }
-}
\ No newline at end of file
+
+   @Test
+   public void testConfigurationsOfSameFileAreShared() throws Exception
+   {
+      File file = File.createTempFile("configfactorytest", ".tmp");
+      file.delete();
+      file.deleteOnExit();
+      FileResource<?> resource = resourceFactory.create(file).reify(FileResource.class);
+      Configuration first = configurationFactory.getConfiguration(resource);
+      Configuration second = configurationFactory.getConfiguration(resource);
+      first.setProperty("first", "one");
+      second.setProperty("second", "two");
+      Assert.assertEquals("two", first.getString("second"));
+      Assert.assertEquals("one", second.getString("first"));
+      waitForFile(resource);
+      String contents = resource.getContents();
+      Assert.assertTrue(contents.contains("one"));
+      Assert.assertTrue(contents.contains("two"));
+   }
+
+   @Test
+   public void testExternalChangesAreMergedWithPendingChanges() throws Exception
+   {
+      File file = File.createTempFile("configfactorytest", ".tmp");
+      file.delete();
+      file.deleteOnExit();
+      FileResource<?> resource = resourceFactory.create(file).reify(FileResource.class);
+      Configuration config = configurationFactory.getConfiguration(resource);
+      config.setProperty("mine", "one");
+      waitForFile(resource);
+
+      resource.setContents("<configuration><mine>one</mine><theirs>two</theirs></configuration>");
+      config.setProperty("pending", "three");
+      waitForContents(resource, "three");
+      String contents = resource.getContents();
+      Assert.assertTrue("The external change must not be overwritten", contents.contains("two"));
+      Assert.assertTrue(contents.contains("one"));
+      Assert.assertEquals("two", config.getString("theirs"));
+      Assert.assertEquals("three", config.getString("pending"));
+   }
+
+   @Test
+   public void testConfigurationOfDeletedDirectoryIsNotWrittenAgain() throws Exception
+   {
+      File directory = OperatingSystemUtils.createTempDir();
+      File file = new File(directory, "config.xml");
+      FileResource<?> resource = resourceFactory.create(file).reify(FileResource.class);
+      Configuration config = configurationFactory.getConfiguration(resource);
+      config.setProperty("key", "value");
+      waitForFile(resource);
+
+      Assert.assertTrue(file.delete());
+      Assert.assertTrue(directory.delete());
+      config.setProperty("key", "other");
+      Thread.sleep(2000);
+      Assert.assertFalse(directory.exists());
+
+      Configuration recreated = configurationFactory.getConfiguration(resource);
+      Assert.assertNull(recreated.getString("key"));
+   }
+
+   @Test
+   public void testReleasedConfigurationPassesChangesOn() throws Exception
+   {
+      File file = File.createTempFile("configfactorytest", ".tmp");
+      file.delete();
+      file.deleteOnExit();
+      FileResource<?> resource = resourceFactory.create(file).reify(FileResource.class);
+      Configuration config = configurationFactory.getConfiguration(resource);
+      config.setProperty("key", "value");
+      waitForFile(resource);
+
+      Assert.assertTrue(file.delete());
+      config.setProperty("key", "discarded");
+      // The deleted file is noticed and the configuration released
+      Thread.sleep(2000);
+
+      config.setProperty("key", "other");
+      Configuration recreated = configurationFactory.getConfiguration(resource);
+      recreated.setProperty("second", "two");
+      Assert.assertEquals("other", recreated.getString("key"));
+      Assert.assertEquals("two", config.getString("second"));
+      waitForFile(resource);
+      waitForContents(resource, "two");
+      Assert.assertTrue(resource.getContents().contains("other"));
+   }
+
+   /**
+    * Configuration changes are written behind, so wait for the file to be written.
+    */
+   private static void waitForFile(FileResource<?> resource) throws InterruptedException
+   {
+      long timeout = System.currentTimeMillis() + 10000;
+      while (!resource.exists() && System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(50);
+      }
+   }
+
+   private static void waitForContents(FileResource<?> resource, String text) throws InterruptedException
+   {
+      long timeout = System.currentTimeMillis() + 10000;
+      while (!resource.getContents().contains(text) && System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(50);
+      }
+   }
+}
@@ -74,6 +74,12 @@ public class ConfigurationTest
       Configuration config = facet.getConfiguration();
       config.setProperty("key", "value");
       assertEquals("value", config.getString("key"));
+      // Configuration changes are written behind
+      long timeout = System.currentTimeMillis() + 10000;
+      while (!facet.getConfigLocation().exists() && System.currentTimeMillis() < timeout)
+      {
+         Thread.sleep(50);
+      }
       assertTrue(facet.getConfigLocation().exists());
    }
 }
\ No newline at end of file
@@ -7,6 +7,9 @@
 
 package org.jboss.forge.addon.convert.impl;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 
 import javax.enterprise.inject.Vetoed;
@@ -15,7 +18,7 @@ import org.jboss.forge.addon.convert.AbstractConverter;
 import org.jboss.forge.addon.convert.exception.ConversionException;
 
 /**
- * Converter that uses a constructor
+ * Converter that uses a constructor, invoked through a {@link MethodHandle} when the constructor is accessible
  * 
  * @author <a href="mailto:ggastald@redhat.com">George Gastaldi</a>
  * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
@@ -27,22 +30,48 @@ import org.jboss.forge.addon.convert.exception.ConversionException;
 @Vetoed
 public class ConstructorConverter<SOURCETYPE, TARGETTYPE> extends AbstractConverter<SOURCETYPE, TARGETTYPE>
 {
+   private static final MethodType CONVERT_TYPE = MethodType.methodType(Object.class, Object.class);
+
    private final Constructor<TARGETTYPE> constructor;
+   private final MethodHandle handle;
 
    public ConstructorConverter(Class<SOURCETYPE> sourceType, Class<TARGETTYPE> targetType, Constructor<TARGETTYPE> constructor)
    {
       super(sourceType, targetType);
       this.constructor = constructor;
+      this.handle = createHandle(constructor);
+   }
+
+   private static MethodHandle createHandle(Constructor<?> constructor)
+   {
+      try
+      {
+         return MethodHandles.publicLookup().unreflectConstructor(constructor).asType(CONVERT_TYPE);
+      }
+      catch (IllegalAccessException | RuntimeException e)
+      {
+         /*
+          * Fall back to reflection, which reports access problems when converting
+          */
+         return null;
+      }
    }
 
    @Override
+   @SuppressWarnings("unchecked")
    public TARGETTYPE convert(SOURCETYPE source)
    {
       try
       {
+         if (handle != null)
+            return (TARGETTYPE) (Object) handle.invokeExact((Object) source);
          return constructor.newInstance(source);
       }
-      catch (Exception e)
+      catch (Error e)
+      {
+         throw e;
+      }
+      catch (Throwable e)
       {
          throw new ConversionException("Could not convert [" + source + "] to type [" + getTargetType() + "]", e);
       }
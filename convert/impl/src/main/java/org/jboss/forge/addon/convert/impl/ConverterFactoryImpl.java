@@ -7,6 +7,9 @@
 
 package org.jboss.forge.addon.convert.impl;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -17,15 +20,47 @@ import org.jboss.forge.addon.convert.exception.ConverterNotFoundException;
 import org.jboss.forge.furnace.addons.AddonRegistry;
 import org.jboss.forge.furnace.services.Imported;
 
+/**
+ * Resolves {@link Converter} instances, caching them by source and target type until addons are added or removed.
+ */
 @Singleton
 public class ConverterFactoryImpl implements ConverterFactory
 {
    @Inject
    private AddonRegistry registry;
 
+   private final ConcurrentMap<ConverterKey, Converter<?, ?>> converters = new ConcurrentHashMap<>();
+   private volatile long registryVersion = -1L;
+
    @Override
    @SuppressWarnings({ "unchecked" })
    public <S, T> Converter<S, T> getConverter(Class<S> source, Class<T> target)
+   {
+      long version = registry.getVersion();
+      if (version != registryVersion)
+      {
+         synchronized (converters)
+         {
+            if (version != registryVersion)
+            {
+               converters.clear();
+               registryVersion = version;
+            }
+         }
+      }
+
+      ConverterKey key = new ConverterKey(source, target);
+      Converter<S, T> result = (Converter<S, T>) converters.get(key);
+      if (result == null)
+      {
+         result = createConverter(source, target);
+         converters.put(key, result);
+      }
+      return result;
+   }
+
+   @SuppressWarnings({ "unchecked" })
+   private <S, T> Converter<S, T> createConverter(Class<S> source, Class<T> target)
    {
       Converter<S, T> result = null;
       Imported<ConverterGenerator> instances = registry.getServices(ConverterGenerator.class);
@@ -74,4 +109,33 @@ public class ConverterFactoryImpl implements ConverterFactory
       }
       return result;
    }
-}
\ No newline at end of file
+
+   private static class ConverterKey
+   {
+      private final Class<?> source;
+      private final Class<?> target;
+
+      public ConverterKey(Class<?> source, Class<?> target)
+      {
+         this.source = source;
+         this.target = target;
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return 31 * source.hashCode() + target.hashCode();
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         if (this == obj)
+            return true;
+         if (!(obj instanceof ConverterKey))
+            return false;
+         ConverterKey other = (ConverterKey) obj;
+         return source == other.source && target == other.target;
+      }
+   }
+}
@@ -7,18 +7,28 @@
 
 package org.jboss.forge.addon.convert.impl;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 
 import javax.enterprise.inject.Vetoed;
 
 import org.jboss.forge.addon.convert.AbstractConverter;
 import org.jboss.forge.addon.convert.exception.ConversionException;
 
+/**
+ * Converter that invokes a method, through a {@link MethodHandle} when the method is accessible
+ */
 @Vetoed
 public class MethodConverter<S, T> extends AbstractConverter<S, T>
 {
+   private static final MethodType CONVERT_TYPE = MethodType.methodType(Object.class, Object.class);
+
    private final Object instance;
    private final Method method;
+   private final MethodHandle handle;
 
    /**
     * Creates a converter based in a method
@@ -33,6 +43,27 @@ public class MethodConverter<S, T> extends AbstractConverter<S, T>
       super(sourceType, targetType);
       this.instance = instance;
       this.method = method;
+      this.handle = createHandle(instance, method);
+   }
+
+   private static MethodHandle createHandle(Object instance, Method method)
+   {
+      try
+      {
+         MethodHandle handle = MethodHandles.publicLookup().unreflect(method);
+         if (!Modifier.isStatic(method.getModifiers()))
+         {
+            handle = handle.bindTo(instance);
+         }
+         return handle.asType(CONVERT_TYPE);
+      }
+      catch (IllegalAccessException | RuntimeException e)
+      {
+         /*
+          * Fall back to reflection, which reports access problems when converting
+          */
+         return null;
+      }
    }
 
    @Override
@@ -41,9 +72,15 @@ public class MethodConverter<S, T> extends AbstractConverter<S, T>
    {
       try
       {
+         if (handle != null)
+            return (T) (Object) handle.invokeExact((Object) source);
          return (T) method.invoke(instance, source);
       }
-      catch (Exception e)
+      catch (Error e)
+      {
+         throw e;
+      }
+      catch (Throwable e)
       {
          throw new ConversionException("Could not convert [" + source + "] to type [" + getTargetType() + "]", e);
       }
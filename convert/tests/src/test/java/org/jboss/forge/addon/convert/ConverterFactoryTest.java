@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.convert;
+
+import java.io.File;
+
+import javax.inject.Inject;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.forge.addon.convert.exception.ConverterNotFoundException;
+import org.jboss.forge.arquillian.AddonDependency;
+import org.jboss.forge.arquillian.Dependencies;
+import org.jboss.forge.arquillian.archive.ForgeArchive;
+import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(Arquillian.class)
+public class ConverterFactoryTest
+{
+   @Deployment
+   @Dependencies({
+            @AddonDependency(name = "org.jboss.forge.addon:convert"),
+            @AddonDependency(name = "org.jboss.forge.furnace.container:cdi")
+   })
+   public static ForgeArchive getDeployment()
+   {
+      ForgeArchive archive = ShrinkWrap
+               .create(ForgeArchive.class)
+               .addBeansXML()
+               .addClass(ConverterFactoryTest.class)
+               .addAsAddonDependencies(
+                        AddonDependencyEntry.create("org.jboss.forge.furnace.container:cdi"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:convert")
+               );
+
+      return archive;
+   }
+
+   @Inject
+   private ConverterFactory factory;
+
+   @Test
+   public void testConvertersAreReused() throws Exception
+   {
+      Converter<String, Long> converter = factory.getConverter(String.class, Long.class);
+      Assert.assertSame(converter, factory.getConverter(String.class, Long.class));
+      Assert.assertEquals(Long.valueOf(42L), converter.convert("42"));
+
+      Converter<String, File> constructorConverter = factory.getConverter(String.class, File.class);
+      Assert.assertSame(constructorConverter, factory.getConverter(String.class, File.class));
+      Assert.assertEquals(new File("file.txt"), constructorConverter.convert("file.txt"));
+   }
+
+   @Test
+   public void testMissingConverterIsReportedEveryTime() throws Exception
+   {
+      for (int i = 0; i < 2; i++)
+      {
+         try
+         {
+            factory.getConverter(Long.class, Thread.class);
+            Assert.fail("Expected a ConverterNotFoundException");
+         }
+         catch (ConverterNotFoundException e)
+         {
+            // expected
+         }
+      }
+   }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.convert.impl;
+
+import java.io.File;
+
+import org.jboss.forge.addon.convert.exception.ConversionException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConstructorConverterTest
+{
+   @Test
+   public void testPublicConstructor() throws Exception
+   {
+      ConstructorConverter<String, File> converter = new ConstructorConverter<String, File>(String.class, File.class,
+               File.class.getConstructor(String.class));
+      Assert.assertEquals(new File("file.txt"), converter.convert("file.txt"));
+   }
+
+   @Test
+   public void testConstructorOfNonPublicClassFallsBackToReflection() throws Exception
+   {
+      ConstructorConverter<String, Hidden> converter = new ConstructorConverter<String, Hidden>(String.class,
+               Hidden.class, Hidden.class.getConstructor(String.class));
+      Assert.assertEquals("value", converter.convert("value").value);
+   }
+
+   @Test
+   public void testExceptionIsWrapped() throws Exception
+   {
+      ConstructorConverter<String, Integer> converter = new ConstructorConverter<String, Integer>(String.class,
+               Integer.class, Integer.class.getConstructor(String.class));
+      try
+      {
+         converter.convert("not a number");
+         Assert.fail("Expected a ConversionException");
+      }
+      catch (ConversionException e)
+      {
+         Assert.assertTrue(e.getCause() instanceof NumberFormatException);
+      }
+   }
+
+   /**
+    * Not public, so its constructor cannot be looked up as a method handle and is invoked through reflection
+    */
+   static class Hidden
+   {
+      private final String value;
+
+      public Hidden(String value)
+      {
+         this.value = value;
+      }
+   }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.convert.impl;
+
+import org.jboss.forge.addon.convert.exception.ConversionException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MethodConverterTest
+{
+   @Test
+   public void testStaticMethod() throws Exception
+   {
+      MethodConverter<String, Long> converter = new MethodConverter<String, Long>(String.class, Long.class, null,
+               Long.class.getMethod("valueOf", String.class));
+      Assert.assertEquals(Long.valueOf(123L), converter.convert("123"));
+   }
+
+   @Test
+   public void testInstanceMethod() throws Exception
+   {
+      MethodConverter<String, String> converter = new MethodConverter<String, String>(String.class, String.class,
+               new Prefixer("prefix-"), Prefixer.class.getMethod("prefix", String.class));
+      Assert.assertEquals("prefix-value", converter.convert("value"));
+   }
+
+   @Test
+   public void testMethodOfNonPublicClassFallsBackToReflection() throws Exception
+   {
+      MethodConverter<String, String> converter = new MethodConverter<String, String>(String.class, String.class,
+               new HiddenPrefixer(), HiddenPrefixer.class.getMethod("prefix", String.class));
+      Assert.assertEquals("hidden-value", converter.convert("value"));
+   }
+
+   @Test
+   public void testExceptionIsWrapped() throws Exception
+   {
+      MethodConverter<String, Long> converter = new MethodConverter<String, Long>(String.class, Long.class, null,
+               Long.class.getMethod("valueOf", String.class));
+      try
+      {
+         converter.convert("not a number");
+         Assert.fail("Expected a ConversionException");
+      }
+      catch (ConversionException e)
+      {
+         Assert.assertTrue(e.getCause() instanceof NumberFormatException);
+      }
+   }
+
+   public static class Prefixer
+   {
+      private final String prefix;
+
+      public Prefixer(String prefix)
+      {
+         this.prefix = prefix;
+      }
+
+      public String prefix(String value)
+      {
+         return prefix + value;
+      }
+   }
+
+   /**
+    * Not public, so it cannot be looked up as a method handle and is invoked through reflection
+    */
+   static class HiddenPrefixer
+   {
+      public String prefix(String value)
+      {
+         return "hidden-" + value;
+      }
+   }
+}
@@ -0,0 +1,354 @@
+package org.jboss.forge.addon.database.tools.connections;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.event.Observes;
+import javax.inject.Singleton;
+
+import org.jboss.forge.addon.database.tools.util.ConnectionPool;
+import org.jboss.forge.addon.database.tools.util.DelegatingDriver;
+import org.jboss.forge.furnace.container.cdi.events.Local;
+import org.jboss.forge.furnace.event.PreShutdown;
+
+/**
+ * Keeps the class loaders of JDBC drivers, and pools of connections, for the connection profiles used during a
+ * session, so that drivers are loaded and registered with the {@link DriverManager} only once. A driver is loaded
+ * again if its jar file changed. Everything is closed on shutdown.
+ */
+@Singleton
+public class ConnectionPoolManager
+{
+   /**
+    * The maximum number of connections open to one database at the same time. Can be changed with the
+    * <code>database.tools.pool.size</code> system property.
+    */
+   private static final int POOL_SIZE = Integer.getInteger("database.tools.pool.size", 4);
+
+   /**
+    * The time in milliseconds after which idle connections are closed. Can be changed with the
+    * <code>database.tools.pool.idleTimeout</code> system property.
+    */
+   private static final long IDLE_TIMEOUT = Long.getLong("database.tools.pool.idleTimeout", 60000L);
+
+   private final Map<List<URL>, DriverClassLoader> classLoaders = new HashMap<List<URL>, DriverClassLoader>();
+   private final Map<PoolKey, ConnectionPool> pools = new HashMap<PoolKey, ConnectionPool>();
+   private ScheduledExecutorService evictor;
+
+   /**
+    * Returns the class loader for the driver jar files at the given locations.
+    */
+   public synchronized ClassLoader getDriverClassLoader(URL[] urls)
+   {
+      return getDriverClassLoader(Arrays.asList(urls)).classLoader;
+   }
+
+   /**
+    * Returns the driver of the given class from the jar files at the given locations. The driver is registered with
+    * the {@link DriverManager}, for libraries getting their connections from there.
+    */
+   public synchronized Driver getDriver(URL[] urls, String driverClass) throws SQLException
+   {
+      DriverClassLoader classLoader = getDriverClassLoader(Arrays.asList(urls));
+      DelegatingDriver driver = classLoader.drivers.get(driverClass);
+      if (driver == null)
+      {
+         try
+         {
+            driver = new DelegatingDriver(
+                     (Driver) Class.forName(driverClass, true, classLoader.classLoader).newInstance());
+         }
+         catch (Exception e)
+         {
+            throw new SQLException("Could not load the driver " + driverClass + ": " + e.getMessage(), e);
+         }
+         DriverManager.registerDriver(driver);
+         classLoader.drivers.put(driverClass, driver);
+      }
+      return driver;
+   }
+
+   /**
+    * Returns a pooled connection for the given Hibernate connection properties. The connection is returned to the pool
+    * when it is closed.
+    */
+   public Connection getConnection(URL[] urls, String driverClass, Properties connectionProperties)
+            throws SQLException
+   {
+      PoolKey key = new PoolKey(Arrays.asList(urls), driverClass,
+               connectionProperties.getProperty("hibernate.connection.url"),
+               normalize(connectionProperties.getProperty("hibernate.connection.username")),
+               normalize(connectionProperties.getProperty("hibernate.connection.password")));
+      ConnectionPool pool;
+      synchronized (this)
+      {
+         Driver driver = getDriver(urls, driverClass);
+         pool = pools.get(key);
+         if (pool == null)
+         {
+            Properties info = new Properties();
+            info.setProperty("user", key.user);
+            info.setProperty("password", key.password);
+            pool = new ConnectionPool(driver, key.url, info, POOL_SIZE, IDLE_TIMEOUT);
+            pools.put(key, pool);
+            startEvictor();
+         }
+      }
+      return pool.getConnection();
+   }
+
+   /**
+    * Closes the connections to the database of the given profile, for example because it was changed or removed.
+    */
+   public synchronized void release(ConnectionProfile profile)
+   {
+      List<URL> urls;
+      try
+      {
+         urls = Collections.singletonList(new File(profile.getPath()).toURI().toURL());
+      }
+      catch (MalformedURLException e)
+      {
+         return;
+      }
+      Iterator<Map.Entry<PoolKey, ConnectionPool>> iterator = pools.entrySet().iterator();
+      while (iterator.hasNext())
+      {
+         Map.Entry<PoolKey, ConnectionPool> entry = iterator.next();
+         PoolKey key = entry.getKey();
+         if (key.urls.equals(urls) && equal(key.driverClass, profile.getDriver())
+                  && equal(key.url, profile.getUrl()) && equal(key.user, normalize(profile.getUser())))
+         {
+            entry.getValue().close();
+            iterator.remove();
+         }
+      }
+   }
+
+   /**
+    * Closes all connections, deregisters all drivers and closes their class loaders.
+    */
+   public synchronized void close()
+   {
+      if (evictor != null)
+      {
+         evictor.shutdownNow();
+         evictor = null;
+      }
+      for (ConnectionPool pool : pools.values())
+      {
+         pool.close();
+      }
+      pools.clear();
+      for (DriverClassLoader classLoader : classLoaders.values())
+      {
+         classLoader.close();
+      }
+      classLoaders.clear();
+   }
+
+   void shutdown(@Observes @Local PreShutdown event)
+   {
+      close();
+   }
+
+   private DriverClassLoader getDriverClassLoader(List<URL> urls)
+   {
+      DriverClassLoader classLoader = classLoaders.get(urls);
+      if (classLoader != null && !classLoader.isUpToDate())
+      {
+         closePools(urls);
+         classLoader.close();
+         classLoader = null;
+      }
+      if (classLoader == null)
+      {
+         classLoader = new DriverClassLoader(urls);
+         classLoaders.put(urls, classLoader);
+      }
+      return classLoader;
+   }
+
+   private void closePools(List<URL> urls)
+   {
+      Iterator<Map.Entry<PoolKey, ConnectionPool>> iterator = pools.entrySet().iterator();
+      while (iterator.hasNext())
+      {
+         Map.Entry<PoolKey, ConnectionPool> entry = iterator.next();
+         if (entry.getKey().urls.equals(urls))
+         {
+            entry.getValue().close();
+            iterator.remove();
+         }
+      }
+   }
+
+   private void startEvictor()
+   {
+      if (evictor == null)
+      {
+         evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+         {
+            @Override
+            public Thread newThread(Runnable r)
+            {
+               Thread thread = new Thread(r, "Database Tools Connection Evictor");
+               thread.setDaemon(true);
+               return thread;
+            }
+         });
+         long period = Math.max(IDLE_TIMEOUT / 2, 1000L);
+         evictor.scheduleWithFixedDelay(new Runnable()
+         {
+            @Override
+            public void run()
+            {
+               List<ConnectionPool> current;
+               synchronized (ConnectionPoolManager.this)
+               {
+                  current = new ArrayList<ConnectionPool>(pools.values());
+               }
+               for (ConnectionPool pool : current)
+               {
+                  pool.evictIdle();
+               }
+            }
+         }, period, period, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   /**
+    * A missing user or password is the same as an empty one, as connection properties and profiles leave them out
+    * differently.
+    */
+   private static String normalize(String value)
+   {
+      return value == null ? "" : value;
+   }
+
+   private static boolean equal(String a, String b)
+   {
+      return a == null ? b == null : a.equals(b);
+   }
+
+   private static class DriverClassLoader
+   {
+      private final URLClassLoader classLoader;
+      private final List<URL> urls;
+      private final long[] lastModified;
+      private final Map<String, DelegatingDriver> drivers = new HashMap<String, DelegatingDriver>();
+
+      DriverClassLoader(List<URL> urls)
+      {
+         this.urls = urls;
+         this.classLoader = new URLClassLoader(urls.toArray(new URL[urls.size()]),
+                  ConnectionPoolManager.class.getClassLoader());
+         this.lastModified = getLastModified(urls);
+      }
+
+      boolean isUpToDate()
+      {
+         return Arrays.equals(lastModified, getLastModified(urls));
+      }
+
+      void close()
+      {
+         for (DelegatingDriver driver : drivers.values())
+         {
+            try
+            {
+               DriverManager.deregisterDriver(driver);
+            }
+            catch (SQLException e)
+            {
+               // ignore, the driver is discarded anyway
+            }
+         }
+         drivers.clear();
+         try
+         {
+            classLoader.close();
+         }
+         catch (IOException e)
+         {
+            // ignore, the class loader is discarded anyway
+         }
+      }
+
+      private static long[] getLastModified(List<URL> urls)
+      {
+         long[] result = new long[urls.size()];
+         for (int i = 0; i < result.length; i++)
+         {
+            try
+            {
+               if ("file".equals(urls.get(i).getProtocol()))
+               {
+                  result[i] = new File(urls.get(i).toURI()).lastModified();
+               }
+            }
+            catch (URISyntaxException e)
+            {
+               // not a local file, which is not reloaded
+            }
+         }
+         return result;
+      }
+   }
+
+   private static class PoolKey
+   {
+      private final List<URL> urls;
+      private final String driverClass;
+      private final String url;
+      private final String user;
+      private final String password;
+
+      PoolKey(List<URL> urls, String driverClass, String url, String user, String password)
+      {
+         this.urls = urls;
+         this.driverClass = driverClass;
+         this.url = url;
+         this.user = user;
+         this.password = password;
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         if (!(obj instanceof PoolKey))
+         {
+            return false;
+         }
+         PoolKey other = (PoolKey) obj;
+         return urls.equals(other.urls) && equal(driverClass, other.driverClass) && equal(url, other.url)
+                  && equal(user, other.user) && equal(password, other.password);
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return Arrays.hashCode(new Object[] { urls, driverClass, url, user, password });
+      }
+   }
+}
@@ -3,7 +3,6 @@ package org.jboss.forge.addon.database.tools.connections;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
-import java.net.URLClassLoader;
 import java.sql.Driver;
 import java.util.ArrayList;
 import java.util.Enumeration;
@@ -27,6 +26,9 @@ import org.jboss.forge.addon.ui.validate.UIValidator;
 public class ConnectionProfileDetailsPage
 {
 
+   @Inject
+   private ConnectionPoolManager connections;
+
    @Inject
    @WithAttributes(
             label = "JDBC URL",
@@ -128,7 +130,7 @@ public class ConnectionProfileDetailsPage
          try {
             File file = (File)resource.getUnderlyingResourceObject();
             URL[] urls = new URL[] { file.toURI().toURL() };
-            URLClassLoader classLoader = URLClassLoader.newInstance(urls);
+            ClassLoader classLoader = connections.getDriverClassLoader(urls);
             Class<?> driverClass = classLoader.loadClass(Driver.class.getName());
             jarFile = new JarFile(file);
             Enumeration<JarEntry> iter = jarFile.entries();
@@ -24,6 +24,9 @@ public class ConnectionProfileManagerImpl implements ConnectionProfileManager
    @Inject
    private Configuration config;
 
+   @Inject
+   private ConnectionPoolManager connections;
+
    @Override
    public Map<String, ConnectionProfile> loadConnectionProfiles()
    {
@@ -52,6 +55,7 @@ public class ConnectionProfileManagerImpl implements ConnectionProfileManager
    @Override
    public void saveConnectionProfiles(Collection<ConnectionProfile> connectionProfiles)
    {
+      releaseChangedProfiles(connectionProfiles);
       Node root = new Node("connection-profiles");
       for (ConnectionProfile descriptor : connectionProfiles)
       {
@@ -73,4 +77,32 @@ public class ConnectionProfileManagerImpl implements ConnectionProfileManager
       }
    }
 
+   /**
+    * Closes the connections of the profiles that are removed or point to another database.
+    */
+   private void releaseChangedProfiles(Collection<ConnectionProfile> connectionProfiles)
+   {
+      Map<String, ConnectionProfile> saved = new HashMap<String, ConnectionProfile>();
+      for (ConnectionProfile profile : connectionProfiles)
+      {
+         saved.put(profile.getName(), profile);
+      }
+      for (ConnectionProfile previous : loadConnectionProfiles().values())
+      {
+         ConnectionProfile current = saved.get(previous.getName());
+         if (current == null || !equal(current.getPath(), previous.getPath())
+                  || !equal(current.getDriver(), previous.getDriver())
+                  || !equal(current.getUrl(), previous.getUrl())
+                  || !equal(current.getUser(), previous.getUser()))
+         {
+            connections.release(previous);
+         }
+      }
+   }
+
+   private static boolean equal(String a, String b)
+   {
+      return a == null ? b == null : a.equals(b);
+   }
+
 }
@@ -1,25 +1,17 @@
 package org.jboss.forge.addon.database.tools.generate;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Properties;
+import java.util.Set;
 
 import javax.inject.Inject;
 
-import org.hibernate.cfg.JDBCMetaDataConfiguration;
-import org.hibernate.cfg.reveng.DefaultReverseEngineeringStrategy;
-import org.hibernate.cfg.reveng.ReverseEngineeringSettings;
-import org.hibernate.cfg.reveng.ReverseEngineeringStrategy;
-import org.hibernate.mapping.PersistentClass;
-import org.hibernate.mapping.Property;
-import org.hibernate.mapping.Table;
-import org.hibernate.tool.hbm2x.ArtifactCollector;
-import org.hibernate.tool.hbm2x.POJOExporter;
-import org.hibernate.tool.hbm2x.pojo.ComponentPOJOClass;
-import org.hibernate.tool.hbm2x.pojo.EntityPOJOClass;
-import org.hibernate.tool.hbm2x.pojo.POJOClass;
+import org.hibernate.cfg.reveng.TableIdentifier;
 import org.jboss.forge.addon.database.tools.util.HibernateToolsHelper;
 import org.jboss.forge.addon.parser.java.facets.JavaSourceFacet;
 import org.jboss.forge.addon.ui.context.UIBuilder;
@@ -42,6 +34,13 @@ public class DatabaseTableSelectionStep implements UIWizardStep
    private static String NAME = "Database Table Selection";
    private static String DESCRIPTION = "Select the database tables for which you want to generate entities";
 
+   /**
+    * The number of threads generating entities, one per processor by default. Can be changed with the
+    * <code>database.tools.export.threads</code> system property.
+    */
+   private static final int EXPORT_THREADS = Integer.getInteger("database.tools.export.threads", Runtime.getRuntime()
+            .availableProcessors());
+
    @Inject
    @WithAttributes(
             label = "Database Tables",
@@ -75,25 +74,33 @@ public class DatabaseTableSelectionStep implements UIWizardStep
    @Inject
    private HibernateToolsHelper helper;
    
-   private JDBCMetaDataConfiguration jmdc;
+   /**
+    * The tables of the database by label, as listed before any mapping metadata is read. Tables are labeled with their
+    * name, qualified with their catalog and schema if several tables have the same name.
+    */
+   private Map<String, TableIdentifier> tableIdentifiers;
 
-   @SuppressWarnings("unchecked")
    @Override
    public void initializeUI(UIBuilder builder) throws Exception
    {
-      jmdc = new JDBCMetaDataConfiguration();
-      jmdc.setProperties(descriptor.connectionProperties);
-      jmdc.setReverseEngineeringStrategy(createReverseEngineeringStrategy());
-      helper.buildMappings(descriptor.urls, descriptor.driverClass, jmdc);
-      Iterator<Object> iterator = jmdc.getTableMappings();
-      ArrayList<String> tables = new ArrayList<String>();
-      while (iterator.hasNext()) {
-         Object mapping = iterator.next();
-         if (mapping instanceof Table) {
-            Table table = (Table)mapping;
-            tables.add(table.getName());
+      List<TableIdentifier> databaseTableIdentifiers = helper.getTables(descriptor.urls, descriptor.driverClass,
+               descriptor.connectionProperties);
+      Set<String> names = new HashSet<String>();
+      Set<String> duplicateNames = new HashSet<String>();
+      for (TableIdentifier table : databaseTableIdentifiers)
+      {
+         if (!names.add(table.getName()))
+         {
+            duplicateNames.add(table.getName());
          }
       }
+      tableIdentifiers = new LinkedHashMap<String, TableIdentifier>();
+      for (TableIdentifier table : databaseTableIdentifiers)
+      {
+         String label = duplicateNames.contains(table.getName()) ? getQualifiedName(table) : table.getName();
+         tableIdentifiers.put(label, table);
+      }
+      ArrayList<String> tables = new ArrayList<String>(tableIdentifiers.keySet());
       databaseTables.setValueChoices(tables);
       databaseTables.setDefaultValue(tables);
       builder.add(databaseTables);
@@ -111,83 +118,42 @@ public class DatabaseTableSelectionStep implements UIWizardStep
    {
    }
    
-   private boolean isSelected(Collection<String> selection, POJOClass element) {
-      boolean result = false;
-      if (element.isComponent()) {
-         if (element instanceof ComponentPOJOClass) {
-            ComponentPOJOClass cpc = (ComponentPOJOClass)element;
-            Iterator<?> iterator = cpc.getAllPropertiesIterator();
-            result = true;
-            while (iterator.hasNext()) {
-               Object object = iterator.next();
-               if (object instanceof Property) {
-                  Property property = (Property)object;
-                  String tableName = property.getValue().getTable().getName();
-                  if (!selection.contains(tableName)) {
-                     result = false;
-                     break;
-                  }
-               }
-            }
-         }
-      } else {
-         if (element instanceof EntityPOJOClass) {
-            EntityPOJOClass epc = (EntityPOJOClass)element;
-            Object object = epc.getDecoratedObject();
-            if (object instanceof PersistentClass) {
-               PersistentClass pc = (PersistentClass)object;
-               Table table = pc.getTable();
-               if (selection.contains(table.getName())) {
-                  result = true;
-               }               
-            }
-         }
-      }
-      return result;
-   }
-   
-   private Collection<String> getSelectedTableNames() {
-      ArrayList<String> result = new ArrayList<String>();
+   private Set<TableIdentifier> getSelectedTables() {
+      Set<TableIdentifier> result = new LinkedHashSet<TableIdentifier>();
       Iterator<String> iterator = databaseTables.getValue().iterator();
       while (iterator.hasNext()) {
-         result.add(iterator.next());
+         TableIdentifier table = tableIdentifiers.get(iterator.next());
+         if (table != null) {
+            result.add(table);
+         }
       }
       return result;
    }
    
+   /**
+    * Reads the full metadata and builds the mappings of the selected tables, and of the tables they are associated
+    * with, only, and exports the entities of the selected tables.
+    */
    private void exportSelectedEntities()
-   {     
-      final Collection<String> selectedTableNames = getSelectedTableNames();     
+   {
       JavaSourceFacet java = descriptor.selectedProject.getFacet(JavaSourceFacet.class);
-      POJOExporter pj = new POJOExporter(jmdc, java.getSourceDirectory()
-               .getUnderlyingResourceObject()) {
-         @Override
-         @SuppressWarnings("rawtypes")
-         protected void exportPOJO(Map additionalContext, POJOClass element) {
-            if (isSelected(selectedTableNames, element)) {
-               super.exportPOJO(additionalContext, element);
-            }
-         }
-      };
-      Properties pojoProperties = new Properties();
-      pojoProperties.setProperty("jdk5", "true");
-      pojoProperties.setProperty("ejb3", "true");
-      pj.setProperties(pojoProperties);
-      pj.setArtifactCollector(new ArtifactCollector());
-      pj.start();
+      helper.generateEntities(descriptor.urls, descriptor.driverClass, descriptor.connectionProperties,
+               getSelectedTables(), descriptor.targetPackage, java.getSourceDirectory().getUnderlyingResourceObject(),
+               EXPORT_THREADS);
    }
 
-   private ReverseEngineeringStrategy createReverseEngineeringStrategy()
+   private static String getQualifiedName(TableIdentifier table)
    {
-      ReverseEngineeringStrategy strategy = new DefaultReverseEngineeringStrategy();
-      ReverseEngineeringSettings revengsettings =
-               new ReverseEngineeringSettings(strategy)
-                        .setDefaultPackageName(descriptor.targetPackage)
-                        .setDetectManyToMany(true)
-                        .setDetectOneToOne(true)
-                        .setDetectOptimisticLock(true);
-      strategy.setSettings(revengsettings);
-      return strategy;
+      StringBuilder result = new StringBuilder();
+      if (table.getCatalog() != null)
+      {
+         result.append(table.getCatalog()).append('.');
+      }
+      if (table.getSchema() != null)
+      {
+         result.append(table.getSchema()).append('.');
+      }
+      return result.append(table.getName()).toString();
    }
 
 }
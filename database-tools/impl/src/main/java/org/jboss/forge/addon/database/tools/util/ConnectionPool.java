@@ -0,0 +1,270 @@
+package org.jboss.forge.addon.database.tools.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded pool of connections to one database. Closing a borrowed connection returns it to the pool, and connections
+ * that stay idle for longer than the idle timeout are closed by {@link #evictIdle()}.
+ */
+public class ConnectionPool
+{
+   private static final long BORROW_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+   private final Driver driver;
+   private final String url;
+   private final Properties info;
+   private final long idleTimeout;
+   private final Semaphore permits;
+   private final Deque<IdleConnection> idle = new ArrayDeque<IdleConnection>();
+   private boolean closed;
+
+   /**
+    * @param maxSize the maximum number of connections open at the same time
+    * @param idleTimeout the time in milliseconds after which idle connections are closed
+    */
+   public ConnectionPool(Driver driver, String url, Properties info, int maxSize, long idleTimeout)
+   {
+      this.driver = driver;
+      this.url = url;
+      this.info = info;
+      this.idleTimeout = idleTimeout;
+      this.permits = new Semaphore(maxSize, true);
+   }
+
+   /**
+    * Returns an idle connection, or opens a new one if there is none. Waits for a connection to be returned if the
+    * maximum number of connections is open.
+    */
+   public Connection getConnection() throws SQLException
+   {
+      try
+      {
+         if (!permits.tryAcquire(BORROW_TIMEOUT, TimeUnit.MILLISECONDS))
+         {
+            throw new SQLException("Timed out waiting for a connection to " + url);
+         }
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new SQLException("Interrupted while waiting for a connection to " + url, e);
+      }
+      try
+      {
+         Connection connection = takeIdle();
+         if (connection == null)
+         {
+            connection = driver.connect(url, info);
+            if (connection == null)
+            {
+               throw new SQLException("Driver " + driver.getClass().getName() + " does not accept the URL " + url);
+            }
+         }
+         return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                  new Class<?>[] { Connection.class }, new PooledConnection(connection));
+      }
+      catch (SQLException e)
+      {
+         permits.release();
+         throw e;
+      }
+      catch (RuntimeException e)
+      {
+         permits.release();
+         throw e;
+      }
+   }
+
+   /**
+    * Closes the connections that have been idle for longer than the idle timeout.
+    */
+   public void evictIdle()
+   {
+      long now = System.currentTimeMillis();
+      List<Connection> expired = new ArrayList<Connection>();
+      synchronized (idle)
+      {
+         Iterator<IdleConnection> iterator = idle.iterator();
+         while (iterator.hasNext())
+         {
+            IdleConnection connection = iterator.next();
+            if (now - connection.since >= idleTimeout)
+            {
+               expired.add(connection.connection);
+               iterator.remove();
+            }
+         }
+      }
+      closeQuietly(expired);
+   }
+
+   /**
+    * Closes all idle connections. Connections still in use are closed when they are returned.
+    */
+   public void close()
+   {
+      List<Connection> connections = new ArrayList<Connection>();
+      synchronized (idle)
+      {
+         closed = true;
+         for (IdleConnection connection : idle)
+         {
+            connections.add(connection.connection);
+         }
+         idle.clear();
+      }
+      closeQuietly(connections);
+   }
+
+   private Connection takeIdle() throws SQLException
+   {
+      while (true)
+      {
+         IdleConnection connection;
+         synchronized (idle)
+         {
+            if (closed)
+            {
+               throw new SQLException("The connection pool for " + url + " is closed");
+            }
+            connection = idle.pollFirst();
+         }
+         if (connection == null)
+         {
+            return null;
+         }
+         if (!connection.connection.isClosed())
+         {
+            return connection.connection;
+         }
+      }
+   }
+
+   private void giveBack(Connection connection)
+   {
+      try
+      {
+         boolean reuse = !connection.isClosed();
+         if (reuse && !connection.getAutoCommit())
+         {
+            connection.rollback();
+            connection.setAutoCommit(true);
+         }
+         synchronized (idle)
+         {
+            if (reuse && !closed)
+            {
+               idle.addFirst(new IdleConnection(connection));
+               return;
+            }
+         }
+         closeQuietly(connection);
+      }
+      catch (SQLException e)
+      {
+         closeQuietly(connection);
+      }
+      finally
+      {
+         permits.release();
+      }
+   }
+
+   private static void closeQuietly(List<Connection> connections)
+   {
+      for (Connection connection : connections)
+      {
+         closeQuietly(connection);
+      }
+   }
+
+   private static void closeQuietly(Connection connection)
+   {
+      try
+      {
+         connection.close();
+      }
+      catch (SQLException e)
+      {
+         // ignore, the connection is discarded anyway
+      }
+   }
+
+   private static class IdleConnection
+   {
+      private final Connection connection;
+      private final long since = System.currentTimeMillis();
+
+      IdleConnection(Connection connection)
+      {
+         this.connection = connection;
+      }
+   }
+
+   /**
+    * Returns the connection to the pool instead of closing it.
+    */
+   private class PooledConnection implements InvocationHandler
+   {
+      private final Connection connection;
+      private boolean returned;
+
+      PooledConnection(Connection connection)
+      {
+         this.connection = connection;
+      }
+
+      @Override
+      public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+      {
+         String name = method.getName();
+         if ("close".equals(name) && method.getParameterTypes().length == 0)
+         {
+            if (!returned)
+            {
+               returned = true;
+               giveBack(connection);
+            }
+            return null;
+         }
+         if ("isClosed".equals(name) && method.getParameterTypes().length == 0)
+         {
+            return returned || connection.isClosed();
+         }
+         if ("equals".equals(name) && method.getParameterTypes().length == 1)
+         {
+            return proxy == args[0];
+         }
+         if ("hashCode".equals(name) && method.getParameterTypes().length == 0)
+         {
+            return System.identityHashCode(proxy);
+         }
+         if (returned)
+         {
+            throw new SQLException("The connection is closed");
+         }
+         try
+         {
+            return method.invoke(connection, args);
+         }
+         catch (InvocationTargetException e)
+         {
+            throw e.getCause();
+         }
+      }
+   }
+}
@@ -3,32 +3,70 @@ package org.jboss.forge.addon.database.tools.util;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.sql.Driver;
-import java.sql.DriverManager;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import javax.inject.Inject;
 
 import org.hibernate.cfg.JDBCMetaDataConfiguration;
+import org.hibernate.cfg.reveng.DefaultReverseEngineeringStrategy;
+import org.hibernate.cfg.reveng.ReverseEngineeringSettings;
+import org.hibernate.cfg.reveng.ReverseEngineeringStrategy;
+import org.hibernate.cfg.reveng.TableIdentifier;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.Property;
+import org.hibernate.mapping.Table;
+import org.hibernate.tool.hbm2x.ArtifactCollector;
+import org.hibernate.tool.hbm2x.POJOExporter;
+import org.hibernate.tool.hbm2x.pojo.ComponentPOJOClass;
+import org.hibernate.tool.hbm2x.pojo.EntityPOJOClass;
+import org.hibernate.tool.hbm2x.pojo.POJOClass;
+import org.jboss.forge.addon.database.tools.connections.ConnectionPoolManager;
 import org.jboss.forge.addon.resource.FileResource;
 
 public class HibernateToolsHelper
 {
-      
+   private static final String[] TABLE_TYPES = { "TABLE", "VIEW" };
+
+   /**
+    * The number of rows fetched at once when listing tables, as some drivers default to very small pages for metadata
+    * queries. Can be changed with the <code>database.tools.fetchSize</code> system property.
+    */
+   private static final int FETCH_SIZE = Integer.getInteger("database.tools.fetchSize", 500);
+
+   @Inject
+   private ConnectionPoolManager connections;
+
    public void buildMappings(
-            URL[] urls, 
+            final URL[] urls, 
             final String driverName, 
             final JDBCMetaDataConfiguration result)
    {
-      UrlClassLoaderExecutor.execute(urls, new Runnable() {
+      UrlClassLoaderExecutor.execute(connections.getDriverClassLoader(urls), new Runnable() {
          @Override
          public void run()
          {
             try
             {
-               Driver driver = (Driver) Class.forName(
-                        driverName,
-                        true,
-                        Thread.currentThread().getContextClassLoader()).newInstance();
-               DriverManager.registerDriver(new DelegatingDriver(driver));
+               connections.getDriver(urls, driverName);
                result.readFromJDBC();
                result.buildMappings();
             }
@@ -40,6 +78,214 @@ public class HibernateToolsHelper
      });
    }
 
+   /**
+    * Lists the tables and views of the database, without reading their columns or keys, so that this is fast even for
+    * large schemas. The default catalog and schema of the given connection properties are used, if any.
+    */
+   public List<TableIdentifier> getTables(
+            URL[] urls,
+            String driverName,
+            final Properties connectionProperties)
+   {
+      final List<TableIdentifier> result = new ArrayList<TableIdentifier>();
+      readMetaData(urls, driverName, connectionProperties, new MetaDataReader()
+      {
+         @Override
+         public void read(DatabaseMetaData metaData) throws SQLException
+         {
+            ResultSet tables = metaData.getTables(
+                     connectionProperties.getProperty("hibernate.default_catalog"),
+                     connectionProperties.getProperty("hibernate.default_schema"),
+                     "%",
+                     TABLE_TYPES);
+            try
+            {
+               setFetchSize(tables);
+               while (tables.next())
+               {
+                  result.add(new TableIdentifier(
+                           tables.getString("TABLE_CAT"),
+                           tables.getString("TABLE_SCHEM"),
+                           tables.getString("TABLE_NAME")));
+               }
+            }
+            finally
+            {
+               tables.close();
+            }
+         }
+      });
+      return result;
+   }
+
+   /**
+    * Returns the given tables together with the tables needed to map their associations: the tables referring to them
+    * through a foreign key, such as the link tables of many-to-many associations, and all tables referred to by these,
+    * directly or indirectly.
+    */
+   public Set<TableIdentifier> getForeignKeyClosure(
+            URL[] urls,
+            String driverName,
+            Properties connectionProperties,
+            final Collection<TableIdentifier> tables)
+   {
+      final Set<TableIdentifier> result = new LinkedHashSet<TableIdentifier>(tables);
+      readMetaData(urls, driverName, connectionProperties, new MetaDataReader()
+      {
+         @Override
+         public void read(DatabaseMetaData metaData) throws SQLException
+         {
+            Deque<TableIdentifier> pending = new ArrayDeque<TableIdentifier>(tables);
+            for (TableIdentifier table : tables)
+            {
+               ResultSet keys = metaData.getExportedKeys(table.getCatalog(), table.getSchema(), table.getName());
+               addTables(keys, "FKTABLE_", result, pending);
+            }
+            while (!pending.isEmpty())
+            {
+               TableIdentifier table = pending.removeFirst();
+               ResultSet keys = metaData.getImportedKeys(table.getCatalog(), table.getSchema(), table.getName());
+               addTables(keys, "PKTABLE_", result, pending);
+            }
+         }
+      });
+      return result;
+   }
+
+   /**
+    * Creates a strategy mapping only the given tables to entities in the given package. Tables are told apart by their
+    * catalog, schema and name, so that tables of the same name in other schemas are not mapped. A catalog or schema
+    * which is not known on either side matches any.
+    */
+   public ReverseEngineeringStrategy createReverseEngineeringStrategy(Collection<TableIdentifier> tables,
+            String packageName)
+   {
+      final TableSelection selection = new TableSelection(tables);
+      ReverseEngineeringStrategy strategy = new DefaultReverseEngineeringStrategy()
+      {
+         @Override
+         public boolean excludeTable(TableIdentifier ti)
+         {
+            return !selection.contains(ti);
+         }
+      };
+      ReverseEngineeringSettings settings = new ReverseEngineeringSettings(strategy)
+               .setDefaultPackageName(packageName)
+               .setDetectManyToMany(true)
+               .setDetectOneToOne(true)
+               .setDetectOptimisticLock(true);
+      strategy.setSettings(settings);
+      return strategy;
+   }
+
+   /**
+    * Generates the entities and components of the given tables into the output directory, and returns the files
+    * written. Hibernate Tools' exporters read the whole configuration and are not thread-safe, so the tables are
+    * partitioned across the given number of threads, each building and exporting its own configuration from the
+    * {@link #getForeignKeyClosure(URL[], String, Properties, Collection) foreign key closure} of its tables. Each
+    * entity is thus generated from the same mappings as when exporting all tables at once.
+    */
+   public ArtifactCollector generateEntities(final URL[] urls, final String driverName,
+            final Properties connectionProperties, Collection<TableIdentifier> tables, final String packageName,
+            final File outputDirectory, int threads)
+   {
+      List<TableIdentifier> remaining = new ArrayList<TableIdentifier>(tables);
+      int partitions = Math.max(1, Math.min(threads, remaining.size()));
+      if (partitions == 1)
+      {
+         return generatePartition(urls, driverName, connectionProperties, remaining, packageName, outputDirectory);
+      }
+
+      final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+      ExecutorService executor = Executors.newFixedThreadPool(partitions, new ThreadFactory()
+      {
+         @Override
+         public Thread newThread(Runnable r)
+         {
+            Thread thread = new Thread(r, "Entity Generator");
+            thread.setDaemon(true);
+            thread.setContextClassLoader(contextClassLoader);
+            return thread;
+         }
+      });
+      try
+      {
+         List<Future<ArtifactCollector>> results = new ArrayList<Future<ArtifactCollector>>();
+         int size = (remaining.size() + partitions - 1) / partitions;
+         for (int start = 0; start < remaining.size(); start += size)
+         {
+            final List<TableIdentifier> partition = remaining.subList(start, Math.min(start + size, remaining.size()));
+            results.add(executor.submit(new Callable<ArtifactCollector>()
+            {
+               @Override
+               public ArtifactCollector call()
+               {
+                  return generatePartition(urls, driverName, connectionProperties, partition, packageName,
+                           outputDirectory);
+               }
+            }));
+         }
+
+         ArtifactCollector collector = new ArtifactCollector();
+         for (Future<ArtifactCollector> result : results)
+         {
+            ArtifactCollector partial = result.get();
+            for (String type : partial.getFileTypes())
+            {
+               for (File file : partial.getFiles(type))
+               {
+                  collector.addFile(file, type);
+               }
+            }
+         }
+         return collector;
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException("Interrupted while generating entities", e);
+      }
+      catch (ExecutionException e)
+      {
+         if (e.getCause() instanceof RuntimeException)
+            throw (RuntimeException) e.getCause();
+         throw new RuntimeException("Could not generate entities: " + e.getCause().getMessage(), e.getCause());
+      }
+      finally
+      {
+         executor.shutdownNow();
+      }
+   }
+
+   /**
+    * Generates the entities and components of the given tables from the mappings of the given configuration into the
+    * output directory, and returns the files written.
+    */
+   public ArtifactCollector exportEntities(JDBCMetaDataConfiguration configuration, File outputDirectory,
+            Collection<TableIdentifier> tables)
+   {
+      final TableSelection selection = new TableSelection(tables);
+      POJOExporter exporter = new POJOExporter(configuration, outputDirectory)
+      {
+         @Override
+         @SuppressWarnings("rawtypes")
+         protected void exportPOJO(Map additionalContext, POJOClass element)
+         {
+            if (isSelected(selection, element))
+            {
+               super.exportPOJO(additionalContext, element);
+            }
+         }
+      };
+      Properties pojoProperties = new Properties();
+      pojoProperties.setProperty("jdk5", "true");
+      pojoProperties.setProperty("ejb3", "true");
+      exporter.setProperties(pojoProperties);
+      exporter.setArtifactCollector(new ArtifactCollector());
+      exporter.start();
+      return exporter.getArtifactCollector();
+   }
+
    public URL[] getDriverUrls(FileResource<?> resource)
    {
       try {
@@ -51,4 +297,117 @@ public class HibernateToolsHelper
          return null;
       }
    }
+
+   /**
+    * Builds the mappings of the given tables, and of the tables needed to map their associations, and exports the
+    * entities of the given tables.
+    */
+   private ArtifactCollector generatePartition(URL[] urls, String driverName, Properties connectionProperties,
+            Collection<TableIdentifier> tables, String packageName, File outputDirectory)
+   {
+      Set<TableIdentifier> mappedTables = getForeignKeyClosure(urls, driverName, connectionProperties, tables);
+      JDBCMetaDataConfiguration configuration = new JDBCMetaDataConfiguration();
+      configuration.setProperties(connectionProperties);
+      configuration.setReverseEngineeringStrategy(createReverseEngineeringStrategy(mappedTables, packageName));
+      buildMappings(urls, driverName, configuration);
+      return exportEntities(configuration, outputDirectory, tables);
+   }
+
+   private void readMetaData(
+            URL[] urls,
+            String driverName,
+            Properties connectionProperties,
+            MetaDataReader reader)
+   {
+      try
+      {
+         Connection connection = connections.getConnection(urls, driverName, connectionProperties);
+         try
+         {
+            reader.read(connection.getMetaData());
+         }
+         finally
+         {
+            connection.close();
+         }
+      }
+      catch (SQLException e)
+      {
+         throw new RuntimeException("Could not read the database metadata: " + e.getMessage(), e);
+      }
+   }
+
+   private static void addTables(ResultSet keys, String prefix, Set<TableIdentifier> result,
+            Deque<TableIdentifier> pending) throws SQLException
+   {
+      try
+      {
+         while (keys.next())
+         {
+            TableIdentifier table = new TableIdentifier(
+                     keys.getString(prefix + "CAT"),
+                     keys.getString(prefix + "SCHEM"),
+                     keys.getString(prefix + "NAME"));
+            if (result.add(table))
+            {
+               pending.add(table);
+            }
+         }
+      }
+      finally
+      {
+         keys.close();
+      }
+   }
+
+   /**
+    * Returns whether the given class maps one of the given tables or, for a component, whether all of its properties
+    * do.
+    */
+   private static boolean isSelected(TableSelection selection, POJOClass element)
+   {
+      if (element instanceof ComponentPOJOClass)
+      {
+         Iterator<?> iterator = ((ComponentPOJOClass) element).getAllPropertiesIterator();
+         while (iterator.hasNext())
+         {
+            Object object = iterator.next();
+            if (object instanceof Property
+                     && !selection.contains(getTableIdentifier(((Property) object).getValue().getTable())))
+            {
+               return false;
+            }
+         }
+         return true;
+      }
+      if (element instanceof EntityPOJOClass)
+      {
+         Object object = ((EntityPOJOClass) element).getDecoratedObject();
+         return object instanceof PersistentClass
+                  && selection.contains(getTableIdentifier(((PersistentClass) object).getTable()));
+      }
+      return false;
+   }
+
+   private static TableIdentifier getTableIdentifier(Table table)
+   {
+      return new TableIdentifier(table.getCatalog(), table.getSchema(), table.getName());
+   }
+
+   private static void setFetchSize(ResultSet resultSet)
+   {
+      try
+      {
+         resultSet.setFetchSize(FETCH_SIZE);
+      }
+      catch (SQLException e)
+      {
+         // Only a hint, which not all drivers support for metadata
+      }
+   }
+
+   private interface MetaDataReader
+   {
+      void read(DatabaseMetaData metaData) throws SQLException;
+   }
 }
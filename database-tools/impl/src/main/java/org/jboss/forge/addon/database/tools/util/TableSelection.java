@@ -0,0 +1,57 @@
+package org.jboss.forge.addon.database.tools.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.cfg.reveng.TableIdentifier;
+
+/**
+ * A selection of tables, told apart by their catalog, schema and name. A catalog or schema which is not known on either
+ * side matches any, so tables are looked up by name, and only the tables of the same name are compared further.
+ */
+public class TableSelection
+{
+   private final Map<String, List<TableIdentifier>> tablesByName = new HashMap<String, List<TableIdentifier>>();
+
+   public TableSelection(Collection<TableIdentifier> tables)
+   {
+      for (TableIdentifier table : tables)
+      {
+         List<TableIdentifier> candidates = tablesByName.get(table.getName());
+         if (candidates == null)
+         {
+            candidates = new ArrayList<TableIdentifier>(1);
+            tablesByName.put(table.getName(), candidates);
+         }
+         candidates.add(table);
+      }
+   }
+
+   /**
+    * Returns whether this selection contains the given table.
+    */
+   public boolean contains(TableIdentifier table)
+   {
+      List<TableIdentifier> candidates = tablesByName.get(table.getName());
+      if (candidates != null)
+      {
+         for (TableIdentifier candidate : candidates)
+         {
+            if (matches(candidate.getCatalog(), table.getCatalog())
+                     && matches(candidate.getSchema(), table.getSchema()))
+            {
+               return true;
+            }
+         }
+      }
+      return false;
+   }
+
+   private static boolean matches(String first, String second)
+   {
+      return first == null || second == null || first.equals(second);
+   }
+}
@@ -1,15 +1,11 @@
 package org.jboss.forge.addon.database.tools.util;
 
-import java.net.URL;
-import java.net.URLClassLoader;
-
 public class UrlClassLoaderExecutor {
 
-	public static void execute(URL[] urls, Runnable runnable) {
+	public static void execute(ClassLoader classLoader, Runnable runnable) {
 		ClassLoader savedClassLoader = Thread.currentThread().getContextClassLoader();
 		try {
-			URLClassLoader newClassLoader = new URLClassLoader(urls, savedClassLoader);
-			Thread.currentThread().setContextClassLoader(newClassLoader);
+			Thread.currentThread().setContextClassLoader(classLoader);
 			runnable.run();
 		} finally {
 			Thread.currentThread().setContextClassLoader(savedClassLoader);
@@ -0,0 +1,129 @@
+/**
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.database.tools.connections;
+
+import java.io.File;
+import java.net.URL;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+import org.jboss.forge.furnace.util.OperatingSystemUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConnectionPoolManagerTest
+{
+   private static final String DRIVER = "org.h2.Driver";
+
+   private ConnectionPoolManager manager;
+   private File driverJar;
+   private URL[] urls;
+   private File directory;
+   private Properties properties;
+
+   @Before
+   public void setUp() throws Exception
+   {
+      manager = new ConnectionPoolManager();
+      driverJar = new File(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+      urls = new URL[] { driverJar.toURI().toURL() };
+      directory = OperatingSystemUtils.createTempDir();
+      properties = new Properties();
+      properties.setProperty("hibernate.connection.url", "jdbc:h2:" + new File(directory, "test").getAbsolutePath());
+   }
+
+   @After
+   public void tearDown()
+   {
+      manager.close();
+   }
+
+   @Test
+   public void testConnectionsAreReusedForTheSameProperties() throws Exception
+   {
+      Connection connection = manager.getConnection(urls, DRIVER, properties);
+      execute(connection, "SET @marker = 42");
+      connection.close();
+
+      connection = manager.getConnection(urls, DRIVER, properties);
+      Assert.assertEquals(42, queryInt(connection, "SELECT @marker"));
+      connection.close();
+   }
+
+   @Test
+   public void testReleaseClosesThePoolOfAProfileWithoutUser() throws Exception
+   {
+      Connection connection = manager.getConnection(urls, DRIVER, properties);
+      execute(connection, "SET @marker = 42");
+      connection.close();
+
+      ConnectionProfile profile = new ConnectionProfile();
+      profile.setPath(driverJar.getAbsolutePath());
+      profile.setDriver(DRIVER);
+      profile.setUrl(properties.getProperty("hibernate.connection.url"));
+      manager.release(profile);
+
+      connection = manager.getConnection(urls, DRIVER, properties);
+      Assert.assertEquals("The released pool must not hand out its connections", 0,
+               queryInt(connection, "SELECT COALESCE(@marker, 0)"));
+      connection.close();
+   }
+
+   @Test
+   public void testReleaseKeepsThePoolsOfOtherUsers() throws Exception
+   {
+      properties.setProperty("hibernate.connection.username", "sa");
+      Connection connection = manager.getConnection(urls, DRIVER, properties);
+      execute(connection, "SET @marker = 42");
+      connection.close();
+
+      ConnectionProfile profile = new ConnectionProfile();
+      profile.setPath(driverJar.getAbsolutePath());
+      profile.setDriver(DRIVER);
+      profile.setUrl(properties.getProperty("hibernate.connection.url"));
+      profile.setUser("other");
+      manager.release(profile);
+
+      connection = manager.getConnection(urls, DRIVER, properties);
+      Assert.assertEquals(42, queryInt(connection, "SELECT @marker"));
+      connection.close();
+   }
+
+   private static void execute(Connection connection, String sql) throws SQLException
+   {
+      Statement statement = connection.createStatement();
+      try
+      {
+         statement.execute(sql);
+      }
+      finally
+      {
+         statement.close();
+      }
+   }
+
+   private static int queryInt(Connection connection, String sql) throws SQLException
+   {
+      Statement statement = connection.createStatement();
+      try
+      {
+         ResultSet resultSet = statement.executeQuery(sql);
+         resultSet.next();
+         return resultSet.getInt(1);
+      }
+      finally
+      {
+         statement.close();
+      }
+   }
+}
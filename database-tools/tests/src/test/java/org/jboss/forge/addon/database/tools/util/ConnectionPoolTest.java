@@ -0,0 +1,256 @@
+/**
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.database.tools.util;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jboss.forge.furnace.util.OperatingSystemUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConnectionPoolTest
+{
+   private File directory;
+   private String url;
+   private Properties info;
+
+   /**
+    * The connections opened by the driver, as the pool only hands out wrappers
+    */
+   private final List<Connection> opened = new CopyOnWriteArrayList<Connection>();
+   private Driver driver;
+
+   @Before
+   public void setUp() throws Exception
+   {
+      directory = OperatingSystemUtils.createTempDir();
+      url = "jdbc:h2:" + new File(directory, "test").getAbsolutePath();
+      info = new Properties();
+      info.setProperty("user", "sa");
+      info.setProperty("password", "");
+      final Driver h2 = new org.h2.Driver();
+      driver = (Driver) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Driver.class },
+               new InvocationHandler()
+               {
+                  @Override
+                  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                  {
+                     try
+                     {
+                        Object result = method.invoke(h2, args);
+                        if ("connect".equals(method.getName()) && result != null)
+                        {
+                           opened.add((Connection) result);
+                        }
+                        return result;
+                     }
+                     catch (InvocationTargetException e)
+                     {
+                        throw e.getCause();
+                     }
+                  }
+               });
+   }
+
+   @After
+   public void tearDown()
+   {
+      for (Connection connection : opened)
+      {
+         try
+         {
+            connection.close();
+         }
+         catch (SQLException e)
+         {
+            // ignore
+         }
+      }
+      delete(directory);
+   }
+
+   @Test
+   public void testReturnedConnectionIsReused() throws Exception
+   {
+      ConnectionPool pool = new ConnectionPool(driver, url, info, 2, 60000L);
+      Connection connection = pool.getConnection();
+      execute(connection, "SET @marker = 42");
+      connection.close();
+      Assert.assertTrue(connection.isClosed());
+
+      Connection reused = pool.getConnection();
+      Assert.assertEquals(42, queryInt(reused, "SELECT @marker"));
+      Assert.assertEquals(1, opened.size());
+      reused.close();
+   }
+
+   @Test(expected = SQLException.class)
+   public void testReturnedConnectionCannotBeUsed() throws Exception
+   {
+      ConnectionPool pool = new ConnectionPool(driver, url, info, 2, 60000L);
+      Connection connection = pool.getConnection();
+      connection.close();
+      connection.createStatement();
+   }
+
+   @Test
+   public void testClosedIdleConnectionIsNotHandedOut() throws Exception
+   {
+      ConnectionPool pool = new ConnectionPool(driver, url, info, 2, 60000L);
+      pool.getConnection().close();
+      opened.get(0).close();
+
+      Connection connection = pool.getConnection();
+      Assert.assertFalse(connection.isClosed());
+      Assert.assertEquals(1, queryInt(connection, "SELECT 1"));
+      Assert.assertEquals(2, opened.size());
+      connection.close();
+   }
+
+   @Test
+   public void testPendingTransactionIsRolledBackOnReturn() throws Exception
+   {
+      ConnectionPool pool = new ConnectionPool(driver, url, info, 1, 60000L);
+      Connection connection = pool.getConnection();
+      execute(connection, "CREATE TABLE item(id INTEGER PRIMARY KEY)");
+      connection.setAutoCommit(false);
+      execute(connection, "INSERT INTO item VALUES (1)");
+      connection.close();
+
+      connection = pool.getConnection();
+      Assert.assertTrue(connection.getAutoCommit());
+      Assert.assertEquals(0, queryInt(connection, "SELECT COUNT(*) FROM item"));
+      connection.close();
+   }
+
+   @Test
+   public void testBorrowWaitsForReturnedConnection() throws Exception
+   {
+      final ConnectionPool pool = new ConnectionPool(driver, url, info, 1, 60000L);
+      Connection connection = pool.getConnection();
+      final CountDownLatch borrowed = new CountDownLatch(1);
+      final AtomicReference<Connection> second = new AtomicReference<Connection>();
+      Thread thread = new Thread()
+      {
+         @Override
+         public void run()
+         {
+            try
+            {
+               second.set(pool.getConnection());
+               borrowed.countDown();
+            }
+            catch (SQLException e)
+            {
+               // the test fails on the missing connection
+            }
+         }
+      };
+      thread.start();
+      Assert.assertFalse("Only one connection may be open", borrowed.await(200, TimeUnit.MILLISECONDS));
+
+      connection.close();
+      Assert.assertTrue(borrowed.await(10, TimeUnit.SECONDS));
+      Assert.assertEquals(1, opened.size());
+      second.get().close();
+      thread.join();
+   }
+
+   @Test
+   public void testIdleConnectionsAreEvicted() throws Exception
+   {
+      ConnectionPool pool = new ConnectionPool(driver, url, info, 2, 0L);
+      pool.getConnection().close();
+      pool.evictIdle();
+      Assert.assertTrue(opened.get(0).isClosed());
+
+      pool.getConnection().close();
+      Assert.assertEquals(2, opened.size());
+   }
+
+   @Test
+   public void testCloseClosesIdleAndReturnedConnections() throws Exception
+   {
+      ConnectionPool pool = new ConnectionPool(driver, url, info, 2, 60000L);
+      Connection borrowed = pool.getConnection();
+      pool.getConnection().close();
+
+      pool.close();
+      Assert.assertTrue(opened.get(1).isClosed());
+      Assert.assertFalse(opened.get(0).isClosed());
+      borrowed.close();
+      Assert.assertTrue(opened.get(0).isClosed());
+
+      try
+      {
+         pool.getConnection();
+         Assert.fail("A closed pool must not hand out connections");
+      }
+      catch (SQLException expected)
+      {
+      }
+   }
+
+   private static void execute(Connection connection, String sql) throws SQLException
+   {
+      Statement statement = connection.createStatement();
+      try
+      {
+         statement.execute(sql);
+      }
+      finally
+      {
+         statement.close();
+      }
+   }
+
+   private static int queryInt(Connection connection, String sql) throws SQLException
+   {
+      Statement statement = connection.createStatement();
+      try
+      {
+         ResultSet resultSet = statement.executeQuery(sql);
+         resultSet.next();
+         return resultSet.getInt(1);
+      }
+      finally
+      {
+         statement.close();
+      }
+   }
+
+   private static void delete(File file)
+   {
+      File[] children = file.listFiles();
+      if (children != null)
+      {
+         for (File child : children)
+         {
+            delete(child);
+         }
+      }
+      file.delete();
+   }
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.database.tools.util;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import org.hibernate.cfg.JDBCMetaDataConfiguration;
+import org.hibernate.cfg.reveng.ReverseEngineeringStrategy;
+import org.hibernate.cfg.reveng.TableIdentifier;
+import org.hibernate.mapping.Table;
+import org.hibernate.tool.hbm2x.ArtifactCollector;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.forge.addon.dependencies.Dependency;
+import org.jboss.forge.addon.dependencies.DependencyResolver;
+import org.jboss.forge.addon.dependencies.builder.DependencyQueryBuilder;
+import org.jboss.forge.arquillian.AddonDependency;
+import org.jboss.forge.arquillian.Dependencies;
+import org.jboss.forge.arquillian.archive.ForgeArchive;
+import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
+import org.jboss.forge.furnace.util.OperatingSystemUtils;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(Arquillian.class)
+public class HibernateToolsHelperTest
+{
+   private static final int UNRELATED_TABLES = 200;
+
+   @Deployment
+   @Dependencies({
+            @AddonDependency(name = "org.jboss.forge.furnace.container:cdi"),
+            @AddonDependency(name = "org.jboss.forge.addon:database-tools"),
+            @AddonDependency(name = "org.jboss.forge.addon:maven")
+   })
+   public static ForgeArchive getDeployment()
+   {
+      ForgeArchive archive = ShrinkWrap
+               .create(ForgeArchive.class)
+               .addBeansXML()
+               .addAsAddonDependencies(
+                        AddonDependencyEntry.create("org.jboss.forge.furnace.container:cdi"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:database-tools"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:maven"));
+      return archive;
+   }
+
+   @Inject
+   private DependencyResolver resolver;
+
+   @Inject
+   private HibernateToolsHelper helper;
+
+   private File directory;
+
+   private URL[] urls;
+
+   private Properties connectionProperties;
+
+   @Before
+   public void setup() throws Exception
+   {
+      Dependency h2 = resolver.resolveArtifact(DependencyQueryBuilder.create("com.h2database:h2:1.3.167"));
+      urls = helper.getDriverUrls(h2.getArtifact());
+      directory = OperatingSystemUtils.createTempDir();
+      connectionProperties = new Properties();
+      connectionProperties.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+      connectionProperties.setProperty("hibernate.connection.url",
+               "jdbc:h2:" + new File(directory, "test").getAbsolutePath());
+      connectionProperties.setProperty("hibernate.connection.username", "sa");
+      connectionProperties.setProperty("hibernate.connection.password", "");
+      connectionProperties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+
+      StringBuilder ddl = new StringBuilder()
+               .append("CREATE TABLE customer(id INTEGER PRIMARY KEY, name VARCHAR(256));")
+               .append("CREATE TABLE orders(id INTEGER PRIMARY KEY, customer_id INTEGER REFERENCES customer(id));")
+               .append("CREATE TABLE product(id INTEGER PRIMARY KEY, name VARCHAR(256));")
+               .append("CREATE TABLE order_item(order_id INTEGER REFERENCES orders(id), ")
+               .append("product_id INTEGER REFERENCES product(id), PRIMARY KEY(order_id, product_id));")
+               .append("CREATE TABLE unrelated_0(id INTEGER PRIMARY KEY);");
+      for (int i = 1; i < UNRELATED_TABLES; i++)
+      {
+         ddl.append("CREATE TABLE unrelated_").append(i).append("(id INTEGER PRIMARY KEY, previous_id INTEGER ")
+                  .append("REFERENCES unrelated_").append(i - 1).append("(id), description VARCHAR(256));");
+      }
+      execute(ddl.toString());
+   }
+
+   @After
+   public void teardown()
+   {
+      delete(directory);
+   }
+
+   @Test
+   public void testListTablesWithoutMappings() throws Exception
+   {
+      List<TableIdentifier> tables = helper.getTables(urls, "org.h2.Driver", connectionProperties);
+      Assert.assertEquals(UNRELATED_TABLES + 4, tables.size());
+      Assert.assertTrue(getNames(tables).containsAll(Arrays.asList("CUSTOMER", "ORDERS", "PRODUCT", "ORDER_ITEM")));
+   }
+
+   @Test
+   public void testForeignKeyClosure() throws Exception
+   {
+      List<TableIdentifier> tables = helper.getTables(urls, "org.h2.Driver", connectionProperties);
+
+      Set<String> customer = getNames(helper.getForeignKeyClosure(urls, "org.h2.Driver", connectionProperties,
+               select(tables, "CUSTOMER")));
+      Assert.assertEquals(new HashSet<String>(Arrays.asList("CUSTOMER", "ORDERS")), customer);
+
+      Set<String> orders = getNames(helper.getForeignKeyClosure(urls, "org.h2.Driver", connectionProperties,
+               select(tables, "ORDERS")));
+      Assert.assertEquals(new HashSet<String>(Arrays.asList("ORDERS", "CUSTOMER", "ORDER_ITEM", "PRODUCT")), orders);
+   }
+
+   @Test
+   public void testBuildMappingsOfSelectedTablesOnly() throws Exception
+   {
+      List<TableIdentifier> tables = helper.getTables(urls, "org.h2.Driver", connectionProperties);
+      Set<TableIdentifier> closure = helper.getForeignKeyClosure(urls, "org.h2.Driver", connectionProperties,
+               select(tables, "ORDERS"));
+
+      JDBCMetaDataConfiguration selected = buildMappings(closure);
+      Assert.assertEquals(getNames(closure), getNames(getTableMappings(selected)));
+      Assert.assertNotNull(selected.getClassMapping("org.jboss.forge.test.Orders"));
+   }
+
+   @Test
+   public void testTablesOfTheSameNameInOtherSchemasAreExcluded() throws Exception
+   {
+      List<TableIdentifier> publicTables = helper.getTables(urls, "org.h2.Driver", connectionProperties);
+      execute("CREATE SCHEMA other; CREATE TABLE other.customer(id INTEGER PRIMARY KEY, code VARCHAR(16));");
+      List<TableIdentifier> customer = select(publicTables, "CUSTOMER");
+      TableIdentifier publicCustomer = customer.get(0);
+      TableIdentifier otherCustomer = new TableIdentifier(publicCustomer.getCatalog(), "OTHER", "CUSTOMER");
+
+      ReverseEngineeringStrategy strategy = helper.createReverseEngineeringStrategy(customer, "org.jboss.forge.test");
+      Assert.assertFalse(strategy.excludeTable(publicCustomer));
+      Assert.assertTrue(strategy.excludeTable(otherCustomer));
+      Assert.assertFalse("A table without schema matches any schema",
+               strategy.excludeTable(new TableIdentifier("CUSTOMER")));
+
+      JDBCMetaDataConfiguration selected = buildMappings(customer);
+      List<Table> mapped = getTableMappings(selected);
+      Assert.assertEquals(1, mapped.size());
+      Assert.assertEquals(publicCustomer.getSchema(), mapped.get(0).getSchema());
+   }
+
+   @Test
+   public void testExportWritesEachSelectedEntityOnce() throws Exception
+   {
+      List<TableIdentifier> tables = helper.getTables(urls, "org.h2.Driver", connectionProperties);
+      List<TableIdentifier> selection = new ArrayList<TableIdentifier>(select(tables, "ORDERS"));
+      selection.addAll(select(tables, "CUSTOMER"));
+      JDBCMetaDataConfiguration configuration = buildMappings(helper.getForeignKeyClosure(urls, "org.h2.Driver",
+               connectionProperties, selection));
+
+      File outputDirectory = new File(directory, "src");
+      ArtifactCollector collector = helper.exportEntities(configuration, outputDirectory, selection);
+      Assert.assertEquals(2, collector.getFileCount("java"));
+      File packageDirectory = new File(outputDirectory, "org/jboss/forge/test");
+      Assert.assertTrue(new File(packageDirectory, "Orders.java").isFile());
+      Assert.assertTrue(new File(packageDirectory, "Customer.java").isFile());
+      Assert.assertFalse("Associated tables are mapped but not exported",
+               new File(packageDirectory, "Product.java").exists());
+   }
+
+   @Test
+   public void testPartitionedGenerationMatchesSingleExport() throws Exception
+   {
+      List<TableIdentifier> tables = helper.getTables(urls, "org.h2.Driver", connectionProperties);
+      List<TableIdentifier> selection = new ArrayList<TableIdentifier>();
+      for (String name : Arrays.asList("ORDERS", "CUSTOMER", "PRODUCT", "UNRELATED_10", "UNRELATED_11"))
+      {
+         selection.addAll(select(tables, name));
+      }
+
+      File single = new File(directory, "single");
+      ArtifactCollector singleCollector = helper.generateEntities(urls, "org.h2.Driver", connectionProperties,
+               selection, "org.jboss.forge.test", single, 1);
+      File partitioned = new File(directory, "partitioned");
+      ArtifactCollector partitionedCollector = helper.generateEntities(urls, "org.h2.Driver", connectionProperties,
+               selection, "org.jboss.forge.test", partitioned, 3);
+
+      Assert.assertEquals(5, singleCollector.getFileCount("java"));
+      Assert.assertEquals(5, partitionedCollector.getFileCount("java"));
+      File singlePackage = new File(single, "org/jboss/forge/test");
+      File partitionedPackage = new File(partitioned, "org/jboss/forge/test");
+      Set<String> names = new HashSet<String>(Arrays.asList(singlePackage.list()));
+      Assert.assertEquals(names, new HashSet<String>(Arrays.asList(partitionedPackage.list())));
+      for (String name : names)
+      {
+         Assert.assertEquals(name, read(new File(singlePackage, name)), read(new File(partitionedPackage, name)));
+      }
+   }
+
+   private JDBCMetaDataConfiguration buildMappings(Collection<TableIdentifier> tables)
+   {
+      JDBCMetaDataConfiguration result = new JDBCMetaDataConfiguration();
+      result.setProperties(connectionProperties);
+      result.setReverseEngineeringStrategy(helper.createReverseEngineeringStrategy(tables, "org.jboss.forge.test"));
+      helper.buildMappings(urls, "org.h2.Driver", result);
+      return result;
+   }
+
+   private void execute(String sql) throws Exception
+   {
+      URLClassLoader classLoader = new URLClassLoader(urls, getClass().getClassLoader());
+      Driver driver = (Driver) Class.forName("org.h2.Driver", true, classLoader).newInstance();
+      Properties info = new Properties();
+      info.setProperty("user", "sa");
+      info.setProperty("password", "");
+      Connection connection = driver.connect(connectionProperties.getProperty("hibernate.connection.url"), info);
+      try
+      {
+         Statement statement = connection.createStatement();
+         statement.execute(sql);
+         statement.close();
+      }
+      finally
+      {
+         connection.close();
+      }
+   }
+
+   private static List<TableIdentifier> select(List<TableIdentifier> tables, String name)
+   {
+      for (TableIdentifier table : tables)
+      {
+         if (table.getName().equals(name))
+         {
+            return Arrays.asList(table);
+         }
+      }
+      throw new IllegalArgumentException(name);
+   }
+
+   private static Set<String> getNames(Iterable<?> tables)
+   {
+      Set<String> result = new HashSet<String>();
+      for (Object table : tables)
+      {
+         result.add(table instanceof Table ? ((Table) table).getName() : ((TableIdentifier) table).getName());
+      }
+      return result;
+   }
+
+   private static List<Table> getTableMappings(JDBCMetaDataConfiguration configuration)
+   {
+      List<Table> result = new ArrayList<Table>();
+      Iterator<?> iterator = configuration.getTableMappings();
+      while (iterator.hasNext())
+      {
+         result.add((Table) iterator.next());
+      }
+      return result;
+   }
+
+   /**
+    * Reads the given generated file, without the generation time stamp
+    */
+   private static String read(File file) throws Exception
+   {
+      StringBuilder result = new StringBuilder();
+      for (String line : Files.readAllLines(file.toPath(), Charset.forName("UTF-8")))
+      {
+         if (!line.startsWith("// Generated "))
+         {
+            result.append(line).append('\n');
+         }
+      }
+      return result.toString();
+   }
+
+   private static void delete(File file)
+   {
+      File[] children = file.listFiles();
+      if (children != null)
+      {
+         for (File child : children)
+         {
+            delete(child);
+         }
+      }
+      file.delete();
+   }
+}
@@ -18,12 +18,14 @@ public abstract class AbstractFaceted<FACETTYPE extends Facet<?>> implements Mut
    @Override
    public boolean hasFacet(Class<? extends FACETTYPE> type)
    {
+      resolveFacets(type);
       return safeGetFacet(type) != null;
    }
 
    @Override
    public <F extends FACETTYPE> F getFacet(Class<F> type) throws FacetNotFoundException
    {
+      resolveFacets(type);
       F facet = safeGetFacet(type);
       if (facet == null)
       {
@@ -38,6 +40,7 @@ public abstract class AbstractFaceted<FACETTYPE extends Facet<?>> implements Mut
    @Override
    public Iterable<FACETTYPE> getFacets()
    {
+      resolveFacets(Facet.class);
       return Collections.unmodifiableCollection(facets);
    }
 
@@ -85,6 +88,7 @@ public abstract class AbstractFaceted<FACETTYPE extends Facet<?>> implements Mut
    @SuppressWarnings("unchecked")
    public <F extends FACETTYPE> Iterable<F> getFacets(Class<F> type)
    {
+      resolveFacets(type);
       Set<F> result = new HashSet<F>();
       for (FACETTYPE facet : facets)
       {
@@ -96,6 +100,14 @@ public abstract class AbstractFaceted<FACETTYPE extends Facet<?>> implements Mut
       return result;
    }
 
+   /**
+    * Called before looking up the facets of the given type, so that implementations can register them on first use
+    * instead of up front. Does nothing by default.
+    */
+   protected void resolveFacets(Class<?> type)
+   {
+   }
+
    /**
     * Returns the installed facet that is an instance of the provided type argument, null otherwise.
     * 
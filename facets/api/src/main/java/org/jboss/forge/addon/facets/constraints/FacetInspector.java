@@ -7,7 +7,10 @@
 
 package org.jboss.forge.addon.facets.constraints;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.jboss.forge.addon.facets.Facet;
@@ -16,11 +19,26 @@ import org.jboss.forge.furnace.util.Annotations;
 
 /**
  * Used to inspect types that may or may not depend on {@link Facet}s or packaging types.
+ * <p>
+ * The constraints declared by a type never change, so they are read once per type, and the constraint trees computed
+ * from them are kept with the type as well. Nothing is invalidated on addon lifecycle events: the cached values are
+ * held in a {@link ClassValue}, so they live exactly as long as the {@link Class} they describe. A stopped addon's
+ * entries go away with its class loader, and a restarted addon brings new {@link Class} objects, which are inspected
+ * afresh.
  * 
  * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
  */
 public abstract class FacetInspector
 {
+   private static final ClassValue<Constraints> CONSTRAINTS = new ClassValue<Constraints>()
+   {
+      @Override
+      protected Constraints computeValue(Class<?> type)
+      {
+         return new Constraints(type);
+      }
+   };
+
    /**
     * Inspect the given {@link Class}, and return <code>true</code> if all declared constraints have been satisfied.
     */
@@ -46,16 +64,7 @@ public abstract class FacetInspector
    public static <FACETEDTYPE extends Faceted<?>, FACETTYPE extends Facet<FACETEDTYPE>> boolean hasCircularConstraints(
             Class<?> inspectedType)
    {
-      Set<Class<FACETTYPE>> allRelatedFacets = getAllRelatedFacets(inspectedType);
-      for (Class<? extends Facet<?>> requirement : allRelatedFacets)
-      {
-         for (Class<? extends Facet<?>> subrequirement : getAllRelatedFacets(requirement))
-         {
-            if (subrequirement.isAssignableFrom(requirement))
-               return true;
-         }
-      }
-      return false;
+      return CONSTRAINTS.get(inspectedType).hasCircularConstraints();
    }
 
    /**
@@ -63,7 +72,7 @@ public abstract class FacetInspector
     */
    public static <FACETTYPE extends Facet<?>> Set<Class<FACETTYPE>> getOptionalFacets(final Class<?> inspectedType)
    {
-      return getRelatedFacets(inspectedType, FacetConstraintType.OPTIONAL);
+      return copy(CONSTRAINTS.get(inspectedType).<FACETTYPE> getOptional());
    }
 
    /**
@@ -71,11 +80,22 @@ public abstract class FacetInspector
     */
    public static <FACETTYPE extends Facet<?>> Set<Class<FACETTYPE>> getRequiredFacets(final Class<?> inspectedType)
    {
-      return getRelatedFacets(inspectedType, FacetConstraintType.REQUIRED);
+      return copy(CONSTRAINTS.get(inspectedType).<FACETTYPE> getRequired());
+   }
+
+   /**
+    * Inspect the given {@link Class} for all {@link FacetConstraintType#REQUIRED} dependency {@link Facet} types, and
+    * return them in an order in which they can be installed: each type comes after the types it requires. This method
+    * inspects the entire constraint tree.
+    */
+   public static <FACETTYPE extends Facet<?>> List<Class<FACETTYPE>> getRequiredFacetsInInstallOrder(
+            final Class<?> inspectedType)
+   {
+      return new ArrayList<Class<FACETTYPE>>(CONSTRAINTS.get(inspectedType).<FACETTYPE> getInstallOrder());
    }
 
    @SuppressWarnings({ "unchecked", "rawtypes" })
-   private static <FACETTYPE extends Facet<?>> Set<Class<FACETTYPE>> getRelatedFacets(final Class<?> inspectedType,
+   private static <FACETTYPE extends Facet<?>> Set<Class<FACETTYPE>> inspectRelatedFacets(final Class<?> inspectedType,
             FacetConstraintType... constraintTypes)
    {
       Set<Class<FACETTYPE>> result = new LinkedHashSet<Class<FACETTYPE>>();
@@ -136,8 +156,7 @@ public abstract class FacetInspector
    public static <FACETEDTYPE extends Faceted<FACETTYPE>, FACETTYPE extends Facet<FACETEDTYPE>> Set<Class<FACETTYPE>> getAllOptionalFacets(
             final Class<FACETTYPE> inspectedType)
    {
-      Set<Class<FACETTYPE>> seen = new LinkedHashSet<Class<FACETTYPE>>();
-      return getAllRelatedFacets(seen, inspectedType, FacetConstraintType.OPTIONAL);
+      return copy(CONSTRAINTS.get(inspectedType).<FACETTYPE> getAllOptional());
    }
 
    /**
@@ -147,8 +166,7 @@ public abstract class FacetInspector
    public static <FACETEDTYPE extends Faceted<FACETTYPE>, FACETTYPE extends Facet<FACETEDTYPE>> Set<Class<FACETTYPE>> getAllRequiredFacets(
             final Class<FACETTYPE> inspectedType)
    {
-      Set<Class<FACETTYPE>> seen = new LinkedHashSet<Class<FACETTYPE>>();
-      return getAllRelatedFacets(seen, inspectedType, FacetConstraintType.REQUIRED);
+      return copy(CONSTRAINTS.get(inspectedType).<FACETTYPE> getAllRequired());
    }
 
    /**
@@ -157,26 +175,150 @@ public abstract class FacetInspector
     */
    public static <FACETTYPE extends Facet<?>> Set<Class<FACETTYPE>> getAllRelatedFacets(final Class<?> inspectedType)
    {
-      Set<Class<FACETTYPE>> seen = new LinkedHashSet<Class<FACETTYPE>>();
-      return getAllRelatedFacets(seen, inspectedType);
+      return copy(CONSTRAINTS.get(inspectedType).<FACETTYPE> getAllRelated());
    }
 
    private static <FACETTYPE extends Facet<?>> Set<Class<FACETTYPE>> getAllRelatedFacets(
-            Set<Class<FACETTYPE>> seen, final Class<?> inspectedType, FacetConstraintType... constraintTypes)
+            Set<Class<FACETTYPE>> seen, final Class<?> inspectedType, FacetConstraintType constraintType)
    {
       Set<Class<FACETTYPE>> result = new LinkedHashSet<Class<FACETTYPE>>();
-      Set<Class<FACETTYPE>> related = getRelatedFacets(inspectedType, constraintTypes);
+      Set<Class<FACETTYPE>> related = CONSTRAINTS.get(inspectedType).getRelated(constraintType);
 
       for (Class<FACETTYPE> relatedType : related)
       {
          if (!seen.contains(relatedType))
          {
             seen.add(relatedType);
-            result.addAll(getAllRelatedFacets(seen, relatedType, constraintTypes));
+            result.addAll(getAllRelatedFacets(seen, relatedType, constraintType));
          }
       }
 
       result.addAll(related);
       return result;
    }
+
+   private static <FACETTYPE extends Facet<?>> void addInInstallOrder(List<Class<FACETTYPE>> result,
+            Set<Class<?>> visited, Class<?> inspectedType)
+   {
+      Set<Class<FACETTYPE>> required = CONSTRAINTS.get(inspectedType).getRequired();
+      for (Class<FACETTYPE> requiredType : required)
+      {
+         if (visited.add(requiredType))
+         {
+            addInInstallOrder(result, visited, requiredType);
+            result.add(requiredType);
+         }
+      }
+   }
+
+   private static <T> Set<T> copy(Set<T> set)
+   {
+      return new LinkedHashSet<T>(set);
+   }
+
+   /**
+    * The constraints declared by one type, and the constraint trees computed from them on first use.
+    */
+   @SuppressWarnings({ "rawtypes", "unchecked" })
+   private static class Constraints
+   {
+      private final Class<?> type;
+      private final Set required;
+      private final Set optional;
+      private final Set related;
+      private volatile Set allRequired;
+      private volatile Set allOptional;
+      private volatile Set allRelated;
+      private volatile List installOrder;
+      private volatile Boolean circular;
+
+      Constraints(Class<?> type)
+      {
+         this.type = type;
+         this.required = Collections.unmodifiableSet(inspectRelatedFacets(type, FacetConstraintType.REQUIRED));
+         this.optional = Collections.unmodifiableSet(inspectRelatedFacets(type, FacetConstraintType.OPTIONAL));
+         this.related = Collections.unmodifiableSet(inspectRelatedFacets(type));
+      }
+
+      <FACETTYPE extends Facet<?>> Set<Class<FACETTYPE>> getRelated(FacetConstraintType constraintType)
+      {
+         if (constraintType == null)
+            return related;
+         return constraintType == FacetConstraintType.REQUIRED ? required : optional;
+      }
+
+      <FACETTYPE extends Facet<?>> Set<Class<FACETTYPE>> getRequired()
+      {
+         return required;
+      }
+
+      <FACETTYPE extends Facet<?>> Set<Class<FACETTYPE>> getOptional()
+      {
+         return optional;
+      }
+
+      <FACETTYPE extends Facet<?>> Set<Class<FACETTYPE>> getAllRequired()
+      {
+         if (allRequired == null)
+            allRequired = Collections.unmodifiableSet(getAllRelatedFacets(new LinkedHashSet(), type,
+                     FacetConstraintType.REQUIRED));
+         return allRequired;
+      }
+
+      <FACETTYPE extends Facet<?>> Set<Class<FACETTYPE>> getAllOptional()
+      {
+         if (allOptional == null)
+            allOptional = Collections.unmodifiableSet(getAllRelatedFacets(new LinkedHashSet(), type,
+                     FacetConstraintType.OPTIONAL));
+         return allOptional;
+      }
+
+      <FACETTYPE extends Facet<?>> Set<Class<FACETTYPE>> getAllRelated()
+      {
+         return allRelated();
+      }
+
+      private Set allRelated()
+      {
+         if (allRelated == null)
+            allRelated = Collections.unmodifiableSet(getAllRelatedFacets(new LinkedHashSet(), type, null));
+         return allRelated;
+      }
+
+      <FACETTYPE extends Facet<?>> List<Class<FACETTYPE>> getInstallOrder()
+      {
+         if (installOrder == null)
+         {
+            List result = new ArrayList();
+            Set<Class<?>> visited = new LinkedHashSet<Class<?>>();
+            visited.add(type);
+            addInInstallOrder(result, visited, type);
+            installOrder = Collections.unmodifiableList(result);
+         }
+         return installOrder;
+      }
+
+      boolean hasCircularConstraints()
+      {
+         if (circular == null)
+         {
+            boolean result = false;
+            for (Class<?> requirement : (Set<Class<?>>) allRelated())
+            {
+               for (Class<?> subrequirement : (Set<Class<?>>) CONSTRAINTS.get(requirement).allRelated())
+               {
+                  if (subrequirement.isAssignableFrom(requirement))
+                  {
+                     result = true;
+                     break;
+                  }
+               }
+               if (result)
+                  break;
+            }
+            circular = result;
+         }
+         return circular;
+      }
+   }
 }
\ No newline at end of file
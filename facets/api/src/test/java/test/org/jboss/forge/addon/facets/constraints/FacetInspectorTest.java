@@ -6,10 +6,13 @@
  */
 package test.org.jboss.forge.addon.facets.constraints;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 
 import org.jboss.forge.addon.facets.AbstractFacet;
 import org.jboss.forge.addon.facets.AbstractFaceted;
+import org.jboss.forge.addon.facets.constraints.FacetConstraint;
 import org.jboss.forge.addon.facets.constraints.FacetInspector;
 import org.junit.Assert;
 import org.junit.Test;
@@ -27,6 +30,54 @@ public class FacetInspectorTest
       Assert.assertTrue("Facet list should have been empty", facets.isEmpty());
    }
 
+   @Test
+   public void testRequiredFacetsInInstallOrder()
+   {
+      List<Class<FacetZ>> order = FacetInspector.getRequiredFacetsInInstallOrder(FacetA.class);
+      Assert.assertEquals(Arrays.<Class<?>> asList(FacetC.class, FacetB.class), order);
+      Assert.assertTrue(FacetInspector.getRequiredFacetsInInstallOrder(FacetC.class).isEmpty());
+   }
+
+   @Test
+   public void testInspectionResultsAreCopies()
+   {
+      Set<Class<FacetZ>> required = FacetInspector.getAllRelatedFacets(FacetA.class);
+      required.clear();
+      Assert.assertEquals(2, FacetInspector.getAllRelatedFacets(FacetA.class).size());
+   }
+
+   @Test
+   public void testCircularConstraints()
+   {
+      Assert.assertFalse(FacetInspector.hasCircularConstraints(FacetA.class));
+      Assert.assertTrue(FacetInspector.hasCircularConstraints(FacetX.class));
+      Assert.assertTrue(FacetInspector.hasCircularConstraints(FacetX.class));
+   }
+
+   @FacetConstraint({ FacetB.class, FacetC.class })
+   public class FacetA extends FacetZ
+   {
+   }
+
+   @FacetConstraint(FacetC.class)
+   public class FacetB extends FacetZ
+   {
+   }
+
+   public class FacetC extends FacetZ
+   {
+   }
+
+   @FacetConstraint(FacetY.class)
+   public class FacetX extends FacetZ
+   {
+   }
+
+   @FacetConstraint(FacetX.class)
+   public class FacetY extends FacetZ
+   {
+   }
+
    public class FacetZ extends AbstractFacet<AbstractFaceted<FacetZ>>
    {
       @Override
@@ -177,9 +177,13 @@ public class FacetFactoryImpl implements FacetFactory
        */
       register(origin, facet);
 
+      /*
+       * Install the whole constraint tree dependencies first, so that each requirement finds its own requirements
+       * already installed.
+       */
       Set<Class<FACETTYPE>> requiredFacets = FacetInspector.getRequiredFacets(facet.getClass());
-      List<Class<FACETTYPE>> facetsToInstall = new ArrayList<Class<FACETTYPE>>();
-      for (Class<FACETTYPE> requirementType : requiredFacets)
+      for (Class<FACETTYPE> requirementType : FacetInspector.<FACETTYPE> getRequiredFacetsInInstallOrder(facet
+               .getClass()))
       {
          boolean isSeen = false;
          for (Class<FACETTYPE> seenType : seen)
@@ -191,18 +195,16 @@ public class FacetFactoryImpl implements FacetFactory
             }
          }
 
+         /*
+          * Installing an earlier requirement may have installed this one already.
+          */
          if (!isSeen && !origin.hasFacet((Class) requirementType))
          {
-            facetsToInstall.add(requirementType);
+            FACETTYPE requirement = create(origin, requirementType);
+            install(seen, origin, requirement, filter);
          }
       }
 
-      for (Class<FACETTYPE> requirementType : facetsToInstall)
-      {
-         FACETTYPE requirement = create(origin, requirementType);
-         install(seen, origin, requirement, filter);
-      }
-
       boolean result = false;
       if (faceted.hasFacet((Class<? extends FACETTYPE>) facet.getClass()))
          result = true;
@@ -12,10 +12,8 @@ import java.io.FileNotFoundException;
 import javax.ws.rs.ApplicationPath;
 
 import org.jboss.forge.addon.parser.java.facets.JavaSourceFacet;
-import org.jboss.forge.addon.parser.java.resources.JavaResource;
-import org.jboss.forge.addon.parser.java.resources.JavaResourceVisitor;
+import org.jboss.forge.addon.parser.java.index.JavaTypeSymbol;
 import org.jboss.forge.addon.projects.Project;
-import org.jboss.forge.addon.resource.visit.VisitContext;
 import org.jboss.forge.parser.java.JavaClass;
 import org.jboss.forge.parser.java.JavaSource;
 
@@ -32,24 +30,20 @@ public class RestConfigurationStrategyFactory
       if (project.hasFacet(JavaSourceFacet.class))
       {
          JavaSourceFacet javaSourceFacet = project.getFacet(JavaSourceFacet.class);
-         javaSourceFacet.visitJavaSources(new JavaResourceVisitor()
+         for (JavaTypeSymbol symbol : javaSourceFacet.getJavaTypeSymbolsAnnotatedWith(ApplicationPath.class.getName()))
          {
-            @Override
-            public void visit(VisitContext context, JavaResource javaResource)
+            try
             {
-               try
-               {
-                  JavaSource<?> javaSource = javaResource.getJavaSource();
-                  if (javaSource.hasAnnotation(ApplicationPath.class))
-                  {
-                     configurationStrategy[0] = createUsingJavaClass((JavaClass) javaSource);
-                  }
-               }
-               catch (FileNotFoundException e)
+               JavaSource<?> javaSource = javaSourceFacet.getJavaResource(symbol).getJavaSource();
+               if (javaSource.hasAnnotation(ApplicationPath.class))
                {
+                  configurationStrategy[0] = createUsingJavaClass((JavaClass) javaSource);
                }
             }
-         });
+            catch (FileNotFoundException e)
+            {
+            }
+         }
       }
       if (configurationStrategy[0] == null)
       {
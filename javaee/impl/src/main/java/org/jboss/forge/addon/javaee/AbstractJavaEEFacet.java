@@ -9,6 +9,7 @@ package org.jboss.forge.addon.javaee;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
 
 import javax.inject.Inject;
 
@@ -58,26 +59,33 @@ public abstract class AbstractJavaEEFacet extends AbstractFacet<Project> impleme
    @Override
    public boolean install()
    {
-      DependencyFacet deps = origin.getFacet(DependencyFacet.class);
-      for (Entry<Dependency, List<Dependency>> group : getRequiredDependencyOptions().entrySet())
+      final DependencyFacet deps = origin.getFacet(DependencyFacet.class);
+      return deps.batchChanges(new Callable<Boolean>()
       {
-         boolean satisfied = false;
-         for (Dependency dependency : group.getValue())
+         @Override
+         public Boolean call()
          {
-            if (deps.hasEffectiveDependency(dependency))
+            for (Entry<Dependency, List<Dependency>> group : getRequiredDependencyOptions().entrySet())
             {
-               satisfied = true;
-               break;
-            }
-         }
+               boolean satisfied = false;
+               for (Dependency dependency : group.getValue())
+               {
+                  if (deps.hasEffectiveDependency(dependency))
+                  {
+                     satisfied = true;
+                     break;
+                  }
+               }
 
-         if (!satisfied)
-         {
-            installer.installManaged(origin, JAVAEE6);
-            installer.install(origin, group.getKey());
+               if (!satisfied)
+               {
+                  installer.installManaged(origin, JAVAEE6);
+                  installer.install(origin, group.getKey());
+               }
+            }
+            return true;
          }
-      }
-      return true;
+      });
    }
 
    @Override
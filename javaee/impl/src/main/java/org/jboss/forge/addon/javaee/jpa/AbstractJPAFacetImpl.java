@@ -16,13 +16,13 @@ import javax.persistence.Entity;
 
 import org.jboss.forge.addon.javaee.AbstractJavaEEFacet;
 import org.jboss.forge.addon.parser.java.facets.JavaSourceFacet;
+import org.jboss.forge.addon.parser.java.index.JavaTypeSymbol;
+import org.jboss.forge.addon.parser.java.index.JavaTypeSymbol.Kind;
 import org.jboss.forge.addon.parser.java.resources.JavaResource;
-import org.jboss.forge.addon.parser.java.resources.JavaResourceVisitor;
 import org.jboss.forge.addon.projects.dependencies.DependencyInstaller;
 import org.jboss.forge.addon.projects.facets.ResourcesFacet;
 import org.jboss.forge.addon.resource.DirectoryResource;
 import org.jboss.forge.addon.resource.FileResource;
-import org.jboss.forge.addon.resource.visit.VisitContext;
 import org.jboss.forge.parser.java.JavaClass;
 import org.jboss.forge.parser.java.JavaSource;
 import org.jboss.shrinkwrap.descriptor.api.persistence.PersistenceCommonDescriptor;
@@ -99,12 +99,12 @@ public abstract class AbstractJPAFacetImpl<DESCRIPTOR extends PersistenceCommonD
    @Override
    public List<JavaClass> getAllEntities()
    {
-      final List<JavaClass> result = new ArrayList<JavaClass>();
+      List<JavaClass> result = new ArrayList<JavaClass>();
       JavaSourceFacet javaSourceFacet = getFaceted().getFacet(JavaSourceFacet.class);
-      javaSourceFacet.visitJavaSources(new JavaResourceVisitor()
+      for (JavaTypeSymbol symbol : javaSourceFacet.getJavaTypeSymbolsAnnotatedWith(Entity.class.getName()))
       {
-         @Override
-         public void visit(VisitContext context, JavaResource resource)
+         JavaResource resource = javaSourceFacet.getJavaResource(symbol);
+         if (symbol.getKind() == Kind.CLASS && resource.exists())
          {
             try
             {
@@ -119,8 +119,7 @@ public abstract class AbstractJPAFacetImpl<DESCRIPTOR extends PersistenceCommonD
                throw new IllegalStateException(e);
             }
          }
-      });
-
+      }
       return result;
    }
 
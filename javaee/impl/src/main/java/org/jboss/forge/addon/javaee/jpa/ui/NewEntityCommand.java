@@ -6,7 +6,7 @@
  */
 package org.jboss.forge.addon.javaee.jpa.ui;
 
-import java.io.FileNotFoundException;
+import java.util.List;
 
 import javax.inject.Inject;
 import javax.persistence.Entity;
@@ -15,13 +15,12 @@ import javax.persistence.GenerationType;
 import org.jboss.forge.addon.javaee.jpa.PersistenceOperations;
 import org.jboss.forge.addon.javaee.ui.AbstractJavaEECommand;
 import org.jboss.forge.addon.parser.java.facets.JavaSourceFacet;
+import org.jboss.forge.addon.parser.java.index.JavaTypeSymbol;
 import org.jboss.forge.addon.parser.java.resources.JavaResource;
-import org.jboss.forge.addon.parser.java.resources.JavaResourceVisitor;
 import org.jboss.forge.addon.projects.Project;
 import org.jboss.forge.addon.projects.facets.MetadataFacet;
 import org.jboss.forge.addon.resource.DirectoryResource;
 import org.jboss.forge.addon.resource.FileResource;
-import org.jboss.forge.addon.resource.visit.VisitContext;
 import org.jboss.forge.addon.ui.context.UIBuilder;
 import org.jboss.forge.addon.ui.context.UIContext;
 import org.jboss.forge.addon.ui.context.UIExecutionContext;
@@ -34,7 +33,6 @@ import org.jboss.forge.addon.ui.result.Result;
 import org.jboss.forge.addon.ui.result.Results;
 import org.jboss.forge.addon.ui.util.Categories;
 import org.jboss.forge.addon.ui.util.Metadata;
-import org.jboss.forge.parser.java.JavaSource;
 
 /**
  * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
@@ -105,30 +103,13 @@ public class NewEntityCommand extends AbstractJavaEECommand
     */
    private String calculateModelPackage(Project project)
    {
-      final String[] value = new String[1];
-      project.getFacet(JavaSourceFacet.class).visitJavaSources(new JavaResourceVisitor()
+      List<JavaTypeSymbol> entities = project.getFacet(JavaSourceFacet.class).getJavaTypeSymbolsAnnotatedWith(
+               Entity.class.getName());
+      if (entities.isEmpty())
       {
-         @Override
-         public void visit(VisitContext context, JavaResource javaResource)
-         {
-            try
-            {
-               JavaSource<?> javaSource = javaResource.getJavaSource();
-               if (javaSource.hasAnnotation(Entity.class))
-               {
-                  value[0] = javaSource.getPackage();
-               }
-            }
-            catch (FileNotFoundException ignore)
-            {
-            }
-         }
-      });
-      if (value[0] == null)
-      {
-         value[0] = project.getFacet(MetadataFacet.class).getTopLevelPackage() + ".model";
+         return project.getFacet(MetadataFacet.class).getTopLevelPackage() + ".model";
       }
-      return value[0];
+      return entities.get(entities.size() - 1).getPackage();
    }
 
    @Override
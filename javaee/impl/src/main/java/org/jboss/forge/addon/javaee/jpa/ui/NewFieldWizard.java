@@ -26,11 +26,10 @@ import org.jboss.forge.addon.convert.Converter;
 import org.jboss.forge.addon.javaee.jpa.FieldOperations;
 import org.jboss.forge.addon.javaee.ui.AbstractJavaEECommand;
 import org.jboss.forge.addon.parser.java.facets.JavaSourceFacet;
+import org.jboss.forge.addon.parser.java.index.JavaTypeSymbol;
 import org.jboss.forge.addon.parser.java.resources.JavaResource;
-import org.jboss.forge.addon.parser.java.resources.JavaResourceVisitor;
 import org.jboss.forge.addon.projects.Project;
 import org.jboss.forge.addon.resource.FileResource;
-import org.jboss.forge.addon.resource.visit.VisitContext;
 import org.jboss.forge.addon.ui.context.UIBuilder;
 import org.jboss.forge.addon.ui.context.UIContext;
 import org.jboss.forge.addon.ui.context.UIExecutionContext;
@@ -159,25 +158,11 @@ public class NewFieldWizard extends AbstractJavaEECommand implements UIWizard
       final List<JavaResource> entities = new ArrayList<JavaResource>();
       if (project != null)
       {
-         project.getFacet(JavaSourceFacet.class).visitJavaSources(new JavaResourceVisitor()
+         JavaSourceFacet javaSourceFacet = project.getFacet(JavaSourceFacet.class);
+         for (JavaTypeSymbol symbol : javaSourceFacet.getJavaTypeSymbolsAnnotatedWith(Entity.class.getName()))
          {
-
-            @Override
-            public void visit(VisitContext context, JavaResource resource)
-            {
-               try
-               {
-                  if (resource.getJavaSource().hasAnnotation(Entity.class))
-                  {
-                     entities.add(resource);
-                  }
-               }
-               catch (FileNotFoundException e)
-               {
-                  // ignore
-               }
-            }
-         });
+            entities.add(javaSourceFacet.getJavaResource(symbol));
+         }
       }
       entity.setValueChoices(entities);
       int idx = -1;
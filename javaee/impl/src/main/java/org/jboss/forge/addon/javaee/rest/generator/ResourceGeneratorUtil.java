@@ -14,7 +14,6 @@ import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 
 import org.jboss.forge.addon.javaee.rest.generation.RestGenerationContext;
-import org.jboss.forge.addon.parser.java.facets.JavaSourceFacet;
 import org.jboss.forge.addon.projects.Project;
 import org.jboss.forge.parser.java.Annotation;
 import org.jboss.forge.parser.java.Field;
@@ -37,30 +36,24 @@ public class ResourceGeneratorUtil
       Project project = context.getProject();
       String proposedQualifiedClassName = packageName + "." + entityTable + "Endpoint";
       String proposedResourcePath = "/" + context.getInflector().pluralize(entityTable.toLowerCase());
-      RestResourceTypeVisitor resourceTypeVisitor = new RestResourceTypeVisitor();
-      resourceTypeVisitor.setFound(false);
-      resourceTypeVisitor.setProposedPath(proposedResourcePath);
-      JavaSourceFacet facet = project.getFacet(JavaSourceFacet.class);
-      while (true)
+      RestResourceRegistry registry;
+      if (context instanceof RestGenerationContextImpl)
       {
-         facet.visitJavaSources(resourceTypeVisitor);
-         if (resourceTypeVisitor.isFound())
-         {
-            if (proposedQualifiedClassName.equals(resourceTypeVisitor.getQualifiedClassNameForMatch()))
-            {
-               // The class might be overwritten later, so break out
-               break;
-            }
-            proposedResourcePath = proposedResourcePath.startsWith("/") ? "forge" + proposedResourcePath : "forge/"
-                     + proposedResourcePath;
-            resourceTypeVisitor.setProposedPath(proposedResourcePath);
-            resourceTypeVisitor.setFound(false);
-         }
-         else
-         {
-            break;
-         }
+         registry = ((RestGenerationContextImpl) context).getResourceRegistry();
+      }
+      else
+      {
+         registry = RestResourceRegistry.from(project);
+      }
+      String existingType = registry.getResourceType(proposedResourcePath);
+      // The class might be overwritten later, so a resource of the same name does not collide
+      while (existingType != null && !proposedQualifiedClassName.equals(existingType))
+      {
+         proposedResourcePath = proposedResourcePath.startsWith("/") ? "forge" + proposedResourcePath : "forge/"
+                  + proposedResourcePath;
+         existingType = registry.getResourceType(proposedResourcePath);
       }
+      registry.register(proposedResourcePath, proposedQualifiedClassName);
       return proposedResourcePath;
    }
 
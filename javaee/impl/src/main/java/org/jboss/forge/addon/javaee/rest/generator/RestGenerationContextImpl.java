@@ -24,6 +24,7 @@ public class RestGenerationContextImpl implements RestGenerationContext
    private String contentType;
    private String persistenceUnitName;
    private Inflector inflector;
+   private RestResourceRegistry resourceRegistry;
 
    /**
     * @return the project
@@ -76,9 +77,23 @@ public class RestGenerationContextImpl implements RestGenerationContext
       return inflector;
    }
 
+   /**
+    * @return the JAX-RS resources of the project, read when first needed and kept for all entities generated with this
+    *         context
+    */
+   public RestResourceRegistry getResourceRegistry()
+   {
+      if (resourceRegistry == null)
+      {
+         resourceRegistry = RestResourceRegistry.from(project);
+      }
+      return resourceRegistry;
+   }
+
    public void setProject(Project project)
    {
       this.project = project;
+      this.resourceRegistry = null;
    }
 
    public void setEntity(JavaClass entity)
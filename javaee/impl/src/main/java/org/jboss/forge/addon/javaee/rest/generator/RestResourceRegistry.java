@@ -0,0 +1,83 @@
+/**
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.addon.javaee.rest.generator;
+
+import java.io.FileNotFoundException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.forge.addon.parser.java.facets.JavaSourceFacet;
+import org.jboss.forge.addon.parser.java.index.JavaTypeSymbol;
+import org.jboss.forge.addon.parser.java.resources.JavaResource;
+import org.jboss.forge.addon.projects.Project;
+import org.jboss.forge.parser.java.Annotation;
+import org.jboss.forge.parser.java.JavaSource;
+
+/**
+ * The JAX-RS resources of a {@link Project}, by the value of their <code>@Path</code> annotation.
+ *
+ * The registry is read once from the sources of the project, and resources generated afterwards are added with
+ * {@link #register(String, String)}, so that it can be used to avoid path collisions during a whole generation run.
+ */
+public class RestResourceRegistry
+{
+   private static final String PATH_ANNOTATION = "javax.ws.rs.Path";
+
+   private final Map<String, String> resources = new HashMap<String, String>();
+
+   /**
+    * Reads the JAX-RS resources of the given {@link Project}. Only the sources annotated with <code>@Path</code>
+    * according to the symbol index of the project are parsed.
+    */
+   public static RestResourceRegistry from(Project project)
+   {
+      RestResourceRegistry registry = new RestResourceRegistry();
+      JavaSourceFacet facet = project.getFacet(JavaSourceFacet.class);
+      for (JavaTypeSymbol symbol : facet.getJavaTypeSymbolsAnnotatedWith(PATH_ANNOTATION))
+      {
+         JavaResource resource = facet.getJavaResource(symbol);
+         if (resource.exists())
+         {
+            try
+            {
+               JavaSource<?> javaSource = resource.getJavaSource();
+               Annotation<?> path = javaSource.getAnnotation(PATH_ANNOTATION);
+               if (path != null && !registry.resources.containsKey(normalize(path.getStringValue())))
+               {
+                  registry.resources.put(normalize(path.getStringValue()), javaSource.getQualifiedName());
+               }
+            }
+            catch (FileNotFoundException e)
+            {
+               throw new RuntimeException(e);
+            }
+         }
+      }
+      return registry;
+   }
+
+   /**
+    * Returns the qualified name of the resource with the given path, or <code>null</code> if there is none.
+    */
+   public String getResourceType(String path)
+   {
+      return resources.get(normalize(path));
+   }
+
+   /**
+    * Records that the resource with the given qualified name has the given path.
+    */
+   public void register(String path, String qualifiedName)
+   {
+      resources.put(normalize(path), qualifiedName);
+   }
+
+   private static String normalize(String path)
+   {
+      return path.endsWith("/") ? path.substring(0, path.lastIndexOf('/')) : path;
+   }
+}
@@ -7,6 +7,7 @@
 package org.jboss.forge.addon.javaee.validation;
 
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import javax.inject.Inject;
 
@@ -17,6 +18,7 @@ import org.jboss.forge.addon.javaee.Descriptors;
 import org.jboss.forge.addon.javaee.validation.provider.ValidationProvider;
 import org.jboss.forge.addon.projects.Project;
 import org.jboss.forge.addon.projects.dependencies.DependencyInstaller;
+import org.jboss.forge.addon.projects.facets.DependencyFacet;
 import org.jboss.shrinkwrap.descriptor.api.validationConfiguration11.ValidationConfigurationDescriptor;
 
 public class ValidationOperations
@@ -69,16 +71,24 @@ public class ValidationOperations
       }
    }
    
-   private void installDependencies(Project project,final Set<Dependency> dependencies, String scopeType)
+   private void installDependencies(final Project project, final Set<Dependency> dependencies, final String scopeType)
    {
-      for (Dependency dep : dependencies)
+      project.getFacet(DependencyFacet.class).batchChanges(new Callable<Void>()
       {
-         if (!installer.isInstalled(project, dep))
+         @Override
+         public Void call()
          {
-             dep = DependencyBuilder.create(dep).setScopeType(scopeType);
-             installer.install(project, dep);
+            for (Dependency dep : dependencies)
+            {
+               if (!installer.isInstalled(project, dep))
+               {
+                  dep = DependencyBuilder.create(dep).setScopeType(scopeType);
+                  installer.install(project, dep);
+               }
+            }
+            return null;
          }
-      }
+      });
    }
 
 }
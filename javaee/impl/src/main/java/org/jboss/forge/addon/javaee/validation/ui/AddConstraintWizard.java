@@ -6,7 +6,6 @@
  */
 package org.jboss.forge.addon.javaee.validation.ui;
 
-import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -15,11 +14,11 @@ import javax.inject.Inject;
 import org.jboss.forge.addon.javaee.ui.AbstractJavaEECommand;
 import org.jboss.forge.addon.javaee.validation.ValidationFacet;
 import org.jboss.forge.addon.parser.java.facets.JavaSourceFacet;
+import org.jboss.forge.addon.parser.java.index.JavaTypeSymbol;
+import org.jboss.forge.addon.parser.java.index.JavaTypeSymbol.Kind;
 import org.jboss.forge.addon.parser.java.resources.JavaResource;
-import org.jboss.forge.addon.parser.java.resources.JavaResourceVisitor;
 import org.jboss.forge.addon.projects.Project;
 import org.jboss.forge.addon.resource.FileResource;
-import org.jboss.forge.addon.resource.visit.VisitContext;
 import org.jboss.forge.addon.ui.context.UIBuilder;
 import org.jboss.forge.addon.ui.context.UIContext;
 import org.jboss.forge.addon.ui.context.UIExecutionContext;
@@ -64,25 +63,14 @@ public class AddConstraintWizard extends AbstractJavaEECommand implements UIWiza
       final List<JavaResource> classes = new ArrayList<JavaResource>();
       if (project != null)
       {
-         project.getFacet(JavaSourceFacet.class).visitJavaSources(new JavaResourceVisitor()
+         JavaSourceFacet javaSourceFacet = project.getFacet(JavaSourceFacet.class);
+         for (JavaTypeSymbol symbol : javaSourceFacet.getJavaTypeSymbols())
          {
-
-            @Override
-            public void visit(VisitContext context, JavaResource resource)
+            if (symbol.getKind() == Kind.CLASS)
             {
-               try
-               {
-                  if (resource.getJavaSource().isClass())
-                  {
-                     classes.add(resource);
-                  }
-               }
-               catch (FileNotFoundException e)
-               {
-                  // ignore
-               }
+               classes.add(javaSourceFacet.getJavaResource(symbol));
             }
-         });
+         }
       }
       javaClass.setValueChoices(classes);
       int idx = -1;
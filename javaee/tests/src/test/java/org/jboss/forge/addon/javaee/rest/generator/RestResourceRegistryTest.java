@@ -0,0 +1,120 @@
+/**
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.javaee.rest.generator;
+
+import javax.inject.Inject;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.forge.addon.javaee.ProjectHelper;
+import org.jboss.forge.addon.parser.java.facets.JavaSourceFacet;
+import org.jboss.forge.addon.projects.Project;
+import org.jboss.forge.addon.text.Inflector;
+import org.jboss.forge.arquillian.AddonDependency;
+import org.jboss.forge.arquillian.Dependencies;
+import org.jboss.forge.arquillian.archive.ForgeArchive;
+import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
+import org.jboss.forge.parser.JavaParser;
+import org.jboss.forge.parser.java.JavaClass;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(Arquillian.class)
+public class RestResourceRegistryTest
+{
+   @Deployment
+   @Dependencies({
+            @AddonDependency(name = "org.jboss.forge.addon:javaee"),
+            @AddonDependency(name = "org.jboss.forge.addon:maven")
+   })
+   public static ForgeArchive getDeployment()
+   {
+      return ShrinkWrap.create(ForgeArchive.class)
+               .addBeansXML()
+               .addClass(ProjectHelper.class)
+               .addAsAddonDependencies(
+                        AddonDependencyEntry.create("org.jboss.forge.furnace.container:cdi"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:maven"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:javaee")
+               );
+   }
+
+   @Inject
+   private ProjectHelper projectHelper;
+
+   private Project project;
+
+   @Before
+   public void setUp()
+   {
+      project = projectHelper.createJavaLibraryProject();
+      projectHelper.installJPA_2_0(project);
+      JavaClass endpoint = JavaParser.create(JavaClass.class).setPackage("com.example.rest")
+               .setName("ExistingEndpoint");
+      endpoint.addAnnotation("javax.ws.rs.Path").setStringValue("/customers/");
+      project.getFacet(JavaSourceFacet.class).saveJavaSource(endpoint);
+   }
+
+   @Test
+   public void testExistingResourcesAreRegistered() throws Exception
+   {
+      RestResourceRegistry registry = RestResourceRegistry.from(project);
+      Assert.assertEquals("com.example.rest.ExistingEndpoint", registry.getResourceType("/customers"));
+      Assert.assertEquals("com.example.rest.ExistingEndpoint", registry.getResourceType("/customers/"));
+      Assert.assertNull(registry.getResourceType("/orders"));
+
+      registry.register("/orders/", "com.example.rest.OrderEndpoint");
+      Assert.assertEquals("com.example.rest.OrderEndpoint", registry.getResourceType("/orders"));
+   }
+
+   @Test
+   public void testPathsAssignedInTheSameRunDoNotCollide() throws Exception
+   {
+      RestGenerationContextImpl context = createContext("Customer", "com.example.rest");
+      Assert.assertEquals("forge/customers", ResourceGeneratorUtil.getResourcePath(context));
+      Assert.assertEquals("The same endpoint may be generated again with its path", "forge/customers",
+               ResourceGeneratorUtil.getResourcePath(context));
+
+      context.setTargetPackageName("com.example.other");
+      Assert.assertEquals("forge/forge/customers", ResourceGeneratorUtil.getResourcePath(context));
+      Assert.assertEquals("com.example.other.CustomerEndpoint",
+               context.getResourceRegistry().getResourceType("forge/forge/customers"));
+   }
+
+   @Test
+   public void testUnusedPathIsKept() throws Exception
+   {
+      RestGenerationContextImpl context = createContext("Order", "com.example.rest");
+      Assert.assertEquals("/orders", ResourceGeneratorUtil.getResourcePath(context));
+   }
+
+   @Test
+   public void testRegistryIsReadAgainForAnotherProject() throws Exception
+   {
+      RestGenerationContextImpl context = createContext("Customer", "com.example.rest");
+      RestResourceRegistry registry = context.getResourceRegistry();
+      Assert.assertSame(registry, context.getResourceRegistry());
+
+      context.setProject(projectHelper.createJavaLibraryProject());
+      Assert.assertNotSame(registry, context.getResourceRegistry());
+      Assert.assertNull(context.getResourceRegistry().getResourceType("/customers"));
+   }
+
+   private RestGenerationContextImpl createContext(String entityName, String targetPackage) throws Exception
+   {
+      RestGenerationContextImpl context = new RestGenerationContextImpl();
+      context.setProject(project);
+      context.setEntity((JavaClass) projectHelper.createJPAEntity(project, entityName).getJavaSource());
+      context.setTargetPackageName(targetPackage);
+      context.setInflector(new Inflector());
+      return context;
+   }
+}
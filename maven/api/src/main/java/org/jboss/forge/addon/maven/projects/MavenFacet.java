@@ -9,6 +9,7 @@ package org.jboss.forge.addon.maven.projects;
 import java.io.PrintStream;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.apache.maven.model.Model;
 import org.jboss.forge.addon.maven.resources.MavenPomResource;
@@ -39,6 +40,18 @@ public interface MavenFacet extends BuildSystemFacet
     */
    void setPOM(Model pom);
 
+   /**
+    * Apply all changes made by the given {@link Callable} to a single, in-memory Maven {@link Model}, and write it once
+    * the {@link Callable} completes. While the {@link Callable} runs on the current thread, {@link #getPOM()} returns
+    * that same {@link Model} and {@link #setPOM(Model)} updates it without writing the {@link MavenPomResource}.
+    * Pending changes are written early only when the effective model must be built, for instance to look up effective
+    * dependencies. Changes that have not been written are discarded if the {@link Callable} throws an exception. Calls
+    * may be nested, in which case only the outermost call writes changes.
+    *
+    * @return the value returned by the given {@link Callable}
+    */
+   <T> T batchPOMChanges(Callable<T> changes);
+
    /**
     * Get a {@link Map} of all resolvable project properties.
     */
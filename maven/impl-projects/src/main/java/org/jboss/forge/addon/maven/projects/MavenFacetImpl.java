@@ -13,42 +13,41 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.io.Writer;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
-import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.RepositoryUtils;
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.cli.MavenCli;
-import org.apache.maven.execution.DefaultMavenExecutionRequest;
-import org.apache.maven.execution.MavenExecutionRequest;
-import org.apache.maven.execution.MavenExecutionRequestPopulator;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Exclusion;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
+import org.apache.maven.project.DefaultDependencyResolutionRequest;
+import org.apache.maven.project.DependencyResolutionException;
+import org.apache.maven.project.DependencyResolutionResult;
+import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectBuilder;
 import org.apache.maven.project.ProjectBuildingRequest;
 import org.apache.maven.project.ProjectBuildingResult;
-import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
-import org.apache.maven.settings.Mirror;
-import org.apache.maven.settings.Profile;
-import org.apache.maven.settings.Proxy;
-import org.apache.maven.settings.Repository;
-import org.apache.maven.settings.Settings;
-import org.eclipse.aether.DefaultRepositorySystemSession;
-import org.eclipse.aether.RepositorySystem;
-import org.eclipse.aether.repository.LocalRepository;
-import org.eclipse.aether.util.repository.DefaultMirrorSelector;
-import org.eclipse.aether.util.repository.DefaultProxySelector;
+import org.apache.maven.project.ProjectDependenciesResolver;
+import org.eclipse.aether.repository.LocalRepositoryManager;
+import org.eclipse.aether.repository.RemoteRepository;
 import org.jboss.forge.addon.environment.Environment;
 import org.jboss.forge.addon.facets.AbstractFacet;
 import org.jboss.forge.addon.maven.environment.Network;
 import org.jboss.forge.addon.maven.projects.util.NativeSystemCall;
-import org.jboss.forge.addon.maven.projects.util.RepositoryUtils;
 import org.jboss.forge.addon.maven.resources.MavenPomResource;
 import org.jboss.forge.addon.projects.Project;
 import org.jboss.forge.addon.projects.ProjectFacet;
@@ -69,6 +68,11 @@ import org.jboss.forge.furnace.util.OperatingSystemUtils;
 public class MavenFacetImpl extends AbstractFacet<Project> implements ProjectFacet, MavenFacet
 {
    private ProjectBuildingResult buildingResult;
+   private String resolutionFingerprint;
+   private Set<Artifact> resolvedArtifacts;
+   private volatile boolean stale;
+   private final ThreadLocal<PomBatch> batch = new ThreadLocal<>();
+   private final AtomicLong modelVersion = new AtomicLong();
    private ProjectBuilder builder;
    private ResourceMonitor monitor;
    private ListenerRegistration<ResourceListener> listenerRegistration;
@@ -85,6 +89,9 @@ public class MavenFacetImpl extends AbstractFacet<Project> implements ProjectFac
    @Inject
    private PlexusContainer plexus;
 
+   @Inject
+   private ProjectBuildingRequestCache requestCache;
+
    private ProjectBuilder getBuilder()
    {
       if (builder == null)
@@ -104,89 +111,7 @@ public class MavenFacetImpl extends AbstractFacet<Project> implements ProjectFac
 
    public ProjectBuildingRequest getBuildingRequest(final boolean offline)
    {
-      ClassLoader cl = Thread.currentThread().getContextClassLoader();
-      try
-      {
-         Settings settings = container.getSettings();
-         // TODO this needs to be configurable via .forge
-         // TODO this reference to the M2_REPO should probably be centralized
-
-         MavenExecutionRequest executionRequest = new DefaultMavenExecutionRequest();
-         MavenExecutionRequestPopulator populator = plexus.lookup(MavenExecutionRequestPopulator.class);
-         populator.populateFromSettings(executionRequest, container.getSettings());
-         populator.populateDefaults(executionRequest);
-         RepositorySystem system = plexus.lookup(RepositorySystem.class);
-         ProjectBuildingRequest request = executionRequest.getProjectBuildingRequest();
-
-         ArtifactRepository localRepository = RepositoryUtils.toArtifactRepository("local",
-                  new File(settings.getLocalRepository()).toURI().toURL().toString(), null, true, true);
-         request.setLocalRepository(localRepository);
-
-         List<ArtifactRepository> settingsRepos = new ArrayList<ArtifactRepository>(request.getRemoteRepositories());
-         List<String> activeProfiles = settings.getActiveProfiles();
-
-         Map<String, Profile> profiles = settings.getProfilesAsMap();
-
-         for (String id : activeProfiles)
-         {
-            Profile profile = profiles.get(id);
-            if (profile != null)
-            {
-               List<Repository> repositories = profile.getRepositories();
-               for (Repository repository : repositories)
-               {
-                  settingsRepos.add(RepositoryUtils.convertFromMavenSettingsRepository(repository));
-               }
-            }
-         }
-         request.setRemoteRepositories(settingsRepos);
-         request.setSystemProperties(System.getProperties());
-
-         DefaultRepositorySystemSession repositorySession = MavenRepositorySystemUtils.newSession();
-         Proxy activeProxy = settings.getActiveProxy();
-         if (activeProxy != null)
-         {
-            DefaultProxySelector dps = new DefaultProxySelector();
-            dps.add(RepositoryUtils.convertFromMavenProxy(activeProxy), activeProxy.getNonProxyHosts());
-            repositorySession.setProxySelector(dps);
-         }
-         LocalRepository localRepo = new LocalRepository(settings.getLocalRepository());
-         repositorySession.setLocalRepositoryManager(system.newLocalRepositoryManager(repositorySession, localRepo));
-         repositorySession.setOffline(offline);
-         List<Mirror> mirrors = executionRequest.getMirrors();
-         if (mirrors != null)
-         {
-            DefaultMirrorSelector mirrorSelector = new DefaultMirrorSelector();
-            for (Mirror mirror : mirrors)
-            {
-               mirrorSelector.add(mirror.getId(), mirror.getUrl(), mirror.getLayout(), false, mirror.getMirrorOf(),
-                        mirror.getMirrorOfLayouts());
-            }
-            repositorySession.setMirrorSelector(mirrorSelector);
-         }
-
-         request.setRepositorySession(repositorySession);
-         request.setProcessPlugins(false);
-         request.setResolveDependencies(false);
-         return request;
-      }
-      catch (RuntimeException e)
-      {
-         throw e;
-      }
-      catch (Exception e)
-      {
-         throw new RuntimeException(
-                  "Could not create Maven project building request", e);
-      }
-      finally
-      {
-         /*
-          * We reset the classloader to prevent potential modules bugs if Classwords container changes classloaders on
-          * us
-          */
-         Thread.currentThread().setContextClassLoader(cl);
-      }
+      return requestCache.getRequest(offline);
    }
 
    @Override
@@ -267,11 +192,102 @@ public class MavenFacetImpl extends AbstractFacet<Project> implements ProjectFac
    @Override
    public Model getPOM()
    {
+      PomBatch current = batch.get();
+      if (current != null)
+      {
+         if (current.model == null)
+            current.model = getPomResource().getCurrentModel();
+         return current.model;
+      }
       return getPomResource().getCurrentModel();
    }
 
    @Override
    public void setPOM(final Model pom)
+   {
+      PomBatch current = batch.get();
+      if (current != null)
+      {
+         current.model = pom;
+         current.dirty = true;
+         modelVersion.incrementAndGet();
+      }
+      else
+      {
+         writePOM(pom);
+      }
+   }
+
+   /**
+    * Returns a number that changes whenever the {@link Model} is set through this facet, or a change of the
+    * {@link MavenPomResource} is detected.
+    */
+   public long getModelVersion()
+   {
+      return modelVersion.get();
+   }
+
+   @Override
+   public <T> T batchPOMChanges(Callable<T> changes)
+   {
+      boolean outermost = batch.get() == null;
+      if (outermost)
+         batch.set(new PomBatch());
+      try
+      {
+         T result = changes.call();
+         if (outermost)
+            flushPOMChanges();
+         return result;
+      }
+      catch (RuntimeException e)
+      {
+         throw e;
+      }
+      catch (Exception e)
+      {
+         throw new RuntimeException(e);
+      }
+      finally
+      {
+         if (outermost)
+         {
+            PomBatch discarded = batch.get();
+            batch.remove();
+            if (discarded.dirty)
+            {
+               /*
+                * The pending changes were not written, so anything derived from the pending model is outdated
+                */
+               modelVersion.incrementAndGet();
+            }
+         }
+      }
+   }
+
+   /**
+    * Returns <code>true</code> if a batch started by the current thread has changes that were not written yet.
+    */
+   public boolean hasPendingPOMChanges()
+   {
+      PomBatch current = batch.get();
+      return current != null && current.dirty;
+   }
+
+   /**
+    * Write any pending changes of the batch started by the current thread.
+    */
+   private void flushPOMChanges()
+   {
+      PomBatch current = batch.get();
+      if (current != null && current.dirty)
+      {
+         writePOM(current.model);
+         current.dirty = false;
+      }
+   }
+
+   private void writePOM(final Model pom)
    {
       MavenXpp3Writer writer = new MavenXpp3Writer();
       ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
@@ -310,7 +326,25 @@ public class MavenFacetImpl extends AbstractFacet<Project> implements ProjectFac
     */
    public synchronized ProjectBuildingResult getProjectBuildingResult()
    {
-      if (this.buildingResult == null)
+      /*
+       * The effective model is built from the POM file, so it must reflect any changes made so far in a batch
+       */
+      flushPOMChanges();
+      return buildProjectBuildingResult();
+   }
+
+   /**
+    * Returns the {@link ProjectBuildingResult} of the POM file as last written, without writing the pending changes of
+    * a batch started by the current thread.
+    */
+   public synchronized ProjectBuildingResult getWrittenProjectBuildingResult()
+   {
+      return buildProjectBuildingResult();
+   }
+
+   private ProjectBuildingResult buildProjectBuildingResult()
+   {
+      if (this.buildingResult == null || this.stale)
       {
          ProjectBuildingRequest request = null;
          request = getRequest();
@@ -319,10 +353,34 @@ public class MavenFacetImpl extends AbstractFacet<Project> implements ProjectFac
          {
             try
             {
-               request.setResolveDependencies(true);
+               /*
+                * Dependencies are resolved separately so that the previous resolution can be reused when only parts of
+                * the model that do not affect it were changed.
+                */
+               request.setResolveDependencies(false);
                // FORGE-1287
-               // buildingResult = getBuilder().build(new FileResourceModelSource(pomResource), request);
-               buildingResult = getBuilder().build(pomResource.getUnderlyingResourceObject(), request);
+               // result = getBuilder().build(new FileResourceModelSource(pomResource), request);
+               ProjectBuildingResult result = getBuilder().build(pomResource.getUnderlyingResourceObject(), request);
+               MavenProject project = result.getProject();
+
+               String fingerprint = getResolutionFingerprint(project, request);
+               DependencyResolutionResult resolution;
+               if (buildingResult != null && fingerprint.equals(resolutionFingerprint))
+               {
+                  resolution = buildingResult.getDependencyResolutionResult();
+                  setArtifacts(project, new LinkedHashSet<>(resolvedArtifacts));
+               }
+               else
+               {
+                  resolution = resolveDependencies(project, request);
+                  /*
+                   * A partial result may be caused by a transient repository failure, so it is resolved again next
+                   * time instead of being reused
+                   */
+                  resolutionFingerprint = isComplete(resolution) ? fingerprint : null;
+               }
+               buildingResult = new ResolvedProjectBuildingResult(result, resolution);
+               stale = false;
             }
             catch (RuntimeException full)
             {
@@ -341,15 +399,126 @@ public class MavenFacetImpl extends AbstractFacet<Project> implements ProjectFac
       return buildingResult;
    }
 
+   private DependencyResolutionResult resolveDependencies(MavenProject project, ProjectBuildingRequest request)
+   {
+      DependencyResolutionResult result;
+      try
+      {
+         ProjectDependenciesResolver resolver = plexus.lookup(ProjectDependenciesResolver.class);
+         result = resolver.resolve(new DefaultDependencyResolutionRequest(project, request.getRepositorySession()));
+      }
+      catch (DependencyResolutionException e)
+      {
+         result = e.getResult();
+      }
+
+      Set<Artifact> artifacts = new LinkedHashSet<>();
+      if (result != null && result.getDependencyGraph() != null)
+      {
+         RepositoryUtils.toArtifacts(artifacts, result.getDependencyGraph().getChildren(),
+                  Collections.singletonList(project.getArtifact().getId()), null);
+         /*
+          * As in Maven's DefaultProjectBuilder, an artifact always points at the local repository, whether it was
+          * resolved or not
+          */
+         LocalRepositoryManager localRepository = request.getRepositorySession().getLocalRepositoryManager();
+         for (Artifact artifact : artifacts)
+         {
+            if (!artifact.isResolved())
+            {
+               String path = localRepository.getPathForLocalArtifact(RepositoryUtils.toArtifact(artifact));
+               artifact.setFile(new File(localRepository.getRepository().getBasedir(), path));
+            }
+         }
+      }
+      resolvedArtifacts = artifacts;
+      setArtifacts(project, artifacts);
+      return result;
+   }
+
+   /**
+    * Sets the resolved artifacts the way Maven's DefaultProjectBuilder does when it resolves dependencies itself, as
+    * {@link MavenProject#getArtifacts()} is empty unless the artifacts are set as well.
+    */
+   private void setArtifacts(MavenProject project, Set<Artifact> artifacts)
+   {
+      project.setResolvedArtifacts(artifacts);
+      project.setArtifacts(artifacts);
+   }
+
+   private boolean isComplete(DependencyResolutionResult result)
+   {
+      if (result == null || result.getDependencyGraph() == null || !result.getCollectionErrors().isEmpty()
+               || !result.getUnresolvedDependencies().isEmpty())
+      {
+         return false;
+      }
+      for (org.eclipse.aether.graph.Dependency dependency : result.getDependencies())
+      {
+         if (!result.getResolutionErrors(dependency).isEmpty())
+            return false;
+      }
+      return true;
+   }
+
+   /**
+    * Describes every part of the effective model and the request that may influence dependency resolution:
+    * dependencies, managed dependencies, the parent, the remote repositories, the offline state and the Maven settings.
+    */
+   private String getResolutionFingerprint(MavenProject project, ProjectBuildingRequest request)
+   {
+      StringBuilder builder = new StringBuilder();
+      builder.append("offline:").append(request.getRepositorySession().isOffline()).append(';');
+      builder.append("settings:").append(requestCache.getSettingsFingerprint()).append(';');
+      appendDependencies(builder.append("dependencies:"), project.getDependencies());
+      if (project.getDependencyManagement() != null)
+      {
+         appendDependencies(builder.append("dependencyManagement:"), project.getDependencyManagement()
+                  .getDependencies());
+      }
+      if (project.getParentArtifact() != null)
+      {
+         builder.append("parent:").append(project.getParentArtifact().getId()).append(';');
+      }
+      builder.append("repositories:");
+      for (RemoteRepository repository : project.getRemoteProjectRepositories())
+      {
+         builder.append(repository.getId()).append('=').append(repository.getUrl()).append(';');
+      }
+      return builder.toString();
+   }
+
+   private void appendDependencies(StringBuilder builder, List<Dependency> dependencies)
+   {
+      if (dependencies != null)
+      {
+         for (Dependency dependency : dependencies)
+         {
+            builder.append(dependency.getManagementKey()).append(':').append(dependency.getVersion()).append(':')
+                     .append(dependency.getScope()).append(':').append(dependency.isOptional()).append(':')
+                     .append(dependency.getSystemPath());
+            for (Exclusion exclusion : dependency.getExclusions())
+            {
+               builder.append(":!").append(exclusion.getGroupId()).append(':').append(exclusion.getArtifactId());
+            }
+            builder.append(';');
+         }
+      }
+   }
+
    private void invalidateBuildingResults()
    {
-      this.buildingResult = null;
+      /*
+       * Keep the previous result around so its dependency resolution may be reused by the next build
+       */
+      this.stale = true;
+      modelVersion.incrementAndGet();
    }
 
    @Override
    public Map<String, String> getProperties()
    {
-      Properties properties = getProjectBuildingResult().getProject().getProperties();
+      Properties properties = getEffectiveProperties();
       Map<String, String> result = new HashMap<>();
       for (Entry<Object, Object> o : properties.entrySet())
       {
@@ -364,7 +533,7 @@ public class MavenFacetImpl extends AbstractFacet<Project> implements ProjectFac
       String result = input;
       if (input != null)
       {
-         Properties properties = getProjectBuildingResult().getProject().getProperties();
+         Properties properties = getEffectiveProperties();
 
          for (Entry<Object, Object> e : properties.entrySet())
          {
@@ -377,6 +546,22 @@ public class MavenFacetImpl extends AbstractFacet<Project> implements ProjectFac
       return result;
    }
 
+   /**
+    * Returns the properties of the effective model. Within a batch, properties of the pending {@link Model} take
+    * precedence, so that resolving properties does not require writing the pending changes.
+    */
+   private synchronized Properties getEffectiveProperties()
+   {
+      PomBatch current = batch.get();
+      if (current == null || !current.dirty)
+         return getProjectBuildingResult().getProject().getProperties();
+
+      Properties properties = new Properties();
+      properties.putAll(buildProjectBuildingResult().getProject().getProperties());
+      properties.putAll(current.model.getProperties());
+      return properties;
+   }
+
    @Override
    public boolean executeMavenEmbedded(final List<String> parameters)
    {
@@ -446,4 +631,12 @@ public class MavenFacetImpl extends AbstractFacet<Project> implements ProjectFac
                DirectoryResource.class);
    }
 
+   /**
+    * The pending {@link Model} of a {@link MavenFacet#batchPOMChanges(Callable)} call
+    */
+   private static class PomBatch
+   {
+      private Model model;
+      private boolean dirty;
+   }
 }
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.addon.maven.projects;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenExecutionRequestPopulator;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.apache.maven.settings.Mirror;
+import org.apache.maven.settings.Profile;
+import org.apache.maven.settings.Proxy;
+import org.apache.maven.settings.Repository;
+import org.apache.maven.settings.Settings;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.util.repository.DefaultMirrorSelector;
+import org.eclipse.aether.util.repository.DefaultProxySelector;
+import org.jboss.forge.addon.maven.projects.util.RepositoryUtils;
+import org.jboss.forge.furnace.manager.maven.MavenContainer;
+
+/**
+ * Builds the {@link ProjectBuildingRequest} shared by all {@link MavenFacetImpl} instances. The request, along with its
+ * repository session, is only rebuilt when the Maven settings files or the properties locating them and the local
+ * repository change, or a different offline state is requested.
+ */
+@Singleton
+class ProjectBuildingRequestCache
+{
+   /**
+    * The user settings.xml location set by TeamCity builds.
+    */
+   private static final String TEAMCITY_USER_SETTINGS_LOCATION = "teamcity.maven.userSettings.path";
+
+   @Inject
+   private MavenContainer container;
+
+   @Inject
+   private PlexusContainer plexus;
+
+   private ProjectBuildingRequest onlineRequest;
+   private ProjectBuildingRequest offlineRequest;
+   private String settingsFingerprint;
+
+   /**
+    * Returns a copy of the cached {@link ProjectBuildingRequest} for the given offline state. Callers may freely modify
+    * the returned request, but must not modify its repository session.
+    */
+   public synchronized ProjectBuildingRequest getRequest(final boolean offline)
+   {
+      String fingerprint = getSettingsFingerprint();
+      if (!fingerprint.equals(settingsFingerprint))
+      {
+         onlineRequest = null;
+         offlineRequest = null;
+         settingsFingerprint = fingerprint;
+      }
+
+      ProjectBuildingRequest request = offline ? offlineRequest : onlineRequest;
+      if (request == null)
+      {
+         request = createRequest(offline);
+         if (offline)
+            offlineRequest = request;
+         else
+            onlineRequest = request;
+      }
+      return new DefaultProjectBuildingRequest(request);
+   }
+
+   private ProjectBuildingRequest createRequest(final boolean offline)
+   {
+      ClassLoader cl = Thread.currentThread().getContextClassLoader();
+      try
+      {
+         Settings settings = container.getSettings();
+         // TODO this needs to be configurable via .forge
+         // TODO this reference to the M2_REPO should probably be centralized
+
+         MavenExecutionRequest executionRequest = new DefaultMavenExecutionRequest();
+         MavenExecutionRequestPopulator populator = plexus.lookup(MavenExecutionRequestPopulator.class);
+         populator.populateFromSettings(executionRequest, settings);
+         populator.populateDefaults(executionRequest);
+         RepositorySystem system = plexus.lookup(RepositorySystem.class);
+         ProjectBuildingRequest request = executionRequest.getProjectBuildingRequest();
+
+         ArtifactRepository localRepository = RepositoryUtils.toArtifactRepository("local",
+                  new File(settings.getLocalRepository()).toURI().toURL().toString(), null, true, true);
+         request.setLocalRepository(localRepository);
+
+         List<ArtifactRepository> settingsRepos = new ArrayList<ArtifactRepository>(request.getRemoteRepositories());
+         List<String> activeProfiles = settings.getActiveProfiles();
+
+         Map<String, Profile> profiles = settings.getProfilesAsMap();
+
+         for (String id : activeProfiles)
+         {
+            Profile profile = profiles.get(id);
+            if (profile != null)
+            {
+               List<Repository> repositories = profile.getRepositories();
+               for (Repository repository : repositories)
+               {
+                  settingsRepos.add(RepositoryUtils.convertFromMavenSettingsRepository(repository));
+               }
+            }
+         }
+         request.setRemoteRepositories(settingsRepos);
+         request.setSystemProperties(System.getProperties());
+
+         DefaultRepositorySystemSession repositorySession = MavenRepositorySystemUtils.newSession();
+         Proxy activeProxy = settings.getActiveProxy();
+         if (activeProxy != null)
+         {
+            DefaultProxySelector dps = new DefaultProxySelector();
+            dps.add(RepositoryUtils.convertFromMavenProxy(activeProxy), activeProxy.getNonProxyHosts());
+            repositorySession.setProxySelector(dps);
+         }
+         LocalRepository localRepo = new LocalRepository(settings.getLocalRepository());
+         repositorySession.setLocalRepositoryManager(system.newLocalRepositoryManager(repositorySession, localRepo));
+         repositorySession.setOffline(offline);
+         List<Mirror> mirrors = executionRequest.getMirrors();
+         if (mirrors != null)
+         {
+            DefaultMirrorSelector mirrorSelector = new DefaultMirrorSelector();
+            for (Mirror mirror : mirrors)
+            {
+               mirrorSelector.add(mirror.getId(), mirror.getUrl(), mirror.getLayout(), false, mirror.getMirrorOf(),
+                        mirror.getMirrorOfLayouts());
+            }
+            repositorySession.setMirrorSelector(mirrorSelector);
+         }
+
+         request.setRepositorySession(repositorySession);
+         request.setProcessPlugins(false);
+         request.setResolveDependencies(false);
+         return request;
+      }
+      catch (RuntimeException e)
+      {
+         throw e;
+      }
+      catch (Exception e)
+      {
+         throw new RuntimeException(
+                  "Could not create Maven project building request", e);
+      }
+      finally
+      {
+         /*
+          * We reset the classloader to prevent potential modules bugs if Classwords container changes classloaders on
+          * us
+          */
+         Thread.currentThread().setContextClassLoader(cl);
+      }
+   }
+
+   /**
+    * Identifies the current state of the user and global settings.xml files by their location, size and modification
+    * time, along with the system properties that select the settings files and the local repository.
+    */
+   String getSettingsFingerprint()
+   {
+      StringBuilder fingerprint = new StringBuilder();
+      String userSettings = System.getProperty(MavenContainer.ALT_USER_SETTINGS_XML_LOCATION);
+      if (userSettings == null)
+      {
+         userSettings = System.getProperty(TEAMCITY_USER_SETTINGS_LOCATION);
+      }
+      if (userSettings == null)
+      {
+         userSettings = new File(new File(System.getProperty("user.home"), ".m2"), "settings.xml").getPath();
+      }
+      appendFingerprint(fingerprint, new File(userSettings));
+
+      String globalSettings = System.getProperty(MavenContainer.ALT_GLOBAL_SETTINGS_XML_LOCATION);
+      if (globalSettings == null)
+      {
+         String mavenHome = System.getenv("M2_HOME");
+         if (mavenHome == null)
+         {
+            mavenHome = System.getProperty("maven.home");
+         }
+         if (mavenHome != null)
+         {
+            globalSettings = new File(new File(mavenHome, "conf"), "settings.xml").getPath();
+         }
+      }
+      if (globalSettings != null)
+      {
+         appendFingerprint(fingerprint, new File(globalSettings));
+      }
+
+      fingerprint.append(System.getProperty(MavenContainer.ALT_LOCAL_REPOSITORY_LOCATION)).append(';');
+      return fingerprint.toString();
+   }
+
+   private void appendFingerprint(StringBuilder builder, File file)
+   {
+      builder.append(file.getAbsolutePath()).append(':').append(file.lastModified()).append(':')
+               .append(file.length()).append(';');
+   }
+}
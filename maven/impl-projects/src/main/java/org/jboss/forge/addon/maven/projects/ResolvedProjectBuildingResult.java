@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.addon.maven.projects;
+
+import java.io.File;
+import java.util.List;
+
+import org.apache.maven.model.building.ModelProblem;
+import org.apache.maven.project.DependencyResolutionResult;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuildingResult;
+
+/**
+ * A {@link ProjectBuildingResult} for a project that was built without dependency resolution, combined with a
+ * {@link DependencyResolutionResult} that was either freshly resolved or carried over from a previous build.
+ */
+class ResolvedProjectBuildingResult implements ProjectBuildingResult
+{
+   private final ProjectBuildingResult delegate;
+   private final DependencyResolutionResult resolutionResult;
+
+   public ResolvedProjectBuildingResult(ProjectBuildingResult delegate, DependencyResolutionResult resolutionResult)
+   {
+      this.delegate = delegate;
+      this.resolutionResult = resolutionResult;
+   }
+
+   @Override
+   public String getProjectId()
+   {
+      return delegate.getProjectId();
+   }
+
+   @Override
+   public File getPomFile()
+   {
+      return delegate.getPomFile();
+   }
+
+   @Override
+   public MavenProject getProject()
+   {
+      return delegate.getProject();
+   }
+
+   @Override
+   public List<ModelProblem> getProblems()
+   {
+      return delegate.getProblems();
+   }
+
+   @Override
+   public DependencyResolutionResult getDependencyResolutionResult()
+   {
+      return resolutionResult;
+   }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.addon.maven.projects.facets;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.forge.addon.dependencies.Coordinate;
+import org.jboss.forge.addon.dependencies.Dependency;
+import org.jboss.forge.addon.dependencies.builder.DependencyBuilder;
+import org.jboss.forge.addon.dependencies.util.Dependencies;
+
+/**
+ * An immutable index of dependencies and managed dependencies with resolved properties, keyed by the coordinate parts
+ * compared by {@link Dependencies#areEquivalent(Dependency, Dependency)}. When several equivalent dependencies exist,
+ * the first one is indexed.
+ */
+class DependencyIndex
+{
+   private final Object version;
+   private final Map<String, Dependency> dependencies;
+   private final Map<String, Dependency> managedDependencies;
+
+   /**
+    * Create an index of the given dependencies, which must already have their properties resolved. The given version
+    * identifies the state of the model the dependencies were taken from.
+    */
+   public DependencyIndex(Object version, List<Dependency> dependencies, List<Dependency> managedDependencies)
+   {
+      this.version = version;
+      this.dependencies = index(dependencies);
+      this.managedDependencies = index(managedDependencies);
+   }
+
+   /**
+    * Returns <code>true</code> if this index was created from the model state identified by the given version.
+    */
+   public boolean isCurrent(Object version)
+   {
+      return this.version.equals(version);
+   }
+
+   /**
+    * Returns a copy of the indexed dependency equivalent to the given dependency, or <code>null</code> if there is
+    * none.
+    */
+   public Dependency getDependency(Dependency dependency)
+   {
+      return copyOf(dependencies.get(keyOf(dependency.getCoordinate())));
+   }
+
+   /**
+    * Returns a copy of the indexed managed dependency equivalent to the given dependency, or <code>null</code> if there
+    * is none.
+    */
+   public Dependency getManagedDependency(Dependency dependency)
+   {
+      return copyOf(managedDependencies.get(keyOf(dependency.getCoordinate())));
+   }
+
+   /**
+    * Returns the indexed dependencies, in no particular order.
+    */
+   public Collection<Dependency> getDependencies()
+   {
+      return Collections.unmodifiableCollection(dependencies.values());
+   }
+
+   /**
+    * Returns the indexed managed dependencies, in no particular order.
+    */
+   public Collection<Dependency> getManagedDependencies()
+   {
+      return Collections.unmodifiableCollection(managedDependencies.values());
+   }
+
+   private static Dependency copyOf(Dependency dependency)
+   {
+      return dependency != null ? DependencyBuilder.create(dependency) : null;
+   }
+
+   private static Map<String, Dependency> index(List<Dependency> dependencies)
+   {
+      Map<String, Dependency> result = new HashMap<>();
+      for (Dependency dependency : dependencies)
+      {
+         String key = keyOf(dependency.getCoordinate());
+         if (!result.containsKey(key))
+         {
+            result.put(key, dependency);
+         }
+      }
+      return result;
+   }
+
+   private static String keyOf(Coordinate coordinate)
+   {
+      return coordinate.getGroupId() + ":" + coordinate.getArtifactId() + ":" + coordinate.getClassifier();
+   }
+}
@@ -6,9 +6,12 @@
  */
 package org.jboss.forge.addon.maven.projects.facets;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import javax.enterprise.context.Dependent;
 import javax.inject.Inject;
@@ -34,6 +37,7 @@ import org.jboss.forge.addon.maven.projects.MavenFacet;
 import org.jboss.forge.addon.maven.projects.MavenFacetImpl;
 import org.jboss.forge.addon.projects.Project;
 import org.jboss.forge.addon.projects.facets.DependencyFacet;
+import org.jboss.forge.furnace.util.Strings;
 
 /**
  * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
@@ -45,6 +49,9 @@ public class MavenDependencyFacet extends AbstractFacet<Project> implements Depe
    @Inject
    private DependencyResolver resolver;
 
+   private volatile DependencyIndex directIndex;
+   private volatile DependencyIndex effectiveIndex;
+
    @Override
    public boolean isInstalled()
    {
@@ -60,11 +67,10 @@ public class MavenDependencyFacet extends AbstractFacet<Project> implements Depe
    @Override
    public void addDirectDependency(final Dependency dep)
    {
-      removeDependency(dep);
-
       MavenFacet maven = getFaceted().getFacet(MavenFacet.class);
       Model pom = maven.getPOM();
       List<Dependency> dependencies = MavenDependencyAdapter.fromMavenList(pom.getDependencies());
+      removeEquivalent(dependencies, resolveProperties(dep));
       dependencies.add(dep);
       pom.setDependencies(MavenDependencyAdapter.toMavenList(dependencies));
       maven.setPOM(pom);
@@ -73,18 +79,7 @@ public class MavenDependencyFacet extends AbstractFacet<Project> implements Depe
    @Override
    public boolean hasDirectDependency(final Dependency dependency)
    {
-      MavenFacet maven = getFaceted().getFacet(MavenFacet.class);
-      Model pom = maven.getPOM();
-      List<Dependency> dependencies = MavenDependencyAdapter.fromMavenList(pom.getDependencies());
-
-      for (Dependency dep : dependencies)
-      {
-         if (Dependencies.areEquivalent(resolveProperties(dependency), dep))
-         {
-            return true;
-         }
-      }
-      return false;
+      return getDirectDependency(dependency) != null;
    }
 
    @Override
@@ -94,15 +89,7 @@ public class MavenDependencyFacet extends AbstractFacet<Project> implements Depe
       Model pom = maven.getPOM();
       List<Dependency> dependencies = MavenDependencyAdapter.fromMavenList(pom.getDependencies());
 
-      List<Dependency> toBeRemoved = new ArrayList<Dependency>();
-      for (Dependency dependency : dependencies)
-      {
-         if (Dependencies.areEquivalent(dependency, resolveProperties(dep)))
-         {
-            toBeRemoved.add(dependency);
-         }
-      }
-      dependencies.removeAll(toBeRemoved);
+      removeEquivalent(dependencies, resolveProperties(dep));
       pom.setDependencies(MavenDependencyAdapter.toMavenList(dependencies));
       maven.setPOM(pom);
    }
@@ -126,18 +113,7 @@ public class MavenDependencyFacet extends AbstractFacet<Project> implements Depe
    @Override
    public Dependency getDirectDependency(final Dependency dependency)
    {
-      MavenFacet maven = getFaceted().getFacet(MavenFacet.class);
-      Model pom = maven.getPOM();
-      List<Dependency> dependencies = MavenDependencyAdapter.fromMavenList(pom.getDependencies());
-
-      for (Dependency dep : dependencies)
-      {
-         if (Dependencies.areEquivalent(resolveProperties(dependency), dep))
-         {
-            return resolveProperties(dep);
-         }
-      }
-      return null;
+      return getDirectIndex().getDependency(resolveProperties(dependency));
    }
 
    @Override
@@ -149,14 +125,7 @@ public class MavenDependencyFacet extends AbstractFacet<Project> implements Depe
    @Override
    public Dependency getEffectiveDependency(final Dependency manDep)
    {
-      for (Dependency dependency : getEffectiveDependencies())
-      {
-         if (Dependencies.areEquivalent(dependency, resolveProperties(manDep)))
-         {
-            return resolveProperties(dependency);
-         }
-      }
-      return null;
+      return getEffectiveIndex().getDependency(resolveProperties(manDep));
    }
 
    @Override
@@ -197,14 +166,13 @@ public class MavenDependencyFacet extends AbstractFacet<Project> implements Depe
    @Override
    public void addDirectManagedDependency(final Dependency dep)
    {
-      removeManagedDependency(dep);
-
       MavenFacet maven = getFaceted().getFacet(MavenFacet.class);
       Model pom = maven.getPOM();
       DependencyManagement depMan = pom.getDependencyManagement();
       depMan = depMan != null ? depMan : new DependencyManagement();
 
       List<Dependency> managedDependencies = MavenDependencyAdapter.fromMavenList(depMan.getDependencies());
+      removeEquivalent(managedDependencies, dep);
       managedDependencies.add(dep);
       depMan.setDependencies(MavenDependencyAdapter.toMavenList(managedDependencies));
       pom.setDependencyManagement(depMan);
@@ -220,40 +188,13 @@ public class MavenDependencyFacet extends AbstractFacet<Project> implements Depe
    @Override
    public Dependency getEffectiveManagedDependency(final Dependency manDep)
    {
-      MavenFacet maven = getFaceted().getFacet(MavenFacet.class);
-      DependencyManagement depMan = ((MavenFacetImpl) maven).getProjectBuildingResult().getProject()
-               .getDependencyManagement();
-      List<Dependency> managedDependencies = (depMan != null ? MavenDependencyAdapter.fromMavenList(depMan
-               .getDependencies()) : new ArrayList<Dependency>());
-
-      for (Dependency managedDependency : managedDependencies)
-      {
-         if (Dependencies.areEquivalent(managedDependency, resolveProperties(manDep)))
-         {
-            return resolveProperties(managedDependency);
-         }
-      }
-      return null;
+      return getEffectiveIndex().getManagedDependency(resolveProperties(manDep));
    }
 
    @Override
    public boolean hasDirectManagedDependency(final Dependency managedDependency)
    {
-      MavenFacet maven = getFaceted().getFacet(MavenFacet.class);
-      Model pom = maven.getPOM();
-      DependencyManagement depMan = pom.getDependencyManagement();
-
-      List<Dependency> managedDependencies = depMan != null ? MavenDependencyAdapter.fromMavenList(depMan
-               .getDependencies()) : new ArrayList<Dependency>();
-
-      for (Dependency manDep : managedDependencies)
-      {
-         if (Dependencies.areEquivalent(resolveProperties(managedDependency), manDep))
-         {
-            return true;
-         }
-      }
-      return false;
+      return getDirectManagedDependency(managedDependency) != null;
    }
 
    @Override
@@ -266,15 +207,7 @@ public class MavenDependencyFacet extends AbstractFacet<Project> implements Depe
 
       List<Dependency> managedDependencies = MavenDependencyAdapter.fromMavenList(depMan.getDependencies());
 
-      List<Dependency> toBeRemoved = new ArrayList<Dependency>();
-      for (Dependency managedDependency : managedDependencies)
-      {
-         if (Dependencies.areEquivalent(managedDependency, manDep))
-         {
-            toBeRemoved.add(managedDependency);
-         }
-      }
-      managedDependencies.removeAll(toBeRemoved);
+      removeEquivalent(managedDependencies, manDep);
       depMan.setDependencies(MavenDependencyAdapter.toMavenList(managedDependencies));
       pom.setDependencyManagement(depMan);
       maven.setPOM(pom);
@@ -304,21 +237,7 @@ public class MavenDependencyFacet extends AbstractFacet<Project> implements Depe
    @Override
    public Dependency getDirectManagedDependency(final Dependency manDep)
    {
-      MavenFacet maven = getFaceted().getFacet(MavenFacet.class);
-      Model pom = maven.getPOM();
-      DependencyManagement depMan = pom.getDependencyManagement();
-
-      List<Dependency> managedDependencies = depMan != null ? MavenDependencyAdapter.fromMavenList(depMan
-               .getDependencies()) : new ArrayList<Dependency>();
-
-      for (Dependency managedDependency : managedDependencies)
-      {
-         if (Dependencies.areEquivalent(managedDependency, resolveProperties(manDep)))
-         {
-            return resolveProperties(managedDependency);
-         }
-      }
-      return null;
+      return getDirectIndex().getManagedDependency(resolveProperties(manDep));
    }
 
    @Override
@@ -473,6 +392,170 @@ public class MavenDependencyFacet extends AbstractFacet<Project> implements Depe
       return result;
    }
 
+   /**
+    * Returns the index of direct dependencies, rebuilding it if the POM was changed since it was last built. While the
+    * current thread has pending batch changes, an index of the pending {@link Model} is built that is not shared with
+    * other threads.
+    */
+   private DependencyIndex getDirectIndex()
+   {
+      MavenFacetImpl maven = getFaceted().getFacet(MavenFacetImpl.class);
+      if (maven.hasPendingPOMChanges())
+      {
+         return createDirectIndex(maven.getPOM(), maven.getPOM());
+      }
+
+      File pomFile = maven.getPomResource().getUnderlyingResourceObject();
+      String version = maven.getModelVersion() + ":" + pomFile.lastModified() + ":" + pomFile.length();
+
+      DependencyIndex index = directIndex;
+      if (index == null || !index.isCurrent(version))
+      {
+         index = createDirectIndex(version, maven.getPOM());
+         directIndex = index;
+      }
+      return index;
+   }
+
+   private DependencyIndex createDirectIndex(Object version, Model pom)
+   {
+      return new DependencyIndex(version,
+               resolveProperties(MavenDependencyAdapter.fromMavenList(pom.getDependencies())),
+               managedDependenciesOf(pom));
+   }
+
+   /**
+    * Returns the index of effective dependencies, rebuilding it if the effective model was rebuilt since it was last
+    * built.
+    */
+   private DependencyIndex getEffectiveIndex()
+   {
+      MavenFacetImpl maven = getFaceted().getFacet(MavenFacetImpl.class);
+      if (maven.hasPendingPOMChanges())
+      {
+         return getPendingEffectiveIndex(maven);
+      }
+      return getEffectiveIndex(maven.getProjectBuildingResult());
+   }
+
+   private DependencyIndex getEffectiveIndex(ProjectBuildingResult projectBuildingResult)
+   {
+      DependencyIndex index = effectiveIndex;
+      if (index == null || !index.isCurrent(projectBuildingResult))
+      {
+         DependencyResolutionResult dependencyResolutionResult = projectBuildingResult
+                  .getDependencyResolutionResult();
+         DependencyManagement depMan = projectBuildingResult.getProject().getDependencyManagement();
+         index = new DependencyIndex(projectBuildingResult,
+                  resolveProperties(MavenDependencyAdapter.fromAetherList(dependencyResolutionResult
+                           .getDependencies())),
+                  resolveProperties(depMan != null ? MavenDependencyAdapter.fromMavenList(depMan.getDependencies())
+                           : new ArrayList<Dependency>()));
+         effectiveIndex = index;
+      }
+      return index;
+   }
+
+   /**
+    * Returns an index of effective dependencies for a batch with pending changes, so that they can be looked up
+    * without writing the POM. The effective dependencies of the POM file as last written are combined with the direct
+    * and managed dependencies of the pending {@link Model}. Transitive dependencies of dependencies added in the batch
+    * are not included. The index is only used by the current thread and is never cached.
+    */
+   private DependencyIndex getPendingEffectiveIndex(MavenFacetImpl maven)
+   {
+      ProjectBuildingResult written = maven.getWrittenProjectBuildingResult();
+      DependencyIndex writtenIndex = getEffectiveIndex(written);
+      Model writtenModel = written.getProject().getOriginalModel();
+      Model pending = maven.getPOM();
+
+      List<Dependency> managed = overlay(writtenIndex.getManagedDependencies(),
+               managedDependenciesOf(writtenModel), managedDependenciesOf(pending));
+      DependencyIndex managedIndex = new DependencyIndex(pending, new ArrayList<Dependency>(), managed);
+
+      List<Dependency> pendingDirect = new ArrayList<Dependency>();
+      for (Dependency dependency : resolveProperties(MavenDependencyAdapter.fromMavenList(pending.getDependencies())))
+      {
+         Dependency managedDependency = managedIndex.getManagedDependency(dependency);
+         if (Strings.isNullOrEmpty(dependency.getCoordinate().getVersion()) && managedDependency != null)
+         {
+            dependency = DependencyBuilder.create(dependency).setVersion(
+                     managedDependency.getCoordinate().getVersion());
+         }
+         pendingDirect.add(dependency);
+      }
+      List<Dependency> dependencies = overlay(writtenIndex.getDependencies(),
+               resolveProperties(MavenDependencyAdapter.fromMavenList(writtenModel.getDependencies())),
+               pendingDirect);
+      return new DependencyIndex(pending, dependencies, managed);
+   }
+
+   private List<Dependency> managedDependenciesOf(Model model)
+   {
+      DependencyManagement depMan = model.getDependencyManagement();
+      return resolveProperties(depMan != null ? MavenDependencyAdapter.fromMavenList(depMan.getDependencies())
+               : new ArrayList<Dependency>());
+   }
+
+   /**
+    * Returns the pending declarations, followed by the effective dependencies that are declared in neither the written
+    * nor the pending model. Declarations removed in the batch are thereby removed from the effective dependencies.
+    */
+   private List<Dependency> overlay(Collection<Dependency> effective, List<Dependency> written,
+            List<Dependency> pending)
+   {
+      List<Dependency> result = new ArrayList<Dependency>(pending);
+      for (Dependency dependency : effective)
+      {
+         if (!containsEquivalent(pending, dependency) && !containsEquivalent(written, dependency))
+         {
+            result.add(dependency);
+         }
+      }
+      return result;
+   }
+
+   private boolean containsEquivalent(List<Dependency> dependencies, Dependency dep)
+   {
+      for (Dependency dependency : dependencies)
+      {
+         if (Dependencies.areEquivalent(dependency, dep))
+         {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   private List<Dependency> resolveProperties(List<Dependency> dependencies)
+   {
+      List<Dependency> result = new ArrayList<Dependency>();
+      for (Dependency dependency : dependencies)
+      {
+         result.add(resolveProperties(dependency));
+      }
+      return result;
+   }
+
+   @Override
+   public <T> T batchChanges(Callable<T> changes)
+   {
+      return getFaceted().getFacet(MavenFacet.class).batchPOMChanges(changes);
+   }
+
+   private void removeEquivalent(List<Dependency> dependencies, Dependency dep)
+   {
+      List<Dependency> toBeRemoved = new ArrayList<Dependency>();
+      for (Dependency dependency : dependencies)
+      {
+         if (Dependencies.areEquivalent(dependency, dep))
+         {
+            toBeRemoved.add(dependency);
+         }
+      }
+      dependencies.removeAll(toBeRemoved);
+   }
+
    @Override
    public void setFaceted(Project project)
    {
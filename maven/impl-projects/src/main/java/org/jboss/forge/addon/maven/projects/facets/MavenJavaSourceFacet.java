@@ -9,9 +9,16 @@ package org.jboss.forge.addon.maven.projects.facets;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
 
 import org.apache.maven.model.Build;
 import org.jboss.forge.addon.facets.AbstractFacet;
@@ -19,6 +26,8 @@ import org.jboss.forge.addon.facets.constraints.FacetConstraint;
 import org.jboss.forge.addon.maven.projects.MavenFacet;
 import org.jboss.forge.addon.maven.projects.util.Packages;
 import org.jboss.forge.addon.parser.java.facets.JavaSourceFacet;
+import org.jboss.forge.addon.parser.java.index.JavaSymbolIndex;
+import org.jboss.forge.addon.parser.java.index.JavaTypeSymbol;
 import org.jboss.forge.addon.parser.java.resources.JavaResource;
 import org.jboss.forge.addon.parser.java.resources.JavaResourceVisitor;
 import org.jboss.forge.addon.projects.Project;
@@ -26,6 +35,8 @@ import org.jboss.forge.addon.resource.DirectoryResource;
 import org.jboss.forge.addon.resource.Resource;
 import org.jboss.forge.addon.resource.ResourceFilter;
 import org.jboss.forge.addon.resource.visit.ResourceVisit;
+import org.jboss.forge.addon.resource.visit.ResourceVisitor;
+import org.jboss.forge.addon.resource.visit.VisitContext;
 import org.jboss.forge.furnace.util.Strings;
 import org.jboss.forge.parser.java.JavaSource;
 
@@ -36,6 +47,9 @@ import org.jboss.forge.parser.java.JavaSource;
 @FacetConstraint(MavenFacet.class)
 public class MavenJavaSourceFacet extends AbstractFacet<Project> implements JavaSourceFacet
 {
+   @Inject
+   private JavaSymbolIndex symbolIndex;
+
    @Override
    public List<DirectoryResource> getSourceDirectories()
    {
@@ -232,4 +246,163 @@ public class MavenJavaSourceFacet extends AbstractFacet<Project> implements Java
       });
    }
 
+   @Override
+   public void visitJavaSourcesInParallel(final JavaResourceVisitor visitor, final boolean ordered)
+   {
+      visitInParallel(getSourceDirectory(), visitor, ordered);
+   }
+
+   @Override
+   public void visitJavaTestSourcesInParallel(final JavaResourceVisitor visitor, final boolean ordered)
+   {
+      visitInParallel(getTestSourceDirectory(), visitor, ordered);
+   }
+
+   @Override
+   public List<JavaTypeSymbol> getJavaTypeSymbols()
+   {
+      return symbolIndex.getSymbols(getFaceted(), getSourceDirectory());
+   }
+
+   @Override
+   public List<JavaTypeSymbol> getJavaTypeSymbolsAnnotatedWith(final String annotationType)
+   {
+      List<JavaTypeSymbol> result = new ArrayList<JavaTypeSymbol>();
+      for (JavaTypeSymbol symbol : getJavaTypeSymbols())
+      {
+         if (symbol.isAnnotatedWith(annotationType))
+         {
+            result.add(symbol);
+         }
+      }
+      return result;
+   }
+
+   @Override
+   public List<JavaTypeSymbol> getJavaTypeSymbolsAssignableTo(final String type)
+   {
+      List<JavaTypeSymbol> symbols = getJavaTypeSymbols();
+      Set<String> supertypes = new HashSet<String>();
+      supertypes.add(type);
+      List<JavaTypeSymbol> result = new ArrayList<JavaTypeSymbol>();
+      boolean found = true;
+      while (found)
+      {
+         found = false;
+         for (JavaTypeSymbol symbol : symbols)
+         {
+            if (!result.contains(symbol) && hasAnySupertype(symbol, supertypes))
+            {
+               result.add(symbol);
+               supertypes.add(symbol.getQualifiedName());
+               found = true;
+            }
+         }
+      }
+      return result;
+   }
+
+   @Override
+   public JavaResource getJavaResource(final JavaTypeSymbol symbol)
+   {
+      return getSourceDirectory().getChildOfType(JavaResource.class, symbol.getPath());
+   }
+
+   private boolean hasAnySupertype(final JavaTypeSymbol symbol, final Set<String> supertypes)
+   {
+      for (String supertype : supertypes)
+      {
+         if (symbol.hasSupertype(supertype))
+         {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   private void visitInParallel(final DirectoryResource root, final JavaResourceVisitor visitor, final boolean ordered)
+   {
+      final Queue<ParsedJavaResource> parsed = new ConcurrentLinkedQueue<ParsedJavaResource>();
+      ResourceVisit visit = new ResourceVisit(root);
+      visit.performParallel(new ResourceVisitor()
+      {
+         @Override
+         public void visit(VisitContext context, Resource<?> resource)
+         {
+            JavaResource javaResource = (JavaResource) resource;
+            JavaSource<?> javaSource;
+            try
+            {
+               javaSource = javaResource.getJavaSource();
+            }
+            catch (FileNotFoundException e)
+            {
+               throw new IllegalStateException(e);
+            }
+
+            if (ordered)
+               parsed.add(new ParsedJavaResource(javaResource, javaSource));
+            else
+               visitor.visit(context, javaResource, javaSource);
+         }
+      }, new ResourceFilter()
+      {
+         @Override
+         public boolean accept(Resource<?> resource)
+         {
+            return resource instanceof DirectoryResource;
+         }
+      }, new ResourceFilter()
+      {
+         @Override
+         public boolean accept(Resource<?> type)
+         {
+            return type instanceof JavaResource;
+         }
+      }, false);
+
+      if (ordered)
+      {
+         List<ParsedJavaResource> sorted = new ArrayList<ParsedJavaResource>(parsed);
+         Collections.sort(sorted, new Comparator<ParsedJavaResource>()
+         {
+            @Override
+            public int compare(ParsedJavaResource left, ParsedJavaResource right)
+            {
+               return left.resource.getFullyQualifiedName().compareTo(right.resource.getFullyQualifiedName());
+            }
+         });
+
+         OrderedVisitContext context = new OrderedVisitContext();
+         for (ParsedJavaResource entry : sorted)
+         {
+            if (context.terminated)
+               break;
+            visitor.visit(context, entry.resource, entry.source);
+         }
+      }
+   }
+
+   private static class ParsedJavaResource
+   {
+      private final JavaResource resource;
+      private final JavaSource<?> source;
+
+      public ParsedJavaResource(JavaResource resource, JavaSource<?> source)
+      {
+         this.resource = resource;
+         this.source = source;
+      }
+   }
+
+   private static class OrderedVisitContext implements VisitContext
+   {
+      private boolean terminated;
+
+      @Override
+      public void terminate()
+      {
+         this.terminated = true;
+      }
+   }
 }
@@ -0,0 +1,404 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.addon.maven.dependencies;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.inject.Singleton;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.jboss.forge.addon.dependencies.Dependency;
+import org.jboss.forge.addon.dependencies.DependencyRepository;
+import org.jboss.forge.addon.dependencies.builder.DependencyBuilder;
+import org.jboss.forge.addon.dependencies.builder.DependencyNodeBuilder;
+import org.jboss.forge.addon.resource.FileResource;
+import org.jboss.forge.addon.resource.ResourceFactory;
+import org.jboss.forge.furnace.util.OperatingSystemUtils;
+import org.jboss.forge.furnace.util.Streams;
+
+/**
+ * A persistent cache of dependency resolution results, stored in the <code>cache/dependencies</code> folder of the
+ * Forge user directory. Each entry is stored in its own file, keyed by the operation, the queried artifact, the scope
+ * and the repositories that were used.
+ *
+ * Entries expire after the number of milliseconds given by the <code>maven.resolution.cache.ttl</code> system property
+ * (one day by default, as with the default Maven update policy). Expired entries are still used when Maven is offline,
+ * or when the <code>maven.resolution.cache.offline</code> system property is set to <code>true</code>, in which case
+ * repositories are only queried for results that have never been cached.
+ *
+ * Since expired entries remain useful offline, they are only deleted once they are older than the number of
+ * milliseconds given by the <code>maven.resolution.cache.retention</code> system property (30 days by default, and
+ * never less than the expiry time). The directory is pruned the first time an entry is written.
+ */
+@Singleton
+class DependencyResolutionCache
+{
+   private static final Logger log = Logger.getLogger(DependencyResolutionCache.class.getName());
+
+   private static final long DEFAULT_TTL = TimeUnit.DAYS.toMillis(1);
+   private static final long DEFAULT_RETENTION = TimeUnit.DAYS.toMillis(30);
+
+   /**
+    * Temporary files older than this were left behind by an interrupted write.
+    */
+   private static final long TEMP_FILE_RETENTION = TimeUnit.HOURS.toMillis(1);
+
+   private final File directory;
+   private final long ttl;
+   private final long retention;
+   private final boolean offlineFirst;
+   private final AtomicBoolean pruned = new AtomicBoolean();
+
+   public DependencyResolutionCache()
+   {
+      this(new File(OperatingSystemUtils.getUserForgeDir(), "cache" + File.separator + "dependencies"),
+               Long.getLong("maven.resolution.cache.ttl", DEFAULT_TTL),
+               Long.getLong("maven.resolution.cache.retention", DEFAULT_RETENTION),
+               Boolean.getBoolean("maven.resolution.cache.offline"));
+   }
+
+   DependencyResolutionCache(File directory, long ttl, long retention, boolean offlineFirst)
+   {
+      this.directory = directory;
+      this.ttl = ttl;
+      this.retention = Math.max(ttl, retention);
+      this.offlineFirst = offlineFirst;
+   }
+
+   /**
+    * Create a cache key for the given operation on the given {@link Artifact}.
+    */
+   public static String getKey(String operation, Artifact artifact, String scope, String localRepository,
+            List<RemoteRepository> repositories)
+   {
+      StringBuilder key = new StringBuilder(operation).append('|').append(artifact).append('|').append(scope)
+               .append('|').append(localRepository).append('|');
+      for (RemoteRepository repository : repositories)
+      {
+         key.append(repository.getId()).append('=').append(repository.getUrl()).append(';');
+      }
+      return key.toString();
+   }
+
+   /**
+    * Returns the cached value for the given key, or <code>null</code> if no usable entry exists.
+    *
+    * @param offline whether repositories are currently unavailable, in which case expired entries are returned
+    */
+   @SuppressWarnings("unchecked")
+   public <T extends Serializable> T get(String key, boolean offline)
+   {
+      File file = getFile(key);
+      if (!file.isFile())
+         return null;
+
+      if (!offline && !offlineFirst && System.currentTimeMillis() - file.lastModified() > ttl)
+         return null;
+
+      InputStream stream = null;
+      try
+      {
+         stream = new FileInputStream(file);
+         ObjectInputStream in = new ObjectInputStream(stream)
+         {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException
+            {
+               return Class.forName(desc.getName(), false, DependencyResolutionCache.class.getClassLoader());
+            }
+         };
+         if (key.equals(in.readUTF()))
+         {
+            return (T) in.readObject();
+         }
+      }
+      catch (Exception e)
+      {
+         log.log(Level.FINE, "Could not read dependency resolution cache entry [" + file + "]", e);
+      }
+      finally
+      {
+         Streams.closeQuietly(stream);
+      }
+      return null;
+   }
+
+   /**
+    * Store the given value for the given key, replacing any existing entry.
+    */
+   public void put(String key, Serializable value)
+   {
+      if (pruned.compareAndSet(false, true))
+      {
+         prune();
+      }
+      File file = getFile(key);
+      File temp = null;
+      try
+      {
+         directory.mkdirs();
+         temp = File.createTempFile(file.getName(), ".tmp", directory);
+         ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(temp));
+         try
+         {
+            out.writeUTF(key);
+            out.writeObject(value);
+         }
+         finally
+         {
+            out.close();
+         }
+         Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                  StandardCopyOption.ATOMIC_MOVE);
+      }
+      catch (Exception e)
+      {
+         log.log(Level.FINE, "Could not write dependency resolution cache entry [" + file + "]", e);
+         if (temp != null)
+            temp.delete();
+      }
+   }
+
+   /**
+    * Delete the entries that are older than the retention time, and temporary files left behind by interrupted writes.
+    */
+   void prune()
+   {
+      File[] files = directory.listFiles();
+      if (files == null)
+         return;
+
+      long now = System.currentTimeMillis();
+      for (File file : files)
+      {
+         long age = now - file.lastModified();
+         if ((file.getName().endsWith(".ser") && age > retention)
+                  || (file.getName().endsWith(".tmp") && age > TEMP_FILE_RETENTION))
+         {
+            if (!file.delete())
+               log.fine("Could not delete dependency resolution cache entry [" + file + "]");
+         }
+      }
+   }
+
+   private File getFile(String key)
+   {
+      try
+      {
+         MessageDigest digest = MessageDigest.getInstance("SHA-1");
+         StringBuilder name = new StringBuilder();
+         for (byte b : digest.digest(key.getBytes(Charset.forName("UTF-8"))))
+         {
+            name.append(String.format("%02x", b));
+         }
+         return new File(directory, name.append(".ser").toString());
+      }
+      catch (NoSuchAlgorithmException e)
+      {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   /**
+    * A resolved {@link Dependency}, as stored in the cache.
+    */
+   static class CachedDependency implements Serializable
+   {
+      private static final long serialVersionUID = 1L;
+
+      private String groupId;
+      private String artifactId;
+      private String version;
+      private String classifier;
+      private String packaging;
+      private String scopeType;
+      private boolean optional;
+      private String file;
+
+      public static CachedDependency from(DependencyNode node)
+      {
+         org.eclipse.aether.graph.Dependency dependency = node.getDependency();
+         CachedDependency result = from(dependency.getArtifact());
+         result.scopeType = dependency.getScope();
+         result.optional = dependency.isOptional();
+         return result;
+      }
+
+      public static CachedDependency from(Artifact artifact)
+      {
+         CachedDependency result = new CachedDependency();
+         result.groupId = artifact.getGroupId();
+         result.artifactId = artifact.getArtifactId();
+         result.version = artifact.getBaseVersion();
+         result.classifier = artifact.getClassifier();
+         result.packaging = artifact.getExtension();
+         result.file = artifact.getFile() != null ? artifact.getFile().getAbsolutePath() : null;
+         return result;
+      }
+
+      /**
+       * Returns <code>false</code> if the resolved artifact file no longer exists.
+       */
+      public boolean isAvailable()
+      {
+         return file == null || new File(file).exists();
+      }
+
+      public Dependency toDependency(ResourceFactory factory)
+      {
+         DependencyBuilder result = DependencyBuilder.create().setArtifactId(artifactId)
+                  .setGroupId(groupId).setVersion(version)
+                  .setPackaging(packaging)
+                  .setOptional(optional)
+                  .setClassifier(classifier)
+                  .setScopeType(scopeType);
+         if (file != null)
+         {
+            @SuppressWarnings("unchecked")
+            FileResource<?> artifactResource = factory.create(FileResource.class, new File(file));
+            result.setArtifact(artifactResource);
+         }
+         return result;
+      }
+
+      /**
+       * Returns only the coordinates used by {@link DependencyMetadataImpl}.
+       */
+      public Dependency toMetadataDependency()
+      {
+         return DependencyBuilder.create().setArtifactId(artifactId).setGroupId(groupId).setVersion(version);
+      }
+   }
+
+   /**
+    * A node of a resolved dependency hierarchy, as stored in the cache.
+    */
+   static class CachedNode implements Serializable
+   {
+      private static final long serialVersionUID = 1L;
+
+      private CachedDependency dependency;
+      private ArrayList<CachedNode> children = new ArrayList<>();
+
+      public static CachedNode from(DependencyNode node)
+      {
+         CachedNode result = new CachedNode();
+         result.dependency = CachedDependency.from(node);
+         for (DependencyNode child : node.getChildren())
+         {
+            result.children.add(from(child));
+         }
+         return result;
+      }
+
+      public boolean isAvailable()
+      {
+         if (!dependency.isAvailable())
+            return false;
+         for (CachedNode child : children)
+         {
+            if (!child.isAvailable())
+               return false;
+         }
+         return true;
+      }
+
+      public DependencyNodeBuilder toDependencyNode(ResourceFactory factory,
+               org.jboss.forge.addon.dependencies.DependencyNode parent)
+      {
+         DependencyNodeBuilder node = DependencyNodeBuilder.create(parent, dependency.toDependency(factory));
+         for (CachedNode child : children)
+         {
+            node.getChildren().add(child.toDependencyNode(factory, node));
+         }
+         return node;
+      }
+   }
+
+   /**
+    * The contents of a {@link DependencyMetadataImpl}, as stored in the cache.
+    */
+   static class CachedMetadata implements Serializable
+   {
+      private static final long serialVersionUID = 1L;
+
+      private CachedDependency dependency;
+      private ArrayList<String[]> repositories = new ArrayList<>();
+      private ArrayList<CachedDependency> managedDependencies = new ArrayList<>();
+      private ArrayList<CachedDependency> dependencies = new ArrayList<>();
+
+      public static CachedMetadata from(DependencyMetadataImpl metadata)
+      {
+         CachedMetadata result = new CachedMetadata();
+         result.dependency = from(metadata.getDependency());
+         for (DependencyRepository repository : metadata.getRepositories())
+         {
+            result.repositories.add(new String[] { repository.getId(), repository.getUrl() });
+         }
+         for (Dependency managedDependency : metadata.getManagedDependencies())
+         {
+            result.managedDependencies.add(from(managedDependency));
+         }
+         for (Dependency dependency : metadata.getDependencies())
+         {
+            result.dependencies.add(from(dependency));
+         }
+         return result;
+      }
+
+      private static CachedDependency from(Dependency dependency)
+      {
+         CachedDependency result = new CachedDependency();
+         result.groupId = dependency.getCoordinate().getGroupId();
+         result.artifactId = dependency.getCoordinate().getArtifactId();
+         result.version = dependency.getCoordinate().getVersion();
+         return result;
+      }
+
+      public DependencyMetadataImpl toDependencyMetadata()
+      {
+         List<DependencyRepository> repositories = new ArrayList<>();
+         for (String[] repository : this.repositories)
+         {
+            repositories.add(new DependencyRepository(repository[0], repository[1]));
+         }
+         List<Dependency> managedDependencies = new ArrayList<>();
+         for (CachedDependency managedDependency : this.managedDependencies)
+         {
+            managedDependencies.add(managedDependency.toMetadataDependency());
+         }
+         List<Dependency> dependencies = new ArrayList<>();
+         for (CachedDependency dependency : this.dependencies)
+         {
+            dependencies.add(dependency.toMetadataDependency());
+         }
+         return new DependencyMetadataImpl(dependency.toMetadataDependency(), repositories, managedDependencies,
+                  dependencies);
+      }
+   }
+}
@@ -43,7 +43,9 @@ import org.jboss.forge.addon.dependencies.DependencyQuery;
 import org.jboss.forge.addon.dependencies.DependencyResolver;
 import org.jboss.forge.addon.dependencies.builder.CoordinateBuilder;
 import org.jboss.forge.addon.dependencies.builder.DependencyBuilder;
-import org.jboss.forge.addon.dependencies.builder.DependencyNodeBuilder;
+import org.jboss.forge.addon.maven.dependencies.DependencyResolutionCache.CachedDependency;
+import org.jboss.forge.addon.maven.dependencies.DependencyResolutionCache.CachedMetadata;
+import org.jboss.forge.addon.maven.dependencies.DependencyResolutionCache.CachedNode;
 import org.jboss.forge.addon.maven.util.MavenConvertUtils;
 import org.jboss.forge.addon.resource.FileResource;
 import org.jboss.forge.addon.resource.ResourceFactory;
@@ -57,13 +59,20 @@ public class MavenDependencyResolver implements DependencyResolver
 {
    private final MavenContainer container;
    private final ResourceFactory factory;
+   private final DependencyResolutionCache cache;
 
-   @Inject
    public MavenDependencyResolver(ResourceFactory factory, MavenContainer container)
+   {
+      this(factory, container, new DependencyResolutionCache());
+   }
+
+   @Inject
+   public MavenDependencyResolver(ResourceFactory factory, MavenContainer container, DependencyResolutionCache cache)
    {
       super();
       this.container = container;
       this.factory = factory;
+      this.cache = cache;
    }
 
    @Override
@@ -71,40 +80,50 @@ public class MavenDependencyResolver implements DependencyResolver
    {
       Set<Dependency> result = new HashSet<>();
       Predicate<Dependency> filter = query.getDependencyFilter();
-      RepositorySystem system = container.getRepositorySystem();
       Settings settings = container.getSettings();
 
-      DefaultRepositorySystemSession session = container.setupRepoSession(system, settings);
-
       Artifact queryArtifact = MavenConvertUtils.coordinateToMavenArtifact(query.getCoordinate());
+      List<RemoteRepository> remoteRepos = getRemoteRepositories(query, settings);
 
-      List<RemoteRepository> remoteRepos = MavenConvertUtils.convertToMavenRepos(query.getDependencyRepositories(),
-               settings);
-      remoteRepos.addAll(MavenRepositories.getRemoteRepositories(container, settings));
+      String key = DependencyResolutionCache.getKey("dependencies", queryArtifact, query.getScopeType(),
+               settings.getLocalRepository(), remoteRepos);
+      ArrayList<CachedDependency> dependencies = cache.get(key, settings.isOffline());
+      if (dependencies == null || !isAvailable(dependencies))
+      {
+         RepositorySystem system = container.getRepositorySystem();
+         DefaultRepositorySystemSession session = container.setupRepoSession(system, settings);
 
-      CollectRequest collectRequest = new CollectRequest(new org.eclipse.aether.graph.Dependency(queryArtifact,
-               query.getScopeType()), remoteRepos);
+         CollectRequest collectRequest = new CollectRequest(new org.eclipse.aether.graph.Dependency(queryArtifact,
+                  query.getScopeType()), remoteRepos);
 
-      DependencyRequest request = new DependencyRequest(collectRequest, null);
+         DependencyRequest request = new DependencyRequest(collectRequest, null);
 
-      DependencyResult artifacts;
-      try
-      {
-         artifacts = system.resolveDependencies(session, request);
-      }
-      catch (NullPointerException e)
-      {
-         throw new RuntimeException("Could not resolve dependencies from Query [" + query
-                  + "] due to underlying exception", e);
-      }
-      catch (DependencyResolutionException e)
-      {
-         throw new RuntimeException(e);
+         DependencyResult artifacts;
+         try
+         {
+            artifacts = system.resolveDependencies(session, request);
+         }
+         catch (NullPointerException e)
+         {
+            throw new RuntimeException("Could not resolve dependencies from Query [" + query
+                     + "] due to underlying exception", e);
+         }
+         catch (DependencyResolutionException e)
+         {
+            throw new RuntimeException(e);
+         }
+         DependencyNode root = artifacts.getRoot();
+         dependencies = new ArrayList<>();
+         for (DependencyNode node : root.getChildren())
+         {
+            dependencies.add(CachedDependency.from(node));
+         }
+         cache.put(key, dependencies);
       }
-      DependencyNode root = artifacts.getRoot();
-      for (DependencyNode node : root.getChildren())
+
+      for (CachedDependency dependency : dependencies)
       {
-         Dependency d = MavenConvertUtils.convertToDependency(factory, node);
+         Dependency d = dependency.toDependency(factory);
          if (filter == null || filter.accept(d))
          {
             result.add(d);
@@ -117,12 +136,30 @@ public class MavenDependencyResolver implements DependencyResolver
    @Override
    public List<Coordinate> resolveVersions(DependencyQuery query)
    {
-      VersionRangeResult r = getVersions(query);
+      Settings settings = container.getSettings();
+      String key = DependencyResolutionCache.getKey("versions",
+               MavenConvertUtils.coordinateToMavenArtifact(toVersionRange(query.getCoordinate())), null,
+               settings.getLocalRepository(), getRemoteRepositories(query, settings));
+      ArrayList<String> versions = cache.get(key, settings.isOffline());
+      if (versions == null)
+      {
+         versions = new ArrayList<>();
+         for (Version v : getVersions(query).getVersions())
+         {
+            versions.add(v.toString());
+         }
+         /*
+          * Artifacts that could not be found may be deployed any time, so do not remember their absence
+          */
+         if (!versions.isEmpty())
+            cache.put(key, versions);
+      }
+
       List<Coordinate> result = new ArrayList<>();
       Predicate<Dependency> filter = query.getDependencyFilter();
-      for (Version v : r.getVersions())
+      for (String v : versions)
       {
-         CoordinateBuilder coord = CoordinateBuilder.create(query.getCoordinate()).setVersion(v.toString());
+         CoordinateBuilder coord = CoordinateBuilder.create(query.getCoordinate()).setVersion(v);
          DependencyBuilder versionedDep = DependencyBuilder.create().setCoordinate(coord);
          if (filter == null || filter.accept(versionedDep))
          {
@@ -143,24 +180,14 @@ public class MavenDependencyResolver implements DependencyResolver
       Coordinate dep = query.getCoordinate();
       try
       {
-         String version = dep.getVersion();
-         if (version == null || version.isEmpty())
-         {
-            dep = CoordinateBuilder.create(dep).setVersion("[,)");
-         }
-         else if (!version.matches("(\\(|\\[).*?(\\)|\\])"))
-         {
-            dep = CoordinateBuilder.create(dep).setVersion("[" + version + "]");
-         }
+         dep = toVersionRange(dep);
 
          RepositorySystem maven = container.getRepositorySystem();
          Settings settings = container.getSettings();
 
          DefaultRepositorySystemSession session = container.setupRepoSession(maven, settings);
          Artifact artifact = MavenConvertUtils.coordinateToMavenArtifact(dep);
-         List<RemoteRepository> remoteRepos = MavenConvertUtils.convertToMavenRepos(query.getDependencyRepositories(),
-                  settings);
-         remoteRepos.addAll(MavenRepositories.getRemoteRepositories(container, settings));
+         List<RemoteRepository> remoteRepos = getRemoteRepositories(query, settings);
 
          VersionRangeRequest rangeRequest = new VersionRangeRequest(artifact, remoteRepos, null);
 
@@ -173,15 +200,45 @@ public class MavenDependencyResolver implements DependencyResolver
       }
    }
 
+   private Coordinate toVersionRange(Coordinate dep)
+   {
+      String version = dep.getVersion();
+      if (version == null || version.isEmpty())
+      {
+         return CoordinateBuilder.create(dep).setVersion("[,)");
+      }
+      else if (!version.matches("(\\(|\\[).*?(\\)|\\])"))
+      {
+         return CoordinateBuilder.create(dep).setVersion("[" + version + "]");
+      }
+      return dep;
+   }
+
+   private List<RemoteRepository> getRemoteRepositories(DependencyQuery query, Settings settings)
+   {
+      List<RemoteRepository> remoteRepos = MavenConvertUtils.convertToMavenRepos(query.getDependencyRepositories(),
+               settings);
+      remoteRepos.addAll(MavenRepositories.getRemoteRepositories(container, settings));
+      return remoteRepos;
+   }
+
+   private boolean isAvailable(List<CachedDependency> dependencies)
+   {
+      for (CachedDependency dependency : dependencies)
+      {
+         if (!dependency.isAvailable())
+            return false;
+      }
+      return true;
+   }
+
    @Override
    public Dependency resolveArtifact(DependencyQuery query)
    {
       RepositorySystem system = container.getRepositorySystem();
       Settings settings = container.getSettings();
 
-      List<RemoteRepository> remoteRepos = MavenConvertUtils.convertToMavenRepos(query.getDependencyRepositories(),
-               settings);
-      remoteRepos.addAll(MavenRepositories.getRemoteRepositories(container, settings));
+      List<RemoteRepository> remoteRepos = getRemoteRepositories(query, settings);
 
       DefaultRepositorySystemSession session = container.setupRepoSession(system, settings);
       Artifact queryArtifact = MavenConvertUtils.coordinateToMavenArtifact(query.getCoordinate());
@@ -213,42 +270,47 @@ public class MavenDependencyResolver implements DependencyResolver
    {
       try
       {
-         RepositorySystem system = container.getRepositorySystem();
          Settings settings = container.getSettings();
-         DefaultRepositorySystemSession session = container.setupRepoSession(system, settings);
-         session.setDependencyTraverser(new DependencyTraverser()
-         {
-            @Override
-            public boolean traverseDependency(org.eclipse.aether.graph.Dependency dependency)
-            {
-               if (query.getScopeType() != null)
-                  return query.getScopeType().equals(dependency.getScope());
-               else
-                  return !"test".equals(dependency.getScope());
-            }
-
-            @Override
-            public DependencyTraverser deriveChildTraverser(DependencyCollectionContext context)
-            {
-               return this;
-            }
-         });
-         session.setDependencySelector(new ScopeDependencySelector("test"));
-
          final CoordinateBuilder coord = CoordinateBuilder.create(query.getCoordinate());
          Artifact queryArtifact = MavenConvertUtils.coordinateToMavenArtifact(coord);
+         List<RemoteRepository> remoteRepos = getRemoteRepositories(query, settings);
 
-         List<RemoteRepository> remoteRepos = MavenConvertUtils.convertToMavenRepos(query.getDependencyRepositories(),
-                  settings);
-         remoteRepos.addAll(MavenRepositories.getRemoteRepositories(container, settings));
-         CollectRequest collectRequest = new CollectRequest(new org.eclipse.aether.graph.Dependency(queryArtifact,
-                  null), remoteRepos);
-
-         DependencyRequest dr = new DependencyRequest(collectRequest, null);
-
-         DependencyResult result = system.resolveDependencies(session, dr);
-         DependencyNodeBuilder hierarchy = MavenConvertUtils.toDependencyNode(factory, null, result.getRoot());
-         return hierarchy;
+         String key = DependencyResolutionCache.getKey("hierarchy", queryArtifact, query.getScopeType(),
+                  settings.getLocalRepository(), remoteRepos);
+         CachedNode hierarchy = cache.get(key, settings.isOffline());
+         if (hierarchy == null || !hierarchy.isAvailable())
+         {
+            RepositorySystem system = container.getRepositorySystem();
+            DefaultRepositorySystemSession session = container.setupRepoSession(system, settings);
+            session.setDependencyTraverser(new DependencyTraverser()
+            {
+               @Override
+               public boolean traverseDependency(org.eclipse.aether.graph.Dependency dependency)
+               {
+                  if (query.getScopeType() != null)
+                     return query.getScopeType().equals(dependency.getScope());
+                  else
+                     return !"test".equals(dependency.getScope());
+               }
+
+               @Override
+               public DependencyTraverser deriveChildTraverser(DependencyCollectionContext context)
+               {
+                  return this;
+               }
+            });
+            session.setDependencySelector(new ScopeDependencySelector("test"));
+
+            CollectRequest collectRequest = new CollectRequest(new org.eclipse.aether.graph.Dependency(queryArtifact,
+                     null), remoteRepos);
+
+            DependencyRequest dr = new DependencyRequest(collectRequest, null);
+
+            DependencyResult result = system.resolveDependencies(session, dr);
+            hierarchy = CachedNode.from(result.getRoot());
+            cache.put(key, hierarchy);
+         }
+         return hierarchy.toDependencyNode(factory, null);
       }
       catch (Exception e)
       {
@@ -266,23 +328,29 @@ public class MavenDependencyResolver implements DependencyResolver
             throw new IllegalArgumentException("Dependency query coordinate version must be specified.");
          }
 
-         RepositorySystem system = container.getRepositorySystem();
          Settings settings = container.getSettings();
-
-         DefaultRepositorySystemSession session = container.setupRepoSession(system, settings);
          Artifact artifact = MavenConvertUtils.coordinateToMavenArtifact(query.getCoordinate());
+         List<RemoteRepository> remoteRepos = getRemoteRepositories(query, settings);
 
-         List<RemoteRepository> remoteRepos = MavenConvertUtils.convertToMavenRepos(query.getDependencyRepositories(),
-                  settings);
-         remoteRepos.addAll(MavenRepositories.getRemoteRepositories(container, settings));
-         ArtifactDescriptorRequest ar = new ArtifactDescriptorRequest(artifact, remoteRepos, null);
-         ArtifactDescriptorResult results = system.readArtifactDescriptor(session, ar);
-
-         Artifact a = results.getArtifact();
-         Dependency d = DependencyBuilder.create().setArtifactId(a.getArtifactId()).setGroupId(a.getGroupId())
-                  .setVersion(a.getBaseVersion());
-
-         return new DependencyMetadataImpl(d, results);
+         String key = DependencyResolutionCache.getKey("metadata", artifact, null, settings.getLocalRepository(),
+                  remoteRepos);
+         CachedMetadata metadata = cache.get(key, settings.isOffline());
+         if (metadata == null)
+         {
+            RepositorySystem system = container.getRepositorySystem();
+            DefaultRepositorySystemSession session = container.setupRepoSession(system, settings);
+            ArtifactDescriptorRequest ar = new ArtifactDescriptorRequest(artifact, remoteRepos, null);
+            ArtifactDescriptorResult results = system.readArtifactDescriptor(session, ar);
+
+            Artifact a = results.getArtifact();
+            Dependency d = DependencyBuilder.create().setArtifactId(a.getArtifactId()).setGroupId(a.getGroupId())
+                     .setVersion(a.getBaseVersion());
+
+            DependencyMetadataImpl result = new DependencyMetadataImpl(d, results);
+            cache.put(key, CachedMetadata.from(result));
+            return result;
+         }
+         return metadata.toDependencyMetadata();
       }
       catch (Exception e)
       {
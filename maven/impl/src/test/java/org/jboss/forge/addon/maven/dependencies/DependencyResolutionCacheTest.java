@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.addon.maven.dependencies;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.jboss.forge.furnace.util.OperatingSystemUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DependencyResolutionCacheTest
+{
+   private File directory;
+   private String key;
+
+   @Before
+   public void setUp()
+   {
+      directory = OperatingSystemUtils.createTempDir();
+      key = DependencyResolutionCache.getKey("versions", new DefaultArtifact("org.jboss.forge:example:[,)"),
+               null, "/tmp/repository", Collections.singletonList(new RemoteRepository.Builder("central",
+                        "default", "http://repo1.maven.org/maven2").build()));
+   }
+
+   @Test
+   public void testStoredEntriesAreReturned() throws Exception
+   {
+      DependencyResolutionCache cache = new DependencyResolutionCache(directory, 60000, 60000, false);
+      Assert.assertNull(cache.get(key, false));
+      cache.put(key, new ArrayList<>(Arrays.asList("1.0", "2.0")));
+      Assert.assertEquals(Arrays.asList("1.0", "2.0"), cache.get(key, false));
+      Assert.assertNull(cache.get(key + "other", false));
+   }
+
+   @Test
+   public void testExpiredEntriesAreOnlyReturnedOffline() throws Exception
+   {
+      DependencyResolutionCache cache = new DependencyResolutionCache(directory, -1, 60000, false);
+      cache.put(key, new ArrayList<>(Arrays.asList("1.0")));
+      Assert.assertNull(cache.get(key, false));
+      Assert.assertEquals(Arrays.asList("1.0"), cache.get(key, true));
+      Assert.assertEquals(Arrays.asList("1.0"),
+               new DependencyResolutionCache(directory, -1, 60000, true).get(key, false));
+   }
+
+   @Test
+   public void testEntriesOlderThanRetentionArePruned() throws Exception
+   {
+      DependencyResolutionCache cache = new DependencyResolutionCache(directory, -1, 60000, false);
+      cache.put(key, new ArrayList<>(Arrays.asList("1.0")));
+      String otherKey = key + "other";
+      cache.put(otherKey, new ArrayList<>(Arrays.asList("2.0")));
+      File[] entries = directory.listFiles();
+      Assert.assertEquals(2, entries.length);
+      for (File entry : entries)
+      {
+         entry.setLastModified(System.currentTimeMillis() - 120000);
+      }
+
+      new DependencyResolutionCache(directory, -1, 60000, false).put(otherKey, new ArrayList<>(Arrays.asList("2.0")));
+      Assert.assertNull(cache.get(key, true));
+      Assert.assertEquals(Arrays.asList("2.0"), cache.get(otherKey, true));
+      Assert.assertEquals(1, directory.listFiles().length);
+   }
+}
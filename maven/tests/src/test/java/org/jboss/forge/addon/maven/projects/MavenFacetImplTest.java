@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.maven.projects;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.forge.addon.dependencies.builder.DependencyBuilder;
+import org.jboss.forge.addon.projects.Project;
+import org.jboss.forge.addon.projects.ProjectFactory;
+import org.jboss.forge.addon.projects.facets.DependencyFacet;
+import org.jboss.forge.arquillian.AddonDependency;
+import org.jboss.forge.arquillian.Dependencies;
+import org.jboss.forge.arquillian.archive.ForgeArchive;
+import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(Arquillian.class)
+public class MavenFacetImplTest
+{
+   @Deployment
+   @Dependencies({
+            @AddonDependency(name = "org.jboss.forge.addon:resources"),
+            @AddonDependency(name = "org.jboss.forge.addon:projects"),
+            @AddonDependency(name = "org.jboss.forge.addon:maven")
+   })
+   public static ForgeArchive getDeployment()
+   {
+      ForgeArchive archive = ShrinkWrap
+               .create(ForgeArchive.class)
+               .addBeansXML()
+               .addAsAddonDependencies(
+                        AddonDependencyEntry.create("org.jboss.forge.furnace.container:cdi"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:maven"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:projects")
+               );
+
+      return archive;
+   }
+
+   @Inject
+   private ProjectFactory projectFactory;
+
+   @Test
+   public void testResolvedArtifactsSurviveMetadataChanges() throws Exception
+   {
+      Project project = projectFactory.createTempProject();
+      MavenFacetImpl maven = (MavenFacetImpl) project.getFacet(MavenFacet.class);
+      project.getFacet(DependencyFacet.class).addDirectDependency(DependencyBuilder.create("junit:junit:4.11"));
+
+      Set<String> artifacts = getIds(maven.getProjectBuildingResult().getProject());
+      Assert.assertTrue(artifacts.contains("junit:junit:jar:4.11"));
+
+      Model pom = maven.getPOM();
+      pom.setName("Renamed");
+      maven.setPOM(pom);
+
+      MavenProject renamed = maven.getProjectBuildingResult().getProject();
+      Assert.assertEquals("Renamed", renamed.getName());
+      Assert.assertEquals(artifacts, getIds(renamed));
+   }
+
+   private static Set<String> getIds(MavenProject project)
+   {
+      Set<String> result = new LinkedHashSet<>();
+      for (Artifact artifact : project.getArtifacts())
+      {
+         result.add(artifact.getId());
+         Assert.assertNotNull("Every artifact points at the local repository", artifact.getFile());
+      }
+      return result;
+   }
+}
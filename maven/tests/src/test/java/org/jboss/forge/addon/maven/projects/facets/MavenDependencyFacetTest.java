@@ -0,0 +1,195 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.maven.projects.facets;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import javax.inject.Inject;
+
+import org.apache.maven.model.Model;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.forge.addon.dependencies.builder.DependencyBuilder;
+import org.jboss.forge.addon.maven.projects.MavenFacet;
+import org.jboss.forge.addon.projects.Project;
+import org.jboss.forge.addon.projects.ProjectFactory;
+import org.jboss.forge.addon.projects.dependencies.DependencyInstaller;
+import org.jboss.forge.addon.projects.facets.DependencyFacet;
+import org.jboss.forge.arquillian.AddonDependency;
+import org.jboss.forge.arquillian.Dependencies;
+import org.jboss.forge.arquillian.archive.ForgeArchive;
+import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(Arquillian.class)
+public class MavenDependencyFacetTest
+{
+
+   @Deployment
+   @Dependencies({
+            @AddonDependency(name = "org.jboss.forge.addon:resources"),
+            @AddonDependency(name = "org.jboss.forge.addon:projects"),
+            @AddonDependency(name = "org.jboss.forge.addon:maven")
+   })
+   public static ForgeArchive getDeployment()
+   {
+      ForgeArchive archive = ShrinkWrap
+               .create(ForgeArchive.class)
+               .addBeansXML()
+               .addAsAddonDependencies(
+                        AddonDependencyEntry.create("org.jboss.forge.furnace.container:cdi"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:maven"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:projects")
+               );
+
+      return archive;
+   }
+
+   private Project project;
+
+   @Inject
+   private ProjectFactory projectFactory;
+
+   @Inject
+   private DependencyInstaller installer;
+
+   @Before
+   public void setUp()
+   {
+      project = projectFactory.createTempProject();
+   }
+
+   @Test
+   public void testBatchChangesAreWrittenOnce() throws Exception
+   {
+      final MavenFacet maven = project.getFacet(MavenFacet.class);
+      final DependencyFacet deps = project.getFacet(DependencyFacet.class);
+      final String contents = maven.getPomResource().getContents();
+
+      deps.batchChanges(new Callable<Void>()
+      {
+         @Override
+         public Void call() throws Exception
+         {
+            deps.addDirectDependency(DependencyBuilder.create("org.jboss.forge.test:first:1.0"));
+            deps.addDirectManagedDependency(DependencyBuilder.create("org.jboss.forge.test:second:2.0"));
+            Model pom = maven.getPOM();
+            pom.addProperty("batched", "true");
+            maven.setPOM(pom);
+
+            Assert.assertEquals(contents, maven.getPomResource().getContents());
+            Assert.assertEquals("true", maven.resolveProperties("${batched}"));
+            return null;
+         }
+      });
+
+      Assert.assertNotEquals(contents, maven.getPomResource().getContents());
+      Assert.assertTrue(deps.hasDirectDependency(DependencyBuilder.create("org.jboss.forge.test:first")));
+      Assert.assertTrue(deps.hasDirectManagedDependency(DependencyBuilder.create("org.jboss.forge.test:second")));
+      Assert.assertEquals("true", maven.getPOM().getProperties().getProperty("batched"));
+   }
+
+   @Test
+   public void testEffectiveLookupsInBatchDoNotWritePOM() throws Exception
+   {
+      final MavenFacet maven = project.getFacet(MavenFacet.class);
+      final DependencyFacet deps = project.getFacet(DependencyFacet.class);
+      final String contents = maven.getPomResource().getContents();
+      final List<String> writes = new ArrayList<String>();
+
+      deps.batchChanges(new Callable<Void>()
+      {
+         @Override
+         public Void call() throws Exception
+         {
+            installer.install(project, DependencyBuilder.create("org.jboss.forge.test:first:1.0"));
+            recordWrite(maven, contents, writes);
+            Assert.assertTrue(deps.hasEffectiveDependency(DependencyBuilder.create("org.jboss.forge.test:first")));
+            Assert.assertEquals("1.0", deps.getEffectiveManagedDependency(
+                     DependencyBuilder.create("org.jboss.forge.test:first")).getCoordinate().getVersion());
+            recordWrite(maven, contents, writes);
+
+            installer.install(project, DependencyBuilder.create("org.jboss.forge.test:second:2.0"));
+            recordWrite(maven, contents, writes);
+            Assert.assertTrue(deps.hasEffectiveDependency(DependencyBuilder.create("org.jboss.forge.test:second")));
+            recordWrite(maven, contents, writes);
+            return null;
+         }
+      });
+      recordWrite(maven, contents, writes);
+
+      Assert.assertEquals(1, writes.size());
+      Assert.assertTrue(deps.hasDirectDependency(DependencyBuilder.create("org.jboss.forge.test:first")));
+      Assert.assertTrue(deps.hasDirectDependency(DependencyBuilder.create("org.jboss.forge.test:second")));
+      Assert.assertTrue(deps.hasDirectManagedDependency(DependencyBuilder.create("org.jboss.forge.test:second")));
+   }
+
+   private void recordWrite(MavenFacet maven, String original, List<String> writes)
+   {
+      String current = maven.getPomResource().getContents();
+      String previous = writes.isEmpty() ? original : writes.get(writes.size() - 1);
+      if (!current.equals(previous))
+      {
+         writes.add(current);
+      }
+   }
+
+   @Test
+   public void testFailedBatchDiscardsChanges() throws Exception
+   {
+      final DependencyFacet deps = project.getFacet(DependencyFacet.class);
+      try
+      {
+         deps.batchChanges(new Callable<Void>()
+         {
+            @Override
+            public Void call() throws Exception
+            {
+               deps.addDirectDependency(DependencyBuilder.create("org.jboss.forge.test:first:1.0"));
+               throw new IllegalStateException();
+            }
+         });
+         Assert.fail("Exception should have been propagated");
+      }
+      catch (IllegalStateException expected)
+      {
+      }
+      Assert.assertFalse(deps.hasDirectDependency(DependencyBuilder.create("org.jboss.forge.test:first")));
+   }
+
+   @Test
+   public void testFailedBatchDoesNotLeaveDependenciesInIndex() throws Exception
+   {
+      final DependencyFacet deps = project.getFacet(DependencyFacet.class);
+      Assert.assertFalse(deps.hasDirectDependency(DependencyBuilder.create("org.jboss.forge.test:first")));
+      try
+      {
+         deps.batchChanges(new Callable<Void>()
+         {
+            @Override
+            public Void call() throws Exception
+            {
+               deps.addDirectDependency(DependencyBuilder.create("org.jboss.forge.test:first:1.0"));
+               Assert.assertTrue(deps.hasDirectDependency(DependencyBuilder.create("org.jboss.forge.test:first")));
+               throw new IllegalStateException();
+            }
+         });
+         Assert.fail("Exception should have been propagated");
+      }
+      catch (IllegalStateException expected)
+      {
+      }
+      Assert.assertFalse(deps.hasDirectDependency(DependencyBuilder.create("org.jboss.forge.test:first")));
+   }
+}
@@ -10,11 +10,14 @@ package org.jboss.forge.addon.parser.java.facets;
 import java.io.FileNotFoundException;
 import java.util.List;
 
+import org.jboss.forge.addon.parser.java.index.JavaSymbolIndex;
+import org.jboss.forge.addon.parser.java.index.JavaTypeSymbol;
 import org.jboss.forge.addon.parser.java.resources.JavaResource;
 import org.jboss.forge.addon.parser.java.resources.JavaResourceVisitor;
 import org.jboss.forge.addon.projects.Project;
 import org.jboss.forge.addon.projects.ProjectFacet;
 import org.jboss.forge.addon.resource.DirectoryResource;
+import org.jboss.forge.addon.resource.visit.VisitContext;
 import org.jboss.forge.parser.java.JavaClass;
 import org.jboss.forge.parser.java.JavaSource;
 
@@ -129,4 +132,51 @@ public interface JavaSourceFacet extends ProjectFacet
     */
    public void visitJavaTestSources(JavaResourceVisitor visitor);
 
+   /**
+    * Recursively loops over all the source directories in parallel. Each java file found is parsed on a worker thread
+    * and passed to {@link JavaResourceVisitor#visit(VisitContext, JavaResource, JavaSource)}.
+    * 
+    * @param visitor The {@link JavaResourceVisitor} that processes all the found java files. Cannot be null.
+    * @param ordered If <code>true</code>, the visitor is called from the calling thread in order of fully qualified
+    *           file name. Otherwise it is called concurrently from the worker threads and must be thread-safe.
+    */
+   public void visitJavaSourcesInParallel(JavaResourceVisitor visitor, boolean ordered);
+
+   /**
+    * Recursively loops over all the test source directories in parallel. Each java file found is parsed on a worker
+    * thread and passed to {@link JavaResourceVisitor#visit(VisitContext, JavaResource, JavaSource)}.
+    * 
+    * @param visitor The {@link JavaResourceVisitor} that processes all the found java files. Cannot be null.
+    * @param ordered If <code>true</code>, the visitor is called from the calling thread in order of fully qualified
+    *           file name. Otherwise it is called concurrently from the worker threads and must be thread-safe.
+    */
+   public void visitJavaTestSourcesInParallel(JavaResourceVisitor visitor, boolean ordered);
+
+   /**
+    * Return the {@link JavaTypeSymbol} of every type in {@link #getSourceDirectory()}, as recorded by the project's
+    * {@link JavaSymbolIndex}. Only the source files that changed since they were last indexed are parsed.
+    */
+   public List<JavaTypeSymbol> getJavaTypeSymbols();
+
+   /**
+    * Return the {@link JavaTypeSymbol} of every type in {@link #getSourceDirectory()} annotated with the given
+    * annotation type.
+    * 
+    * @param annotationType The qualified name of the annotation type.
+    */
+   public List<JavaTypeSymbol> getJavaTypeSymbolsAnnotatedWith(String annotationType);
+
+   /**
+    * Return the {@link JavaTypeSymbol} of every type in {@link #getSourceDirectory()} that extends or implements the
+    * given type, either directly or through other types in {@link #getSourceDirectory()}.
+    * 
+    * @param type The qualified name of the supertype.
+    */
+   public List<JavaTypeSymbol> getJavaTypeSymbolsAssignableTo(String type);
+
+   /**
+    * Return the {@link JavaResource} in {@link #getSourceDirectory()} that declares the given {@link JavaTypeSymbol}.
+    */
+   public JavaResource getJavaResource(JavaTypeSymbol symbol);
+
 }
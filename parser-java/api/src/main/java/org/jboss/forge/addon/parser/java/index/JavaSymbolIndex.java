@@ -0,0 +1,39 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.addon.parser.java.index;
+
+import java.util.List;
+
+import org.jboss.forge.addon.projects.Project;
+import org.jboss.forge.addon.resource.DirectoryResource;
+import org.jboss.forge.addon.resource.Resource;
+
+/**
+ * Records the {@link JavaTypeSymbol} of every Java source file of a {@link Project}, so that types can be found by
+ * their annotations, supertypes or members without parsing all sources.
+ *
+ * The index of each source directory is persisted in the {@value #INDEX_DIRECTORY} directory of the project root, and
+ * only the source files that changed since it was last updated are parsed again.
+ */
+public interface JavaSymbolIndex
+{
+   /**
+    * The directory, relative to the project root, in which indexes are stored.
+    */
+   public static final String INDEX_DIRECTORY = ".forge";
+
+   /**
+    * Return the symbols of all types in the given source directory of the given {@link Project}, in order of their
+    * path. The index is brought up to date first.
+    */
+   public List<JavaTypeSymbol> getSymbols(Project project, DirectoryResource sourceDirectory);
+
+   /**
+    * Mark the given {@link Resource}, or all resources below it if it is a directory, as changed.
+    */
+   public void invalidate(Resource<?> resource);
+}
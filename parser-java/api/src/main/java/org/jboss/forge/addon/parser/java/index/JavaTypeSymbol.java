@@ -0,0 +1,162 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.addon.parser.java.index;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.forge.parser.java.JavaSource;
+
+/**
+ * The symbols of the top-level type declared in a Java source file, as recorded by a {@link JavaSymbolIndex}. Type
+ * names are qualified when they could be resolved from the imports of the source file, and simple otherwise.
+ */
+public final class JavaTypeSymbol
+{
+   /**
+    * The kind of a {@link JavaTypeSymbol}.
+    */
+   public enum Kind
+   {
+      CLASS, INTERFACE, ENUM, ANNOTATION;
+
+      /**
+       * Return the {@link Kind} of the given {@link JavaSource}.
+       */
+      public static Kind of(JavaSource<?> source)
+      {
+         if (source.isInterface())
+            return INTERFACE;
+         if (source.isEnum())
+            return ENUM;
+         if (source.isAnnotation())
+            return ANNOTATION;
+         return CLASS;
+      }
+   }
+
+   private final String path;
+   private final String qualifiedName;
+   private final Kind kind;
+   private final List<String> annotations;
+   private final List<String> supertypes;
+   private final List<String> members;
+
+   /**
+    * @param path the path of the source file, relative to its source directory and separated by <code>/</code>
+    */
+   public JavaTypeSymbol(String path, String qualifiedName, Kind kind, List<String> annotations,
+            List<String> supertypes, List<String> members)
+   {
+      this.path = path;
+      this.qualifiedName = qualifiedName;
+      this.kind = kind;
+      this.annotations = Collections.unmodifiableList(annotations);
+      this.supertypes = Collections.unmodifiableList(supertypes);
+      this.members = Collections.unmodifiableList(members);
+   }
+
+   /**
+    * Return the path of the source file, relative to its source directory and separated by <code>/</code>.
+    */
+   public String getPath()
+   {
+      return path;
+   }
+
+   public String getQualifiedName()
+   {
+      return qualifiedName;
+   }
+
+   public String getName()
+   {
+      return simpleName(qualifiedName);
+   }
+
+   public String getPackage()
+   {
+      int index = qualifiedName.lastIndexOf('.');
+      return index < 0 ? "" : qualifiedName.substring(0, index);
+   }
+
+   public Kind getKind()
+   {
+      return kind;
+   }
+
+   /**
+    * Return the annotations of this type.
+    */
+   public List<String> getAnnotations()
+   {
+      return annotations;
+   }
+
+   /**
+    * Return the direct superclass, if other than {@link Object}, and the directly implemented or extended interfaces
+    * of this type.
+    */
+   public List<String> getSupertypes()
+   {
+      return supertypes;
+   }
+
+   /**
+    * Return the signatures of the fields and methods declared by this type.
+    */
+   public List<String> getMembers()
+   {
+      return members;
+   }
+
+   /**
+    * Return <code>true</code> if this type is annotated with the given annotation type.
+    *
+    * @param annotationType the qualified name of the annotation type
+    */
+   public boolean isAnnotatedWith(String annotationType)
+   {
+      return containsType(annotations, annotationType);
+   }
+
+   /**
+    * Return <code>true</code> if the given type is a direct supertype of this type.
+    *
+    * @param type the qualified name of the supertype
+    */
+   public boolean hasSupertype(String type)
+   {
+      return containsType(supertypes, type);
+   }
+
+   @Override
+   public String toString()
+   {
+      return kind + " " + qualifiedName;
+   }
+
+   /**
+    * Types that could not be resolved are only stored by their simple name, and match any type with that name.
+    */
+   private static boolean containsType(List<String> types, String type)
+   {
+      for (String candidate : types)
+      {
+         if (candidate.equals(type) || (candidate.indexOf('.') < 0 && candidate.equals(simpleName(type))))
+         {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   private static String simpleName(String type)
+   {
+      return type.substring(type.lastIndexOf('.') + 1);
+   }
+}
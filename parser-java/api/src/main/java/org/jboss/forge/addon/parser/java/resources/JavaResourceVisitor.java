@@ -10,6 +10,7 @@ package org.jboss.forge.addon.parser.java.resources;
 import org.jboss.forge.addon.resource.Resource;
 import org.jboss.forge.addon.resource.visit.VisitContext;
 import org.jboss.forge.addon.resource.visit.ResourceVisitor;
+import org.jboss.forge.parser.java.JavaSource;
 
 /**
  * @author Rudy De Busscher Called for each Java file which is found in the project.
@@ -23,6 +24,18 @@ public abstract class JavaResourceVisitor implements ResourceVisitor
     */
    public abstract void visit(VisitContext context, final JavaResource javaResource);
 
+   /**
+    * Called when a Java File is found by a parallel visit, along with its already parsed {@link JavaSource}. The
+    * default implementation delegates to {@link #visit(VisitContext, JavaResource)}.
+    * 
+    * @param javaResource The JavaResource for the found file.
+    * @param javaSource The parsed contents of the found file, owned by this visitor.
+    */
+   public void visit(VisitContext context, final JavaResource javaResource, final JavaSource<?> javaSource)
+   {
+      visit(context, javaResource);
+   }
+
    @Override
    public void visit(VisitContext context, Resource<?> resource)
    {
@@ -0,0 +1,645 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.addon.parser.java.index;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jboss.forge.addon.parser.java.index.JavaTypeSymbol.Kind;
+import org.jboss.forge.addon.parser.java.resources.JavaResource;
+import org.jboss.forge.addon.parser.java.resources.JavaResourceVisitor;
+import org.jboss.forge.addon.projects.Project;
+import org.jboss.forge.addon.resource.DirectoryResource;
+import org.jboss.forge.addon.resource.FileOperations;
+import org.jboss.forge.addon.resource.Resource;
+import org.jboss.forge.addon.resource.ResourceFactory;
+import org.jboss.forge.addon.resource.ResourceFilter;
+import org.jboss.forge.addon.resource.events.ResourceEvent;
+import org.jboss.forge.addon.resource.monitor.ResourceListener;
+import org.jboss.forge.addon.resource.monitor.ResourceMonitor;
+import org.jboss.forge.addon.resource.transaction.ResourceTransaction;
+import org.jboss.forge.addon.resource.transaction.ResourceTransactionListener;
+import org.jboss.forge.addon.resource.visit.ResourceVisit;
+import org.jboss.forge.addon.resource.visit.VisitContext;
+import org.jboss.forge.furnace.container.cdi.events.Local;
+import org.jboss.forge.furnace.event.PostStartup;
+import org.jboss.forge.furnace.event.PreShutdown;
+import org.jboss.forge.furnace.spi.ListenerRegistration;
+import org.jboss.forge.parser.java.Annotation;
+import org.jboss.forge.parser.java.Field;
+import org.jboss.forge.parser.java.InterfaceCapable;
+import org.jboss.forge.parser.java.JavaClass;
+import org.jboss.forge.parser.java.JavaSource;
+import org.jboss.forge.parser.java.Member;
+import org.jboss.forge.parser.java.Method;
+
+/**
+ * The default {@link JavaSymbolIndex}.
+ *
+ * The first time a source directory is queried, its persisted index is loaded and the last-modified time and length of
+ * every source file are compared with the recorded ones, so that only new or modified files are parsed. From then on,
+ * the source directory is watched by a {@link ResourceMonitor}, and only the files reported as changed by the monitor,
+ * by committed {@link ResourceTransaction}s or through {@link #invalidate(Resource)} are checked again. If the source
+ * directory cannot be monitored, all files are compared on every query instead.
+ *
+ * Source files are listed and read through the {@link FileOperations} and {@link Resource}s of the
+ * {@link ResourceFactory}. While a {@link ResourceTransaction} is active, the source directory is visited and every
+ * source file is parsed instead, so that uncommitted contents are returned but never end up in the persisted index.
+ */
+@Singleton
+public class JavaSymbolIndexImpl implements JavaSymbolIndex, ResourceListener, ResourceTransactionListener
+{
+   private static final Logger log = Logger.getLogger(JavaSymbolIndexImpl.class.getName());
+
+   private static final Charset UTF_8 = Charset.forName("UTF-8");
+   private static final String HEADER = "# Forge Java symbol index, version 1";
+
+   @Inject
+   private ResourceFactory factory;
+
+   private final Map<String, SourceIndex> indexes = new HashMap<>();
+
+   private ListenerRegistration<ResourceTransactionListener> transactionListenerRegistration;
+
+   void init(@Observes @Local PostStartup event)
+   {
+      transactionListenerRegistration = factory.addTransactionListener(this);
+   }
+
+   void destroy(@Observes @Local PreShutdown event)
+   {
+      if (transactionListenerRegistration != null)
+         transactionListenerRegistration.removeListener();
+      synchronized (indexes)
+      {
+         for (SourceIndex index : indexes.values())
+         {
+            index.cancel();
+         }
+         indexes.clear();
+      }
+   }
+
+   @Override
+   public List<JavaTypeSymbol> getSymbols(Project project, DirectoryResource sourceDirectory)
+   {
+      if (factory.getTransaction().isStarted())
+      {
+         return visit(sourceDirectory);
+      }
+      File root = sourceDirectory.getUnderlyingResourceObject();
+      SourceIndex index;
+      synchronized (indexes)
+      {
+         index = indexes.get(root.getAbsolutePath());
+         if (index == null)
+         {
+            File projectRoot = project.getProjectRoot().getUnderlyingResourceObject();
+            index = new SourceIndex(sourceDirectory, getStorage(projectRoot, root));
+            indexes.put(root.getAbsolutePath(), index);
+         }
+      }
+      return index.update();
+   }
+
+   @Override
+   public void invalidate(Resource<?> resource)
+   {
+      Object underlying = resource.getUnderlyingResourceObject();
+      if (underlying instanceof File)
+      {
+         File file = (File) underlying;
+         synchronized (indexes)
+         {
+            for (SourceIndex index : indexes.values())
+            {
+               index.changed(file);
+            }
+         }
+      }
+   }
+
+   @Override
+   public void processEvent(ResourceEvent event)
+   {
+      invalidate(event.getResource());
+   }
+
+   @Override
+   public void transactionStarted(ResourceTransaction transaction)
+   {
+   }
+
+   @Override
+   public void transactionCommitted(ResourceTransaction transaction, Set<ResourceEvent> changeSet)
+   {
+      for (ResourceEvent event : changeSet)
+      {
+         invalidate(event.getResource());
+      }
+   }
+
+   @Override
+   public void transactionRolledBack(ResourceTransaction transaction)
+   {
+      /*
+       * Uncommitted contents are never indexed, so there is nothing to discard
+       */
+   }
+
+   private static File getStorage(File projectRoot, File sourceDirectory)
+   {
+      String name = sourceDirectory.getAbsolutePath();
+      String prefix = projectRoot.getAbsolutePath() + File.separator;
+      if (name.startsWith(prefix))
+      {
+         name = name.substring(prefix.length());
+      }
+      name = name.replaceAll("[^A-Za-z0-9]+", "_");
+      return new File(new File(projectRoot, INDEX_DIRECTORY), "java-symbols-" + name + ".idx");
+   }
+
+   /**
+    * Parses every source file below the given directory.
+    */
+   private List<JavaTypeSymbol> visit(final DirectoryResource sourceDirectory)
+   {
+      final String rootPath = sourceDirectory.getFullyQualifiedName();
+      final List<JavaTypeSymbol> result = new ArrayList<>();
+      new ResourceVisit(sourceDirectory).perform(new JavaResourceVisitor()
+      {
+         @Override
+         public void visit(VisitContext context, JavaResource resource)
+         {
+            String path = resource.getFullyQualifiedName().substring(rootPath.length())
+                     .replace(File.separatorChar, '/');
+            JavaTypeSymbol symbol = parse(resource, path.startsWith("/") ? path.substring(1) : path);
+            if (symbol != null)
+            {
+               result.add(symbol);
+            }
+         }
+      }, new ResourceFilter()
+      {
+         @Override
+         public boolean accept(Resource<?> resource)
+         {
+            return resource instanceof DirectoryResource;
+         }
+      }, new ResourceFilter()
+      {
+         @Override
+         public boolean accept(Resource<?> resource)
+         {
+            return resource instanceof JavaResource;
+         }
+      });
+      return Collections.unmodifiableList(result);
+   }
+
+   private JavaTypeSymbol parse(File file, String path)
+   {
+      Resource<File> resource = factory.create(file);
+      JavaResource javaResource = (resource == null) ? null : resource.reify(JavaResource.class);
+      if (javaResource == null)
+      {
+         return null;
+      }
+      return parse(javaResource, path);
+   }
+
+   private JavaTypeSymbol parse(JavaResource resource, String path)
+   {
+      try
+      {
+         JavaSource<?> source = resource.getJavaSource();
+         List<String> annotations = new ArrayList<>();
+         for (Annotation<?> annotation : source.getAnnotations())
+         {
+            annotations.add(annotation.getQualifiedName());
+         }
+         List<String> supertypes = new ArrayList<>();
+         if (source instanceof JavaClass)
+         {
+            String superType = ((JavaClass) source).getSuperType();
+            if (superType != null && !"java.lang.Object".equals(superType))
+            {
+               supertypes.add(superType);
+            }
+         }
+         if (source instanceof InterfaceCapable)
+         {
+            supertypes.addAll(((InterfaceCapable<?>) source).getInterfaces());
+         }
+         List<String> members = new ArrayList<>();
+         for (Member<?, ?> member : source.getMembers())
+         {
+            if (member instanceof Method)
+            {
+               members.add(((Method<?>) member).toSignature());
+            }
+            else if (member instanceof Field)
+            {
+               members.add(((Field<?>) member).getType() + " " + member.getName());
+            }
+         }
+         return new JavaTypeSymbol(path, source.getQualifiedName(), Kind.of(source), annotations, supertypes,
+                  members);
+      }
+      catch (FileNotFoundException e)
+      {
+         return null;
+      }
+      catch (RuntimeException e)
+      {
+         log.log(Level.FINE, "Could not index [" + resource + "]", e);
+         return null;
+      }
+   }
+
+   /**
+    * The index of a single source directory.
+    */
+   private class SourceIndex
+   {
+      private final DirectoryResource directory;
+      private final File root;
+      private final File storage;
+
+      /**
+       * Indexed files by path relative to the source directory, separated by <code>/</code>
+       */
+      private final Map<String, FileEntry> files = new TreeMap<>();
+      private final Set<File> changed = new HashSet<>();
+      private final Set<String> recent = new HashSet<>();
+
+      private ResourceMonitor monitor;
+      private boolean loaded;
+      private boolean validated;
+      private boolean dirty;
+      private List<JavaTypeSymbol> symbols;
+
+      public SourceIndex(DirectoryResource directory, File storage)
+      {
+         this.directory = directory;
+         this.root = directory.getUnderlyingResourceObject();
+         this.storage = storage;
+      }
+
+      public synchronized List<JavaTypeSymbol> update()
+      {
+         if (!loaded)
+         {
+            load();
+            loaded = true;
+         }
+         if (monitor == null)
+         {
+            monitor();
+         }
+
+         Set<File> pending;
+         synchronized (changed)
+         {
+            pending = new HashSet<>(changed);
+            changed.clear();
+         }
+         if (!validated || monitor == null)
+         {
+            scan(root, "");
+            validated = true;
+         }
+         else
+         {
+            for (File file : pending)
+            {
+               scan(file, getPath(file));
+            }
+            for (String path : new ArrayList<>(recent))
+            {
+               scan(new File(root, path), path);
+            }
+         }
+
+         if (dirty)
+         {
+            save();
+            dirty = false;
+            symbols = null;
+         }
+         if (symbols == null)
+         {
+            List<JavaTypeSymbol> result = new ArrayList<>();
+            for (FileEntry entry : files.values())
+            {
+               if (entry.symbol != null)
+               {
+                  result.add(entry.symbol);
+               }
+            }
+            symbols = Collections.unmodifiableList(result);
+         }
+         return symbols;
+      }
+
+      public void changed(File file)
+      {
+         if (isBelowRoot(file))
+         {
+            synchronized (changed)
+            {
+               changed.add(file);
+            }
+         }
+      }
+
+      public void cancel()
+      {
+         if (monitor != null)
+            monitor.cancel();
+      }
+
+      private void monitor()
+      {
+         if (root.isDirectory())
+         {
+            try
+            {
+               monitor = directory.monitor();
+               monitor.addResourceListener(JavaSymbolIndexImpl.this);
+            }
+            catch (RuntimeException e)
+            {
+               log.log(Level.FINE, "Could not monitor [" + directory + "], comparing all files on every query", e);
+            }
+         }
+      }
+
+      /**
+       * Bring the entries of the given file, or of all files below it if it is a directory, up to date.
+       */
+      private void scan(File file, String path)
+      {
+         Set<String> found = new HashSet<>();
+         collect(file, path, found);
+
+         String prefix = path.isEmpty() ? "" : path + "/";
+         Iterator<Entry<String, FileEntry>> iterator = files.entrySet().iterator();
+         while (iterator.hasNext())
+         {
+            String key = iterator.next().getKey();
+            if ((key.equals(path) || key.startsWith(prefix)) && !found.contains(key))
+            {
+               iterator.remove();
+               recent.remove(key);
+               dirty = true;
+            }
+         }
+      }
+
+      private void collect(File file, String path, Set<String> found)
+      {
+         FileOperations fileOperations = factory.getFileOperations();
+         if (fileOperations.fileExistsAndIsDirectory(file))
+         {
+            File[] children = fileOperations.listFiles(file);
+            if (children != null)
+            {
+               for (File child : children)
+               {
+                  collect(child, path.isEmpty() ? child.getName() : path + "/" + child.getName(), found);
+               }
+            }
+         }
+         else if (file.getName().endsWith(".java") && fileOperations.fileExists(file))
+         {
+            found.add(path);
+            check(file, path);
+         }
+      }
+
+      private void check(File file, String path)
+      {
+         long lastModified = file.lastModified();
+         long length = factory.getFileOperations().getFileLength(file);
+         FileEntry entry = files.get(path);
+         if (entry != null && entry.lastModified == lastModified && entry.length == length
+                  && entry.indexed - lastModified > FileOperations.TIMESTAMP_GRANULARITY)
+         {
+            recent.remove(path);
+            return;
+         }
+
+         long indexed = System.currentTimeMillis();
+         JavaTypeSymbol symbol = parse(file, path);
+         files.put(path, new FileEntry(lastModified, length, indexed, symbol));
+         if (indexed - lastModified > FileOperations.TIMESTAMP_GRANULARITY)
+            recent.remove(path);
+         else
+            recent.add(path);
+         dirty = true;
+      }
+
+      private boolean isBelowRoot(File file)
+      {
+         String path = file.getAbsolutePath();
+         String rootPath = root.getAbsolutePath();
+         return path.equals(rootPath) || path.startsWith(rootPath + File.separator);
+      }
+
+      private String getPath(File file)
+      {
+         String path = file.getAbsolutePath().substring(root.getAbsolutePath().length());
+         path = path.replace(File.separatorChar, '/');
+         return path.startsWith("/") ? path.substring(1) : path;
+      }
+
+      private void load()
+      {
+         if (!storage.isFile())
+         {
+            return;
+         }
+         try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(storage), UTF_8)))
+         {
+            if (!HEADER.equals(reader.readLine()))
+            {
+               return;
+            }
+            EntryReader entry = null;
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+               String[] fields = line.split("\t", -1);
+               if ("F".equals(fields[0]))
+               {
+                  if (entry != null)
+                     entry.finish();
+                  entry = new EntryReader(fields);
+               }
+               else if (entry != null)
+               {
+                  entry.add(fields[0], fields[1]);
+               }
+            }
+            if (entry != null)
+               entry.finish();
+         }
+         catch (IOException | RuntimeException e)
+         {
+            log.log(Level.FINE, "Could not read Java symbol index [" + storage + "], rebuilding it", e);
+            files.clear();
+         }
+      }
+
+      private void save()
+      {
+         File parent = storage.getParentFile();
+         File temp = new File(parent, storage.getName() + ".tmp");
+         try
+         {
+            parent.mkdirs();
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), UTF_8)))
+            {
+               writer.write(HEADER);
+               writer.write('\n');
+               for (Entry<String, FileEntry> file : files.entrySet())
+               {
+                  file.getValue().write(file.getKey(), writer);
+               }
+            }
+            try
+            {
+               Files.move(temp.toPath(), storage.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+               Files.move(temp.toPath(), storage.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+         }
+         catch (IOException e)
+         {
+            log.log(Level.FINE, "Could not write Java symbol index [" + storage + "]", e);
+            temp.delete();
+         }
+      }
+
+      /**
+       * Reads an entry written by {@link FileEntry#write(String, Writer)}.
+       */
+      private class EntryReader
+      {
+         private final String[] fields;
+         private final List<String> annotations = new ArrayList<>();
+         private final List<String> supertypes = new ArrayList<>();
+         private final List<String> members = new ArrayList<>();
+
+         public EntryReader(String[] fields)
+         {
+            this.fields = fields;
+         }
+
+         public void add(String type, String value)
+         {
+            if ("A".equals(type))
+               annotations.add(value);
+            else if ("S".equals(type))
+               supertypes.add(value);
+            else if ("M".equals(type))
+               members.add(value);
+         }
+
+         public void finish()
+         {
+            String path = fields[1];
+            JavaTypeSymbol symbol = null;
+            if (!"-".equals(fields[5]))
+            {
+               symbol = new JavaTypeSymbol(path, fields[6], Kind.valueOf(fields[5]), annotations, supertypes,
+                        members);
+            }
+            files.put(path, new FileEntry(Long.parseLong(fields[2]), Long.parseLong(fields[3]),
+                     Long.parseLong(fields[4]), symbol));
+         }
+      }
+   }
+
+   private static class FileEntry
+   {
+      private final long lastModified;
+      private final long length;
+      private final long indexed;
+
+      /**
+       * <code>null</code> if the file could not be parsed
+       */
+      private final JavaTypeSymbol symbol;
+
+      public FileEntry(long lastModified, long length, long indexed, JavaTypeSymbol symbol)
+      {
+         this.lastModified = lastModified;
+         this.length = length;
+         this.indexed = indexed;
+         this.symbol = symbol;
+      }
+
+      /**
+       * Write this entry as a <code>F</code> line, followed by one <code>A</code>, <code>S</code> or <code>M</code>
+       * line per annotation, supertype or member, with tab separated fields.
+       */
+      public void write(String path, Writer writer) throws IOException
+      {
+         writer.write("F\t" + path + "\t" + lastModified + "\t" + length + "\t" + indexed + "\t");
+         if (symbol == null)
+         {
+            writer.write("-\t\n");
+            return;
+         }
+         writer.write(symbol.getKind() + "\t" + symbol.getQualifiedName() + "\n");
+         writeAll("A", symbol.getAnnotations(), writer);
+         writeAll("S", symbol.getSupertypes(), writer);
+         writeAll("M", symbol.getMembers(), writer);
+      }
+
+      private static void writeAll(String type, List<String> values, Writer writer) throws IOException
+      {
+         for (String value : values)
+         {
+            writer.write(type + "\t" + value.replaceAll("\\s+", " ") + "\n");
+         }
+      }
+   }
+}
@@ -7,12 +7,14 @@
 
 package org.jboss.forge.addon.parser.java.resources;
 
+import java.io.FileNotFoundException;
 import java.util.Collections;
 import java.util.List;
 
 import org.jboss.forge.addon.parser.java.resources.JavaFieldResource;
 import org.jboss.forge.addon.parser.java.resources.JavaResource;
 import org.jboss.forge.addon.resource.Resource;
+import org.jboss.forge.addon.resource.ResourceException;
 import org.jboss.forge.addon.resource.ResourceFacet;
 import org.jboss.forge.addon.resource.ResourceFactory;
 import org.jboss.forge.parser.java.Field;
@@ -68,14 +70,31 @@ public class JavaFieldResourceImpl extends AbstractJavaMemberResource<Field<? ex
    @SuppressWarnings({ "unchecked", "rawtypes" })
    public boolean delete() throws UnsupportedOperationException
    {
-      JavaSource<?> origin = field.getOrigin();
+      /*
+       * The field belongs to the source shared by all readers of the parent resource, so it is removed from a copy
+       * owned by this call instead
+       */
+      JavaResource parent = (JavaResource) this.getParent();
+      JavaSource<?> origin;
+      try
+      {
+         origin = parent.getJavaSource();
+      }
+      catch (FileNotFoundException e)
+      {
+         throw new ResourceException(e);
+      }
       if (origin instanceof FieldHolder)
       {
-         ((FieldHolder) origin).removeField(field);
-         if (!((FieldHolder) origin).hasField(field))
+         Field owned = ((FieldHolder) origin).getField(field.getName());
+         if (owned != null)
          {
-            ((JavaResource) this.getParent()).setContents(origin.toString());
-            return true;
+            ((FieldHolder) origin).removeField(owned);
+            if (!((FieldHolder) origin).hasField(field.getName()))
+            {
+               parent.setContents(origin.toString());
+               return true;
+            }
          }
       }
       return false;
@@ -7,6 +7,7 @@
 
 package org.jboss.forge.addon.parser.java.resources;
 
+import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -14,6 +15,7 @@ import java.util.List;
 import org.jboss.forge.addon.parser.java.resources.JavaMethodResource;
 import org.jboss.forge.addon.parser.java.resources.JavaResource;
 import org.jboss.forge.addon.resource.Resource;
+import org.jboss.forge.addon.resource.ResourceException;
 import org.jboss.forge.addon.resource.ResourceFacet;
 import org.jboss.forge.addon.resource.ResourceFactory;
 import org.jboss.forge.parser.java.JavaSource;
@@ -78,14 +80,37 @@ public class JavaMethodResourceImpl extends AbstractJavaMemberResource<Method> i
    @SuppressWarnings({ "unchecked" })
    public boolean delete() throws UnsupportedOperationException
    {
-      JavaSource<?> origin = method.getOrigin();
+      /*
+       * The method belongs to the source shared by all readers of the parent resource, so it is removed from a copy
+       * owned by this call instead
+       */
+      JavaResource parent = (JavaResource) this.getParent();
+      JavaSource<?> origin;
+      try
+      {
+         origin = parent.getJavaSource();
+      }
+      catch (FileNotFoundException e)
+      {
+         throw new ResourceException(e);
+      }
       if (origin instanceof MethodHolder)
       {
-         ((MethodHolder) origin).removeMethod(method);
-         if (!((MethodHolder) origin).hasMethodSignature(method))
+         List<String> parameterTypes = new ArrayList<String>();
+         for (Parameter<?> p : method.getParameters())
+         {
+            parameterTypes.add(p.getType());
+         }
+         String[] types = parameterTypes.toArray(new String[parameterTypes.size()]);
+         Method owned = ((MethodHolder) origin).getMethod(method.getName(), types);
+         if (owned != null)
          {
-            ((JavaResource) this.getParent()).setContents(origin.toString());
-            return true;
+            ((MethodHolder) origin).removeMethod(owned);
+            if (!((MethodHolder) origin).hasMethodSignature(owned))
+            {
+               parent.setContents(origin.toString());
+               return true;
+            }
          }
       }
       return false;
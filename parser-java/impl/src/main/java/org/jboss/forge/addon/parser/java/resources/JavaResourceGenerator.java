@@ -5,6 +5,7 @@ import java.io.File;
 import javax.inject.Inject;
 
 import org.jboss.forge.addon.parser.java.JavaSourceFactory;
+import org.jboss.forge.addon.parser.java.index.JavaSymbolIndex;
 import org.jboss.forge.addon.resource.Resource;
 import org.jboss.forge.addon.resource.ResourceFactory;
 import org.jboss.forge.addon.resource.ResourceGenerator;
@@ -14,6 +15,12 @@ public class JavaResourceGenerator implements ResourceGenerator<JavaResource, Fi
    @Inject
    private JavaSourceFactory parser;
 
+   @Inject
+   private JavaSourceCache cache;
+
+   @Inject
+   private JavaSymbolIndex index;
+
    @Override
    public boolean handles(Class<?> type, Object resource)
    {
@@ -28,7 +35,7 @@ public class JavaResourceGenerator implements ResourceGenerator<JavaResource, Fi
    @SuppressWarnings("unchecked")
    public <T extends Resource<File>> T getResource(ResourceFactory factory, Class<JavaResource> type, File resource)
    {
-      return (T) new JavaResourceImpl(factory, parser, resource);
+      return (T) new JavaResourceImpl(factory, parser, cache, index, resource);
    }
 
    @Override
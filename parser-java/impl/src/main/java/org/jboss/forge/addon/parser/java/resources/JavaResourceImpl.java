@@ -9,12 +9,14 @@ package org.jboss.forge.addon.parser.java.resources;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
 import org.jboss.forge.addon.parser.java.JavaSourceFactory;
+import org.jboss.forge.addon.parser.java.index.JavaSymbolIndex;
 import org.jboss.forge.addon.resource.AbstractFileResource;
 import org.jboss.forge.addon.resource.Resource;
 import org.jboss.forge.addon.resource.ResourceException;
@@ -35,11 +37,16 @@ import org.jboss.forge.parser.java.Method;
 public class JavaResourceImpl extends AbstractFileResource<JavaResource> implements JavaResource
 {
    private final JavaSourceFactory parser;
+   private final JavaSourceCache cache;
+   private final JavaSymbolIndex index;
 
-   public JavaResourceImpl(final ResourceFactory factory, JavaSourceFactory parser, final File file)
+   public JavaResourceImpl(final ResourceFactory factory, JavaSourceFactory parser, JavaSourceCache cache,
+            JavaSymbolIndex index, final File file)
    {
       super(factory, file);
       this.parser = parser;
+      this.cache = cache;
+      this.index = index;
    }
 
    @Override
@@ -82,8 +89,12 @@ public class JavaResourceImpl extends AbstractFileResource<JavaResource> impleme
       try
       {
          List<Resource<?>> list = new LinkedList<>();
+         /*
+          * The members are only read through the child resources; deleting one works on a copy of the source
+          */
+         JavaSource<?> source = getCachedJavaSource();
 
-         for (Member<?, ?> member : getJavaSource().getMembers())
+         for (Member<?, ?> member : source.getMembers())
          {
             if (member instanceof Field)
             {
@@ -99,9 +110,9 @@ public class JavaResourceImpl extends AbstractFileResource<JavaResource> impleme
             }
          }
 
-         if (getJavaSource() instanceof JavaEnum)
+         if (source instanceof JavaEnum)
          {
-            for (EnumConstant<JavaEnum> e : ((JavaEnum) getJavaSource()).getEnumConstants())
+            for (EnumConstant<JavaEnum> e : ((JavaEnum) source).getEnumConstants())
             {
                list.add(new EnumConstantResourceImpl(getResourceFactory(), this, e));
             }
@@ -126,19 +137,63 @@ public class JavaResourceImpl extends AbstractFileResource<JavaResource> impleme
       return this;
    }
 
+   @Override
+   public JavaResource setContents(final InputStream data)
+   {
+      try
+      {
+         return super.setContents(data);
+      }
+      finally
+      {
+         cache.invalidate(this);
+         index.invalidate(this);
+      }
+   }
+
+   @Override
+   public void refresh()
+   {
+      super.refresh();
+      cache.invalidate(this);
+      index.invalidate(this);
+   }
+
+   @Override
+   public boolean delete(final boolean recursive)
+   {
+      try
+      {
+         return super.delete(recursive);
+      }
+      finally
+      {
+         cache.invalidate(this);
+         index.invalidate(this);
+      }
+   }
+
    /**
     * Attempts to perform cast automatically. This can lead to problems.
     */
    @Override
    public JavaSource<?> getJavaSource() throws FileNotFoundException
    {
-      return parser.parse(getResourceInputStream());
+      return cache.copy(this, parser);
+   }
+
+   /**
+    * Returns the shared, cached {@link JavaSource} for this resource. Must only be used for read-only access.
+    */
+   private JavaSource<?> getCachedJavaSource() throws FileNotFoundException
+   {
+      return cache.get(this, parser);
    }
 
    @Override
    public JavaResourceImpl createFrom(final File file)
    {
-      return new JavaResourceImpl(getResourceFactory(), parser, file);
+      return new JavaResourceImpl(getResourceFactory(), parser, cache, index, file);
    }
 
    @Override
@@ -146,7 +201,7 @@ public class JavaResourceImpl extends AbstractFileResource<JavaResource> impleme
    {
       try
       {
-         return getJavaSource().getQualifiedName();
+         return getCachedJavaSource().getQualifiedName();
       }
       catch (FileNotFoundException e)
       {
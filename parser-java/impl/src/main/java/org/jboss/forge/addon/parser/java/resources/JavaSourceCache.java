@@ -0,0 +1,402 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.addon.parser.java.resources;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jboss.forge.addon.parser.java.JavaSourceFactory;
+import org.jboss.forge.addon.resource.DirectoryResource;
+import org.jboss.forge.addon.resource.FileOperations;
+import org.jboss.forge.addon.resource.FileResource;
+import org.jboss.forge.addon.resource.Resource;
+import org.jboss.forge.addon.resource.ResourceFactory;
+import org.jboss.forge.addon.resource.events.ResourceEvent;
+import org.jboss.forge.addon.resource.monitor.ResourceListener;
+import org.jboss.forge.addon.resource.monitor.ResourceMonitor;
+import org.jboss.forge.addon.resource.transaction.ResourceTransaction;
+import org.jboss.forge.addon.resource.transaction.ResourceTransactionListener;
+import org.jboss.forge.furnace.container.cdi.events.Local;
+import org.jboss.forge.furnace.event.PostStartup;
+import org.jboss.forge.furnace.event.PreShutdown;
+import org.jboss.forge.furnace.spi.ListenerRegistration;
+import org.jboss.forge.furnace.util.Streams;
+import org.jboss.forge.parser.java.JavaSource;
+
+/**
+ * A bounded, LRU cache of the contents of Java files and of their parsed {@link JavaSource} instances, keyed by the
+ * absolute path of the underlying file.
+ *
+ * Read-only callers share one parsed instance per file. Callers that may change the source get their own copy, parsed
+ * from the cached contents, so that the shared instance stays pristine and the file is not read again.
+ *
+ * An entry is only considered valid while the last-modified time, length and content digest of the file are unchanged.
+ * Entries are also evicted when a {@link ResourceMonitor} reports a change in the parent directory of a cached file,
+ * and when a {@link ResourceTransaction} that touched the file is committed.
+ *
+ * The maximum number of entries may be configured with the <code>java.parser.cache.size</code> system property.
+ */
+@Singleton
+public class JavaSourceCache implements ResourceListener, ResourceTransactionListener
+{
+   private static final Logger log = Logger.getLogger(JavaSourceCache.class.getName());
+
+   private static final int MAX_ENTRIES = Integer.getInteger("java.parser.cache.size", 256);
+
+   @Inject
+   private ResourceFactory factory;
+
+   private final AtomicLong hits = new AtomicLong();
+   private final AtomicLong misses = new AtomicLong();
+   private final AtomicLong evictions = new AtomicLong();
+
+   private final Map<String, CacheEntry> entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true)
+   {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Entry<String, CacheEntry> eldest)
+      {
+         if (size() > MAX_ENTRIES)
+         {
+            evictions.incrementAndGet();
+            entryRemoved(eldest.getKey());
+            return true;
+         }
+         return false;
+      }
+   };
+
+   private final Map<String, DirectoryMonitor> monitors = new HashMap<>();
+
+   private ListenerRegistration<ResourceTransactionListener> transactionListenerRegistration;
+
+   void init(@Observes @Local PostStartup event)
+   {
+      transactionListenerRegistration = factory.addTransactionListener(this);
+   }
+
+   void destroy(@Observes @Local PreShutdown event)
+   {
+      if (transactionListenerRegistration != null)
+         transactionListenerRegistration.removeListener();
+      invalidateAll();
+   }
+
+   /**
+    * Return a shared, parsed {@link JavaSource} for the given {@link FileResource}, parsing and caching it if no valid
+    * entry exists. The returned instance must be treated as read-only.
+    */
+   public JavaSource<?> get(FileResource<?> resource, JavaSourceFactory parser)
+   {
+      return lookup(resource, parser, true);
+   }
+
+   /**
+    * Return a parsed {@link JavaSource} for the given {@link FileResource} that is owned by the caller. It is parsed
+    * from the cached contents of the file if they are still valid, and the contents are cached otherwise.
+    */
+   public JavaSource<?> copy(FileResource<?> resource, JavaSourceFactory parser)
+   {
+      return lookup(resource, parser, false);
+   }
+
+   /**
+    * Discard any cached entry for the given {@link Resource}, or for all entries below it if it is a directory.
+    */
+   public void invalidate(Resource<?> resource)
+   {
+      String path = resource.getFullyQualifiedName();
+      synchronized (entries)
+      {
+         if (entries.remove(path) != null)
+         {
+            entryRemoved(path);
+         }
+         else if (resource instanceof DirectoryResource)
+         {
+            String prefix = path + File.separator;
+            Iterator<String> iterator = entries.keySet().iterator();
+            while (iterator.hasNext())
+            {
+               String key = iterator.next();
+               if (key.startsWith(prefix))
+               {
+                  iterator.remove();
+                  entryRemoved(key);
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Discard all cached entries.
+    */
+   public void invalidateAll()
+   {
+      synchronized (entries)
+      {
+         entries.clear();
+         for (DirectoryMonitor monitor : monitors.values())
+         {
+            monitor.cancel();
+         }
+         monitors.clear();
+      }
+   }
+
+   public long getHitCount()
+   {
+      return hits.get();
+   }
+
+   public long getMissCount()
+   {
+      return misses.get();
+   }
+
+   public long getEvictionCount()
+   {
+      return evictions.get();
+   }
+
+   public int size()
+   {
+      synchronized (entries)
+      {
+         return entries.size();
+      }
+   }
+
+   @Override
+   public void processEvent(ResourceEvent event)
+   {
+      invalidate(event.getResource());
+   }
+
+   @Override
+   public void transactionStarted(ResourceTransaction transaction)
+   {
+   }
+
+   @Override
+   public void transactionCommitted(ResourceTransaction transaction, Set<ResourceEvent> changeSet)
+   {
+      for (ResourceEvent event : changeSet)
+      {
+         invalidate(event.getResource());
+      }
+   }
+
+   @Override
+   public void transactionRolledBack(ResourceTransaction transaction)
+   {
+      /*
+       * Sources parsed from uncommitted contents are never cached, so there is nothing to discard
+       */
+   }
+
+   @Override
+   public String toString()
+   {
+      return "JavaSourceCache [size=" + size() + ", hits=" + hits + ", misses=" + misses + ", evictions="
+               + evictions + "]";
+   }
+
+   private JavaSource<?> lookup(FileResource<?> resource, JavaSourceFactory parser, boolean shared)
+   {
+      File file = resource.getUnderlyingResourceObject();
+      String path = resource.getFullyQualifiedName();
+      long lastModified = file.lastModified();
+      boolean transactional = isTransactionStarted();
+
+      CacheEntry entry;
+      synchronized (entries)
+      {
+         entry = entries.get(path);
+      }
+
+      if (entry != null && !transactional && entry.lastModified == lastModified
+               && entry.contents.length == file.length()
+               && System.currentTimeMillis() - lastModified > FileOperations.TIMESTAMP_GRANULARITY)
+      {
+         hits.incrementAndGet();
+         return entry.getSource(parser, shared);
+      }
+
+      byte[] contents = read(resource.getResourceInputStream());
+      byte[] digest = digest(contents);
+      if (entry != null && entry.contents.length == contents.length && MessageDigest.isEqual(entry.digest, digest))
+      {
+         hits.incrementAndGet();
+         return entry.getSource(parser, shared);
+      }
+
+      misses.incrementAndGet();
+      CacheEntry parsed = new CacheEntry(contents, lastModified, digest);
+      JavaSource<?> source = parsed.getSource(parser, shared);
+      if (!transactional)
+      {
+         synchronized (entries)
+         {
+            if (entries.put(path, parsed) == null)
+            {
+               monitorParentOf(resource);
+            }
+         }
+      }
+      return source;
+   }
+
+   private boolean isTransactionStarted()
+   {
+      try
+      {
+         return factory.getTransaction().isStarted();
+      }
+      catch (UnsupportedOperationException e)
+      {
+         return false;
+      }
+   }
+
+   /**
+    * Must be called while holding the lock on {@link #entries}
+    */
+   private void monitorParentOf(FileResource<?> resource)
+   {
+      DirectoryResource parent = resource.getParent();
+      if (parent != null)
+      {
+         String parentPath = parent.getFullyQualifiedName();
+         DirectoryMonitor monitor = monitors.get(parentPath);
+         if (monitor == null)
+         {
+            monitor = new DirectoryMonitor(parent);
+            monitors.put(parentPath, monitor);
+         }
+         monitor.count++;
+      }
+   }
+
+   /**
+    * Must be called while holding the lock on {@link #entries}
+    */
+   private void entryRemoved(String path)
+   {
+      String parentPath = new File(path).getParent();
+      DirectoryMonitor monitor = monitors.get(parentPath);
+      if (monitor != null && --monitor.count <= 0)
+      {
+         monitor.cancel();
+         monitors.remove(parentPath);
+      }
+   }
+
+   private static byte[] read(InputStream stream)
+   {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try
+      {
+         Streams.write(stream, out);
+      }
+      finally
+      {
+         Streams.closeQuietly(stream);
+      }
+      return out.toByteArray();
+   }
+
+   private static byte[] digest(byte[] contents)
+   {
+      try
+      {
+         return MessageDigest.getInstance("MD5").digest(contents);
+      }
+      catch (NoSuchAlgorithmException e)
+      {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   private static class CacheEntry
+   {
+      private final byte[] contents;
+      private final long lastModified;
+      private final byte[] digest;
+      private JavaSource<?> source;
+
+      public CacheEntry(byte[] contents, long lastModified, byte[] digest)
+      {
+         this.contents = contents;
+         this.lastModified = lastModified;
+         this.digest = digest;
+      }
+
+      /**
+       * Returns the shared instance, parsed on first use, or a new instance owned by the caller
+       */
+      public JavaSource<?> getSource(JavaSourceFactory parser, boolean shared)
+      {
+         if (!shared)
+         {
+            return parser.parse(new ByteArrayInputStream(contents));
+         }
+         synchronized (this)
+         {
+            if (source == null)
+            {
+               source = parser.parse(new ByteArrayInputStream(contents));
+            }
+            return source;
+         }
+      }
+   }
+
+   private class DirectoryMonitor
+   {
+      private ResourceMonitor monitor;
+      private int count;
+
+      public DirectoryMonitor(DirectoryResource directory)
+      {
+         try
+         {
+            monitor = directory.monitor();
+            monitor.addResourceListener(JavaSourceCache.this);
+         }
+         catch (RuntimeException e)
+         {
+            log.log(Level.FINE, "Could not monitor [" + directory + "], relying on digest validation only", e);
+         }
+      }
+
+      public void cancel()
+      {
+         if (monitor != null)
+            monitor.cancel();
+      }
+   }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.addon.parser.java;
+
+import java.io.File;
+
+import javax.inject.Inject;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.forge.addon.parser.java.resources.JavaResource;
+import org.jboss.forge.addon.parser.java.resources.JavaSourceCache;
+import org.jboss.forge.addon.resource.Resource;
+import org.jboss.forge.addon.resource.ResourceFactory;
+import org.jboss.forge.addon.resource.transaction.ResourceTransaction;
+import org.jboss.forge.arquillian.AddonDependency;
+import org.jboss.forge.arquillian.Dependencies;
+import org.jboss.forge.arquillian.archive.ForgeArchive;
+import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
+import org.jboss.forge.parser.JavaParser;
+import org.jboss.forge.parser.java.JavaClass;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(Arquillian.class)
+public class JavaSourceCacheTest
+{
+   @Deployment
+   @Dependencies({
+            @AddonDependency(name = "org.jboss.forge.furnace.container:cdi"),
+            @AddonDependency(name = "org.jboss.forge.addon:resources"),
+            @AddonDependency(name = "org.jboss.forge.addon:parser-java")
+   })
+   public static ForgeArchive getDeployment()
+   {
+      ForgeArchive archive = ShrinkWrap
+               .create(ForgeArchive.class)
+               .addBeansXML()
+               .addAsAddonDependencies(
+                        AddonDependencyEntry.create("org.jboss.forge.furnace.container:cdi"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:parser-java"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:resources")
+               );
+
+      return archive;
+   }
+
+   @Inject
+   private ResourceFactory factory;
+
+   @Inject
+   private JavaSourceCache cache;
+
+   @Test
+   public void testRepeatedReadsAreCached() throws Exception
+   {
+      JavaClass javaClass = JavaParser.create(JavaClass.class).setPackage("org.jboss.forge.test").setName("Example");
+      javaClass.addField("private String name;");
+      JavaResource resource = factory.create(JavaResource.class, File.createTempFile("forge", ".java"));
+      resource.createNewFile();
+      resource.setContents(javaClass);
+
+      long misses = cache.getMissCount();
+      long hits = cache.getHitCount();
+      Assert.assertEquals("org.jboss.forge.test.Example", resource.toString());
+      Assert.assertEquals(1, resource.listResources().size());
+      Assert.assertNotNull(resource.getChild("name"));
+      Assert.assertEquals(misses + 1, cache.getMissCount());
+      Assert.assertEquals(hits + 2, cache.getHitCount());
+   }
+
+   @Test
+   public void testChangedContentsAreReparsed() throws Exception
+   {
+      JavaClass javaClass = JavaParser.create(JavaClass.class).setPackage("org.jboss.forge.test").setName("Example");
+      JavaResource resource = factory.create(JavaResource.class, File.createTempFile("forge", ".java"));
+      resource.createNewFile();
+      resource.setContents(javaClass);
+      Assert.assertEquals("org.jboss.forge.test.Example", resource.toString());
+
+      resource.setContents(javaClass.setName("Changed"));
+      Assert.assertEquals("org.jboss.forge.test.Changed", resource.toString());
+   }
+
+   @Test
+   public void testGetJavaSourceReturnsOwnedInstance() throws Exception
+   {
+      JavaClass javaClass = JavaParser.create(JavaClass.class).setPackage("org.jboss.forge.test").setName("Example");
+      JavaResource resource = factory.create(JavaResource.class, File.createTempFile("forge", ".java"));
+      resource.createNewFile();
+      resource.setContents(javaClass);
+      Assert.assertEquals("org.jboss.forge.test.Example", resource.toString());
+
+      JavaClass owned = (JavaClass) resource.getJavaSource();
+      owned.setName("Modified");
+      Assert.assertEquals("org.jboss.forge.test.Example", resource.toString());
+      Assert.assertNotSame(owned, resource.getJavaSource());
+   }
+
+   @Test
+   public void testRepeatedGetJavaSourceUsesCachedContents() throws Exception
+   {
+      JavaClass javaClass = JavaParser.create(JavaClass.class).setPackage("org.jboss.forge.test").setName("Example");
+      JavaResource resource = factory.create(JavaResource.class, File.createTempFile("forge", ".java"));
+      resource.createNewFile();
+      resource.setContents(javaClass);
+
+      long misses = cache.getMissCount();
+      long hits = cache.getHitCount();
+      JavaClass first = (JavaClass) resource.getJavaSource();
+      first.setName("Modified");
+      JavaClass second = (JavaClass) resource.getJavaSource();
+      Assert.assertEquals("Example", second.getName());
+      Assert.assertEquals("org.jboss.forge.test.Example", resource.toString());
+      Assert.assertEquals(misses + 1, cache.getMissCount());
+      Assert.assertEquals(hits + 2, cache.getHitCount());
+   }
+
+   @Test
+   public void testDeletingMemberDoesNotChangeCachedSource() throws Exception
+   {
+      JavaClass javaClass = JavaParser.create(JavaClass.class).setPackage("org.jboss.forge.test").setName("Example");
+      javaClass.addField("private String name;");
+      javaClass.addField("private String description;");
+      JavaResource resource = factory.create(JavaResource.class, File.createTempFile("forge", ".java"));
+      resource.createNewFile();
+      resource.setContents(javaClass);
+      Resource<?> field = resource.getChild("name");
+      Assert.assertNotNull(field);
+
+      ResourceTransaction transaction = factory.getTransaction();
+      transaction.begin();
+      try
+      {
+         Assert.assertTrue(field.delete());
+      }
+      finally
+      {
+         transaction.rollback();
+      }
+      Assert.assertEquals(2, resource.listResources().size());
+      Assert.assertNotNull(resource.getChild("name"));
+   }
+}
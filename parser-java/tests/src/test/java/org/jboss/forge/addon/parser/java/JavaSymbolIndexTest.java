@@ -0,0 +1,144 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.addon.parser.java;
+
+import java.util.List;
+
+import javax.inject.Inject;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.forge.addon.facets.FacetFactory;
+import org.jboss.forge.addon.parser.java.facets.JavaSourceFacet;
+import org.jboss.forge.addon.parser.java.index.JavaSymbolIndex;
+import org.jboss.forge.addon.parser.java.index.JavaTypeSymbol;
+import org.jboss.forge.addon.projects.Project;
+import org.jboss.forge.addon.projects.ProjectFactory;
+import org.jboss.forge.addon.resource.ResourceFactory;
+import org.jboss.forge.addon.resource.transaction.ResourceTransaction;
+import org.jboss.forge.arquillian.AddonDependency;
+import org.jboss.forge.arquillian.Dependencies;
+import org.jboss.forge.arquillian.archive.ForgeArchive;
+import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
+import org.jboss.forge.parser.JavaParser;
+import org.jboss.forge.parser.java.JavaClass;
+import org.jboss.forge.parser.java.JavaInterface;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(Arquillian.class)
+public class JavaSymbolIndexTest
+{
+   @Deployment
+   @Dependencies({
+            @AddonDependency(name = "org.jboss.forge.addon:parser-java"),
+            @AddonDependency(name = "org.jboss.forge.addon:maven"),
+            @AddonDependency(name = "org.jboss.forge.addon:projects"),
+            @AddonDependency(name = "org.jboss.forge.addon:resources"),
+            @AddonDependency(name = "org.jboss.forge.furnace.container:cdi")
+   })
+   public static ForgeArchive getDeployment()
+   {
+      ForgeArchive archive = ShrinkWrap.create(ForgeArchive.class)
+               .addBeansXML()
+               .addAsAddonDependencies(
+                        AddonDependencyEntry.create("org.jboss.forge.furnace.container:cdi"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:parser-java"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:projects"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:resources"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:maven")
+               );
+
+      return archive;
+   }
+
+   @Inject
+   private ProjectFactory projectFactory;
+
+   @Inject
+   private FacetFactory facetFactory;
+
+   @Inject
+   private ResourceFactory resourceFactory;
+
+   @Test
+   public void testFindTypesByAnnotationAndSupertype() throws Exception
+   {
+      Project project = projectFactory.createTempProject();
+      JavaSourceFacet facet = facetFactory.install(project, JavaSourceFacet.class);
+
+      facet.saveJavaSource(JavaParser.create(JavaInterface.class).setPackage("org.jboss.forge.test").setName("Named"));
+      JavaClass base = JavaParser.create(JavaClass.class).setPackage("org.jboss.forge.test").setName("Base");
+      base.addInterface("org.jboss.forge.test.Named");
+      base.addAnnotation(Deprecated.class);
+      base.addField("private String name;");
+      facet.saveJavaSource(base);
+      JavaClass sub = JavaParser.create(JavaClass.class).setPackage("org.jboss.forge.test.sub").setName("Sub");
+      sub.setSuperType("org.jboss.forge.test.Base");
+      facet.saveJavaSource(sub);
+
+      Assert.assertEquals(3, facet.getJavaTypeSymbols().size());
+
+      List<JavaTypeSymbol> deprecated = facet.getJavaTypeSymbolsAnnotatedWith(Deprecated.class.getName());
+      Assert.assertEquals(1, deprecated.size());
+      JavaTypeSymbol symbol = deprecated.get(0);
+      Assert.assertEquals("org.jboss.forge.test.Base", symbol.getQualifiedName());
+      Assert.assertEquals(JavaTypeSymbol.Kind.CLASS, symbol.getKind());
+      Assert.assertEquals(1, symbol.getMembers().size());
+      Assert.assertEquals("org.jboss.forge.test.Base", facet.getJavaResource(symbol).getJavaSource()
+               .getQualifiedName());
+
+      List<JavaTypeSymbol> named = facet.getJavaTypeSymbolsAssignableTo("org.jboss.forge.test.Named");
+      Assert.assertEquals(2, named.size());
+   }
+
+   @Test
+   public void testIndexIsUpdatedAndPersisted() throws Exception
+   {
+      Project project = projectFactory.createTempProject();
+      JavaSourceFacet facet = facetFactory.install(project, JavaSourceFacet.class);
+
+      JavaClass javaClass = JavaParser.create(JavaClass.class).setPackage("org.jboss.forge.test").setName("Example");
+      facet.saveJavaSource(javaClass);
+      Assert.assertTrue(facet.getJavaTypeSymbolsAnnotatedWith(Deprecated.class.getName()).isEmpty());
+
+      javaClass.addAnnotation(Deprecated.class);
+      facet.saveJavaSource(javaClass);
+      Assert.assertEquals(1, facet.getJavaTypeSymbolsAnnotatedWith(Deprecated.class.getName()).size());
+      Assert.assertTrue(project.getProjectRoot().getChildDirectory(JavaSymbolIndex.INDEX_DIRECTORY).exists());
+
+      facet.getJavaResource(javaClass).delete();
+      Assert.assertTrue(facet.getJavaTypeSymbols().isEmpty());
+   }
+
+   @Test
+   public void testUncommittedChangesAreNotPersisted() throws Exception
+   {
+      Project project = projectFactory.createTempProject();
+      JavaSourceFacet facet = facetFactory.install(project, JavaSourceFacet.class);
+
+      JavaClass javaClass = JavaParser.create(JavaClass.class).setPackage("org.jboss.forge.test").setName("Example");
+      facet.saveJavaSource(javaClass);
+      Assert.assertTrue(facet.getJavaTypeSymbolsAnnotatedWith(Deprecated.class.getName()).isEmpty());
+
+      ResourceTransaction transaction = resourceFactory.getTransaction();
+      transaction.begin();
+      try
+      {
+         javaClass.addAnnotation(Deprecated.class);
+         facet.saveJavaSource(javaClass);
+         Assert.assertEquals(1, facet.getJavaTypeSymbolsAnnotatedWith(Deprecated.class.getName()).size());
+      }
+      finally
+      {
+         transaction.rollback();
+      }
+      Assert.assertTrue(facet.getJavaTypeSymbolsAnnotatedWith(Deprecated.class.getName()).isEmpty());
+   }
+}
@@ -11,6 +11,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.jboss.forge.addon.facets.AbstractFaceted;
+import org.jboss.forge.addon.projects.spi.ProjectFacetResolver;
 
 /**
  * Convenience base class for {@link Project} implementations.
@@ -20,6 +21,26 @@ import org.jboss.forge.addon.facets.AbstractFaceted;
 public abstract class AbstractProject extends AbstractFaceted<ProjectFacet> implements Project
 {
    private final Map<Object, Object> attributes = new HashMap<Object, Object>();
+   private volatile ProjectFacetResolver facetResolver;
+
+   /**
+    * Set the {@link ProjectFacetResolver} registering the available facets of this project when they are first looked
+    * up.
+    */
+   public void setFacetResolver(ProjectFacetResolver facetResolver)
+   {
+      this.facetResolver = facetResolver;
+   }
+
+   @Override
+   protected void resolveFacets(Class<?> type)
+   {
+      ProjectFacetResolver resolver = facetResolver;
+      if (resolver != null)
+      {
+         resolver.resolveFacets(this, type);
+      }
+   }
 
    @Override
    public Object getAttribute(final Object key)
@@ -8,6 +8,7 @@
 package org.jboss.forge.addon.projects.facets;
 
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.jboss.forge.addon.dependencies.Coordinate;
 import org.jboss.forge.addon.dependencies.Dependency;
@@ -254,4 +255,14 @@ public interface DependencyFacet extends BuildSystemFacet
     */
    public Dependency resolveProperties(Dependency dependency);
 
+   /**
+    * Perform all changes made through this {@link DependencyFacet} by the given {@link Callable} as a single update of
+    * the underlying build descriptor, which is written once the {@link Callable} completes. Changes that have not been
+    * written are discarded if the {@link Callable} throws an exception. Calls may be nested, in which case only the
+    * outermost call writes changes.
+    *
+    * @return the value returned by the given {@link Callable}
+    */
+   public <T> T batchChanges(Callable<T> changes);
+
 }
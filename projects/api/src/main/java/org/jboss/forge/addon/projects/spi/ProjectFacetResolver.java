@@ -0,0 +1,24 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.addon.projects.spi;
+
+import org.jboss.forge.addon.projects.AbstractProject;
+import org.jboss.forge.addon.projects.Project;
+import org.jboss.forge.addon.projects.ProjectFacet;
+
+/**
+ * Registers the available {@link ProjectFacet} instances of a given type into an {@link AbstractProject} when they are
+ * first looked up, instead of registering every available {@link ProjectFacet} type when the {@link Project} is
+ * discovered.
+ */
+public interface ProjectFacetResolver
+{
+   /**
+    * Register the available facets of the given type into the given {@link Project}, if this was not done before.
+    */
+   void resolveFacets(Project project, Class<?> type);
+}
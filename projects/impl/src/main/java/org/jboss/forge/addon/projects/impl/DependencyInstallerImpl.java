@@ -1,6 +1,7 @@
 package org.jboss.forge.addon.projects.impl;
 
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.jboss.forge.addon.dependencies.Coordinate;
 import org.jboss.forge.addon.dependencies.Dependency;
@@ -20,7 +21,22 @@ public class DependencyInstallerImpl implements DependencyInstaller
    @Override
    public Dependency install(final Project project, final Dependency request)
    {
-      DependencyFacet deps = project.getFacet(DependencyFacet.class);
+      final DependencyFacet deps = project.getFacet(DependencyFacet.class);
+      /*
+       * Effective dependencies are looked up before making any changes, so all changes are written at once
+       */
+      return deps.batchChanges(new Callable<Dependency>()
+      {
+         @Override
+         public Dependency call()
+         {
+            return install(deps, request);
+         }
+      });
+   }
+
+   private Dependency install(final DependencyFacet deps, final Dependency request)
+   {
       final Dependency dependency = deps.resolveProperties(request);
 
       // Exists in deps, no version change requested
@@ -13,6 +13,8 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Logger;
 
 import javax.enterprise.event.Observes;
@@ -21,6 +23,7 @@ import javax.inject.Singleton;
 
 import org.jboss.forge.addon.facets.Facet;
 import org.jboss.forge.addon.facets.FacetFactory;
+import org.jboss.forge.addon.projects.AbstractProject;
 import org.jboss.forge.addon.projects.BuildSystem;
 import org.jboss.forge.addon.projects.BuildSystemFacet;
 import org.jboss.forge.addon.projects.Project;
@@ -29,6 +32,7 @@ import org.jboss.forge.addon.projects.ProjectFacet;
 import org.jboss.forge.addon.projects.ProjectFactory;
 import org.jboss.forge.addon.projects.ProjectListener;
 import org.jboss.forge.addon.projects.spi.ProjectCache;
+import org.jboss.forge.addon.projects.spi.ProjectFacetResolver;
 import org.jboss.forge.addon.resource.DirectoryResource;
 import org.jboss.forge.addon.resource.FileResource;
 import org.jboss.forge.addon.resource.ResourceFactory;
@@ -69,6 +73,8 @@ public class ProjectFactoryImpl implements ProjectFactory
 
    private final List<ListenerRegistration<ResourceListener>> listeners = new ArrayList<ListenerRegistration<ResourceListener>>();
 
+   private volatile FacetTypes facetTypes;
+
    void shutdown(@Observes @Local PreShutdown event)
    {
       invalidateCaches();
@@ -334,21 +340,50 @@ public class ProjectFactoryImpl implements ProjectFactory
       return result;
    }
 
+   /**
+    * Registers the available facets into the given project. Projects extending {@link AbstractProject} register the
+    * facets of a type when they are first looked up, so that discovering a project does not create every available
+    * facet.
+    */
    private void registerAvailableFacets(Project result)
    {
-      for (Class<ProjectFacet> type : registry.getExportedTypes(ProjectFacet.class))
+      if (result instanceof AbstractProject)
+      {
+         ((AbstractProject) result).setFacetResolver(new AvailableFacetResolver());
+      }
+      else
       {
-         Iterable<ProjectFacet> facets = factory.createFacets(result, type);
-         for (ProjectFacet facet : facets)
+         for (Class<ProjectFacet> type : getFacetTypes().all)
          {
-            if (facet != null && factory.register(result, facet))
-            {
-               log.fine("Registered Facet [" + facet + "] into Project [" + result + "]");
-            }
+            registerAvailableFacets(result, type);
          }
       }
    }
 
+   private void registerAvailableFacets(Project result, Class<ProjectFacet> type)
+   {
+      Iterable<ProjectFacet> facets = factory.createFacets(result, type);
+      for (ProjectFacet facet : facets)
+      {
+         if (facet != null && factory.register(result, facet))
+         {
+            log.fine("Registered Facet [" + facet + "] into Project [" + result + "]");
+         }
+      }
+   }
+
+   private FacetTypes getFacetTypes()
+   {
+      long version = registry.getVersion();
+      FacetTypes types = facetTypes;
+      if (types == null || types.version != version)
+      {
+         types = new FacetTypes(version, registry.getExportedTypes(ProjectFacet.class));
+         facetTypes = types;
+      }
+      return types;
+   }
+
    private void cacheProject(final Project project)
    {
       for (ProjectCache cache : caches)
@@ -551,6 +586,73 @@ public class ProjectFactoryImpl implements ProjectFactory
       return found;
    }
 
+   /**
+    * Registers the available facets of a project type by type, as they are looked up.
+    * <p>
+    * This does not listen to addon lifecycle events. Instead, every lookup compares the
+    * {@link AddonRegistry#getVersion() registry version} the types were resolved for with the current one, which
+    * changes whenever addons are started or stopped, and resolves the types again if it differs. Facets already
+    * registered into the project are kept.
+    */
+   private class AvailableFacetResolver implements ProjectFacetResolver
+   {
+      private final Set<Class<?>> resolved = new HashSet<Class<?>>();
+      private long version = -1;
+
+      @Override
+      public synchronized void resolveFacets(Project project, Class<?> type)
+      {
+         FacetTypes types = getFacetTypes();
+         if (types.version != version)
+         {
+            resolved.clear();
+            version = types.version;
+         }
+         if (resolved.add(type))
+         {
+            for (Class<ProjectFacet> facetType : types.getAssignableTo(type))
+            {
+               registerAvailableFacets(project, facetType);
+            }
+         }
+      }
+   }
+
+   /**
+    * The {@link ProjectFacet} types exported for a given version of the {@link AddonRegistry}.
+    */
+   private static class FacetTypes
+   {
+      private final long version;
+      private final List<Class<ProjectFacet>> all;
+      private final ConcurrentMap<Class<?>, List<Class<ProjectFacet>>> assignable =
+               new ConcurrentHashMap<Class<?>, List<Class<ProjectFacet>>>();
+
+      public FacetTypes(long version, Set<Class<ProjectFacet>> types)
+      {
+         this.version = version;
+         this.all = new ArrayList<Class<ProjectFacet>>(types);
+      }
+
+      public List<Class<ProjectFacet>> getAssignableTo(Class<?> type)
+      {
+         List<Class<ProjectFacet>> result = assignable.get(type);
+         if (result == null)
+         {
+            result = new ArrayList<Class<ProjectFacet>>();
+            for (Class<ProjectFacet> facetType : all)
+            {
+               if (type.isAssignableFrom(facetType))
+               {
+                  result.add(facetType);
+               }
+            }
+            assignable.put(type, result);
+         }
+         return result;
+      }
+   }
+
    @Override
    public void invalidateCaches()
    {
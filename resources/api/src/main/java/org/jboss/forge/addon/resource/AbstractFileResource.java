@@ -207,7 +207,7 @@ public abstract class AbstractFileResource<T extends FileResource<T>> extends Ab
       {
          data = "";
       }
-      return setContents(data.toCharArray());
+      return setContents(new ByteArrayInputStream(data.getBytes()));
    }
 
    @Override
@@ -217,7 +217,7 @@ public abstract class AbstractFileResource<T extends FileResource<T>> extends Ab
       {
          data = "";
       }
-      return setContents(data.toCharArray(), charset);
+      return setContents(new ByteArrayInputStream(data.getBytes(charset)));
    }
 
    @Override
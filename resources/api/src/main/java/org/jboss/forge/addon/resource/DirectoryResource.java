@@ -36,4 +36,12 @@ public interface DirectoryResource extends FileResource<DirectoryResource>
     */
    public <E, T extends Resource<E>> T getChildOfType(final Class<T> type, final String name) throws ResourceException;
 
+   /**
+    * Return an {@link Iterable} over the child resources of this directory. Unlike {@link #listResources()}, children
+    * are read from the file-system while iterating and are neither sorted nor cached, which is better suited for very
+    * large directories. Iterators that are not exhausted should be discarded as soon as possible, since they hold an
+    * open directory handle.
+    */
+   public Iterable<Resource<?>> iterateResources();
+
 }
@@ -19,6 +19,13 @@ import java.io.OutputStream;
  */
 public interface FileOperations
 {
+   /**
+    * The granularity, in milliseconds, with which file systems commonly store modification times, that is up to two
+    * seconds. Caches keyed on the modification time of a file must not trust it for files modified more recently than
+    * this, as a later change within the same interval leaves it unchanged.
+    */
+   public static final long TIMESTAMP_GRANULARITY = 2000L;
+
    public boolean fileExists(File file);
 
    public boolean fileExistsAndIsDirectory(File file);
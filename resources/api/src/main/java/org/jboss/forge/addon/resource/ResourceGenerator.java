@@ -2,6 +2,12 @@ package org.jboss.forge.addon.resource;
 
 /**
  * Defines the mechanism for registering new {@link Resource} types.
+ * <p>
+ * For {@link java.io.File} instances, the {@link ResourceFactory} remembers which generators handle a given type and
+ * file name, and only calls {@link #handles(Class, Object)} again once addons are added or removed. Implementations
+ * must therefore decide whether they handle a {@link java.io.File} by its name alone. Decisions that depend on the
+ * current state of the file, such as whether it exists or is a directory, belong in
+ * {@link #getResourceType(ResourceFactory, Class, Object)}, which is called every time a resource is created.
  * 
  * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
  * 
@@ -12,7 +18,9 @@ package org.jboss.forge.addon.resource;
 public interface ResourceGenerator<RESOURCETYPE, UNDERLYINGTYPE>
 {
    /**
-    * Returns true if the given object instance and {@link Class} type are handled by this {@link ResourceGenerator}
+    * Returns true if the given object instance and {@link Class} type are handled by this {@link ResourceGenerator}.
+    * For {@link java.io.File} instances, the result must only depend on the given type and the file name, since it is
+    * cached per type and file name by the {@link ResourceFactory}.
     */
    public boolean handles(Class<?> type, final Object resource);
 
@@ -23,8 +31,10 @@ public interface ResourceGenerator<RESOURCETYPE, UNDERLYINGTYPE>
             final UNDERLYINGTYPE resource);
 
    /**
-    * Get the {@link Resource} type that will be generated for the given {@link Class} type and object instance.
-    * @param factory TODO
+    * Get the {@link Resource} type that will be generated for the given {@link Class} type and object instance. Called
+    * every time a resource is created, so the result may depend on the current state of the object instance.
+    * 
+    * @param factory the {@link ResourceFactory} creating the resource
     */
    public <T extends Resource<UNDERLYINGTYPE>> Class<?> getResourceType(ResourceFactory factory,
             Class<RESOURCETYPE> type, final UNDERLYINGTYPE resource);
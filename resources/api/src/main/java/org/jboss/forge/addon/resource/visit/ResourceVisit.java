@@ -6,6 +6,16 @@
  */
 package org.jboss.forge.addon.resource.visit;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import org.jboss.forge.addon.resource.Resource;
 import org.jboss.forge.addon.resource.ResourceFilter;
 
@@ -66,6 +76,48 @@ public class ResourceVisit
       perform(root, visitor, recurseFilter, visitFilter);
    }
 
+   /**
+    * Perform the visit using the given {@link ResourceVisitor}, listing directories in parallel on a shared fork/join pool.
+    * All {@link Resource} instances matching the recurse filter will be recursed, but only resources matching the visit
+    * filter will be visited.
+    * 
+    * @param visitor the visitor instance
+    * @param recurseFilter the filter that will accept resources to recurse into
+    * @param visitFilter the filter that will accept resources to visit
+    * @param ordered if <code>true</code>, the visitor is called from the calling thread, in order of fully qualified
+    *           resource name. Otherwise the visitor is called concurrently from the worker threads, in no particular
+    *           order, and must be thread-safe.
+    */
+   public void performParallel(final ResourceVisitor visitor, final ResourceFilter recurseFilter,
+            final ResourceFilter visitFilter, final boolean ordered)
+   {
+      final Queue<Resource<?>> collected = new ConcurrentLinkedQueue<>();
+      ResourceVisitor target = visitor;
+      if (ordered)
+      {
+         target = new ResourceVisitor()
+         {
+            @Override
+            public void visit(VisitContext context, Resource<?> resource)
+            {
+               collected.add(resource);
+            }
+         };
+      }
+
+      ParallelVisitPool.POOL.invoke(new ParallelVisitTask(root, context, target, recurseFilter, visitFilter));
+
+      if (ordered)
+      {
+         for (Resource<?> resource : sortByName(collected))
+         {
+            if (context.isTerminated())
+               break;
+            visitor.visit(context, resource);
+         }
+      }
+   }
+
    private void perform(final Resource<?> root, final ResourceVisitor visitor, final ResourceFilter recurseFilter,
             final ResourceFilter visitFilter)
    {
@@ -92,9 +144,73 @@ public class ResourceVisit
       }
    }
 
+   private static List<Resource<?>> sortByName(Collection<Resource<?>> resources)
+   {
+      List<Resource<?>> result = new ArrayList<>(resources);
+      Collections.sort(result, new Comparator<Resource<?>>()
+      {
+         @Override
+         public int compare(Resource<?> left, Resource<?> right)
+         {
+            return left.getFullyQualifiedName().compareTo(right.getFullyQualifiedName());
+         }
+      });
+      return result;
+   }
+
+   /**
+    * The pool shared by all parallel visits, created on first use. Its worker threads are daemon threads and end once
+    * they have been idle for a while.
+    */
+   private static class ParallelVisitPool
+   {
+      private static final ForkJoinPool POOL = new ForkJoinPool();
+   }
+
+   private static class ParallelVisitTask extends RecursiveAction
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final Resource<?> resource;
+      private final VisitContextImpl context;
+      private final ResourceVisitor visitor;
+      private final ResourceFilter recurseFilter;
+      private final ResourceFilter visitFilter;
+
+      public ParallelVisitTask(Resource<?> resource, VisitContextImpl context, ResourceVisitor visitor,
+               ResourceFilter recurseFilter, ResourceFilter visitFilter)
+      {
+         this.resource = resource;
+         this.context = context;
+         this.visitor = visitor;
+         this.recurseFilter = recurseFilter;
+         this.visitFilter = visitFilter;
+      }
+
+      @Override
+      protected void compute()
+      {
+         if (context.isTerminated())
+            return;
+
+         if (visitFilter.accept(resource))
+            visitor.visit(context, resource);
+
+         if (recurseFilter.accept(resource) && !context.isTerminated())
+         {
+            List<ParallelVisitTask> tasks = new ArrayList<>();
+            for (Resource<?> child : resource.listResources())
+            {
+               tasks.add(new ParallelVisitTask(child, context, visitor, recurseFilter, visitFilter));
+            }
+            invokeAll(tasks);
+         }
+      }
+   }
+
    private static class VisitContextImpl implements VisitContext
    {
-      private boolean terminated;
+      private volatile boolean terminated;
 
       @Override
       public void terminate()
@@ -11,19 +11,34 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
-import java.util.LinkedList;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.jboss.forge.furnace.util.OperatingSystemUtils;
 
 /**
  * A standard, build-in, resource for representing directories on the file-system.
  * 
+ * Directory listings are read in a single pass and cached until the modification time of the directory changes. The
+ * listed children are only resolved into {@link Resource} instances when they are accessed.
+ * 
  * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
  */
 public class DirectoryResourceImpl extends AbstractFileResource<DirectoryResource> implements DirectoryResource
 {
-   private volatile List<Resource<?>> listCache;
+   private volatile Listing listing;
 
    public DirectoryResourceImpl(final ResourceFactory factory, final File file)
    {
@@ -33,26 +48,285 @@ public class DirectoryResourceImpl extends AbstractFileResource<DirectoryResourc
    @Override
    protected List<Resource<?>> doListResources()
    {
-      if (isStale())
+      return new LazyResourceList(getListing());
+   }
+
+   /**
+    * Children are already listed in the order of their fully qualified names, and are only resolved when accessed.
+    */
+   @Override
+   public List<Resource<?>> listResources()
+   {
+      return doListResources();
+   }
+
+   @Override
+   public Iterable<Resource<?>> iterateResources()
+   {
+      return new Iterable<Resource<?>>()
       {
-         listCache = null;
+         @Override
+         public Iterator<Resource<?>> iterator()
+         {
+            if (isTransactionStarted())
+            {
+               return new LazyResourceList(new Listing(-1L, getFileOperations().listFiles(file))).iterator();
+            }
+            return new DirectoryIterator();
+         }
+      };
+   }
+
+   @Override
+   public void refresh()
+   {
+      super.refresh();
+      listing = null;
+   }
+
+   private Listing getListing()
+   {
+      if (isTransactionStarted())
+      {
+         /*
+          * The transaction may contain uncommitted changes to this directory
+          */
+         return new Listing(-1L, getFileOperations().listFiles(file));
       }
 
-      if (listCache == null)
+      long lastModified = file.lastModified();
+      Listing result = listing;
+      if (result == null || result.lastModified != lastModified
+               || result.listedAt - lastModified <= FileOperations.TIMESTAMP_GRANULARITY)
       {
-         listCache = new LinkedList<>();
+         result = new Listing(lastModified);
+         listing = result;
+      }
+      return result;
+   }
+
+   private Resource<?> resolve(File child, boolean directory)
+   {
+      if (directory)
+         return getResourceFactory().create(DirectoryResource.class, child);
+      return getResourceFactory().create(child);
+   }
+
+   private static boolean isDirectory(Path path)
+   {
+      try
+      {
+         return Files.readAttributes(path, BasicFileAttributes.class).isDirectory();
+      }
+      catch (IOException e)
+      {
+         return false;
+      }
+   }
+
+   private boolean isTransactionStarted()
+   {
+      try
+      {
+         return getResourceFactory().getTransaction().isStarted();
+      }
+      catch (UnsupportedOperationException e)
+      {
+         return false;
+      }
+   }
+
+   /**
+    * The children of this directory, along with whether each child is a directory, sorted by path.
+    */
+   private class Listing
+   {
+      private final long lastModified;
+      private final long listedAt = System.currentTimeMillis();
+      private final File[] children;
+      private final boolean[] directories;
+      private final AtomicReferenceArray<Resource<?>> resources;
+
+      /**
+       * Read the children and their attributes from the file-system.
+       */
+      public Listing(long lastModified)
+      {
+         this.lastModified = lastModified;
+         List<Entry> entries = new ArrayList<>();
+         try (DirectoryStream<Path> stream = Files.newDirectoryStream(file.toPath()))
+         {
+            for (Path path : stream)
+            {
+               entries.add(new Entry(path.toFile(), isDirectory(path)));
+            }
+         }
+         catch (IOException | DirectoryIteratorException e)
+         {
+            /*
+             * Consistent with File.listFiles(), directories that cannot be read have no children
+             */
+         }
+         Collections.sort(entries, new Comparator<Entry>()
+         {
+            @Override
+            public int compare(Entry left, Entry right)
+            {
+               return left.path.compareTo(right.path);
+            }
+         });
+         this.children = new File[entries.size()];
+         this.directories = new boolean[entries.size()];
+         for (int i = 0; i < children.length; i++)
+         {
+            children[i] = entries.get(i).file;
+            directories[i] = entries.get(i).directory;
+         }
+         this.resources = new AtomicReferenceArray<>(children.length);
+      }
 
-         File[] files = getFileOperations().listFiles(file);
-         if (files != null)
+      /**
+       * Use the given children, as listed by {@link FileOperations}.
+       */
+      public Listing(long lastModified, File[] files)
+      {
+         this.lastModified = lastModified;
+         this.children = files == null ? new File[0] : files.clone();
+         Arrays.sort(children, new Comparator<File>()
          {
-            for (File f : files)
+            @Override
+            public int compare(File left, File right)
             {
-               listCache.add(getResourceFactory().create(f));
+               return left.getAbsolutePath().compareTo(right.getAbsolutePath());
             }
+         });
+         this.directories = null;
+         this.resources = new AtomicReferenceArray<>(children.length);
+      }
+
+      public Resource<?> get(int index)
+      {
+         Resource<?> result = resources.get(index);
+         if (result == null)
+         {
+            File child = children[index];
+            boolean directory = directories == null ? getFileOperations().fileExistsAndIsDirectory(child)
+                     : directories[index];
+            result = resolve(child, directory);
+            if (!resources.compareAndSet(index, null, result))
+               result = resources.get(index);
          }
+         return result;
       }
+   }
+
+   private static class Entry
+   {
+      private final File file;
+      private final String path;
+      private final boolean directory;
+
+      public Entry(File file, boolean directory)
+      {
+         this.file = file;
+         this.path = file.getAbsolutePath();
+         this.directory = directory;
+      }
+   }
 
-      return listCache;
+   /**
+    * An unmodifiable view of a {@link Listing}, resolving each child when it is first accessed.
+    */
+   private static class LazyResourceList extends AbstractList<Resource<?>>
+   {
+      private final Listing listing;
+
+      public LazyResourceList(Listing listing)
+      {
+         this.listing = listing;
+      }
+
+      @Override
+      public Resource<?> get(int index)
+      {
+         return listing.get(index);
+      }
+
+      @Override
+      public int size()
+      {
+         return listing.children.length;
+      }
+   }
+
+   /**
+    * Iterates over the children of this directory while reading them from an open {@link DirectoryStream}, which is
+    * closed once all children were returned.
+    */
+   private class DirectoryIterator implements Iterator<Resource<?>>
+   {
+      private DirectoryStream<Path> stream;
+      private Iterator<Path> paths;
+
+      public DirectoryIterator()
+      {
+         try
+         {
+            stream = Files.newDirectoryStream(file.toPath());
+            paths = stream.iterator();
+         }
+         catch (IOException e)
+         {
+            paths = Collections.<Path> emptyList().iterator();
+         }
+      }
+
+      @Override
+      public boolean hasNext()
+      {
+         try
+         {
+            if (paths.hasNext())
+               return true;
+         }
+         catch (DirectoryIteratorException e)
+         {
+            throw new ResourceException("Could not list [" + file.getAbsolutePath() + "]", e);
+         }
+         close();
+         return false;
+      }
+
+      @Override
+      public Resource<?> next()
+      {
+         if (!hasNext())
+            throw new NoSuchElementException();
+         Path path = paths.next();
+         return resolve(path.toFile(), isDirectory(path));
+      }
+
+      @Override
+      public void remove()
+      {
+         throw new UnsupportedOperationException("remove() is not supported by directory iterators");
+      }
+
+      private void close()
+      {
+         if (stream != null)
+         {
+            try
+            {
+               stream.close();
+            }
+            catch (IOException e)
+            {
+               // Ignore
+            }
+            stream = null;
+         }
+      }
    }
 
    /**
@@ -6,7 +6,12 @@
  */
 package org.jboss.forge.addon.resource;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -25,6 +30,9 @@ import org.jboss.forge.furnace.util.Assert;
 /**
  * Implementation of {@link ResourceFactory}
  * 
+ * The {@link ResourceGenerator} instances handling a requested type and {@link File} name are cached until addons are
+ * added or removed, so resources may be created concurrently without locking or querying all generators again.
+ * 
  * @author <a href="http://community.jboss.org/people/kenfinni">Ken Finnigan</a>
  * @author Mike Brock <cbrock@redhat.com>
  * @author <a href="ggastald@redhat.com">George Gastaldi</a>
@@ -41,40 +49,75 @@ public class ResourceFactoryImpl implements ResourceFactory
    @Inject
    private FileResourceTransactionManager transactionManager;
 
-   private Imported<ResourceGenerator<?, ?>> instances;
+   private volatile GeneratorCache generators;
 
    @Override
    @SuppressWarnings({ "unchecked", "rawtypes" })
    public <E, T extends Resource<E>> T create(final Class<T> type, final E underlyingResource)
    {
       T result = null;
-      synchronized (this)
+      TreeMap<Class<?>, ResourceGenerator> generated = new TreeMap<>(
+               new RelatedClassComparator());
+
+      for (ResourceGenerator generator : getGenerators(type, underlyingResource))
+      {
+         Class resourceType = generator.getResourceType(this, type, underlyingResource);
+         if (type.isAssignableFrom(resourceType))
+         {
+            generated.put(resourceType, generator);
+         }
+      }
+      if (generated.size() > 0)
       {
-         TreeMap<Class<?>, ResourceGenerator> generated = new TreeMap<>(
-                  new RelatedClassComparator());
+         result = (T) generated.lastEntry().getValue().getResource(this, type, underlyingResource);
+      }
+      return result;
+   }
 
-         // FIXME Workaround for FORGE-1263
-         if (instances == null)
-            instances = (Imported) registry.getServices(ResourceGenerator.class);
+   /**
+    * Returns the {@link ResourceGenerator} instances that handle the given type and underlying resource, in service
+    * order.
+    */
+   private List<ResourceGenerator<?, ?>> getGenerators(Class<?> type, Object underlyingResource)
+   {
+      GeneratorCache cache = getGeneratorCache();
+      if (underlyingResource instanceof File)
+      {
+         GeneratorKey key = new GeneratorKey(type, ((File) underlyingResource).getName());
+         List<ResourceGenerator<?, ?>> result = cache.handling.get(key);
+         if (result == null)
+         {
+            result = cache.select(type, underlyingResource);
+            if (cache.handling.size() >= GeneratorCache.MAX_ENTRIES)
+               cache.handling.clear();
+            cache.handling.put(key, result);
+         }
+         return result;
+      }
+      return cache.select(type, underlyingResource);
+   }
 
-         for (ResourceGenerator generator : instances)
+   private GeneratorCache getGeneratorCache()
+   {
+      long version = registry.getVersion();
+      GeneratorCache cache = generators;
+      if (cache == null || cache.version != version)
+      {
+         synchronized (this)
          {
-            if (generator.handles(type, underlyingResource))
+            cache = generators;
+            if (cache == null || cache.version != version)
             {
-               Class resourceType = generator.getResourceType(this, type, underlyingResource);
-               if (type.isAssignableFrom(resourceType))
-               {
-                  generated.put(resourceType, generator);
-               }
+               GeneratorCache previous = cache;
+               // FIXME Workaround for FORGE-1263: services are only looked up once the registry is available
+               cache = new GeneratorCache(version, registry.getServices(ResourceGenerator.class));
+               generators = cache;
+               if (previous != null)
+                  previous.release();
             }
-            instances.release(generator);
-         }
-         if (generated.size() > 0)
-         {
-            result = (T) generated.lastEntry().getValue().getResource(this, type, underlyingResource);
          }
       }
-      return result;
+      return cache;
    }
 
    @Override
@@ -129,4 +172,79 @@ public class ResourceFactoryImpl implements ResourceFactory
    {
       return transactionManager.addTransactionListener(listener);
    }
-}
\ No newline at end of file
+
+   /**
+    * The {@link ResourceGenerator} instances available for a given version of the {@link AddonRegistry}.
+    */
+   private static class GeneratorCache
+   {
+      private static final int MAX_ENTRIES = Integer.getInteger("resource.generator.cache.size", 1024);
+
+      private final long version;
+      private final Imported<ResourceGenerator<?, ?>> instances;
+      private final List<ResourceGenerator<?, ?>> all = new ArrayList<>();
+      private final ConcurrentMap<GeneratorKey, List<ResourceGenerator<?, ?>>> handling = new ConcurrentHashMap<>();
+
+      @SuppressWarnings({ "unchecked", "rawtypes" })
+      public GeneratorCache(long version, Imported instances)
+      {
+         this.version = version;
+         this.instances = instances;
+         for (Object generator : instances)
+         {
+            all.add((ResourceGenerator<?, ?>) generator);
+         }
+      }
+
+      public List<ResourceGenerator<?, ?>> select(Class<?> type, Object underlyingResource)
+      {
+         List<ResourceGenerator<?, ?>> result = new ArrayList<>();
+         for (ResourceGenerator<?, ?> generator : all)
+         {
+            if (generator.handles(type, underlyingResource))
+            {
+               result.add(generator);
+            }
+         }
+         return result;
+      }
+
+      public void release()
+      {
+         handling.clear();
+         for (ResourceGenerator<?, ?> generator : all)
+         {
+            instances.release(generator);
+         }
+      }
+   }
+
+   private static class GeneratorKey
+   {
+      private final Class<?> type;
+      private final String name;
+
+      public GeneratorKey(Class<?> type, String name)
+      {
+         this.type = type;
+         this.name = name;
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return 31 * type.hashCode() + name.hashCode();
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         if (this == obj)
+            return true;
+         if (!(obj instanceof GeneratorKey))
+            return false;
+         GeneratorKey other = (GeneratorKey) obj;
+         return type == other.type && name.equals(other.name);
+      }
+   }
+}
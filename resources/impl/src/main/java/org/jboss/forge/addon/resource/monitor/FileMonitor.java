@@ -8,6 +8,7 @@
 package org.jboss.forge.addon.resource.monitor;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.concurrent.ThreadFactory;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -29,7 +30,12 @@ import org.jboss.forge.furnace.event.PostStartup;
 import org.jboss.forge.furnace.event.PreShutdown;
 
 /**
- * This {@link FileMonitor} uses commons-io to listen for changes in files
+ * This {@link FileMonitor} listens for changes in files using a {@link FileWatcher}, backed by the native
+ * {@link java.nio.file.WatchService} of the platform.
+ *
+ * Where no native watch service is available, or when the <code>resource.monitor.polling</code> system property is set
+ * to <code>true</code>, directories are polled using commons-io every <code>resource.monitor.interval</code>
+ * milliseconds instead.
  * 
  * @author <a href="ggastald@redhat.com">George Gastaldi</a>
  */
@@ -40,6 +46,7 @@ public class FileMonitor
 
    private final Logger log = Logger.getLogger(getClass().getName());
    private FileAlterationMonitor alterationMonitor;
+   private FileWatcher watcher;
 
    public FileMonitor()
    {
@@ -55,10 +62,23 @@ public class FileMonitor
             return resourceMonitorThread;
          }
       });
+      if (!Boolean.getBoolean("resource.monitor.polling"))
+      {
+         try
+         {
+            watcher = new FileWatcher(alterationMonitor);
+         }
+         catch (IOException | RuntimeException e)
+         {
+            log.log(Level.FINE, "Native file watching is not available, falling back to polling", e);
+         }
+      }
    }
 
    void init(@Observes @Local PostStartup postStartup) throws Exception
    {
+      if (watcher != null)
+         watcher.start();
       alterationMonitor.start();
    }
 
@@ -73,6 +93,8 @@ public class FileMonitor
          alterationMonitor.removeObserver(observer);
       }
       alterationMonitor.stop();
+      if (watcher != null)
+         watcher.stop();
    }
 
    public ResourceMonitor registerMonitor(final ResourceFactory resourceFactory, final FileResource<?> resource,
@@ -102,6 +124,17 @@ public class FileMonitor
             filter = FileFilterUtils.and(filter, adapter);
          }
       }
+      if (watcher != null)
+      {
+         try
+         {
+            return watcher.register(resourceFactory, dirResource, filter, resource instanceof DirectoryResource);
+         }
+         catch (IOException e)
+         {
+            log.log(Level.FINE, "Could not watch [" + dirResource + "], falling back to polling", e);
+         }
+      }
       File directory = dirResource.getUnderlyingResourceObject();
       FileAlterationObserver observer = new FileAlterationObserver(directory, filter);
       try
@@ -0,0 +1,668 @@
+/**
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.resource.monitor;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchEvent.Kind;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.monitor.FileAlterationListenerAdaptor;
+import org.apache.commons.io.monitor.FileAlterationMonitor;
+import org.apache.commons.io.monitor.FileAlterationObserver;
+import org.jboss.forge.addon.resource.DirectoryResource;
+import org.jboss.forge.addon.resource.ResourceFactory;
+import org.jboss.forge.furnace.spi.ListenerRegistration;
+
+/**
+ * Watches directories for changes using a {@link WatchService}. Events reported for all watched directories are
+ * collected by a single dispatcher thread, which waits until no new events arrive for a short period, coalesces
+ * multiple events for the same path, and then notifies the interested {@link ResourceMonitor} instances.
+ *
+ * Events are reported the same way as by the polling {@link ResourceMonitorImpl}: the monitored directory itself is
+ * only reported when events for it were lost, and creating or deleting an entry in a sub-directory also reports a
+ * modification of that sub-directory.
+ *
+ * When the {@link WatchService} reports that events for a directory were lost, a modification of that directory is
+ * reported to every monitor watching it, including a monitor of that very directory, so that listeners can rescan it.
+ * Sub-directories that cannot be watched are polled with the given {@link FileAlterationMonitor} instead.
+ */
+public class FileWatcher
+{
+   private static final long COALESCE_DELAY = Long.getLong("resource.monitor.delay", 50L);
+   private static final long MAX_COALESCE_TIME = 1000L;
+
+   private final Logger log = Logger.getLogger(getClass().getName());
+
+   private final WatchService watchService;
+   private final FileAlterationMonitor poller;
+   private final List<WatchedResourceMonitor> monitors = new CopyOnWriteArrayList<>();
+   private final Map<Path, WatchedDirectory> directories = new HashMap<>();
+   private final Map<WatchKey, WatchedDirectory> keys = new HashMap<>();
+   private Thread dispatcher;
+
+   /**
+    * @param poller polls the directories that cannot be watched
+    * @throws IOException if the default file system does not support a native {@link WatchService}
+    */
+   public FileWatcher(FileAlterationMonitor poller) throws IOException
+   {
+      this.poller = poller;
+      watchService = FileSystems.getDefault().newWatchService();
+      if (watchService.getClass().getName().endsWith("PollingWatchService"))
+      {
+         /*
+          * Some JDKs emulate the WatchService by polling, which is slower than our own polling
+          */
+         watchService.close();
+         throw new IOException("The default file system does not support native file watching");
+      }
+   }
+
+   public synchronized void start()
+   {
+      if (dispatcher == null)
+      {
+         dispatcher = new Thread(new Runnable()
+         {
+            @Override
+            public void run()
+            {
+               dispatchEvents();
+            }
+         }, "Resource File Monitor");
+         dispatcher.setDaemon(true);
+         dispatcher.setContextClassLoader(null);
+         dispatcher.start();
+      }
+   }
+
+   public void stop()
+   {
+      monitors.clear();
+      try
+      {
+         watchService.close();
+      }
+      catch (IOException e)
+      {
+         log.log(Level.FINE, "Error while closing file watch service", e);
+      }
+   }
+
+   /**
+    * Watch the given directory for changes of entries accepted by the given {@link FileFilter}.
+    *
+    * @param recursive whether sub-directories should also be watched
+    * @throws IOException if the directory cannot be watched
+    */
+   public ResourceMonitor register(ResourceFactory resourceFactory, DirectoryResource resource, FileFilter filter,
+            boolean recursive) throws IOException
+   {
+      WatchedResourceMonitor monitor = new WatchedResourceMonitor(resourceFactory, resource, filter, recursive);
+      synchronized (this)
+      {
+         try
+         {
+            watch(monitor, monitor.root, true);
+         }
+         catch (IOException e)
+         {
+            unwatch(monitor);
+            throw e;
+         }
+      }
+      monitors.add(monitor);
+      return monitor;
+   }
+
+   /**
+    * Must be called while holding the lock on this {@link FileWatcher}
+    */
+   private void watch(WatchedResourceMonitor monitor, Path directory, boolean root) throws IOException
+   {
+      if (!monitor.directories.add(directory))
+         return;
+
+      WatchedDirectory watched = directories.get(directory);
+      if (watched == null)
+      {
+         try
+         {
+            WatchKey key = directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            watched = new WatchedDirectory(directory, key);
+            directories.put(directory, watched);
+            keys.put(key, watched);
+         }
+         catch (IOException | RuntimeException e)
+         {
+            monitor.directories.remove(directory);
+            if (root)
+               throw new IOException("Could not watch [" + directory + "]", e);
+            log.log(Level.FINE, "Could not watch [" + directory + "], falling back to polling", e);
+            poll(monitor, directory);
+            return;
+         }
+      }
+      watched.count++;
+
+      if (monitor.recursive)
+      {
+         try (DirectoryStream<Path> children = Files.newDirectoryStream(directory))
+         {
+            for (Path child : children)
+            {
+               if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS) && monitor.accepts(child))
+               {
+                  watch(monitor, child, false);
+               }
+            }
+         }
+         catch (IOException e)
+         {
+            log.log(Level.FINE, "Could not list [" + directory + "]", e);
+         }
+      }
+   }
+
+   /**
+    * Poll the given directory and everything below it for the given monitor. Must be called while holding the lock on
+    * this {@link FileWatcher}
+    */
+   private void poll(final WatchedResourceMonitor monitor, Path directory)
+   {
+      FileAlterationObserver observer = new FileAlterationObserver(directory.toFile(), monitor.filter);
+      try
+      {
+         observer.initialize();
+      }
+      catch (Exception e)
+      {
+         log.log(Level.WARNING, "Could not poll [" + directory + "] for changes", e);
+         return;
+      }
+      observer.addListener(new FileAlterationListenerAdaptor()
+      {
+         @Override
+         public void onDirectoryCreate(File dir)
+         {
+            firePolled(dir, ENTRY_CREATE, true);
+         }
+
+         @Override
+         public void onDirectoryChange(File dir)
+         {
+            firePolled(dir, ENTRY_MODIFY, true);
+         }
+
+         @Override
+         public void onDirectoryDelete(File dir)
+         {
+            firePolled(dir, ENTRY_DELETE, true);
+         }
+
+         @Override
+         public void onFileCreate(File file)
+         {
+            firePolled(file, ENTRY_CREATE, false);
+         }
+
+         @Override
+         public void onFileChange(File file)
+         {
+            firePolled(file, ENTRY_MODIFY, false);
+         }
+
+         @Override
+         public void onFileDelete(File file)
+         {
+            firePolled(file, ENTRY_DELETE, false);
+         }
+
+         private void firePolled(File file, Kind<?> kind, boolean directory)
+         {
+            Path path = file.toPath().toAbsolutePath().normalize();
+            if (monitor.accepts(path))
+               monitor.fire(path, new Change(kind, directory));
+         }
+      });
+      monitor.observers.add(observer);
+      poller.addObserver(observer);
+   }
+
+   /**
+    * Watch the sub-directories of the given directory that are not watched yet for every recursive monitor watching
+    * it, after events for it were lost. Must be called while holding the lock on this {@link FileWatcher}
+    */
+   private void rescan(Path directory)
+   {
+      for (WatchedResourceMonitor monitor : monitors)
+      {
+         if (monitor.recursive && monitor.directories.contains(directory))
+         {
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(directory))
+            {
+               for (Path child : children)
+               {
+                  if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS) && monitor.accepts(child))
+                  {
+                     watch(monitor, child, false);
+                  }
+               }
+            }
+            catch (IOException e)
+            {
+               log.log(Level.FINE, "Could not list [" + directory + "]", e);
+            }
+         }
+      }
+   }
+
+   /**
+    * Must be called while holding the lock on this {@link FileWatcher}
+    */
+   private void unwatch(WatchedResourceMonitor monitor)
+   {
+      for (Path directory : monitor.directories)
+      {
+         WatchedDirectory watched = directories.get(directory);
+         if (watched != null && --watched.count <= 0)
+         {
+            watched.key.cancel();
+            directories.remove(directory);
+            keys.remove(watched.key);
+         }
+      }
+      monitor.directories.clear();
+      for (FileAlterationObserver observer : monitor.observers)
+      {
+         poller.removeObserver(observer);
+      }
+      monitor.observers.clear();
+   }
+
+   private void dispatchEvents()
+   {
+      try
+      {
+         while (true)
+         {
+            WatchKey key = watchService.take();
+            Map<Path, Change> changes = new LinkedHashMap<>();
+            Set<Path> overflowed = new LinkedHashSet<>();
+            long deadline = System.currentTimeMillis() + MAX_COALESCE_TIME;
+            while (key != null)
+            {
+               collect(key, changes, overflowed);
+               key = System.currentTimeMillis() < deadline ? watchService.poll(COALESCE_DELAY, TimeUnit.MILLISECONDS)
+                        : null;
+            }
+            fire(changes);
+            fireOverflow(overflowed);
+         }
+      }
+      catch (InterruptedException | ClosedWatchServiceException e)
+      {
+         // Shutting down
+      }
+   }
+
+   private void collect(WatchKey key, Map<Path, Change> changes, Set<Path> overflowed)
+   {
+      Path directory;
+      synchronized (this)
+      {
+         WatchedDirectory watched = keys.get(key);
+         directory = watched != null ? watched.path : null;
+      }
+
+      for (WatchEvent<?> event : key.pollEvents())
+      {
+         if (directory == null)
+            continue;
+
+         Kind<?> kind = event.kind();
+         if (kind == OVERFLOW)
+         {
+            if (overflowed.add(directory))
+            {
+               synchronized (this)
+               {
+                  rescan(directory);
+               }
+            }
+            continue;
+         }
+
+         Path path = directory.resolve((Path) event.context());
+         if (kind == ENTRY_DELETE)
+         {
+            boolean wasDirectory;
+            synchronized (this)
+            {
+               wasDirectory = directories.containsKey(path);
+            }
+            coalesce(changes, directory, ENTRY_MODIFY, true);
+            coalesce(changes, path, kind, wasDirectory);
+         }
+         else if (kind == ENTRY_CREATE)
+         {
+            boolean isDirectory = Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS);
+            coalesce(changes, directory, ENTRY_MODIFY, true);
+            coalesce(changes, path, kind, isDirectory);
+            if (isDirectory)
+            {
+               watchCreatedDirectory(path, changes);
+            }
+         }
+         else
+         {
+            coalesce(changes, path, kind, Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS));
+         }
+      }
+
+      if (!key.reset())
+      {
+         synchronized (this)
+         {
+            WatchedDirectory watched = keys.remove(key);
+            if (watched != null)
+            {
+               directories.remove(watched.path);
+               for (WatchedResourceMonitor monitor : monitors)
+               {
+                  monitor.directories.remove(watched.path);
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Watch a newly created directory for all interested monitors, and report the entries that were created in it
+    * before it could be watched.
+    */
+   private void watchCreatedDirectory(Path directory, final Map<Path, Change> changes)
+   {
+      boolean watched = false;
+      synchronized (this)
+      {
+         for (WatchedResourceMonitor monitor : monitors)
+         {
+            if (monitor.recursive && monitor.accepts(directory))
+            {
+               try
+               {
+                  watch(monitor, directory, false);
+                  watched = true;
+               }
+               catch (IOException e)
+               {
+                  log.log(Level.FINE, "Could not watch [" + directory + "]", e);
+               }
+            }
+         }
+      }
+
+      if (watched)
+      {
+         try
+         {
+            Files.walkFileTree(directory, new SimpleFileVisitor<Path>()
+            {
+               @Override
+               public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+               {
+                  coalesce(changes, dir, ENTRY_CREATE, true);
+                  return FileVisitResult.CONTINUE;
+               }
+
+               @Override
+               public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+               {
+                  coalesce(changes, file, ENTRY_CREATE, false);
+                  return FileVisitResult.CONTINUE;
+               }
+            });
+         }
+         catch (IOException e)
+         {
+            log.log(Level.FINE, "Could not list [" + directory + "]", e);
+         }
+      }
+   }
+
+   private void coalesce(Map<Path, Change> changes, Path path, Kind<?> kind, boolean directory)
+   {
+      Change previous = changes.get(path);
+      if (previous == null)
+      {
+         changes.put(path, new Change(kind, directory));
+      }
+      else if (previous.kind == ENTRY_CREATE)
+      {
+         if (kind == ENTRY_DELETE)
+            changes.remove(path);
+      }
+      else if (previous.kind == ENTRY_DELETE)
+      {
+         if (kind == ENTRY_CREATE)
+            changes.put(path, new Change(ENTRY_MODIFY, directory));
+      }
+      else if (kind == ENTRY_DELETE)
+      {
+         changes.put(path, new Change(kind, directory));
+      }
+   }
+
+   private void fire(Map<Path, Change> changes)
+   {
+      for (Entry<Path, Change> entry : changes.entrySet())
+      {
+         Path path = entry.getKey();
+         Change change = entry.getValue();
+         for (WatchedResourceMonitor monitor : monitors)
+         {
+            if (monitor.accepts(path))
+            {
+               monitor.fire(path, change);
+            }
+         }
+      }
+   }
+
+   /**
+    * Report a modification of each directory for which events were lost to every monitor watching it.
+    */
+   private void fireOverflow(Set<Path> overflowed)
+   {
+      for (Path directory : overflowed)
+      {
+         List<WatchedResourceMonitor> watching = new ArrayList<>();
+         synchronized (this)
+         {
+            for (WatchedResourceMonitor monitor : monitors)
+            {
+               if (monitor.directories.contains(directory))
+                  watching.add(monitor);
+            }
+         }
+         log.fine("Events for [" + directory + "] were lost, reporting it as modified");
+         for (WatchedResourceMonitor monitor : watching)
+         {
+            monitor.fire(directory, new Change(ENTRY_MODIFY, true));
+         }
+      }
+   }
+
+   private static class Change
+   {
+      private final Kind<?> kind;
+      private final boolean directory;
+
+      public Change(Kind<?> kind, boolean directory)
+      {
+         this.kind = kind;
+         this.directory = directory;
+      }
+   }
+
+   private static class WatchedDirectory
+   {
+      private final Path path;
+      private final WatchKey key;
+      private int count;
+
+      public WatchedDirectory(Path path, WatchKey key)
+      {
+         this.path = path;
+         this.key = key;
+      }
+   }
+
+   private class WatchedResourceMonitor implements ResourceMonitor
+   {
+      private final ResourceFactory resourceFactory;
+      private final DirectoryResource resource;
+      private final FileFilter filter;
+      private final boolean recursive;
+      private final Path root;
+      /*
+       * Guarded by the lock on the enclosing FileWatcher
+       */
+      private final Set<Path> directories = new HashSet<>();
+      private final List<FileAlterationObserver> observers = new ArrayList<>();
+      private final List<FileAlterationListenerAdapter> listeners = new CopyOnWriteArrayList<>();
+
+      public WatchedResourceMonitor(ResourceFactory resourceFactory, DirectoryResource resource, FileFilter filter,
+               boolean recursive)
+      {
+         this.resourceFactory = resourceFactory;
+         this.resource = resource;
+         this.filter = filter;
+         this.recursive = recursive;
+         this.root = resource.getUnderlyingResourceObject().toPath().toAbsolutePath().normalize();
+      }
+
+      /**
+       * Returns <code>true</code> if changes of the given path should be reported by this monitor: the path must be
+       * below the monitored directory, and the path and all its parents below the monitored directory must be accepted
+       * by the filter.
+       */
+      public boolean accepts(Path path)
+      {
+         if (path.equals(root) || !path.startsWith(root))
+            return false;
+         if (!recursive && !root.equals(path.getParent()))
+            return false;
+         if (filter != null)
+         {
+            for (Path current = path; !current.equals(root); current = current.getParent())
+            {
+               if (!filter.accept(current.toFile()))
+                  return false;
+            }
+         }
+         return true;
+      }
+
+      public void fire(Path path, Change change)
+      {
+         for (FileAlterationListenerAdapter listener : listeners)
+         {
+            try
+            {
+               if (change.directory)
+               {
+                  if (change.kind == ENTRY_CREATE)
+                     listener.onDirectoryCreate(path.toFile());
+                  else if (change.kind == ENTRY_DELETE)
+                     listener.onDirectoryDelete(path.toFile());
+                  else
+                     listener.onDirectoryChange(path.toFile());
+               }
+               else
+               {
+                  if (change.kind == ENTRY_CREATE)
+                     listener.onFileCreate(path.toFile());
+                  else if (change.kind == ENTRY_DELETE)
+                     listener.onFileDelete(path.toFile());
+                  else
+                     listener.onFileChange(path.toFile());
+               }
+            }
+            catch (RuntimeException e)
+            {
+               log.log(Level.WARNING, "Error while notifying listener of changes in [" + path + "]", e);
+            }
+         }
+      }
+
+      @Override
+      public ListenerRegistration<ResourceListener> addResourceListener(final ResourceListener listener)
+      {
+         final FileAlterationListenerAdapter adapter = new FileAlterationListenerAdapter(resourceFactory, listener);
+         listeners.add(adapter);
+         return new ListenerRegistration<ResourceListener>()
+         {
+            @Override
+            public ResourceListener removeListener()
+            {
+               listeners.remove(adapter);
+               return listener;
+            }
+         };
+      }
+
+      @Override
+      public DirectoryResource getResource()
+      {
+         return resource;
+      }
+
+      @Override
+      public void cancel()
+      {
+         monitors.remove(this);
+         synchronized (FileWatcher.this)
+         {
+            unwatch(this);
+         }
+      }
+   }
+}
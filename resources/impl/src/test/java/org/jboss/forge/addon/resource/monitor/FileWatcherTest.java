@@ -0,0 +1,188 @@
+/**
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.resource.monitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.monitor.FileAlterationMonitor;
+import org.jboss.forge.addon.resource.DirectoryResource;
+import org.jboss.forge.addon.resource.Resource;
+import org.jboss.forge.addon.resource.ResourceFactory;
+import org.jboss.forge.addon.resource.events.ResourceCreated;
+import org.jboss.forge.addon.resource.events.ResourceEvent;
+import org.jboss.forge.addon.resource.events.ResourceModified;
+import org.jboss.forge.furnace.util.OperatingSystemUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileWatcherTest
+{
+   private static final long TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+   private FileAlterationMonitor poller;
+   private FileWatcher watcher;
+   private File root;
+   private final List<ResourceEvent> events = new CopyOnWriteArrayList<>();
+
+   @Before
+   public void setUp() throws Exception
+   {
+      poller = new FileAlterationMonitor(100);
+      try
+      {
+         watcher = new FileWatcher(poller);
+      }
+      catch (IOException e)
+      {
+         Assume.assumeNoException(e);
+      }
+      watcher.start();
+      poller.start();
+      root = OperatingSystemUtils.createTempDir().getCanonicalFile();
+   }
+
+   @After
+   public void tearDown() throws Exception
+   {
+      if (watcher != null)
+      {
+         watcher.stop();
+         poller.stop();
+      }
+   }
+
+   @Test
+   public void testChangesInSubDirectoriesAreReported() throws Exception
+   {
+      File child = new File(root, "child");
+      child.mkdir();
+      ResourceMonitor monitor = watcher.register(factory, directory(root), null, true);
+      monitor.addResourceListener(new ResourceListener()
+      {
+         @Override
+         public void processEvent(ResourceEvent event)
+         {
+            events.add(event);
+         }
+      });
+
+      File nested = new File(new File(child, "nested"), "file.txt");
+      nested.getParentFile().mkdir();
+      nested.createNewFile();
+
+      waitFor(ResourceCreated.class, nested);
+      monitor.cancel();
+   }
+
+   @Test
+   public void testLostEventsAreReportedForMonitoredDirectory() throws Exception
+   {
+      final CountDownLatch release = new CountDownLatch(1);
+      ResourceMonitor monitor = watcher.register(factory, directory(root), null, true);
+      monitor.addResourceListener(new ResourceListener()
+      {
+         @Override
+         public void processEvent(ResourceEvent event)
+         {
+            events.add(event);
+            try
+            {
+               /*
+                * Hold up the dispatcher, so that the events for the directory pile up until the watch service
+                * drops them
+                */
+               release.await(TIMEOUT, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e)
+            {
+               Thread.currentThread().interrupt();
+            }
+         }
+      });
+
+      new File(root, "first.txt").createNewFile();
+      waitFor(ResourceCreated.class, new File(root, "first.txt"));
+      for (int i = 0; i < 2000; i++)
+      {
+         new File(root, "file" + i + ".txt").createNewFile();
+      }
+      release.countDown();
+
+      waitFor(ResourceModified.class, root);
+      monitor.cancel();
+   }
+
+   private void waitFor(Class<? extends ResourceEvent> type, File file) throws InterruptedException
+   {
+      long deadline = System.currentTimeMillis() + TIMEOUT;
+      while (System.currentTimeMillis() < deadline)
+      {
+         for (ResourceEvent event : events)
+         {
+            if (type.isInstance(event) && file.equals(event.getResource().getUnderlyingResourceObject()))
+               return;
+         }
+         Thread.sleep(50);
+      }
+      Assert.fail("No " + type.getSimpleName() + " event was reported for [" + file + "]: " + events);
+   }
+
+   private static DirectoryResource directory(File file)
+   {
+      return (DirectoryResource) resource(DirectoryResource.class, file);
+   }
+
+   private static Resource<?> resource(Class<?> type, final File file)
+   {
+      return (Resource<?>) Proxy.newProxyInstance(FileWatcherTest.class.getClassLoader(), new Class<?>[] { type },
+               new InvocationHandler()
+               {
+                  @Override
+                  public Object invoke(Object proxy, Method method, Object[] args)
+                  {
+                     switch (method.getName())
+                     {
+                     case "getUnderlyingResourceObject":
+                        return file;
+                     case "getFullyQualifiedName":
+                     case "toString":
+                        return file.getAbsolutePath();
+                     case "hashCode":
+                        return file.hashCode();
+                     case "equals":
+                        return proxy == args[0];
+                     default:
+                        throw new UnsupportedOperationException(method.getName());
+                     }
+                  }
+               });
+   }
+
+   private final ResourceFactory factory = (ResourceFactory) Proxy.newProxyInstance(
+            FileWatcherTest.class.getClassLoader(), new Class<?>[] { ResourceFactory.class }, new InvocationHandler()
+            {
+               @Override
+               public Object invoke(Object proxy, Method method, Object[] args)
+               {
+                  if ("create".equals(method.getName()) && args.length == 2)
+                     return resource((Class<?>) args[0], (File) args[1]);
+                  throw new UnsupportedOperationException(method.getName());
+               }
+            });
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.resource;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.forge.arquillian.AddonDependency;
+import org.jboss.forge.arquillian.Dependencies;
+import org.jboss.forge.arquillian.archive.ForgeArchive;
+import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(Arquillian.class)
+public class DirectoryResourceTest
+{
+   @Deployment
+   @Dependencies({
+            @AddonDependency(name = "org.jboss.forge.addon:resources") })
+   public static ForgeArchive getDeployment()
+   {
+      ForgeArchive archive = ShrinkWrap.create(ForgeArchive.class)
+               .addBeansXML()
+               .addAsAddonDependencies(
+                        AddonDependencyEntry.create("org.jboss.forge.furnace.container:cdi"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:resources")
+               );
+
+      return archive;
+   }
+
+   @Inject
+   private ResourceFactory resourceFactory;
+
+   @Test
+   public void testListResourcesIsSortedAndResolvesTypes() throws Exception
+   {
+      DirectoryResource dir = createTempDirectory();
+      dir.getChild("b.txt").createNewFile();
+      dir.getChildDirectory("c").mkdir();
+      dir.getChild("a.txt").createNewFile();
+
+      List<Resource<?>> children = dir.listResources();
+      Assert.assertEquals(3, children.size());
+      Assert.assertEquals("a.txt", children.get(0).getName());
+      Assert.assertEquals("b.txt", children.get(1).getName());
+      Assert.assertEquals("c", children.get(2).getName());
+      Assert.assertFalse(children.get(0) instanceof DirectoryResource);
+      Assert.assertTrue(children.get(2) instanceof DirectoryResource);
+      Assert.assertSame(children.get(0), dir.listResources().get(0));
+   }
+
+   @Test
+   public void testListResourcesReflectsChanges() throws Exception
+   {
+      DirectoryResource dir = createTempDirectory();
+      dir.getChild("a.txt").createNewFile();
+      Assert.assertEquals(1, dir.listResources().size());
+
+      dir.getChild("b.txt").createNewFile();
+      Assert.assertEquals(2, dir.listResources().size());
+
+      dir.getChild("a.txt").delete();
+      Assert.assertEquals(1, dir.listResources().size());
+      Assert.assertEquals("b.txt", dir.listResources().get(0).getName());
+   }
+
+   @Test
+   public void testIterateResources() throws Exception
+   {
+      DirectoryResource dir = createTempDirectory();
+      dir.getChild("a.txt").createNewFile();
+      dir.getChildDirectory("b").mkdir();
+
+      List<String> names = new ArrayList<>();
+      for (Resource<?> child : dir.iterateResources())
+      {
+         names.add(child.getName());
+         Assert.assertEquals(child.getName().equals("b"), child instanceof DirectoryResource);
+      }
+      Assert.assertEquals(2, names.size());
+      Assert.assertTrue(names.contains("a.txt"));
+      Assert.assertTrue(names.contains("b"));
+   }
+
+   private DirectoryResource createTempDirectory() throws Exception
+   {
+      File file = File.createTempFile("directoryresourcetest", "");
+      file.delete();
+      file.mkdir();
+      file.deleteOnExit();
+      return resourceFactory.create(DirectoryResource.class, file);
+   }
+}
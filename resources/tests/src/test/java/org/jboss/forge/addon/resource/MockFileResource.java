@@ -0,0 +1,51 @@
+package org.jboss.forge.addon.resource;
+
+import java.io.File;
+import java.util.List;
+
+public class MockFileResource extends VirtualResource<File>
+{
+   private final File file;
+
+   public MockFileResource(ResourceFactory factory, File file)
+   {
+      super(factory, null);
+      this.file = file;
+   }
+
+   @Override
+   public boolean delete() throws UnsupportedOperationException
+   {
+      return false;
+   }
+
+   @Override
+   public boolean delete(boolean recursive) throws UnsupportedOperationException
+   {
+      return false;
+   }
+
+   @Override
+   public String getName()
+   {
+      return file.getName();
+   }
+
+   @Override
+   public File getUnderlyingResourceObject()
+   {
+      return file;
+   }
+
+   @Override
+   public boolean supports(ResourceFacet type)
+   {
+      return false;
+   }
+
+   @Override
+   protected List<Resource<?>> doListResources()
+   {
+      return null;
+   }
+}
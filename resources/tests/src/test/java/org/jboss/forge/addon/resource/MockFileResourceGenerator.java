@@ -0,0 +1,38 @@
+package org.jboss.forge.addon.resource;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MockFileResourceGenerator implements ResourceGenerator<MockFileResource, File>
+{
+   /**
+    * The number of times {@link #handles(Class, Object)} was called for a file handled by this generator
+    */
+   public static final AtomicInteger HANDLES_CALLS = new AtomicInteger();
+
+   @Override
+   public boolean handles(Class<?> type, Object resource)
+   {
+      if (resource instanceof File && ((File) resource).getName().endsWith(".mock"))
+      {
+         HANDLES_CALLS.incrementAndGet();
+         return true;
+      }
+      return false;
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public <T extends Resource<File>> T getResource(ResourceFactory factory, Class<MockFileResource> type,
+            File resource)
+   {
+      return (T) new MockFileResource(factory, resource);
+   }
+
+   @Override
+   public <T extends Resource<File>> Class<?> getResourceType(ResourceFactory factory,
+            Class<MockFileResource> type, File resource)
+   {
+      return MockFileResource.class;
+   }
+}
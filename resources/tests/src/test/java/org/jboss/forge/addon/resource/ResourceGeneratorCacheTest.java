@@ -0,0 +1,94 @@
+/**
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.addon.resource;
+
+import java.io.File;
+
+import javax.inject.Inject;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.forge.arquillian.AddonDependency;
+import org.jboss.forge.arquillian.Dependencies;
+import org.jboss.forge.arquillian.archive.ForgeArchive;
+import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
+import org.jboss.forge.furnace.util.OperatingSystemUtils;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Tests the caching of {@link ResourceGenerator} lookups for {@link File} resources
+ */
+@RunWith(Arquillian.class)
+public class ResourceGeneratorCacheTest
+{
+   @Deployment(order = 1)
+   @Dependencies({ @AddonDependency(name = "org.jboss.forge.addon:resources") })
+   public static ForgeArchive getDeployment()
+   {
+      ForgeArchive archive = ShrinkWrap
+               .create(ForgeArchive.class)
+               .addBeansXML()
+               .addAsAddonDependencies(
+                        AddonDependencyEntry.create("org.jboss.forge.furnace.container:cdi"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:resources"),
+                        AddonDependencyEntry.create("mockfile", "1"));
+
+      return archive;
+   }
+
+   @Deployment(testable = false, name = "mockfile,1", order = 3)
+   public static ForgeArchive getAddonDeployment()
+   {
+      ForgeArchive archive = ShrinkWrap.create(ForgeArchive.class)
+               .addClasses(MockFileResource.class, MockFileResourceGenerator.class)
+               .addBeansXML()
+               .addAsAddonDependencies(
+                        AddonDependencyEntry.create("org.jboss.forge.furnace.container:cdi"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:resources")
+               );
+
+      return archive;
+   }
+
+   @Inject
+   private ResourceFactory factory;
+
+   @Test
+   public void testHandlesIsCalledOncePerTypeAndFileName() throws Exception
+   {
+      File first = new File(OperatingSystemUtils.createTempDir(), "cached.mock");
+      File second = new File(OperatingSystemUtils.createTempDir(), "cached.mock");
+      MockFileResourceGenerator.HANDLES_CALLS.set(0);
+
+      Resource<File> firstResource = factory.create(first);
+      Resource<File> secondResource = factory.create(second);
+
+      Assert.assertTrue(firstResource instanceof MockFileResource);
+      Assert.assertTrue(secondResource instanceof MockFileResource);
+      Assert.assertEquals(first, firstResource.getUnderlyingResourceObject());
+      Assert.assertEquals(second, secondResource.getUnderlyingResourceObject());
+      Assert.assertEquals(1, MockFileResourceGenerator.HANDLES_CALLS.get());
+   }
+
+   @Test
+   public void testResourceTypeIsDecidedOnEveryCall() throws Exception
+   {
+      File file = new File(OperatingSystemUtils.createTempDir(), "changing");
+      Assert.assertTrue(factory.create(file) instanceof FileResource);
+      Assert.assertFalse(factory.create(file) instanceof DirectoryResource);
+
+      file.mkdir();
+      Assert.assertTrue(factory.create(file) instanceof DirectoryResource);
+
+      file.delete();
+      file.createNewFile();
+      Assert.assertFalse(factory.create(file) instanceof DirectoryResource);
+   }
+}
@@ -9,6 +9,11 @@ package org.jboss.forge.addon.resource.visit;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
@@ -19,6 +24,7 @@ import org.jboss.forge.addon.resource.DirectoryResource;
 import org.jboss.forge.addon.resource.FileResource;
 import org.jboss.forge.addon.resource.Resource;
 import org.jboss.forge.addon.resource.ResourceFactory;
+import org.jboss.forge.addon.resource.ResourceFilter;
 import org.jboss.forge.arquillian.AddonDependency;
 import org.jboss.forge.arquillian.Dependencies;
 import org.jboss.forge.arquillian.archive.ForgeArchive;
@@ -54,6 +60,15 @@ public class ResourceVisitorTest
       return archive;
    }
 
+   private static final ResourceFilter ACCEPT_ALL = new ResourceFilter()
+   {
+      @Override
+      public boolean accept(Resource<?> resource)
+      {
+         return true;
+      }
+   };
+
    @Inject
    private ResourceFactory resourceFactory;
 
@@ -118,6 +133,54 @@ public class ResourceVisitorTest
       }
    }
 
+   @Test
+   public void testResourceVisitParallel() throws IOException
+   {
+      File tempDir = OperatingSystemUtils.createTempDir();
+      tempDir.deleteOnExit();
+      File subDir = new File(tempDir, "sub");
+      subDir.mkdir();
+      createTempFile(tempDir, false);
+      createTempFile(subDir, false);
+      createTempFile(subDir, false);
+      DirectoryResource dirResource = resourceFactory.create(DirectoryResource.class, tempDir);
+      try
+      {
+         final Set<String> unordered = Collections.synchronizedSet(new HashSet<String>());
+         new ResourceVisit(dirResource).performParallel(new ResourceVisitor()
+         {
+            @Override
+            public void visit(VisitContext context, Resource<?> resource)
+            {
+               unordered.add(resource.getFullyQualifiedName());
+            }
+         }, ACCEPT_ALL, ACCEPT_ALL, false);
+
+         final List<String> ordered = new ArrayList<>();
+         final Thread caller = Thread.currentThread();
+         new ResourceVisit(dirResource).performParallel(new ResourceVisitor()
+         {
+            @Override
+            public void visit(VisitContext context, Resource<?> resource)
+            {
+               Assert.assertSame(caller, Thread.currentThread());
+               ordered.add(resource.getFullyQualifiedName());
+            }
+         }, ACCEPT_ALL, ACCEPT_ALL, true);
+
+         Assert.assertEquals(5, unordered.size());
+         Assert.assertEquals(5, ordered.size());
+         Assert.assertEquals(unordered, new HashSet<>(ordered));
+         List<String> sorted = new ArrayList<>(ordered);
+         Collections.sort(sorted);
+         Assert.assertEquals(sorted, ordered);
+      }
+      finally
+      {
+         dirResource.delete(true);
+      }
+   }
+
    private File createTempFile(File tempDir, boolean delete) throws IOException
    {
       File file = File.createTempFile("fileresourcetest", ".tmp", tempDir);
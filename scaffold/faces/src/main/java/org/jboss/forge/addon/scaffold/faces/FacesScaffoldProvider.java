@@ -5,14 +5,24 @@ package org.jboss.forge.addon.scaffold.faces;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import javax.inject.Inject;
 import javax.persistence.CascadeType;
@@ -37,14 +47,18 @@ import org.jboss.forge.addon.javaee.servlet.ServletFacet_3_0;
 import org.jboss.forge.addon.javaee.servlet.ServletFacet_3_1;
 import org.jboss.forge.addon.javaee.servlet.ui.ServletSetupWizard;
 import org.jboss.forge.addon.parser.java.facets.JavaSourceFacet;
+import org.jboss.forge.addon.parser.java.resources.JavaResource;
 import org.jboss.forge.addon.projects.Project;
 import org.jboss.forge.addon.projects.facets.DependencyFacet;
 import org.jboss.forge.addon.projects.facets.WebResourcesFacet;
 import org.jboss.forge.addon.resource.FileResource;
 import org.jboss.forge.addon.resource.Resource;
+import org.jboss.forge.addon.resource.ResourceException;
 import org.jboss.forge.addon.resource.ResourceFilter;
 import org.jboss.forge.addon.scaffold.faces.freemarker.FreemarkerTemplateProcessor;
 import org.jboss.forge.addon.scaffold.faces.metawidget.config.ForgeConfigReader;
+import org.jboss.forge.addon.scaffold.faces.metawidget.inspector.InspectionCache;
+import org.jboss.forge.addon.scaffold.faces.util.GenerationManifest;
 import org.jboss.forge.addon.scaffold.faces.util.ScaffoldUtil;
 import org.jboss.forge.addon.scaffold.spi.AccessStrategy;
 import org.jboss.forge.addon.scaffold.spi.ScaffoldGenerationContext;
@@ -52,12 +66,15 @@ import org.jboss.forge.addon.scaffold.spi.ScaffoldSetupContext;
 import org.jboss.forge.addon.scaffold.spi.ScaffoldProvider;
 import org.jboss.forge.addon.ui.command.UICommand;
 import org.jboss.forge.addon.ui.context.UIValidationContext;
+import org.jboss.forge.furnace.util.Streams;
 import org.jboss.forge.parser.JavaParser;
 import org.jboss.forge.parser.java.Annotation;
 import org.jboss.forge.parser.java.Field;
 import org.jboss.forge.parser.java.JavaClass;
+import org.jboss.forge.parser.java.JavaSource;
 import org.jboss.forge.parser.java.Member;
 import org.jboss.forge.parser.java.Method;
+import org.jboss.forge.parser.java.Type;
 import org.jboss.shrinkwrap.descriptor.api.javaee6.ParamValueType;
 import org.jboss.shrinkwrap.descriptor.api.webapp30.WebAppDescriptor;
 import org.jboss.shrinkwrap.descriptor.spi.node.Node;
@@ -112,6 +129,26 @@ public class FacesScaffoldProvider extends AbstractFacet<Project> implements Sca
    private static final String ERROR_TEMPLATE = "scaffold/faces/error.xhtml";
    private static final String INDEX_TEMPLATE = "scaffold/faces/index.xhtml";
    private static final String INDEX_WELCOME_TEMPLATE = "scaffold/faces/index.html";
+
+   /**
+    * The system property setting the number of threads used to render entities. Entities are generated one after the
+    * other unless this is set to more than one.
+    */
+   private static final String GENERATION_THREADS_PROPERTY = "scaffold.faces.threads";
+
+   /**
+    * The system property enabling incremental generation: entities generated before from the same inputs, as recorded
+    * in the {@link GenerationManifest} of the project, are skipped. Disabled by default, as the manifest is written to
+    * the project root.
+    */
+   private static final String INCREMENTAL_GENERATION_PROPERTY = "scaffold.faces.incremental";
+
+   /**
+    * The Metawidget configurations used to render entities.
+    */
+   private static final String[] METAWIDGET_CONFIGS = { "scaffold/faces/metawidget-entity.xml",
+            "scaffold/faces/metawidget-search.xml", "scaffold/faces/metawidget-bean.xml",
+            "scaffold/faces/metawidget-qbe.xml", "scaffold/faces/metawidget-remove-entity.xml" };
    
    private final Dependency richfaces3UI = DependencyBuilder.create("org.richfaces.ui:richfaces-ui");
    private final Dependency richfaces3Impl = DependencyBuilder.create("org.richfaces.framework:richfaces-impl");
@@ -139,13 +176,15 @@ public class FacesScaffoldProvider extends AbstractFacet<Project> implements Sca
    protected Template errorTemplate;
    protected Template indexWelcomeTemplate;
    protected Template indexTemplate;
-   protected StaticHtmlMetawidget entityMetawidget;
-   protected StaticHtmlMetawidget searchMetawidget;
-   protected StaticHtmlMetawidget beanMetawidget;
-   protected StaticJavaMetawidget qbeMetawidget;
-   protected StaticJavaMetawidget rmEntityMetawidget;
 
    private Configuration config;
+
+   /**
+    * The types inspected during the current generation run, shared by the Metawidgets of all entities rendered on the
+    * calling thread. Each worker of a concurrent run has its own, as the inspected sources and properties are not
+    * thread-safe.
+    */
+   private InspectionCache inspectionCache;
    
    @Inject
    public FacesScaffoldProvider(final Configuration config, final FreemarkerTemplateProcessor templateProcessor)
@@ -175,13 +214,6 @@ public class FacesScaffoldProvider extends AbstractFacet<Project> implements Sca
       
    }
    
-   @Override
-   public void setFaceted(Project origin)
-   {
-      super.setFaceted(origin);
-      resetMetaWidgets();
-   }
-
    @Override
    public String getName()
    {
@@ -215,21 +247,90 @@ public class FacesScaffoldProvider extends AbstractFacet<Project> implements Sca
    {
       List<Resource<?>> generatedResources = new ArrayList<Resource<?>>();
       Collection<?> resources = scaffoldContext.getResources();
+      String targetDir = scaffoldContext.getTargetDirectory();
+      targetDir = (targetDir == null) ? "" : targetDir;
+      Resource<?> template = (Resource<?>) scaffoldContext.getAttribute("pageTemplate");
+      boolean overwrite = scaffoldContext.isOverwrite();
+
+      // Skip the entities that were generated before from the same inputs
+      GenerationManifest manifest = null;
+      String fingerprint = null;
+      boolean sharedUpToDate = false;
+      if (Boolean.getBoolean(INCREMENTAL_GENERATION_PROPERTY))
+      {
+         loadTemplates();
+         manifest = GenerationManifest.load(this.origin);
+         fingerprint = getGenerationFingerprint(targetDir, template);
+         // The resources shared by all entities are only written while generating an entity, so none can be skipped
+         // once these were changed or removed
+         sharedUpToDate = manifest.isSharedUpToDate(fingerprint);
+      }
+      List<JavaClass> entities = new ArrayList<JavaClass>();
       for (Object resource : resources)
       {
-         JavaClass entity  = (JavaClass) resource;
-         String targetDir = scaffoldContext.getTargetDirectory();
-         targetDir = (targetDir == null) ? "" : targetDir;
-         Resource<?> template = (Resource<?>) scaffoldContext.getAttribute("pageTemplate");
-         boolean overwrite = scaffoldContext.isOverwrite();
-         List<Resource<?>> generatedResourcesForEntity = this.generateFromEntity(targetDir , template, entity, overwrite );
+         JavaClass entity = (JavaClass) resource;
+         if (manifest == null || !sharedUpToDate
+                  || !manifest.isUpToDate(entity.getQualifiedName(), getInputHash(fingerprint, entity)))
+         {
+            entities.add(entity);
+         }
+      }
+
+      List<EntityOutput> outputs = new ArrayList<EntityOutput>();
+      this.inspectionCache = new InspectionCache(this.origin);
+      try
+      {
+         int threads = Integer.getInteger(GENERATION_THREADS_PROPERTY, 1);
+         if (threads > 1 && entities.size() > 1)
+         {
+            for (EntityOutput output : renderConcurrently(targetDir, template, entities, overwrite, threads))
+            {
+               generatedResources.addAll(writeEntity(output));
+               outputs.add(output);
+            }
+         }
+         else
+         {
+            EntityRenderer renderer = new EntityRenderer(this.inspectionCache);
+            for (JavaClass entity : entities)
+            {
+               EntityOutput output = renderer.render(targetDir, template, entity, overwrite);
+               generatedResources.addAll(writeEntity(output));
+               outputs.add(output);
+
+               // TODO give plugins a chance to react to generated resources, use event bus?
+               // if (!generatedResources.isEmpty())
+               // {
+               //    generatedEvent.fire(new ScaffoldGeneratedResources(provider,
+               //             prepareResources(generatedResources)));
+               // }
+            }
+         }
+      }
+      finally
+      {
+         this.inspectionCache.clear();
+         this.inspectionCache = null;
+      }
 
-         // TODO give plugins a chance to react to generated resources, use event bus?
-         // if (!generatedResources.isEmpty())
-         // {
-         //    generatedEvent.fire(new ScaffoldGeneratedResources(provider, prepareResources(generatedResources)));
-         // }
-         generatedResources.addAll(generatedResourcesForEntity);
+      // Entities are only hashed once all initializers were added, as these may change related entities too
+      if (manifest != null)
+      {
+         Map<String, Resource<?>> shared = new LinkedHashMap<String, Resource<?>>();
+         for (EntityOutput output : outputs)
+         {
+            manifest.update(output.entity.getQualifiedName(), getInputHash(fingerprint, output.entity),
+                     output.written);
+            for (Resource<?> resource : output.shared)
+            {
+               shared.put(resource.getFullyQualifiedName(), resource);
+            }
+         }
+         if (!outputs.isEmpty())
+         {
+            manifest.updateShared(fingerprint, new ArrayList<Resource<?>>(shared.values()));
+         }
+         manifest.save();
       }
       return generatedResources;
    }
@@ -635,142 +736,34 @@ public class FacesScaffoldProvider extends AbstractFacet<Project> implements Sca
       return indent;
    }
    
-   private void resetMetaWidgets()
-   {
-      ForgeConfigReader configReader = new ForgeConfigReader(this.config, this.origin);
-
-      this.entityMetawidget = new StaticHtmlMetawidget();
-      this.entityMetawidget.setConfigReader(configReader);
-      this.entityMetawidget.setConfig("scaffold/faces/metawidget-entity.xml");
-
-      this.searchMetawidget = new StaticHtmlMetawidget();
-      this.searchMetawidget.setConfigReader(configReader);
-      this.searchMetawidget.setConfig("scaffold/faces/metawidget-search.xml");
-
-      this.beanMetawidget = new StaticHtmlMetawidget();
-      this.beanMetawidget.setConfigReader(configReader);
-      this.beanMetawidget.setConfig("scaffold/faces/metawidget-bean.xml");
-
-      this.qbeMetawidget = new StaticJavaMetawidget();
-      this.qbeMetawidget.setConfigReader(configReader);
-      this.qbeMetawidget.setConfig("scaffold/faces/metawidget-qbe.xml");
-      
-      this.rmEntityMetawidget = new StaticJavaMetawidget();
-      this.rmEntityMetawidget.setConfigReader(configReader);
-      this.rmEntityMetawidget.setConfig("scaffold/faces/metawidget-remove-entity.xml");
-   }
-   
-   private List<Resource<?>> generateFromEntity(String targetDir, final Resource<?> template, final JavaClass entity,
-            final boolean overwrite)
+   /**
+    * Writes the resources rendered for an entity, in the order they were rendered, and adds the initializers required
+    * by the generated views to the entity.
+    */
+   private List<Resource<?>> writeEntity(EntityOutput output)
    {
-      resetMetaWidgets();
-
-      // FORGE-460: setupRichFaces during generateFromEntity, not during setup, as generally 'richfaces setup' is called
-      // *after* 'scaffold setup'
-      // TODO: Decide on whether to support Richfaces via the Faces scaffold
-      // setupRichFaces();
-
-      // Track the list of resources generated
-
       List<Resource<?>> result = new ArrayList<Resource<?>>();
       try
       {
-         JavaSourceFacet java = this.origin.getFacet(JavaSourceFacet.class);
-         WebResourcesFacet web = this.origin.getFacet(WebResourcesFacet.class);
-
-         loadTemplates();
-         Map<Object, Object> context = CollectionUtils.newHashMap();
-         context.put("entity", entity);
-         String ccEntity = StringUtils.decapitalize(entity.getName());
-         context.put("ccEntity", ccEntity);
-         context.put("rmEntity", ccEntity + "ToDelete");
-         setPrimaryKeyMetaData(context, entity);
-
-         // Prepare qbeMetawidget
-         this.qbeMetawidget.setPath(entity.getQualifiedName());
-         StringWriter stringWriter = new StringWriter();
-         this.qbeMetawidget.write(stringWriter, this.backingBeanTemplateQbeMetawidgetIndent);
-         context.put("qbeMetawidget", stringWriter.toString().trim());
-         
-         // Prepare removeEntityMetawidget
-         this.rmEntityMetawidget.setPath(entity.getQualifiedName());
-         stringWriter = new StringWriter();
-         this.rmEntityMetawidget.write(stringWriter, this.backingBeanTemplateRmEntityMetawidgetIndent);
-         context.put("rmEntityMetawidget", stringWriter.toString().trim());
-         
-         // Prepare Java imports
-         Set<String> qbeMetawidgetImports = this.qbeMetawidget.getImports();
-         Set<String> rmEntityMetawidgetImports = this.rmEntityMetawidget.getImports();
-         Set<String> metawidgetImports = CollectionUtils.newHashSet();
-         metawidgetImports.addAll(qbeMetawidgetImports);
-         metawidgetImports.addAll(rmEntityMetawidgetImports);
-         metawidgetImports.remove(entity.getQualifiedName());
-         context.put("metawidgetImports",
-                  CollectionUtils.toString(metawidgetImports, ";\r\nimport ", true, false));
-
-         // Create the Backing Bean for this entity
-         JavaClass viewBean = JavaParser.parse(JavaClass.class, this.templateProcessor.processTemplate(context, this.backingBeanTemplate));
-         viewBean.setPackage(java.getBasePackage() + ".view");
-         result.add(ScaffoldUtil.createOrOverwrite(java.getJavaResource(viewBean), viewBean.toString(),
-                  overwrite));
-
-         // Set new context for view generation
-         context = getTemplateContext(targetDir, template);
-         String beanName = StringUtils.decapitalize(viewBean.getName());
-         context.put("beanName", beanName);
-         context.put("ccEntity", ccEntity);
-         context.put("entityName", StringUtils.uncamelCase(entity.getName()));
-         setPrimaryKeyMetaData(context, entity);
-
-         // Prepare entityMetawidget
-         this.entityMetawidget.setValue(StaticFacesUtils.wrapExpression(beanName + "." + ccEntity));
-         this.entityMetawidget.setPath(entity.getQualifiedName());
-         this.entityMetawidget.setReadOnly(false);
-         this.entityMetawidget.setStyle(null);
-
-         // Generate create
-         writeEntityMetawidget(context, this.createTemplateEntityMetawidgetIndent, this.createTemplateNamespaces);
-
-         result.add(ScaffoldUtil.createOrOverwrite(
-                  web.getWebResource(targetDir + "/" + ccEntity + "/create.xhtml"),
-                  this.templateProcessor.processTemplate(context, this.createTemplate),
-                  overwrite));
-
-         // Generate view
-         this.entityMetawidget.setReadOnly(true);
-         writeEntityMetawidget(context, this.viewTemplateEntityMetawidgetIndent, this.viewTemplateNamespaces);
-
-         result.add(ScaffoldUtil.createOrOverwrite(
-                  web.getWebResource(targetDir + "/" + ccEntity + "/view.xhtml"),
-                  this.templateProcessor.processTemplate(context, this.viewTemplate), overwrite));
-
-         // Generate search
-         this.searchMetawidget.setValue(StaticFacesUtils.wrapExpression(beanName + ".example"));
-         this.searchMetawidget.setPath(entity.getQualifiedName());
-         this.beanMetawidget.setValue(StaticFacesUtils.wrapExpression(beanName + ".pageItems"));
-         this.beanMetawidget.setPath(viewBean.getQualifiedName() + "/pageItems");
-         writeSearchAndBeanMetawidget(context, this.searchTemplateSearchMetawidgetIndent,
-                  this.searchTemplateBeanMetawidgetIndent, this.searchTemplateNamespaces);
-
-         result.add(ScaffoldUtil.createOrOverwrite(
-                  web.getWebResource(targetDir + "/" + ccEntity + "/search.xhtml"),
-                  this.templateProcessor.processTemplate(context, this.searchTemplate), overwrite));
-
-         // Generate navigation
-         result.add(generateNavigation(targetDir, overwrite));
-
-         // Need ViewUtils and forge.taglib.xml for forgeview:asList
-         JavaClass viewUtils = JavaParser.parse(JavaClass.class, this.templateProcessor.processTemplate(context, this.viewUtilsTemplate));
-         viewUtils.setPackage(viewBean.getPackage());
-         result.add(ScaffoldUtil.createOrOverwrite(java.getJavaResource(viewUtils), viewUtils.toString(),
-                  true));
-
-         context.put("viewPackage", viewBean.getPackage());
-         result.add(ScaffoldUtil.createOrOverwrite(
-                  web.getWebResource("WEB-INF/classes/META-INF/forge.taglib.xml"),
-                  this.templateProcessor.processTemplate(context, this.taglibTemplate), true));
-
-         createInitializers(entity);
+         for (PendingWrite write : output.writes)
+         {
+            if (write == PendingWrite.NAVIGATION)
+            {
+               Resource<?> navigation = generateNavigation(output.targetDir, output.overwrite);
+               output.shared.add(navigation);
+               result.add(navigation);
+            }
+            else
+            {
+               Resource<?> written = ScaffoldUtil.createOrOverwrite(write.resource, write.contents, write.overwrite);
+               if (written != null)
+               {
+                  (write.shared ? output.shared : output.written).add(written);
+               }
+               result.add(written);
+            }
+         }
+         createInitializers(output.entity);
       }
       catch (Exception e)
       {
@@ -778,43 +771,203 @@ public class FacesScaffoldProvider extends AbstractFacet<Project> implements Sca
       }
       return result;
    }
-   
+
    /**
-    * Writes the entity Metawidget and its namespaces into the given context.
+    * Renders the given entities on a pool of worker threads. Each thread uses its own {@link EntityRenderer}, and thus
+    * its own Metawidgets and its own {@link InspectionCache} with separately parsed sources, as neither the parsed
+    * sources nor the Metawidget properties are thread-safe. Each entity is only read by the thread rendering it. The
+    * rendered resources are returned in the order of the entities, to be written in turn. Rendering does not depend on
+    * resources written for other entities, so the output is the same as when generating each entity in turn.
     */
-   protected void writeEntityMetawidget(final Map<Object, Object> context, final int entityMetawidgetIndent,
-            final Map<String, String> existingNamespaces)
+   private List<EntityOutput> renderConcurrently(final String targetDir, final Resource<?> template,
+            List<JavaClass> entities, final boolean overwrite, int threads)
    {
-      StringWriter stringWriter = new StringWriter();
-      this.entityMetawidget.write(stringWriter, entityMetawidgetIndent);
-      context.put("metawidget", stringWriter.toString().trim());
+      loadTemplates();
+      final List<InspectionCache> workerCaches = Collections.synchronizedList(new ArrayList<InspectionCache>());
+      final ThreadLocal<EntityRenderer> renderers = new ThreadLocal<EntityRenderer>()
+      {
+         @Override
+         protected EntityRenderer initialValue()
+         {
+            InspectionCache cache = new InspectionCache(origin);
+            workerCaches.add(cache);
+            return new EntityRenderer(cache);
+         }
+      };
+      final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+      ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, entities.size()),
+               new ThreadFactory()
+               {
+                  @Override
+                  public Thread newThread(Runnable r)
+                  {
+                     Thread thread = new Thread(r, "Faces Scaffold Generator");
+                     thread.setDaemon(true);
+                     thread.setContextClassLoader(contextClassLoader);
+                     return thread;
+                  }
+               });
+      try
+      {
+         List<Future<EntityOutput>> outputs = new ArrayList<Future<EntityOutput>>();
+         for (final JavaClass entity : entities)
+         {
+            outputs.add(executor.submit(new Callable<EntityOutput>()
+            {
+               @Override
+               public EntityOutput call()
+               {
+                  return renderers.get().render(targetDir, template, entity, overwrite);
+               }
+            }));
+         }
 
-      Map<String, String> namespaces = this.entityMetawidget.getNamespaces();
-      namespaces.keySet().removeAll(existingNamespaces.keySet());
-      context.put("metawidgetNamespaces", namespacesToString(namespaces));
+         List<EntityOutput> rendered = new ArrayList<EntityOutput>();
+         for (Future<EntityOutput> output : outputs)
+         {
+            rendered.add(output.get());
+         }
+         return rendered;
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException("Interrupted while generating scaffolding", e);
+      }
+      catch (ExecutionException e)
+      {
+         if (e.getCause() instanceof RuntimeException)
+            throw (RuntimeException) e.getCause();
+         throw new RuntimeException("Error generating default scaffolding: " + e.getCause().getMessage(), e.getCause());
+      }
+      finally
+      {
+         executor.shutdownNow();
+         for (InspectionCache cache : workerCaches)
+         {
+            cache.clear();
+         }
+      }
+   }
+
+   /**
+    * Identifies the inputs shared by all entities generated in a run: the target directory, the page template, and the
+    * templates and Metawidget configurations used to render entities.
+    */
+   private String getGenerationFingerprint(String targetDir, final Resource<?> template)
+   {
+      StringBuilder fingerprint = new StringBuilder(targetDir).append('\n');
+      if (template != null && template.exists())
+      {
+         fingerprint.append(template.getFullyQualifiedName()).append('\n').append(template.getContents());
+      }
+      for (Template entityTemplate : new Template[] { this.backingBeanTemplate, this.viewUtilsTemplate,
+               this.taglibTemplate, this.viewTemplate, this.createTemplate, this.searchTemplate })
+      {
+         fingerprint.append(entityTemplate.toString());
+      }
+      for (String config : METAWIDGET_CONFIGS)
+      {
+         InputStream stream = getClass().getResourceAsStream("/" + config);
+         try
+         {
+            fingerprint.append(Streams.toString(stream));
+         }
+         finally
+         {
+            Streams.closeQuietly(stream);
+         }
+      }
+      return GenerationManifest.hash(fingerprint);
    }
 
    /**
-    * Writes the search Metawidget, the bean Metawidget and their namespaces into the given context.
+    * Identifies the inputs an entity is generated from: the shared fingerprint, the base package of the project, the
+    * sources of the entity and its superclasses, such as <code>@MappedSuperclass</code> types, and the sources of the
+    * project types referenced by their fields and getters.
     */
-   protected void writeSearchAndBeanMetawidget(final Map<Object, Object> context, final int searchMetawidgetIndent,
-            final int beanMetawidgetIndent,
-            final Map<String, String> existingNamespaces)
+   private String getInputHash(String fingerprint, final JavaClass entity)
    {
-      StringWriter stringWriter = new StringWriter();
-      this.searchMetawidget.write(stringWriter, searchMetawidgetIndent);
-      context.put("searchMetawidget", stringWriter.toString().trim());
+      JavaSourceFacet java = this.origin.getFacet(JavaSourceFacet.class);
+      StringBuilder inputs = new StringBuilder(fingerprint).append('\n').append(java.getBasePackage()).append('\n');
+      Set<String> hashed = new HashSet<String>();
+
+      // Read the saved entity, as initializers may have been added to it since it was passed in
+      String type = entity.getQualifiedName();
+      JavaSource<?> source = getJavaSource(java, type);
+      while (source instanceof JavaClass && hashed.add(type))
+      {
+         JavaClass clazz = (JavaClass) source;
+         appendSource(inputs, java, type);
+         for (Field<JavaClass> field : clazz.getFields())
+         {
+            appendReferencedType(inputs, java, hashed, field.getQualifiedType(), field.getTypeInspector());
+         }
+         for (Method<JavaClass> method : clazz.getMethods())
+         {
+            if (method.isPublic() && !method.isStatic() && method.getParameters().isEmpty()
+                     && method.getQualifiedReturnType() != null)
+            {
+               appendReferencedType(inputs, java, hashed, method.getQualifiedReturnType(),
+                        method.getReturnTypeInspector());
+            }
+         }
+         type = clazz.getSuperType();
+         source = "java.lang.Object".equals(type) ? null : getJavaSource(java, type);
+      }
+      return GenerationManifest.hash(inputs);
+   }
 
-      stringWriter = new StringWriter();
-      this.beanMetawidget.write(stringWriter, beanMetawidgetIndent);
-      context.put("beanMetawidget", stringWriter.toString().trim());
+   private void appendReferencedType(StringBuilder inputs, JavaSourceFacet java, Set<String> hashed, String type,
+            Type<?> typeInspector)
+   {
+      if (hashed.add(type))
+      {
+         appendSource(inputs, java, type);
+      }
+      for (Object argument : typeInspector.getTypeArguments())
+      {
+         String argumentType = ((Type<?>) argument).getQualifiedName();
+         if (hashed.add(argumentType))
+         {
+            appendSource(inputs, java, argumentType);
+         }
+      }
+   }
 
-      Map<String, String> namespaces = this.searchMetawidget.getNamespaces();
-      namespaces.putAll(this.beanMetawidget.getNamespaces());
-      namespaces.keySet().removeAll(existingNamespaces.keySet());
-      context.put("metawidgetNamespaces", namespacesToString(namespaces));
+   private JavaSource<?> getJavaSource(JavaSourceFacet java, String type)
+   {
+      try
+      {
+         JavaResource resource = java.getJavaResource(type);
+         return resource.exists() ? resource.getJavaSource() : null;
+      }
+      catch (FileNotFoundException e)
+      {
+         return null;
+      }
+      catch (ResourceException e)
+      {
+         return null;
+      }
    }
-   
+
+   private void appendSource(StringBuilder inputs, JavaSourceFacet java, String type)
+   {
+      try
+      {
+         JavaResource resource = java.getJavaResource(type);
+         if (resource.exists())
+         {
+            inputs.append(type).append('\n').append(resource.getContents());
+         }
+      }
+      catch (FileNotFoundException e)
+      {
+         // Types without sources, such as JDK classes, do not change
+      }
+   }
+
    protected String namespacesToString(final Map<String, String> namespaces)
    {
       StringBuilder builder = new StringBuilder();
@@ -877,6 +1030,10 @@ public class FacesScaffoldProvider extends AbstractFacet<Project> implements Sca
       if(dirtyBit)
       {
          this.origin.getFacet(JavaSourceFacet.class).saveJavaSource(entity);
+         if (this.inspectionCache != null)
+         {
+            this.inspectionCache.invalidate(entity.getQualifiedName());
+         }
       }
    }
    
@@ -936,27 +1093,6 @@ public class FacesScaffoldProvider extends AbstractFacet<Project> implements Sca
       context.put("nullablePrimaryKeyType", nullablePkType);
    }
    
-   protected void setupRichFaces()
-   {
-      if ((this.origin.getFacet(DependencyFacet.class).hasEffectiveDependency(this.richfaces3UI)
-               && this.origin.getFacet(DependencyFacet.class).hasEffectiveDependency(this.richfaces3Impl))
-               || (this.origin.getFacet(DependencyFacet.class).hasEffectiveDependency(this.richfaces4UI)
-               && this.origin.getFacet(DependencyFacet.class).hasEffectiveDependency(this.richfaces4Impl)))
-      {
-         this.entityMetawidget
-                  .setWidgetBuilder(insertRichFacesWidgetBuilder((CompositeWidgetBuilder<StaticWidget, StaticMetawidget>) this.entityMetawidget
-                           .getWidgetBuilder()));
-
-         this.searchMetawidget
-                  .setWidgetBuilder(insertRichFacesWidgetBuilder((CompositeWidgetBuilder<StaticWidget, StaticMetawidget>) this.searchMetawidget
-                           .getWidgetBuilder()));
-
-         this.beanMetawidget
-                  .setWidgetBuilder(insertRichFacesWidgetBuilder((CompositeWidgetBuilder<StaticWidget, StaticMetawidget>) this.beanMetawidget
-                           .getWidgetBuilder()));
-      }
-   }
-   
    /**
     * Locates a <code>ReadOnlyWidgetBuilder</code> in the list of WidgetBuilders, and inserts a
     * <code>RichFacesWidgetBuilder</code> after it (unless there's a <code>RichFacesWidgetBuilder</code> in there
@@ -1000,4 +1136,292 @@ public class FacesScaffoldProvider extends AbstractFacet<Project> implements Sca
                new CompositeWidgetBuilderConfig<W, M>().setWidgetBuilders(newWidgetBuilders));
    }
 
+   /**
+    * Renders entities with its own Metawidgets and {@link InspectionCache}, as neither the Metawidgets nor the sources
+    * parsed for them are thread-safe. The templates are shared with the enclosing provider, and only read once loaded.
+    */
+   private class EntityRenderer
+   {
+      private final InspectionCache inspectionCache;
+      private StaticHtmlMetawidget entityMetawidget;
+      private StaticHtmlMetawidget searchMetawidget;
+      private StaticHtmlMetawidget beanMetawidget;
+      private StaticJavaMetawidget qbeMetawidget;
+      private StaticJavaMetawidget rmEntityMetawidget;
+
+      public EntityRenderer(InspectionCache inspectionCache)
+      {
+         this.inspectionCache = inspectionCache;
+      }
+
+      private void resetMetaWidgets()
+      {
+         // Each entity gets its own inspectors, as these are not thread-safe, but they share what this renderer
+         // inspected during a generation run
+         ForgeConfigReader configReader = new ForgeConfigReader(config, origin, this.inspectionCache);
+
+         this.entityMetawidget = new StaticHtmlMetawidget();
+         this.entityMetawidget.setConfigReader(configReader);
+         this.entityMetawidget.setConfig("scaffold/faces/metawidget-entity.xml");
+
+         this.searchMetawidget = new StaticHtmlMetawidget();
+         this.searchMetawidget.setConfigReader(configReader);
+         this.searchMetawidget.setConfig("scaffold/faces/metawidget-search.xml");
+
+         this.beanMetawidget = new StaticHtmlMetawidget();
+         this.beanMetawidget.setConfigReader(configReader);
+         this.beanMetawidget.setConfig("scaffold/faces/metawidget-bean.xml");
+
+         this.qbeMetawidget = new StaticJavaMetawidget();
+         this.qbeMetawidget.setConfigReader(configReader);
+         this.qbeMetawidget.setConfig("scaffold/faces/metawidget-qbe.xml");
+      
+         this.rmEntityMetawidget = new StaticJavaMetawidget();
+         this.rmEntityMetawidget.setConfigReader(configReader);
+         this.rmEntityMetawidget.setConfig("scaffold/faces/metawidget-remove-entity.xml");
+      }
+   
+      /**
+       * Renders all resources generated for the given entity without writing them.
+       */
+      public EntityOutput render(String targetDir, final Resource<?> template, final JavaClass entity,
+               final boolean overwrite)
+      {
+         resetMetaWidgets();
+
+         // FORGE-460: setupRichFaces during render, not during setup, as generally 'richfaces setup' is called
+         // *after* 'scaffold setup'
+         // TODO: Decide on whether to support Richfaces via the Faces scaffold
+         // setupRichFaces();
+
+         // Track the list of resources generated
+
+         EntityOutput result = new EntityOutput(targetDir, entity, overwrite);
+         try
+         {
+            JavaSourceFacet java = origin.getFacet(JavaSourceFacet.class);
+            WebResourcesFacet web = origin.getFacet(WebResourcesFacet.class);
+
+            loadTemplates();
+            Map<Object, Object> context = CollectionUtils.newHashMap();
+            context.put("entity", entity);
+            String ccEntity = StringUtils.decapitalize(entity.getName());
+            context.put("ccEntity", ccEntity);
+            context.put("rmEntity", ccEntity + "ToDelete");
+            setPrimaryKeyMetaData(context, entity);
+
+            // Prepare qbeMetawidget
+            this.qbeMetawidget.setPath(entity.getQualifiedName());
+            StringWriter stringWriter = new StringWriter();
+            this.qbeMetawidget.write(stringWriter, backingBeanTemplateQbeMetawidgetIndent);
+            context.put("qbeMetawidget", stringWriter.toString().trim());
+         
+            // Prepare removeEntityMetawidget
+            this.rmEntityMetawidget.setPath(entity.getQualifiedName());
+            stringWriter = new StringWriter();
+            this.rmEntityMetawidget.write(stringWriter, backingBeanTemplateRmEntityMetawidgetIndent);
+            context.put("rmEntityMetawidget", stringWriter.toString().trim());
+         
+            // Prepare Java imports
+            Set<String> qbeMetawidgetImports = this.qbeMetawidget.getImports();
+            Set<String> rmEntityMetawidgetImports = this.rmEntityMetawidget.getImports();
+            Set<String> metawidgetImports = CollectionUtils.newHashSet();
+            metawidgetImports.addAll(qbeMetawidgetImports);
+            metawidgetImports.addAll(rmEntityMetawidgetImports);
+            metawidgetImports.remove(entity.getQualifiedName());
+            context.put("metawidgetImports",
+                     CollectionUtils.toString(metawidgetImports, ";\r\nimport ", true, false));
+
+            // Create the Backing Bean for this entity
+            JavaClass viewBean = JavaParser.parse(JavaClass.class,
+                     templateProcessor.processTemplate(context, backingBeanTemplate));
+            viewBean.setPackage(java.getBasePackage() + ".view");
+            result.add(java.getJavaResource(viewBean), viewBean.toString(),
+                     overwrite);
+
+            // Set new context for view generation
+            context = getTemplateContext(targetDir, template);
+            String beanName = StringUtils.decapitalize(viewBean.getName());
+            context.put("beanName", beanName);
+            context.put("ccEntity", ccEntity);
+            context.put("entityName", StringUtils.uncamelCase(entity.getName()));
+            setPrimaryKeyMetaData(context, entity);
+
+            // Prepare entityMetawidget
+            this.entityMetawidget.setValue(StaticFacesUtils.wrapExpression(beanName + "." + ccEntity));
+            this.entityMetawidget.setPath(entity.getQualifiedName());
+            this.entityMetawidget.setReadOnly(false);
+            this.entityMetawidget.setStyle(null);
+
+            // Generate create
+            writeEntityMetawidget(context, createTemplateEntityMetawidgetIndent, createTemplateNamespaces);
+
+            result.add(
+                     web.getWebResource(targetDir + "/" + ccEntity + "/create.xhtml"),
+                     templateProcessor.processTemplate(context, createTemplate),
+                     overwrite);
+
+            // Generate view
+            this.entityMetawidget.setReadOnly(true);
+            writeEntityMetawidget(context, viewTemplateEntityMetawidgetIndent, viewTemplateNamespaces);
+
+            result.add(
+                     web.getWebResource(targetDir + "/" + ccEntity + "/view.xhtml"),
+                     templateProcessor.processTemplate(context, viewTemplate), overwrite);
+
+            // Generate search
+            this.searchMetawidget.setValue(StaticFacesUtils.wrapExpression(beanName + ".example"));
+            this.searchMetawidget.setPath(entity.getQualifiedName());
+            this.beanMetawidget.setValue(StaticFacesUtils.wrapExpression(beanName + ".pageItems"));
+            this.beanMetawidget.setPath(viewBean.getQualifiedName() + "/pageItems");
+            writeSearchAndBeanMetawidget(context, searchTemplateSearchMetawidgetIndent,
+                     searchTemplateBeanMetawidgetIndent, searchTemplateNamespaces);
+
+            result.add(
+                     web.getWebResource(targetDir + "/" + ccEntity + "/search.xhtml"),
+                     templateProcessor.processTemplate(context, searchTemplate), overwrite);
+
+            // Generate navigation
+            result.addNavigation();
+
+            // Need ViewUtils and forge.taglib.xml for forgeview:asList
+            JavaClass viewUtils = JavaParser.parse(JavaClass.class,
+                     templateProcessor.processTemplate(context, viewUtilsTemplate));
+            viewUtils.setPackage(viewBean.getPackage());
+            result.addShared(java.getJavaResource(viewUtils), viewUtils.toString());
+
+            context.put("viewPackage", viewBean.getPackage());
+            result.addShared(
+                     web.getWebResource("WEB-INF/classes/META-INF/forge.taglib.xml"),
+                     templateProcessor.processTemplate(context, taglibTemplate));
+         }
+         catch (Exception e)
+         {
+            throw new RuntimeException("Error generating default scaffolding: " + e.getMessage(), e);
+         }
+         return result;
+      }
+
+      /**
+       * Writes the entity Metawidget and its namespaces into the given context.
+       */
+      private void writeEntityMetawidget(final Map<Object, Object> context, final int entityMetawidgetIndent,
+               final Map<String, String> existingNamespaces)
+      {
+         StringWriter stringWriter = new StringWriter();
+         this.entityMetawidget.write(stringWriter, entityMetawidgetIndent);
+         context.put("metawidget", stringWriter.toString().trim());
+
+         Map<String, String> namespaces = this.entityMetawidget.getNamespaces();
+         namespaces.keySet().removeAll(existingNamespaces.keySet());
+         context.put("metawidgetNamespaces", namespacesToString(namespaces));
+      }
+
+      /**
+       * Writes the search Metawidget, the bean Metawidget and their namespaces into the given context.
+       */
+      private void writeSearchAndBeanMetawidget(final Map<Object, Object> context,
+               final int searchMetawidgetIndent, final int beanMetawidgetIndent,
+               final Map<String, String> existingNamespaces)
+      {
+         StringWriter stringWriter = new StringWriter();
+         this.searchMetawidget.write(stringWriter, searchMetawidgetIndent);
+         context.put("searchMetawidget", stringWriter.toString().trim());
+
+         stringWriter = new StringWriter();
+         this.beanMetawidget.write(stringWriter, beanMetawidgetIndent);
+         context.put("beanMetawidget", stringWriter.toString().trim());
+
+         Map<String, String> namespaces = this.searchMetawidget.getNamespaces();
+         namespaces.putAll(this.beanMetawidget.getNamespaces());
+         namespaces.keySet().removeAll(existingNamespaces.keySet());
+         context.put("metawidgetNamespaces", namespacesToString(namespaces));
+      }
+
+      private void setupRichFaces()
+      {
+         if ((origin.getFacet(DependencyFacet.class).hasEffectiveDependency(richfaces3UI)
+                  && origin.getFacet(DependencyFacet.class).hasEffectiveDependency(richfaces3Impl))
+                  || (origin.getFacet(DependencyFacet.class).hasEffectiveDependency(richfaces4UI)
+                  && origin.getFacet(DependencyFacet.class).hasEffectiveDependency(richfaces4Impl)))
+         {
+            this.entityMetawidget.setWidgetBuilder(insertRichFacesWidgetBuilder(
+                     (CompositeWidgetBuilder<StaticWidget, StaticMetawidget>) this.entityMetawidget
+                              .getWidgetBuilder()));
+
+            this.searchMetawidget.setWidgetBuilder(insertRichFacesWidgetBuilder(
+                     (CompositeWidgetBuilder<StaticWidget, StaticMetawidget>) this.searchMetawidget
+                              .getWidgetBuilder()));
+
+            this.beanMetawidget.setWidgetBuilder(insertRichFacesWidgetBuilder(
+                     (CompositeWidgetBuilder<StaticWidget, StaticMetawidget>) this.beanMetawidget.getWidgetBuilder()));
+         }
+      }
+   }
+
+   /**
+    * The resources rendered for an entity, waiting to be written.
+    */
+   private static class EntityOutput
+   {
+      private final String targetDir;
+      private final JavaClass entity;
+      private final boolean overwrite;
+      private final List<PendingWrite> writes = new ArrayList<PendingWrite>();
+      /**
+       * The resources written for this entity only
+       */
+      private final List<Resource<?>> written = new ArrayList<Resource<?>>();
+
+      /**
+       * The resources written for all entities, such as the navigation
+       */
+      private final List<Resource<?>> shared = new ArrayList<Resource<?>>();
+
+      public EntityOutput(String targetDir, JavaClass entity, boolean overwrite)
+      {
+         this.targetDir = targetDir;
+         this.entity = entity;
+         this.overwrite = overwrite;
+      }
+
+      public void add(FileResource<?> resource, String contents, boolean overwrite)
+      {
+         writes.add(new PendingWrite(resource, contents, overwrite, false));
+      }
+
+      /**
+       * Adds a resource written for every entity, always overwriting the previous one.
+       */
+      public void addShared(FileResource<?> resource, String contents)
+      {
+         writes.add(new PendingWrite(resource, contents, true, true));
+      }
+
+      /**
+       * The navigation lists the generated directories, so it is only rendered once the previous resources are written.
+       */
+      public void addNavigation()
+      {
+         writes.add(PendingWrite.NAVIGATION);
+      }
+   }
+
+   private static class PendingWrite
+   {
+      private static final PendingWrite NAVIGATION = new PendingWrite(null, null, true, true);
+
+      private final FileResource<?> resource;
+      private final String contents;
+      private final boolean overwrite;
+      private final boolean shared;
+
+      public PendingWrite(FileResource<?> resource, String contents, boolean overwrite, boolean shared)
+      {
+         this.resource = resource;
+         this.contents = contents;
+         this.overwrite = overwrite;
+         this.shared = shared;
+      }
+   }
 }
@@ -8,6 +8,7 @@ package org.jboss.forge.addon.scaffold.faces.metawidget.config;
 
 import org.jboss.forge.addon.configuration.Configuration;
 import org.jboss.forge.addon.projects.Project;
+import org.jboss.forge.addon.scaffold.faces.metawidget.inspector.InspectionCache;
 import org.metawidget.config.impl.BaseConfigReader;
 
 /**
@@ -27,6 +28,8 @@ public class ForgeConfigReader
 
    private static final String PROJECT_ELEMENT_NAME = "forgeProject";
 
+   private static final String INSPECTION_CACHE_ELEMENT_NAME = "forgeInspectionCache";
+
    //
    // Private members
    //
@@ -35,14 +38,27 @@ public class ForgeConfigReader
 
    private Project project;
 
+   private InspectionCache inspectionCache;
+
    //
    // Constructor
    //
 
    public ForgeConfigReader(Configuration config, Project project)
+   {
+      this(config, project, new InspectionCache(project));
+   }
+
+   /**
+    * @param inspectionCache the cache shared by the inspectors configured by this reader, and any other readers for
+    *           the same project it is passed to
+    */
+
+   public ForgeConfigReader(Configuration config, Project project, InspectionCache inspectionCache)
    {
       this.config = config;
       this.project = project;
+      this.inspectionCache = inspectionCache;
    }
 
    //
@@ -62,6 +78,11 @@ public class ForgeConfigReader
          return true;
       }
 
+      if (INSPECTION_CACHE_ELEMENT_NAME.equals(name))
+      {
+         return true;
+      }
+
       return super.isNative(name);
    }
 
@@ -78,6 +99,11 @@ public class ForgeConfigReader
          return this.config;
       }
 
+      if (INSPECTION_CACHE_ELEMENT_NAME.equals(name))
+      {
+         return this.inspectionCache;
+      }
+
       return super.createNative(name, namespace, recordedText);
    }
 }
@@ -23,6 +23,7 @@ import static org.metawidget.inspector.InspectionResultConstants.TRUE;
 import static org.metawidget.inspector.faces.StaticFacesInspectionResultConstants.FACES_CONVERTER_ID;
 import static org.metawidget.inspector.faces.StaticFacesInspectionResultConstants.FACES_LOOKUP;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -54,6 +55,11 @@ import org.w3c.dom.Element;
 public class ForgeInspector
          extends BaseObjectInspector
 {
+   //
+   // Private members
+   //
+
+   private final InspectionCache inspectionCache;
 
    //
    // Constructor
@@ -61,12 +67,21 @@ public class ForgeInspector
 
    public ForgeInspector()
    {
-      super(new BaseObjectInspectorConfig());
+      this(new BaseObjectInspectorConfig());
    }
 
    public ForgeInspector(BaseObjectInspectorConfig config)
    {
       super(config);
+
+      this.inspectionCache = null;
+   }
+
+   public ForgeInspector(ForgeInspectorConfig config)
+   {
+      super(config);
+
+      this.inspectionCache = config.getInspectionCache();
    }
 
    @Override
@@ -95,6 +110,29 @@ public class ForgeInspector
    @Override
    protected Map<String, String> inspectProperty(Property property)
             throws Exception
+   {
+      if (this.inspectionCache == null)
+      {
+         return inspectUncachedProperty(property);
+      }
+
+      Map<String, String> attributes = this.inspectionCache.getInspectionResult(getTypeUnderInspection(), property);
+
+      if (attributes == null)
+      {
+         attributes = inspectUncachedProperty(property);
+         this.inspectionCache.putInspectionResult(getTypeUnderInspection(), property, attributes);
+      }
+
+      return new HashMap<String, String>(attributes);
+   }
+
+   //
+   // Private methods
+   //
+
+   private Map<String, String> inspectUncachedProperty(Property property)
+            throws Exception
    {
       Map<String, String> attributes = CollectionUtils.newHashMap();
 
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.addon.scaffold.faces.metawidget.inspector;
+
+import org.metawidget.inspector.impl.BaseObjectInspectorConfig;
+import org.metawidget.util.simple.ObjectUtils;
+
+/**
+ * Configures a <tt>ForgeInspector</tt>.
+ */
+
+public class ForgeInspectorConfig
+         extends BaseObjectInspectorConfig
+{
+
+   //
+   // Private members
+   //
+
+   private InspectionCache inspectionCache;
+
+   //
+   // Public methods
+   //
+
+   /**
+    * Sets the cache in which the inspection results of each property are kept. If not set, properties are inspected
+    * every time.
+    *
+    * @return this, as part of a fluent interface
+    */
+
+   public ForgeInspectorConfig setInspectionCache(InspectionCache inspectionCache)
+   {
+      this.inspectionCache = inspectionCache;
+      return this;
+   }
+
+   @Override
+   public boolean equals(Object that)
+   {
+      if (this == that)
+      {
+         return true;
+      }
+
+      if (!ObjectUtils.nullSafeClassEquals(this, that))
+      {
+         return false;
+      }
+
+      if (this.inspectionCache != ((ForgeInspectorConfig) that).inspectionCache)
+      {
+         return false;
+      }
+
+      return super.equals(that);
+   }
+
+   @Override
+   public int hashCode()
+   {
+
+      int hashCode = super.hashCode();
+      hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(this.inspectionCache);
+
+      return hashCode;
+   }
+
+   //
+   // Protected methods
+   //
+
+   protected InspectionCache getInspectionCache()
+   {
+      return this.inspectionCache;
+   }
+}
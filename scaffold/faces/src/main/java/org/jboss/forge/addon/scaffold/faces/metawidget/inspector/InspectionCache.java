@@ -0,0 +1,202 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.addon.scaffold.faces.metawidget.inspector;
+
+import java.io.FileNotFoundException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.forge.addon.parser.java.facets.JavaSourceFacet;
+import org.jboss.forge.addon.projects.Project;
+import org.jboss.forge.addon.resource.ResourceException;
+import org.jboss.forge.parser.java.JavaSource;
+import org.metawidget.inspector.impl.propertystyle.Property;
+
+/**
+ * Memoizes the parsed types, properties and <tt>ForgeInspector</tt> results of a <tt>Project</tt>, so that they can be
+ * shared by all Metawidgets of a scaffold generation run.
+ * <p>
+ * The cached sources are shared and must not be modified. Entries of a type must be invalidated when its source is
+ * saved, and the whole cache cleared at the end of the run.
+ * <p>
+ * This class is not thread-safe. The parsed sources and Metawidget properties it hands out are mutable and may not be
+ * used by several threads at once, so each thread rendering entities must use its own cache.
+ */
+
+public class InspectionCache
+{
+   //
+   // Private members
+   //
+
+   private final Project project;
+
+   private final Map<String, JavaSource<?>> sources = new HashMap<String, JavaSource<?>>();
+
+   private final Set<String> foreignTypes = new HashSet<String>();
+
+   private final Map<String, Map<String, Property>> properties = new HashMap<String, Map<String, Property>>();
+
+   private final Map<InspectedProperty, Map<String, String>> inspectionResults =
+            new HashMap<InspectedProperty, Map<String, String>>();
+
+   //
+   // Constructor
+   //
+
+   public InspectionCache(Project project)
+   {
+      this.project = project;
+   }
+
+   //
+   // Public methods
+   //
+
+   public Project getProject()
+   {
+      return this.project;
+   }
+
+   /**
+    * Returns the parsed source of the given type.
+    *
+    * @return the source, or null if the type is not declared by the project
+    */
+
+   public JavaSource<?> getJavaSource(String type)
+   {
+      JavaSource<?> source = this.sources.get(type);
+
+      if (source != null || this.foreignTypes.contains(type))
+      {
+         return source;
+      }
+
+      try
+      {
+         JavaSourceFacet javaSourceFacet = this.project.getFacet(JavaSourceFacet.class);
+         source = javaSourceFacet.getJavaResource(type).getJavaSource();
+      }
+      catch (FileNotFoundException e)
+      {
+         // Not a Forge-based type
+      }
+      catch (ResourceException e)
+      {
+         // Not a Forge-based type
+      }
+
+      if (source == null)
+      {
+         this.foreignTypes.add(type);
+      }
+      else
+      {
+         this.sources.put(type, source);
+      }
+
+      return source;
+   }
+
+   /**
+    * @return the properties of the given type, or null if they were not cached yet
+    */
+
+   public Map<String, Property> getProperties(String type)
+   {
+      return this.properties.get(type);
+   }
+
+   public void putProperties(String type, Map<String, Property> typeProperties)
+   {
+      this.properties.put(type, Collections.unmodifiableMap(typeProperties));
+   }
+
+   /**
+    * @return the attributes of the given property when inspected as part of the given type, or null if they were not
+    *         cached yet
+    */
+
+   public Map<String, String> getInspectionResult(String typeUnderInspection, Property property)
+   {
+      return this.inspectionResults.get(new InspectedProperty(typeUnderInspection, property));
+   }
+
+   public void putInspectionResult(String typeUnderInspection, Property property, Map<String, String> attributes)
+   {
+      this.inspectionResults.put(new InspectedProperty(typeUnderInspection, property),
+               Collections.unmodifiableMap(attributes));
+   }
+
+   /**
+    * Invalidates the given type, for example because its source was saved. Inspection results are derived from the
+    * properties of related types too, so they are all invalidated.
+    */
+
+   public void invalidate(String type)
+   {
+      this.sources.remove(type);
+      this.foreignTypes.remove(type);
+      this.properties.remove(type);
+      this.inspectionResults.clear();
+   }
+
+   public void clear()
+   {
+      this.sources.clear();
+      this.foreignTypes.clear();
+      this.properties.clear();
+      this.inspectionResults.clear();
+   }
+
+   //
+   // Inner classes
+   //
+
+   /**
+    * Identifies a property within the type under inspection. Properties are compared by identity, as they are only
+    * equal when returned from the same cache entry.
+    */
+
+   private static class InspectedProperty
+   {
+      private final String typeUnderInspection;
+
+      private final Property property;
+
+      InspectedProperty(String typeUnderInspection, Property property)
+      {
+         this.typeUnderInspection = typeUnderInspection;
+         this.property = property;
+      }
+
+      @Override
+      public boolean equals(Object that)
+      {
+         if (!(that instanceof InspectedProperty))
+         {
+            return false;
+         }
+
+         InspectedProperty inspected = (InspectedProperty) that;
+         return this.property == inspected.property
+                  && (this.typeUnderInspection == null ? inspected.typeUnderInspection == null
+                           : this.typeUnderInspection.equals(inspected.typeUnderInspection));
+      }
+
+      @Override
+      public int hashCode()
+      {
+         int hashCode = System.identityHashCode(this.property);
+         return 31 * hashCode + (this.typeUnderInspection == null ? 0 : this.typeUnderInspection.hashCode());
+      }
+   }
+}
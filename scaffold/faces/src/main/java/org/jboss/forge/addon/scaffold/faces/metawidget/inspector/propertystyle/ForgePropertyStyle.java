@@ -6,7 +6,6 @@
  */
 package org.jboss.forge.addon.scaffold.faces.metawidget.inspector.propertystyle;
 
-import java.io.FileNotFoundException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationHandler;
@@ -14,7 +13,6 @@ import java.text.MessageFormat;
 import java.util.List;
 import java.util.Map;
 
-import org.jboss.forge.parser.JavaParser;
 import org.jboss.forge.parser.java.EnumConstant;
 import org.jboss.forge.parser.java.Field;
 import org.jboss.forge.parser.java.FieldHolder;
@@ -25,9 +23,7 @@ import org.jboss.forge.parser.java.Method;
 import org.jboss.forge.parser.java.MethodHolder;
 import org.jboss.forge.parser.java.Parameter;
 import org.jboss.forge.parser.java.Type;
-import org.jboss.forge.addon.projects.Project;
-import org.jboss.forge.addon.parser.java.facets.JavaSourceFacet;
-import org.jboss.forge.addon.resource.ResourceException;
+import org.jboss.forge.addon.scaffold.faces.metawidget.inspector.InspectionCache;
 import org.metawidget.inspector.iface.InspectorException;
 import org.metawidget.inspector.impl.propertystyle.BaseProperty;
 import org.metawidget.inspector.impl.propertystyle.BasePropertyStyle;
@@ -50,7 +46,7 @@ public class ForgePropertyStyle
    // Private members
    //
 
-   private final Project project;
+   private final InspectionCache inspectionCache;
 
    private final MessageFormat privateFieldConvention;
 
@@ -62,7 +58,14 @@ public class ForgePropertyStyle
    {
       super(config);
 
-      this.project = config.getProject();
+      if (config.getInspectionCache() != null)
+      {
+         this.inspectionCache = config.getInspectionCache();
+      }
+      else
+      {
+         this.inspectionCache = new InspectionCache(config.getProject());
+      }
       this.privateFieldConvention = config.getPrivateFieldConvention();
    }
 
@@ -126,14 +129,24 @@ public class ForgePropertyStyle
    {
       try
       {
+         // Shared with the other ForgePropertyStyles of this generation run
+
+         Map<String, Property> properties = this.inspectionCache.getProperties(type);
+
+         if (properties != null)
+         {
+            return properties;
+         }
+
          // LinkedHashMap so that returns ordered properties
 
-         Map<String, Property> properties = CollectionUtils.newLinkedHashMap();
+         properties = CollectionUtils.newLinkedHashMap();
 
          // Lookup properties
 
          inspectClassProperties(type, properties);
 
+         this.inspectionCache.putProperties(type, properties);
          return properties;
       }
       catch (Exception e)
@@ -149,7 +162,7 @@ public class ForgePropertyStyle
             Map<String, Property> properties)
    {
 
-      JavaSource<?> clazz = sourceForName(this.project, type);
+      JavaSource<?> clazz = this.inspectionCache.getJavaSource(type);
 
       if (clazz instanceof MethodHolder<?>)
       {
@@ -158,11 +171,10 @@ public class ForgePropertyStyle
 
          if (clazz instanceof JavaClass)
          {
-            JavaClass source = JavaParser.parse(JavaClass.class,
-                     clazz.toString());
-            if (!source.getSuperType().equals("java.lang.Object"))
+            String superType = ((JavaClass) clazz).getSuperType();
+            if (!superType.equals("java.lang.Object"))
             {
-               inspectClassProperties(source.getSuperType(), properties);
+               inspectClassProperties(superType, properties);
             }
          }
       }
@@ -225,7 +237,8 @@ public class ForgePropertyStyle
 
          properties
                   .put(propertyName,
-                           new ForgeProperty(propertyName, returnType, method, null, privateField, this.project));
+                           new ForgeProperty(propertyName, returnType, method, null, privateField,
+                                    this.inspectionCache));
       }
    }
 
@@ -333,7 +346,7 @@ public class ForgePropertyStyle
                      propertyName,
                      new ForgeProperty(propertyName, existingForgeProperty.getType(),
                               existingForgeProperty.getReadMethod(), method, getPrivateField((FieldHolder<?>) clazz,
-                                       propertyName), this.project));
+                                       propertyName), this.inspectionCache));
             continue;
          }
 
@@ -346,7 +359,7 @@ public class ForgePropertyStyle
 
          properties
                   .put(propertyName,
-                           new ForgeProperty(propertyName, type, null, method, privateField, this.project));
+                           new ForgeProperty(propertyName, type, null, method, privateField, this.inspectionCache));
       }
    }
 
@@ -409,33 +422,6 @@ public class ForgePropertyStyle
       return field;
    }
 
-   //
-   // Private methods
-   //
-
-   /*package private*/
-
-   static JavaSource<?> sourceForName(final Project project, final String type)
-   {
-      try
-      {
-         JavaSourceFacet javaSourceFact = project.getFacet(JavaSourceFacet.class);
-         return javaSourceFact.getJavaResource(type).getJavaSource();
-      }
-      catch (FileNotFoundException e)
-      {
-         // Not a Forge-based type
-
-         return null;
-      }
-      catch (ResourceException e)
-      {
-         // Not a Forge-based type
-
-         return null;
-      }
-   }
-
    //
    // Inner classes
    //
@@ -453,7 +439,7 @@ public class ForgePropertyStyle
 
       private final Field<?> privateField;
 
-      private final Project project;
+      private final InspectionCache inspectionCache;
 
       //
       // Constructor
@@ -462,7 +448,7 @@ public class ForgePropertyStyle
       public ForgeProperty(final String name, final String type, final Method<?> readMethod,
                final Method<?> writeMethod,
                final Field<?> privateField,
-               final Project project)
+               final InspectionCache inspectionCache)
       {
          super(name, type);
 
@@ -477,7 +463,7 @@ public class ForgePropertyStyle
          }
 
          this.privateField = privateField;
-         this.project = project;
+         this.inspectionCache = inspectionCache;
       }
 
       //
@@ -536,7 +522,7 @@ public class ForgePropertyStyle
 
       public List<EnumConstant<JavaEnum>> getEnumConstants()
       {
-         JavaSource<?> source = sourceForName( this.project, getType() );
+         JavaSource<?> source = this.inspectionCache.getJavaSource( getType() );
 
          if ( source instanceof JavaEnum ) {
             return ((JavaEnum) source).getEnumConstants();
@@ -9,6 +9,7 @@ package org.jboss.forge.addon.scaffold.faces.metawidget.inspector.propertystyle;
 import java.text.MessageFormat;
 
 import org.jboss.forge.addon.projects.Project;
+import org.jboss.forge.addon.scaffold.faces.metawidget.inspector.InspectionCache;
 import org.metawidget.inspector.impl.propertystyle.javabean.JavaBeanPropertyStyleConfig;
 import org.metawidget.util.simple.ObjectUtils;
 
@@ -28,6 +29,8 @@ public class ForgePropertyStyleConfig
 
    private Project project;
 
+   private InspectionCache inspectionCache;
+
    //
    // Public methods
    //
@@ -38,6 +41,20 @@ public class ForgePropertyStyleConfig
       return this;
    }
 
+   /**
+    * Sets the cache in which parsed types and their properties are kept, so that they can be shared with other
+    * <tt>ForgePropertyStyle</tt>s of the same project and private field convention. If not set, each
+    * <tt>ForgePropertyStyle</tt> uses its own.
+    *
+    * @return this, as part of a fluent interface
+    */
+
+   public ForgePropertyStyleConfig setInspectionCache(InspectionCache inspectionCache)
+   {
+      this.inspectionCache = inspectionCache;
+      return this;
+   }
+
    /**
     * Overridden to use covariant return type.
     *
@@ -70,6 +87,11 @@ public class ForgePropertyStyleConfig
          return false;
       }
 
+      if (this.inspectionCache != ((ForgePropertyStyleConfig) that).inspectionCache)
+      {
+         return false;
+      }
+
       return super.equals(that);
    }
 
@@ -79,6 +101,7 @@ public class ForgePropertyStyleConfig
 
       int hashCode = super.hashCode();
       hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(this.project);
+      hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(this.inspectionCache);
 
       return hashCode;
    }
@@ -92,6 +115,11 @@ public class ForgePropertyStyleConfig
       return this.project;
    }
 
+   protected InspectionCache getInspectionCache()
+   {
+      return this.inspectionCache;
+   }
+
    /**
     * Overridden so that is exposed to ForgePropertyStyle.
     */
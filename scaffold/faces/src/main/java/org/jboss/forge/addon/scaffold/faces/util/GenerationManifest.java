@@ -0,0 +1,259 @@
+/*
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.jboss.forge.addon.scaffold.faces.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.jboss.forge.addon.projects.Project;
+import org.jboss.forge.addon.resource.DirectoryResource;
+import org.jboss.forge.addon.resource.FileResource;
+import org.jboss.forge.addon.resource.Resource;
+
+/**
+ * Records, for each scaffolded entity, a hash of the inputs it was generated from and of every resource written for it.
+ * An entity whose inputs did not change, and whose generated resources were not modified or removed since, does not
+ * need to be generated again. Resources written for all entities, such as the navigation, are recorded separately, as
+ * they change whenever any entity is generated.
+ *
+ * The manifest is stored in the {@value #MANIFEST_FILE} file of the project root, one
+ * <code>entity=hash</code> line per entity followed by one <code>entity&gt;path=hash</code> line per generated
+ * resource, where paths are relative to the project root. The shared resources are recorded under the
+ * {@value #SHARED_OUTPUTS} entity.
+ */
+public class GenerationManifest
+{
+   public static final String MANIFEST_FILE = ".forge_scaffold_faces";
+
+   /**
+    * The name under which the resources shared by all entities are recorded, which is not a valid type name
+    */
+   public static final String SHARED_OUTPUTS = "*";
+
+   private static final Charset UTF_8 = Charset.forName("UTF-8");
+   private static final String HEADER = "# Generated by the Faces scaffold, used to skip regenerating unchanged entities";
+
+   private final DirectoryResource root;
+   private final FileResource<?> file;
+   private final Map<String, EntityEntry> entities = new TreeMap<String, EntityEntry>();
+   private boolean dirty;
+
+   private GenerationManifest(DirectoryResource root, FileResource<?> file)
+   {
+      this.root = root;
+      this.file = file;
+   }
+
+   /**
+    * Reads the manifest of the given {@link Project}. An empty manifest is returned if none exists, or if it cannot be
+    * read.
+    */
+   @SuppressWarnings("unchecked")
+   public static GenerationManifest load(Project project)
+   {
+      DirectoryResource root = project.getProjectRoot();
+      GenerationManifest result = new GenerationManifest(root, root.getChildOfType(FileResource.class, MANIFEST_FILE));
+      byte[] contents = ScaffoldUtil.getContents(result.file);
+      if (contents != null)
+      {
+         try
+         {
+            result.read(new String(contents, UTF_8));
+         }
+         catch (IOException | RuntimeException e)
+         {
+            result.entities.clear();
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Returns <code>true</code> if the given entity was generated from inputs with the given hash, and all resources
+    * generated for it still have the contents they were generated with.
+    */
+   public boolean isUpToDate(String entity, String inputs)
+   {
+      EntityEntry entry = entities.get(entity);
+      if (entry == null || !entry.inputs.equals(inputs) || entry.outputs.isEmpty())
+      {
+         return false;
+      }
+      for (Entry<String, String> output : entry.outputs.entrySet())
+      {
+         Resource<?> resource = root.getChild(output.getKey());
+         if (!(resource instanceof FileResource))
+         {
+            return false;
+         }
+         byte[] contents = ScaffoldUtil.getContents((FileResource<?>) resource);
+         if (contents == null || !output.getValue().equals(hash(contents)))
+         {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Returns <code>true</code> if the resources shared by all entities were generated from inputs with the given hash,
+    * and all of them still have the contents they were last generated with.
+    */
+   public boolean isSharedUpToDate(String inputs)
+   {
+      return isUpToDate(SHARED_OUTPUTS, inputs);
+   }
+
+   /**
+    * Records the resources shared by all entities, generated from inputs with the given hash.
+    */
+   public void updateShared(String inputs, List<Resource<?>> outputs)
+   {
+      update(SHARED_OUTPUTS, inputs, outputs);
+   }
+
+   /**
+    * Records that the given entity was generated from inputs with the given hash into the given resources. Resources
+    * outside of the project root are not recorded.
+    */
+   public void update(String entity, String inputs, List<Resource<?>> outputs)
+   {
+      EntityEntry entry = new EntityEntry(inputs);
+      String rootPath = root.getFullyQualifiedName().replace('\\', '/') + "/";
+      for (Resource<?> output : outputs)
+      {
+         if (output instanceof FileResource)
+         {
+            String path = output.getFullyQualifiedName().replace('\\', '/');
+            byte[] contents = ScaffoldUtil.getContents((FileResource<?>) output);
+            if (path.startsWith(rootPath) && contents != null)
+            {
+               entry.outputs.put(path.substring(rootPath.length()), hash(contents));
+            }
+         }
+      }
+      EntityEntry previous = entities.put(entity, entry);
+      dirty |= !entry.equals(previous);
+   }
+
+   /**
+    * Writes the manifest, if it was modified since it was loaded.
+    */
+   public void save()
+   {
+      if (dirty)
+      {
+         StringBuilder contents = new StringBuilder(HEADER).append('\n');
+         for (Entry<String, EntityEntry> entity : entities.entrySet())
+         {
+            contents.append(entity.getKey()).append('=').append(entity.getValue().inputs).append('\n');
+            for (Entry<String, String> output : entity.getValue().outputs.entrySet())
+            {
+               contents.append(entity.getKey()).append('>').append(output.getKey()).append('=')
+                        .append(output.getValue()).append('\n');
+            }
+         }
+         file.createNewFile();
+         file.setContents(contents.toString(), UTF_8);
+         dirty = false;
+      }
+   }
+
+   /**
+    * Returns the hexadecimal SHA-1 hash of the given contents.
+    */
+   public static String hash(CharSequence contents)
+   {
+      return hash(contents.toString().getBytes(UTF_8));
+   }
+
+   /**
+    * Returns the hexadecimal SHA-1 hash of the given contents.
+    */
+   public static String hash(byte[] contents)
+   {
+      try
+      {
+         StringBuilder result = new StringBuilder();
+         for (byte b : MessageDigest.getInstance("SHA-1").digest(contents))
+         {
+            result.append(String.format("%02x", b));
+         }
+         return result.toString();
+      }
+      catch (NoSuchAlgorithmException e)
+      {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   private void read(String contents) throws IOException
+   {
+      BufferedReader reader = new BufferedReader(new StringReader(contents));
+      String line;
+      while ((line = reader.readLine()) != null)
+      {
+         int separator = line.lastIndexOf('=');
+         if (line.startsWith("#") || separator < 0)
+         {
+            continue;
+         }
+         String key = line.substring(0, separator);
+         String value = line.substring(separator + 1);
+         int path = key.indexOf('>');
+         if (path < 0)
+         {
+            entities.put(key, new EntityEntry(value));
+         }
+         else
+         {
+            EntityEntry entry = entities.get(key.substring(0, path));
+            if (entry != null)
+            {
+               entry.outputs.put(key.substring(path + 1), value);
+            }
+         }
+      }
+   }
+
+   private static class EntityEntry
+   {
+      private final String inputs;
+      private final Map<String, String> outputs = new LinkedHashMap<String, String>();
+
+      public EntityEntry(String inputs)
+      {
+         this.inputs = inputs;
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return 31 * inputs.hashCode() + outputs.hashCode();
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         if (this == obj)
+            return true;
+         if (!(obj instanceof EntityEntry))
+            return false;
+         EntityEntry other = (EntityEntry) obj;
+         return inputs.equals(other.inputs) && outputs.equals(other.outputs);
+      }
+   }
+}
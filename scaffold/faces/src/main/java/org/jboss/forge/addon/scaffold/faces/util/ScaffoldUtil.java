@@ -6,27 +6,46 @@
  */
 package org.jboss.forge.addon.scaffold.faces.util;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 import org.jboss.forge.addon.resource.FileResource;
 import org.jboss.forge.addon.resource.Resource;
+import org.jboss.forge.furnace.util.Streams;
 
 /**
+ * Writes generated resources. Resources that already have the generated contents are left untouched, so that
+ * regenerating a scaffold does not modify files (and their timestamps) needlessly.
+ *
  * @author <a href="mailto:lincolnbaxter@gmail.com">Lincoln Baxter, III</a>
- * 
+ *
  */
 public class ScaffoldUtil
 {
    public static Resource<?> createOrOverwrite(final FileResource<?> resource, final InputStream contents,
             final boolean overwrite)
    {
-      if (!resource.exists() || overwrite)
+      try
       {
-         resource.createNewFile();
-         resource.setContents(contents);
-         return resource;
+         if (!resource.exists() || overwrite)
+         {
+            byte[] data = toByteArray(contents);
+            if (!hasContents(resource, data))
+            {
+               resource.createNewFile();
+               resource.setContents(new ByteArrayInputStream(data));
+            }
+            return resource;
+         }
+         return null;
+      }
+      finally
+      {
+         Streams.closeQuietly(contents);
       }
-      return null;
    }
 
    public static Resource<?> createOrOverwrite(final FileResource<?> resource, final String contents,
@@ -34,11 +53,63 @@ public class ScaffoldUtil
    {
       if (!resource.exists() || overwrite)
       {
-         resource.createNewFile();
-         resource.setContents(contents);
+         // FileResource.setContents(String) writes the bytes of the platform default charset
+         if (!hasContents(resource, contents.getBytes()))
+         {
+            resource.createNewFile();
+            resource.setContents(contents);
+         }
          return resource;
       }
       return null;
    }
 
+   /**
+    * Returns the current contents of the given file, or <code>null</code> if it does not exist or is a directory.
+    */
+   public static byte[] getContents(final FileResource<?> resource)
+   {
+      if (!resource.exists() || resource.isDirectory())
+      {
+         return null;
+      }
+      InputStream stream = resource.getResourceInputStream();
+      try
+      {
+         return toByteArray(stream);
+      }
+      finally
+      {
+         Streams.closeQuietly(stream);
+      }
+   }
+
+   private static boolean hasContents(final FileResource<?> resource, final byte[] data)
+   {
+      if (!resource.exists() || resource.isDirectory() || resource.getSize() != data.length)
+      {
+         return false;
+      }
+      return Arrays.equals(data, getContents(resource));
+   }
+
+   private static byte[] toByteArray(final InputStream stream)
+   {
+      try
+      {
+         ByteArrayOutputStream result = new ByteArrayOutputStream();
+         byte[] buffer = new byte[8192];
+         int read;
+         while ((read = stream.read(buffer)) != -1)
+         {
+            result.write(buffer, 0, read);
+         }
+         return result.toByteArray();
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException(e);
+      }
+   }
+
 }
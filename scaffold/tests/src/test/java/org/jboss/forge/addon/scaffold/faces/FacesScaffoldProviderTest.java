@@ -0,0 +1,84 @@
+/**
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.scaffold.faces;
+
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.forge.addon.projects.Project;
+import org.jboss.forge.arquillian.AddonDependency;
+import org.jboss.forge.arquillian.Dependencies;
+import org.jboss.forge.arquillian.archive.ForgeArchive;
+import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(Arquillian.class)
+public class FacesScaffoldProviderTest
+{
+   @Deployment
+   @Dependencies({
+            @AddonDependency(name = "org.jboss.forge.addon:projects"),
+            @AddonDependency(name = "org.jboss.forge.addon:javaee"),
+            @AddonDependency(name = "org.jboss.forge.addon:maven"),
+            @AddonDependency(name = "org.jboss.forge.addon:scaffold"),
+            @AddonDependency(name = "org.jboss.forge.furnace.container:cdi")
+   })
+   public static ForgeArchive getDeployment()
+   {
+      ForgeArchive archive = ShrinkWrap
+               .create(ForgeArchive.class)
+               .addBeansXML()
+               .addClass(ScaffoldProjectHelper.class)
+               .addAsAddonDependencies(
+                        AddonDependencyEntry.create("org.jboss.forge.addon:projects"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:javaee"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:maven"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:scaffold"),
+                        AddonDependencyEntry.create("org.jboss.forge.furnace.container:cdi")
+               );
+
+      return archive;
+   }
+
+   @Inject
+   private ScaffoldProjectHelper helper;
+
+   @Test
+   public void testConcurrentGenerationMatchesSequentialGeneration() throws Exception
+   {
+      Project project = helper.createProjectWithEntities();
+      helper.setup(project);
+
+      helper.generate(project, "Customer", "Order");
+      Map<String, String> sequential = helper.getSourceFiles(project);
+
+      System.setProperty("scaffold.faces.threads", "4");
+      try
+      {
+         helper.generate(project, "Customer", "Order");
+      }
+      finally
+      {
+         System.clearProperty("scaffold.faces.threads");
+      }
+      Map<String, String> concurrent = helper.getSourceFiles(project);
+
+      Assert.assertTrue(sequential.keySet().toString(), sequential.size() > 2);
+      Assert.assertEquals(sequential.keySet(), concurrent.keySet());
+      for (String path : sequential.keySet())
+      {
+         Assert.assertEquals(path, sequential.get(path), concurrent.get(path));
+      }
+   }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.scaffold.faces;
+
+import java.util.List;
+
+import javax.inject.Inject;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.forge.addon.parser.java.facets.JavaSourceFacet;
+import org.jboss.forge.addon.projects.Project;
+import org.jboss.forge.addon.resource.Resource;
+import org.jboss.forge.addon.scaffold.faces.util.GenerationManifest;
+import org.jboss.forge.arquillian.AddonDependency;
+import org.jboss.forge.arquillian.Dependencies;
+import org.jboss.forge.arquillian.archive.ForgeArchive;
+import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(Arquillian.class)
+public class IncrementalGenerationTest
+{
+   @Deployment
+   @Dependencies({
+            @AddonDependency(name = "org.jboss.forge.addon:projects"),
+            @AddonDependency(name = "org.jboss.forge.addon:javaee"),
+            @AddonDependency(name = "org.jboss.forge.addon:maven"),
+            @AddonDependency(name = "org.jboss.forge.addon:scaffold"),
+            @AddonDependency(name = "org.jboss.forge.furnace.container:cdi")
+   })
+   public static ForgeArchive getDeployment()
+   {
+      ForgeArchive archive = ShrinkWrap
+               .create(ForgeArchive.class)
+               .addBeansXML()
+               .addClass(ScaffoldProjectHelper.class)
+               .addAsAddonDependencies(
+                        AddonDependencyEntry.create("org.jboss.forge.addon:projects"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:javaee"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:maven"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:scaffold"),
+                        AddonDependencyEntry.create("org.jboss.forge.furnace.container:cdi")
+               );
+
+      return archive;
+   }
+
+   @Inject
+   private ScaffoldProjectHelper helper;
+
+   @After
+   public void tearDown()
+   {
+      System.clearProperty("scaffold.faces.incremental");
+   }
+
+   @Test
+   public void testManifestIsNotWrittenByDefault() throws Exception
+   {
+      Project project = helper.createProjectWithEntities();
+      helper.setup(project);
+      helper.generate(project, "Customer", "Order");
+      Assert.assertFalse(project.getProjectRoot().getChild(GenerationManifest.MANIFEST_FILE).exists());
+
+      Assert.assertFalse(helper.generate(project, "Customer", "Order").isEmpty());
+   }
+
+   @Test
+   public void testUnchangedEntitiesAreSkipped() throws Exception
+   {
+      Project project = createProjectWithMappedSuperclass();
+      helper.setup(project);
+      System.setProperty("scaffold.faces.incremental", "true");
+
+      assertGenerated(helper.generate(project, "Customer", "Order"), true, true);
+      Assert.assertTrue(project.getProjectRoot().getChild(GenerationManifest.MANIFEST_FILE).exists());
+      assertGenerated(helper.generate(project, "Customer", "Order"), false, false);
+   }
+
+   @Test
+   public void testChangedSuperclassRegeneratesSubclass() throws Exception
+   {
+      Project project = createProjectWithMappedSuperclass();
+      helper.setup(project);
+      System.setProperty("scaffold.faces.incremental", "true");
+      helper.generate(project, "Customer", "Order");
+
+      helper.saveEntity(project, "package " + helper.getModelPackage(project) + "; "
+               + "import javax.persistence.*; "
+               + "@MappedSuperclass public class BaseEntity { "
+               + "private String createdBy; "
+               + "private String updatedBy; "
+               + "public String getCreatedBy() { return createdBy; } "
+               + "public void setCreatedBy(String createdBy) { this.createdBy = createdBy; } "
+               + "public String getUpdatedBy() { return updatedBy; } "
+               + "public void setUpdatedBy(String updatedBy) { this.updatedBy = updatedBy; } }");
+      assertGenerated(helper.generate(project, "Customer", "Order"), true, false);
+
+      // Regenerating one entity rewrites the shared resources, which must not invalidate the other entities
+      assertGenerated(helper.generate(project, "Customer", "Order"), false, false);
+   }
+
+   @Test
+   public void testRemovedSharedResourceRegeneratesAllEntities() throws Exception
+   {
+      Project project = createProjectWithMappedSuperclass();
+      helper.setup(project);
+      System.setProperty("scaffold.faces.incremental", "true");
+      helper.generate(project, "Customer", "Order");
+
+      JavaSourceFacet java = project.getFacet(JavaSourceFacet.class);
+      Assert.assertTrue(java.getJavaResource(java.getBasePackage() + ".view.ViewUtils").delete());
+      assertGenerated(helper.generate(project, "Customer", "Order"), true, true);
+      Assert.assertTrue(java.getJavaResource(java.getBasePackage() + ".view.ViewUtils").exists());
+   }
+
+   private Project createProjectWithMappedSuperclass() throws Exception
+   {
+      Project project = helper.createProjectWithEntities();
+      String packageName = helper.getModelPackage(project);
+      helper.saveEntity(project, "package " + packageName + "; "
+               + "import javax.persistence.*; "
+               + "@MappedSuperclass public class BaseEntity { "
+               + "private String createdBy; "
+               + "public String getCreatedBy() { return createdBy; } "
+               + "public void setCreatedBy(String createdBy) { this.createdBy = createdBy; } }");
+      helper.saveEntity(project, "package " + packageName + "; "
+               + "import javax.persistence.*; "
+               + "@Entity public class Customer extends BaseEntity { "
+               + "@Id @GeneratedValue private Long id; "
+               + "private String name; "
+               + "public Long getId() { return id; } "
+               + "public void setId(Long id) { this.id = id; } "
+               + "public String getName() { return name; } "
+               + "public void setName(String name) { this.name = name; } }");
+      return project;
+   }
+
+   private void assertGenerated(List<Resource<?>> generated, boolean customer, boolean order)
+   {
+      Assert.assertEquals(generated.toString(), customer, contains(generated, "/customer/create.xhtml"));
+      Assert.assertEquals(generated.toString(), order, contains(generated, "/order/create.xhtml"));
+   }
+
+   private boolean contains(List<Resource<?>> generated, String path)
+   {
+      for (Resource<?> resource : generated)
+      {
+         if (resource != null && resource.getFullyQualifiedName().replace('\\', '/').endsWith(path))
+         {
+            return true;
+         }
+      }
+      return false;
+   }
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.scaffold.faces;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.inject.Inject;
+
+import org.jboss.forge.addon.facets.FacetFactory;
+import org.jboss.forge.addon.javaee.cdi.CDIFacet_1_1;
+import org.jboss.forge.addon.javaee.ejb.EJBFacet_3_2;
+import org.jboss.forge.addon.javaee.faces.FacesFacet_2_2;
+import org.jboss.forge.addon.javaee.jpa.JPAFacet_2_0;
+import org.jboss.forge.addon.javaee.servlet.ServletFacet_3_1;
+import org.jboss.forge.addon.parser.java.JavaSourceFactory;
+import org.jboss.forge.addon.parser.java.facets.JavaSourceFacet;
+import org.jboss.forge.addon.parser.java.projects.JavaWebProjectType;
+import org.jboss.forge.addon.parser.java.resources.JavaResource;
+import org.jboss.forge.addon.projects.Project;
+import org.jboss.forge.addon.projects.ProjectFactory;
+import org.jboss.forge.addon.projects.facets.MetadataFacet;
+import org.jboss.forge.addon.resource.Resource;
+import org.jboss.forge.addon.scaffold.spi.ScaffoldGenerationContext;
+import org.jboss.forge.addon.scaffold.spi.ScaffoldSetupContext;
+import org.jboss.forge.furnace.util.Streams;
+import org.jboss.forge.parser.java.JavaClass;
+
+/**
+ * Creates web projects with JPA entities and generates the Faces scaffold for them
+ */
+public class ScaffoldProjectHelper
+{
+   @Inject
+   private ProjectFactory projectFactory;
+
+   @Inject
+   private FacetFactory facetFactory;
+
+   @Inject
+   private JavaWebProjectType javaWebProjectType;
+
+   @Inject
+   private JavaSourceFactory sourceFactory;
+
+   @Inject
+   private FacesScaffoldProvider provider;
+
+   /**
+    * Creates a web project with the facets required by the Faces scaffold, a <code>Customer</code> entity and an
+    * <code>Order</code> entity referencing it.
+    */
+   public Project createProjectWithEntities() throws FileNotFoundException
+   {
+      Project project = projectFactory.createTempProject(javaWebProjectType.getRequiredFacets());
+      facetFactory.install(project, JPAFacet_2_0.class);
+      facetFactory.install(project, CDIFacet_1_1.class);
+      facetFactory.install(project, EJBFacet_3_2.class);
+      facetFactory.install(project, ServletFacet_3_1.class);
+      facetFactory.install(project, FacesFacet_2_2.class);
+
+      String packageName = getModelPackage(project);
+      saveEntity(project, "package " + packageName + "; "
+               + "import javax.persistence.*; "
+               + "@Entity public class Customer { "
+               + "@Id @GeneratedValue private Long id; "
+               + "private String name; "
+               + "public Long getId() { return id; } "
+               + "public void setId(Long id) { this.id = id; } "
+               + "public String getName() { return name; } "
+               + "public void setName(String name) { this.name = name; } }");
+      saveEntity(project, "package " + packageName + "; "
+               + "import javax.persistence.*; "
+               + "@Entity public class Order { "
+               + "@Id @GeneratedValue private Long id; "
+               + "private String description; "
+               + "@ManyToOne private Customer customer; "
+               + "public Long getId() { return id; } "
+               + "public void setId(Long id) { this.id = id; } "
+               + "public String getDescription() { return description; } "
+               + "public void setDescription(String description) { this.description = description; } "
+               + "public Customer getCustomer() { return customer; } "
+               + "public void setCustomer(Customer customer) { this.customer = customer; } }");
+      return project;
+   }
+
+   public String getModelPackage(Project project)
+   {
+      return project.getFacet(MetadataFacet.class).getTopLevelPackage() + ".model";
+   }
+
+   public JavaResource saveEntity(Project project, String source) throws FileNotFoundException
+   {
+      return project.getFacet(JavaSourceFacet.class).saveJavaSource(sourceFactory.parse(source));
+   }
+
+   /**
+    * Sets up the Faces scaffold in the given project
+    */
+   public void setup(Project project)
+   {
+      provider.setFaceted(project);
+      provider.setup(project, new ScaffoldSetupContext("", true));
+   }
+
+   /**
+    * Generates the Faces scaffold for the given entities, as currently saved in the project, and returns the generated
+    * resources
+    */
+   public List<Resource<?>> generate(Project project, String... entities) throws FileNotFoundException
+   {
+      JavaSourceFacet java = project.getFacet(JavaSourceFacet.class);
+      List<JavaClass> resources = new ArrayList<JavaClass>();
+      for (String entity : entities)
+      {
+         resources.add((JavaClass) java.getJavaResource(getModelPackage(project) + "." + entity).getJavaSource());
+      }
+      provider.setFaceted(project);
+      return provider.generateFrom(project, new ScaffoldGenerationContext("", true, resources));
+   }
+
+   /**
+    * Returns the contents of all files below the source directory of the given project, by relative path
+    */
+   public Map<String, String> getSourceFiles(Project project) throws FileNotFoundException
+   {
+      File root = project.getRootDirectory().getUnderlyingResourceObject();
+      Map<String, String> files = new TreeMap<String, String>();
+      collect(root, new File(root, "src"), files);
+      return files;
+   }
+
+   private void collect(File root, File file, Map<String, String> files) throws FileNotFoundException
+   {
+      if (file.isDirectory())
+      {
+         for (File child : file.listFiles())
+         {
+            collect(root, child, files);
+         }
+      }
+      else
+      {
+         String path = file.getAbsolutePath().substring(root.getAbsolutePath().length());
+         InputStream stream = new FileInputStream(file);
+         try
+         {
+            files.put(path, Streams.toString(stream));
+         }
+         finally
+         {
+            Streams.closeQuietly(stream);
+         }
+      }
+   }
+}
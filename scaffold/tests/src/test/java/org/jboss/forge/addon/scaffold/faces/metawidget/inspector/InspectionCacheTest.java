@@ -0,0 +1,127 @@
+/**
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.scaffold.faces.metawidget.inspector;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.forge.addon.projects.Project;
+import org.jboss.forge.addon.scaffold.faces.ScaffoldProjectHelper;
+import org.jboss.forge.arquillian.AddonDependency;
+import org.jboss.forge.arquillian.Dependencies;
+import org.jboss.forge.arquillian.archive.ForgeArchive;
+import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
+import org.jboss.forge.parser.java.JavaClass;
+import org.jboss.forge.parser.java.JavaSource;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.metawidget.inspector.impl.propertystyle.Property;
+
+@RunWith(Arquillian.class)
+public class InspectionCacheTest
+{
+   @Deployment
+   @Dependencies({
+            @AddonDependency(name = "org.jboss.forge.addon:projects"),
+            @AddonDependency(name = "org.jboss.forge.addon:javaee"),
+            @AddonDependency(name = "org.jboss.forge.addon:maven"),
+            @AddonDependency(name = "org.jboss.forge.addon:scaffold"),
+            @AddonDependency(name = "org.jboss.forge.furnace.container:cdi")
+   })
+   public static ForgeArchive getDeployment()
+   {
+      ForgeArchive archive = ShrinkWrap
+               .create(ForgeArchive.class)
+               .addBeansXML()
+               .addClass(ScaffoldProjectHelper.class)
+               .addAsAddonDependencies(
+                        AddonDependencyEntry.create("org.jboss.forge.addon:projects"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:javaee"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:maven"),
+                        AddonDependencyEntry.create("org.jboss.forge.addon:scaffold"),
+                        AddonDependencyEntry.create("org.jboss.forge.furnace.container:cdi")
+               );
+
+      return archive;
+   }
+
+   @Inject
+   private ScaffoldProjectHelper helper;
+
+   @Test
+   public void testSourcesAreParsedOncePerCache() throws Exception
+   {
+      Project project = helper.createProjectWithEntities();
+      String customer = helper.getModelPackage(project) + ".Customer";
+
+      InspectionCache cache = new InspectionCache(project);
+      JavaSource<?> source = cache.getJavaSource(customer);
+      Assert.assertNotNull(source);
+      Assert.assertSame(source, cache.getJavaSource(customer));
+
+      InspectionCache otherCache = new InspectionCache(project);
+      Assert.assertNotSame("Caches must not share parsed sources", source, otherCache.getJavaSource(customer));
+   }
+
+   @Test
+   public void testTypesWithoutSourceAreRemembered() throws Exception
+   {
+      Project project = helper.createProjectWithEntities();
+      InspectionCache cache = new InspectionCache(project);
+      Assert.assertNull(cache.getJavaSource("java.lang.String"));
+      Assert.assertNull(cache.getJavaSource("java.lang.String"));
+   }
+
+   @Test
+   public void testInvalidateDiscardsTypeAndInspectionResults() throws Exception
+   {
+      Project project = helper.createProjectWithEntities();
+      String customer = helper.getModelPackage(project) + ".Customer";
+      InspectionCache cache = new InspectionCache(project);
+      JavaSource<?> source = cache.getJavaSource(customer);
+      cache.putProperties(customer, Collections.<String, Property> emptyMap());
+      cache.putInspectionResult(customer, null, Collections.singletonMap("required", "true"));
+      Assert.assertNotNull(cache.getProperties(customer));
+      Assert.assertNotNull(cache.getInspectionResult(customer, null));
+
+      helper.saveEntity(project, "package " + helper.getModelPackage(project) + "; "
+               + "import javax.persistence.*; @Entity public class Customer { @Id private Long id; }");
+      cache.invalidate(customer);
+
+      Assert.assertNull(cache.getProperties(customer));
+      Assert.assertNull(cache.getInspectionResult(customer, null));
+      JavaSource<?> changed = cache.getJavaSource(customer);
+      Assert.assertNotSame(source, changed);
+      Assert.assertNull(((JavaClass) changed).getField("name"));
+   }
+
+   @Test
+   public void testPropertiesAreReturnedReadOnly() throws Exception
+   {
+      Project project = helper.createProjectWithEntities();
+      InspectionCache cache = new InspectionCache(project);
+      cache.putProperties("Type", new HashMap<String, Property>());
+      Map<String, Property> properties = cache.getProperties("Type");
+      try
+      {
+         properties.put("name", null);
+         Assert.fail("Cached properties must not be modifiable");
+      }
+      catch (UnsupportedOperationException e)
+      {
+         // expected
+      }
+   }
+}
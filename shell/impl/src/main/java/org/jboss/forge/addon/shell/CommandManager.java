@@ -1,34 +1,65 @@
 package org.jboss.forge.addon.shell;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.jboss.forge.addon.convert.ConverterFactory;
+import org.jboss.forge.addon.resource.Resource;
 import org.jboss.forge.addon.shell.aesh.ShellSingleCommand;
 import org.jboss.forge.addon.shell.ui.ShellContext;
 import org.jboss.forge.addon.shell.util.ShellUtil;
 import org.jboss.forge.addon.ui.command.CommandFactory;
 import org.jboss.forge.addon.ui.command.UICommand;
 import org.jboss.forge.addon.ui.context.UIContext;
+import org.jboss.forge.addon.ui.context.UISelection;
 import org.jboss.forge.addon.ui.util.Commands;
+import org.jboss.forge.addon.ui.wizard.UIWizardStep;
 import org.jboss.forge.furnace.addons.AddonRegistry;
+import org.jboss.forge.furnace.proxy.Proxies;
+import org.jboss.forge.furnace.services.Imported;
 
 /**
  * Manages {@link ShellSingleCommand} objects
- * 
+ *
+ * Command names are looked up in a catalog of all available commands, which is only rebuilt when addons are added or
+ * removed. Whether a command is enabled is evaluated when it is first needed, and remembered for the current working
+ * directory until a command is executed or {@link #ENABLEMENT_TTL} expires.
+ *
  * @author <a href="ggastald@redhat.com">George Gastaldi</a>
  */
 @Singleton
 public class CommandManager
 {
+   /**
+    * The number of milliseconds for which the enablement of commands is remembered, so that changes made outside of
+    * the shell are eventually noticed.
+    */
+   private static final long ENABLEMENT_TTL = Long.getLong("shell.command.enablement.ttl", 5000);
+
+   private static final int MAX_WORKING_DIRECTORIES = 32;
+
    private final AddonRegistry addonRegistry;
 
    private ConverterFactory converterFactory;
    private CommandFactory commandFactory;
 
+   private volatile CommandCatalog catalog;
+   private final ConcurrentMap<String, EnabledCommands> enabledCommands = new ConcurrentHashMap<>();
+   private final AtomicLong executions = new AtomicLong();
+
    @Inject
    public CommandManager(final AddonRegistry addonRegistry)
    {
@@ -42,14 +73,44 @@ public class CommandManager
 
    public Set<String> getAllCommandNames(ShellContext shellContext)
    {
+      CommandCatalog catalog = getCatalog(shellContext);
+      EnabledCommands enabled = getEnabledCommands(shellContext, catalog);
       Set<String> commands = new TreeSet<>();
-      for (UICommand cmd : Commands.getEnabledCommands(getAllCommands(), shellContext))
+      for (Entry<String, List<UICommand>> entry : catalog.commandsByName.entrySet())
       {
-         commands.add(getCommandName(shellContext, cmd));
+         for (UICommand cmd : entry.getValue())
+         {
+            if (enabled.isEnabled(cmd, shellContext))
+            {
+               commands.add(entry.getKey());
+               break;
+            }
+         }
       }
       return commands;
    }
 
+   /**
+    * Returns a new instance of the enabled command with the given shell name, or <code>null</code> if there is none.
+    */
+   public UICommand findCommand(ShellContext shellContext, String name)
+   {
+      CommandCatalog catalog = getCatalog(shellContext);
+      List<UICommand> candidates = catalog.commandsByName.get(name);
+      if (candidates != null)
+      {
+         EnabledCommands enabled = getEnabledCommands(shellContext, catalog);
+         for (UICommand candidate : candidates)
+         {
+            if (enabled.isEnabled(candidate, shellContext))
+            {
+               return newInstance(shellContext, candidate, name);
+            }
+         }
+      }
+      return null;
+   }
+
    public String getCommandName(UIContext context, UICommand cmd)
    {
       return ShellUtil.shellifyName(cmd.getMetadata(context).getName());
@@ -57,11 +118,16 @@ public class CommandManager
 
    public Iterable<UICommand> getAllCommands()
    {
-      if (commandFactory == null)
-      {
-         commandFactory = addonRegistry.getServices(CommandFactory.class).get();
-      }
-      return commandFactory.getCommands();
+      return getCommandFactory().getCommands();
+   }
+
+   /**
+    * Forgets which commands are enabled, as executing a command may have changed that.
+    */
+   public void commandExecuted()
+   {
+      executions.incrementAndGet();
+      enabledCommands.clear();
    }
 
    ConverterFactory getConverterFactory()
@@ -72,4 +138,150 @@ public class CommandManager
       }
       return converterFactory;
    }
+
+   private CommandFactory getCommandFactory()
+   {
+      if (commandFactory == null)
+      {
+         commandFactory = addonRegistry.getServices(CommandFactory.class).get();
+      }
+      return commandFactory;
+   }
+
+   private CommandCatalog getCatalog(UIContext context)
+   {
+      long version = addonRegistry.getVersion();
+      CommandCatalog result = catalog;
+      if (result == null || result.version != version)
+      {
+         synchronized (this)
+         {
+            result = catalog;
+            if (result == null || result.version != version)
+            {
+               result = new CommandCatalog(version);
+               for (UICommand cmd : getAllCommands())
+               {
+                  if (!(cmd instanceof UIWizardStep))
+                  {
+                     result.add(getCommandName(context, cmd), cmd);
+                  }
+               }
+               catalog = result;
+               enabledCommands.clear();
+            }
+         }
+      }
+      return result;
+   }
+
+   private EnabledCommands getEnabledCommands(UIContext context, CommandCatalog catalog)
+   {
+      String workingDirectory = getWorkingDirectory(context);
+      long now = System.currentTimeMillis();
+      long execution = executions.get();
+      EnabledCommands result = enabledCommands.get(workingDirectory);
+      if (result == null || result.catalog != catalog || result.execution != execution
+               || now - result.created > ENABLEMENT_TTL)
+      {
+         if (enabledCommands.size() >= MAX_WORKING_DIRECTORIES)
+         {
+            enabledCommands.clear();
+         }
+         result = new EnabledCommands(catalog, execution, now);
+         enabledCommands.put(workingDirectory, result);
+      }
+      return result;
+   }
+
+   private String getWorkingDirectory(UIContext context)
+   {
+      UISelection<?> selection = context.getInitialSelection();
+      Object current = (selection == null || selection.isEmpty()) ? null : selection.get();
+      if (current instanceof Resource)
+      {
+         return ((Resource<?>) current).getFullyQualifiedName();
+      }
+      return String.valueOf(current);
+   }
+
+   /**
+    * Commands may hold state once their UI is initialized, so the command instances in the catalog are only used for
+    * lookups. A new instance of the same type is returned for execution.
+    */
+   private UICommand newInstance(UIContext context, UICommand cmd, String name)
+   {
+      UICommand unwrapped = Proxies.unwrap(cmd);
+      Class<? extends UICommand> type = unwrapped.getClass();
+      Imported<? extends UICommand> services = addonRegistry.getServices(type);
+      if (!services.isUnsatisfied() && !services.isAmbiguous())
+      {
+         return services.get();
+      }
+
+      // Not a service on its own (eg. commands created by a CommandProvider), so look it up again
+      for (UICommand candidate : Commands.getEnabledCommands(getAllCommands(), context))
+      {
+         if (name.equals(getCommandName(context, candidate)))
+         {
+            return candidate;
+         }
+      }
+      return null;
+   }
+
+   /**
+    * All available commands, by their shell name.
+    */
+   private static class CommandCatalog
+   {
+      private final long version;
+      private final Map<String, List<UICommand>> commandsByName = new TreeMap<>();
+
+      public CommandCatalog(long version)
+      {
+         this.version = version;
+      }
+
+      public void add(String name, UICommand cmd)
+      {
+         List<UICommand> commands = commandsByName.get(name);
+         if (commands == null)
+         {
+            commands = new ArrayList<>(1);
+            commandsByName.put(name, commands);
+         }
+         commands.add(cmd);
+      }
+   }
+
+   /**
+    * Remembers which commands of a {@link CommandCatalog} are enabled in a working directory.
+    */
+   private static class EnabledCommands
+   {
+      private final CommandCatalog catalog;
+      private final long execution;
+      private final long created;
+      private final Map<UICommand, Boolean> enabled = Collections
+               .synchronizedMap(new IdentityHashMap<UICommand, Boolean>());
+
+      public EnabledCommands(CommandCatalog catalog, long execution, long created)
+      {
+         this.catalog = catalog;
+         this.execution = execution;
+         this.created = created;
+      }
+
+      public boolean isEnabled(UICommand cmd, UIContext context)
+      {
+         Boolean result = enabled.get(cmd);
+         if (result == null)
+         {
+            result = cmd.isEnabled(context);
+            enabled.put(cmd, result);
+         }
+         return result;
+      }
+   }
 }
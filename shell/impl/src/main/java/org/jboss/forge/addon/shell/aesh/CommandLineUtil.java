@@ -27,6 +27,7 @@ import org.jboss.aesh.console.command.completer.CompleterInvocation;
 import org.jboss.aesh.console.command.converter.ConverterInvocation;
 import org.jboss.aesh.console.command.validator.ValidatorInvocation;
 import org.jboss.forge.addon.convert.ConverterFactory;
+import org.jboss.forge.addon.shell.aesh.completion.CompletionPipeline;
 import org.jboss.forge.addon.shell.aesh.completion.OptionCompleterFactory;
 import org.jboss.forge.addon.shell.ui.ShellContext;
 import org.jboss.forge.addon.shell.util.ShellUtil;
@@ -54,12 +55,21 @@ public class CommandLineUtil
    private static final String ARGUMENTS_INPUT_NAME = "arguments";
 
    private final ConverterFactory converterFactory;
+   private final CompletionPipeline completionPipeline = new CompletionPipeline();
 
    public CommandLineUtil(ConverterFactory converterFactory)
    {
       this.converterFactory = converterFactory;
    }
 
+   /**
+    * Forgets the completion proposals cached for the options of all commands.
+    */
+   public void invalidateCompletions()
+   {
+      completionPipeline.invalidate();
+   }
+
    public CommandLineParser generateParser(CommandController command, ShellContext shellContext,
             Map<String, InputComponent<?, ?>> inputs)
    {
@@ -72,8 +82,9 @@ public class CommandLineUtil
    {
       UICommandMetadata metadata = (command instanceof WizardCommandController) ? ((WizardCommandController) command)
                .getInitialMetadata() : command.getMetadata();
-      ProcessedCommand parameter = new ProcessedCommand(ShellUtil.shellifyName(metadata.getName()),
-               metadata.getDescription(), ForgeCommandValidator.INSTANCE);
+      String commandName = ShellUtil.shellifyName(metadata.getName());
+      ProcessedCommand parameter = new ProcessedCommand(commandName, metadata.getDescription(),
+               ForgeCommandValidator.INSTANCE);
 
       for (final InputComponent<?, ?> input : inputs.values())
       {
@@ -97,7 +108,7 @@ public class CommandLineUtil
                optionBuilder.required(true).renderer(OptionRenderers.REQUIRED);
             }
             OptionCompleter<CompleterInvocation> completer = OptionCompleterFactory.getCompletionFor(
-                     input, shellContext, converterFactory);
+                     input, shellContext, converterFactory, completionPipeline, commandName, inputs.values());
             optionBuilder.completer(completer);
             optionBuilder.activator(new OptionActivator()
             {
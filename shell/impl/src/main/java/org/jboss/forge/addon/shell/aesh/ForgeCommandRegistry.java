@@ -25,10 +25,12 @@ import org.jboss.forge.addon.shell.ShellImpl;
 import org.jboss.forge.addon.shell.ui.AeshUICommand;
 import org.jboss.forge.addon.shell.ui.ShellContext;
 import org.jboss.forge.addon.shell.ui.ShellContextImpl;
+import org.jboss.forge.addon.ui.command.AbstractCommandExecutionListener;
 import org.jboss.forge.addon.ui.command.UICommand;
+import org.jboss.forge.addon.ui.context.UIExecutionContext;
 import org.jboss.forge.addon.ui.controller.CommandControllerFactory;
 import org.jboss.forge.addon.ui.controller.SingleCommandController;
-import org.jboss.forge.addon.ui.util.Commands;
+import org.jboss.forge.addon.ui.result.Result;
 import org.jboss.forge.addon.ui.wizard.UIWizard;
 
 /**
@@ -66,6 +68,24 @@ public class ForgeCommandRegistry implements CommandRegistry
                .command(manCommand)
                .create();
       manCommand.setRegistry(this);
+
+      // Executed commands may enable or disable other commands
+      shell.addCommandExecutionListener(new AbstractCommandExecutionListener()
+      {
+         @Override
+         public void postCommandExecuted(UICommand command, UIExecutionContext context, Result result)
+         {
+            ForgeCommandRegistry.this.commandManager.commandExecuted();
+            getCommandLineUtil().invalidateCompletions();
+         }
+
+         @Override
+         public void postCommandFailure(UICommand command, UIExecutionContext context, Throwable failure)
+         {
+            ForgeCommandRegistry.this.commandManager.commandExecuted();
+            getCommandLineUtil().invalidateCompletions();
+         }
+      });
    }
 
    @Override
@@ -120,22 +140,16 @@ public class ForgeCommandRegistry implements CommandRegistry
    {
       AbstractShellInteraction result = null;
       CommandLineUtil cmdLineUtil = getCommandLineUtil();
-      for (UICommand cmd : Commands.getEnabledCommands(commandManager.getAllCommands(), shellContext))
+      UICommand cmd = commandManager.findCommand(shellContext, commandName);
+      if (cmd instanceof UIWizard)
       {
-         if (commandName.equals(commandManager.getCommandName(shellContext, cmd)))
-         {
-            if (cmd instanceof UIWizard)
-            {
-               result = new ShellWizard(commandFactory.createWizardController(shellContext, shell, (UIWizard) cmd),
-                        shellContext, cmdLineUtil, this);
-            }
-            else
-            {
-               result = new ShellSingleCommand(commandFactory.createSingleController(shellContext, shell, cmd),
-                        shellContext, cmdLineUtil);
-            }
-            break;
-         }
+         result = new ShellWizard(commandFactory.createWizardController(shellContext, shell, (UIWizard) cmd),
+                  shellContext, cmdLineUtil, this);
+      }
+      else if (cmd != null)
+      {
+         result = new ShellSingleCommand(commandFactory.createSingleController(shellContext, shell, cmd),
+                  shellContext, cmdLineUtil);
       }
       return result;
    }
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.shell.aesh.completion;
+
+import org.jboss.forge.addon.resource.Resource;
+import org.jboss.forge.addon.shell.ui.ShellContext;
+import org.jboss.forge.addon.ui.context.UISelection;
+import org.jboss.forge.addon.ui.input.InputComponent;
+import org.jboss.forge.addon.ui.util.InputComponents;
+
+/**
+ * Identifies the completion of an input in a {@link CompletionPipeline}. Proposals may depend on the values of the
+ * other inputs of the command, so these are part of the key as well.
+ */
+class CompletionKey
+{
+   private final String command;
+   private final InputComponent<?, ?> input;
+   private final Iterable<InputComponent<?, ?>> inputs;
+   private final ShellContext context;
+
+   public CompletionKey(String command, InputComponent<?, ?> input, Iterable<InputComponent<?, ?>> inputs,
+            ShellContext context)
+   {
+      this.command = command;
+      this.input = input;
+      this.inputs = inputs;
+      this.context = context;
+   }
+
+   /**
+    * Returns the key for completing the given value.
+    */
+   public String forValue(String value)
+   {
+      StringBuilder key = new StringBuilder(command).append('|').append(input.getName());
+      UISelection<?> selection = context.getInitialSelection();
+      if (!selection.isEmpty() && selection.get() instanceof Resource)
+      {
+         key.append('|').append(((Resource<?>) selection.get()).getFullyQualifiedName());
+      }
+      for (InputComponent<?, ?> other : inputs)
+      {
+         if (other != input)
+         {
+            key.append('|').append(other.getName()).append('=').append(InputComponents.getValueFor(other));
+         }
+      }
+      return key.append('|').append(value).toString();
+   }
+}
@@ -0,0 +1,247 @@
+/**
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.shell.aesh.completion;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Computes completion proposals within a time budget.
+ *
+ * Each completion waits at most <code>shell.completion.timeout</code> milliseconds (1000 by default) for the completer,
+ * which runs on a separate thread. If it takes longer, the proposals produced so far are returned, and the completer
+ * keeps running in the background until it is done. Its proposals are then cached, so that completing the same input
+ * again returns them all. A completion of the same key that is still running is joined rather than started again.
+ *
+ * The key of a completion is computed on the calling thread from the values of the inputs the proposals depend on, and
+ * is the snapshot the proposals are cached for. A completer still running in the background only reads the inputs,
+ * and its proposals are only returned for completions with the same key.
+ *
+ * Proposals are cached for <code>shell.completion.cache.ttl</code> milliseconds (30000 by default). Completion is done
+ * on the calling thread, without a time budget, when the <code>shell.completion.async</code> system property is set to
+ * <code>false</code>.
+ */
+public class CompletionPipeline
+{
+   private static final Logger logger = Logger.getLogger(CompletionPipeline.class.getName());
+
+   private static final boolean ASYNC = Boolean.parseBoolean(System.getProperty("shell.completion.async", "true"));
+   private static final long TIMEOUT = Long.getLong("shell.completion.timeout", 1000);
+   private static final long CACHE_TTL = Long.getLong("shell.completion.cache.ttl", 30000);
+   private static final int MAX_CACHED = 64;
+
+   private final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory()
+   {
+      @Override
+      public Thread newThread(Runnable r)
+      {
+         Thread thread = new Thread(r, "Shell Completion");
+         thread.setDaemon(true);
+         return thread;
+      }
+   });
+
+   private final Map<String, CachedProposals> cache = new LinkedHashMap<String, CachedProposals>(16, 0.75f, true)
+   {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedProposals> eldest)
+      {
+         return size() > MAX_CACHED;
+      }
+   };
+
+   /**
+    * The completions that are still running, by key
+    */
+   private final Map<String, Completion> running = new HashMap<String, Completion>();
+
+   private final long timeout;
+
+   public CompletionPipeline()
+   {
+      this(TIMEOUT);
+   }
+
+   CompletionPipeline(long timeout)
+   {
+      this.timeout = timeout;
+   }
+
+   /**
+    * Produces the completion proposals for a given input and value.
+    */
+   public interface ProposalSource
+   {
+      /**
+       * Adds the proposals to the given list, which may be read by other threads while the proposals are added.
+       * Implementations should stop when the current thread is interrupted, which happens when the pipeline is
+       * invalidated.
+       */
+      void addProposals(List<String> proposals) throws Exception;
+   }
+
+   /**
+    * Returns the proposals of the given source, which are cached with the given key. Returns within the time budget,
+    * with the proposals added so far if the source is not done by then.
+    *
+    * @param key identifies the input, its value and everything else the proposals depend on
+    */
+   public List<String> complete(String key, ProposalSource source)
+   {
+      if (!ASYNC)
+      {
+         List<String> proposals = new ArrayList<>();
+         addProposals(key, source, proposals);
+         return proposals;
+      }
+
+      Completion completion;
+      synchronized (this)
+      {
+         CachedProposals cached = cache.get(key);
+         if (cached != null && System.currentTimeMillis() - cached.created <= CACHE_TTL)
+         {
+            return new ArrayList<>(cached.proposals);
+         }
+         completion = running.get(key);
+         if (completion == null)
+         {
+            completion = new Completion(key, source);
+            running.put(key, completion);
+            completion.future = executor.submit(completion);
+         }
+      }
+
+      try
+      {
+         if (!completion.stopped.await(timeout, TimeUnit.MILLISECONDS))
+         {
+            logger.fine("Completion of [" + key + "] took longer than " + timeout
+                     + "ms, returning partial proposals");
+         }
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+      return completion.getProposals();
+   }
+
+   /**
+    * Forgets all cached proposals, and interrupts the completions still running.
+    */
+   public synchronized void invalidate()
+   {
+      cache.clear();
+      for (Completion completion : running.values())
+      {
+         completion.future.cancel(true);
+      }
+      running.clear();
+   }
+
+   /**
+    * @return <code>true</code> if the source added all of its proposals
+    */
+   private static boolean addProposals(String key, ProposalSource source, List<String> proposals)
+   {
+      try
+      {
+         source.addProposals(proposals);
+         return !Thread.currentThread().isInterrupted();
+      }
+      catch (InterruptedException e)
+      {
+         // Cancelled
+         Thread.currentThread().interrupt();
+         return false;
+      }
+      catch (Exception e)
+      {
+         logger.log(Level.WARNING, "Error while completing [" + key + "]", e);
+         return false;
+      }
+   }
+
+   /**
+    * Runs a {@link ProposalSource}, and caches its proposals once it is done.
+    */
+   private class Completion implements Runnable
+   {
+      private final String key;
+      private final ProposalSource source;
+      private final List<String> proposals = Collections.synchronizedList(new ArrayList<String>());
+      private final CountDownLatch stopped = new CountDownLatch(1);
+      private Future<?> future;
+
+      public Completion(String key, ProposalSource source)
+      {
+         this.key = key;
+         this.source = source;
+      }
+
+      @Override
+      public void run()
+      {
+         boolean completed = false;
+         try
+         {
+            completed = addProposals(key, source, proposals);
+         }
+         finally
+         {
+            synchronized (CompletionPipeline.this)
+            {
+               // Not cached if the pipeline was invalidated meanwhile
+               if (running.get(key) == this)
+               {
+                  running.remove(key);
+                  if (completed)
+                  {
+                     cache.put(key, new CachedProposals(getProposals()));
+                  }
+               }
+            }
+            stopped.countDown();
+         }
+      }
+
+      public List<String> getProposals()
+      {
+         synchronized (proposals)
+         {
+            return new ArrayList<>(proposals);
+         }
+      }
+   }
+
+   private static class CachedProposals
+   {
+      private final List<String> proposals;
+      private final long created = System.currentTimeMillis();
+
+      public CachedProposals(List<String> proposals)
+      {
+         this.proposals = proposals;
+      }
+   }
+}
@@ -14,6 +14,7 @@ import org.jboss.forge.addon.ui.context.UISelection;
 import org.jboss.forge.addon.ui.facets.HintsFacet;
 import org.jboss.forge.addon.ui.hints.InputType;
 import org.jboss.forge.addon.ui.input.InputComponent;
+import org.jboss.forge.addon.ui.input.UICompleter;
 import org.jboss.forge.addon.ui.input.SelectComponent;
 import org.jboss.forge.furnace.util.OperatingSystemUtils;
 
@@ -28,6 +29,18 @@ public class OptionCompleterFactory
    public static OptionCompleter<CompleterInvocation> getCompletionFor(InputComponent<?, ?> component,
             ShellContext context, ConverterFactory converterFactory)
    {
+      return getCompletionFor(component, context, converterFactory, null, null, null);
+   }
+
+   /**
+    * Returns the completion for the given component of the given command. {@link UICompleter} proposals and
+    * {@link SelectComponent} value choices are computed in the given {@link CompletionPipeline}, if any.
+    */
+   public static OptionCompleter<CompleterInvocation> getCompletionFor(InputComponent<?, ?> component,
+            ShellContext context, ConverterFactory converterFactory, CompletionPipeline pipeline, String command,
+            Iterable<InputComponent<?, ?>> inputs)
+   {
+      CompletionKey key = (pipeline == null) ? null : new CompletionKey(command, component, inputs, context);
       UISelection<FileResource<?>> selection = context.getInitialSelection();
 
       // FIXME This should use the Resource API to allow completion of virtual resources.
@@ -46,7 +59,8 @@ public class OptionCompleterFactory
       }
       else if (component instanceof SelectComponent)
       {
-         strategy = new SelectComponentOptionCompleter((SelectComponent<?, Object>) component, converterFactory);
+         strategy = new SelectComponentOptionCompleter((SelectComponent<?, Object>) component, converterFactory,
+                  pipeline, key);
       }
       else if (Resource.class.isAssignableFrom(component.getValueType()))
       {
@@ -54,7 +68,7 @@ public class OptionCompleterFactory
          strategy = new FileOptionCompleter(Filter.ALL);
       }
       // Always try UICompleter first and then fallback to the chosen strategy
-      strategy = new UICompleterOptionCompleter(strategy, context, component, converterFactory);
+      strategy = new UICompleterOptionCompleter(strategy, context, component, converterFactory, pipeline, key);
       return strategy;
    }
 }
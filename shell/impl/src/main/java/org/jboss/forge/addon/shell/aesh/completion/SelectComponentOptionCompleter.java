@@ -15,6 +15,7 @@ import org.jboss.aesh.cl.completer.OptionCompleter;
 import org.jboss.aesh.console.command.completer.CompleterInvocation;
 import org.jboss.forge.addon.convert.Converter;
 import org.jboss.forge.addon.convert.ConverterFactory;
+import org.jboss.forge.addon.shell.aesh.completion.CompletionPipeline.ProposalSource;
 import org.jboss.forge.addon.ui.input.ManyValued;
 import org.jboss.forge.addon.ui.input.SelectComponent;
 import org.jboss.forge.addon.ui.input.UISelectMany;
@@ -30,31 +31,65 @@ class SelectComponentOptionCompleter implements OptionCompleter<CompleterInvocat
 {
    private final SelectComponent<?, Object> selectComponent;
    private final ConverterFactory converterFactory;
+   private final CompletionPipeline pipeline;
+   private final CompletionKey key;
 
    public SelectComponentOptionCompleter(SelectComponent<?, Object> selectComponent,
             ConverterFactory converterFactory)
+   {
+      this(selectComponent, converterFactory, null, null);
+   }
+
+   /**
+    * Creates a completer computing the value choices in the given {@link CompletionPipeline}, or on the calling thread
+    * if it is <code>null</code>.
+    */
+   public SelectComponentOptionCompleter(SelectComponent<?, Object> selectComponent,
+            ConverterFactory converterFactory, CompletionPipeline pipeline, CompletionKey key)
    {
       super();
       this.selectComponent = selectComponent;
       this.converterFactory = converterFactory;
+      this.pipeline = pipeline;
+      this.key = key;
    }
-   
+
    @SuppressWarnings("unchecked")
    @Override
    public void complete(final CompleterInvocation completerData)
    {
       final String completeValue = completerData.getGivenCompleteValue();
-      Converter<Object, String> itemLabelConverter = (Converter<Object, String>) InputComponents
+      final Converter<Object, String> itemLabelConverter = (Converter<Object, String>) InputComponents
                .getItemLabelConverter(converterFactory, selectComponent);
-      Iterable<Object> valueChoices = selectComponent.getValueChoices();
-      List<String> choices = new ArrayList<String>();
-      for (Object choice : valueChoices)
+      ProposalSource source = new ProposalSource()
       {
-         String convert = itemLabelConverter.convert(choice);
-         if (convert != null && (completeValue == null || convert.startsWith(completeValue)))
+         @Override
+         public void addProposals(List<String> proposals)
          {
-            choices.add(convert);
+            Iterable<Object> valueChoices = selectComponent.getValueChoices();
+            for (Object choice : valueChoices)
+            {
+               if (Thread.currentThread().isInterrupted())
+               {
+                  break;
+               }
+               String convert = itemLabelConverter.convert(choice);
+               if (convert != null && (completeValue == null || convert.startsWith(completeValue)))
+               {
+                  proposals.add(convert);
+               }
+            }
          }
+      };
+      List<String> choices;
+      if (pipeline == null)
+      {
+         choices = new ArrayList<String>();
+         source.addProposals(choices);
+      }
+      else
+      {
+         choices = pipeline.complete(key.forValue(completeValue), source);
       }
       // Remove already set values in many valued components
       if (selectComponent instanceof ManyValued)
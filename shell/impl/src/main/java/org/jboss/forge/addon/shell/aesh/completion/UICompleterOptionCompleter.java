@@ -9,6 +9,7 @@ import org.jboss.aesh.complete.Completion;
 import org.jboss.aesh.console.command.completer.CompleterInvocation;
 import org.jboss.forge.addon.convert.Converter;
 import org.jboss.forge.addon.convert.ConverterFactory;
+import org.jboss.forge.addon.shell.aesh.completion.CompletionPipeline.ProposalSource;
 import org.jboss.forge.addon.shell.ui.ShellContext;
 import org.jboss.forge.addon.ui.input.InputComponent;
 import org.jboss.forge.addon.ui.input.ManyValued;
@@ -27,23 +28,38 @@ class UICompleterOptionCompleter implements OptionCompleter<CompleterInvocation>
    private final InputComponent<?, Object> input;
    private final ConverterFactory converterFactory;
    private final ShellContext context;
+   private final CompletionPipeline pipeline;
+   private final CompletionKey key;
 
-   @SuppressWarnings("unchecked")
    public UICompleterOptionCompleter(OptionCompleter<CompleterInvocation> fallback, ShellContext context,
             InputComponent<?, ?> input, ConverterFactory converterFactory)
+   {
+      this(fallback, context, input, converterFactory, null, null);
+   }
+
+   /**
+    * Creates a completer computing its proposals in the given {@link CompletionPipeline}, or on the calling thread if
+    * it is <code>null</code>.
+    */
+   @SuppressWarnings("unchecked")
+   public UICompleterOptionCompleter(OptionCompleter<CompleterInvocation> fallback, ShellContext context,
+            InputComponent<?, ?> input, ConverterFactory converterFactory, CompletionPipeline pipeline,
+            CompletionKey key)
    {
       this.fallback = fallback;
       this.context = context;
       this.input = (InputComponent<?, Object>) input;
       this.converterFactory = converterFactory;
+      this.pipeline = pipeline;
+      this.key = key;
    }
 
    @SuppressWarnings("unchecked")
    @Override
    public void complete(final CompleterInvocation completerData)
    {
-      String completeValue = completerData.getGivenCompleteValue();
-      UICompleter<Object> completer = InputComponents.getCompleterFor(input);
+      final String completeValue = completerData.getGivenCompleteValue();
+      final UICompleter<Object> completer = InputComponents.getCompleterFor(input);
       if (completer != null)
       {
          final Converter<Object, String> converter;
@@ -56,14 +72,34 @@ class UICompleterOptionCompleter implements OptionCompleter<CompleterInvocation>
          {
             converter = converterFactory.getConverter(input.getValueType(), String.class);
          }
-         List<String> choices = new ArrayList<>();
-         for (Object proposal : completer.getCompletionProposals(context, input, completeValue))
+         ProposalSource source = new ProposalSource()
          {
-            if (proposal != null)
+            @Override
+            public void addProposals(List<String> proposals)
             {
-               String convertedValue = converter.convert(proposal);
-               choices.add(convertedValue);
+               for (Object proposal : completer.getCompletionProposals(context, input, completeValue))
+               {
+                  if (Thread.currentThread().isInterrupted())
+                  {
+                     break;
+                  }
+                  if (proposal != null)
+                  {
+                     String convertedValue = converter.convert(proposal);
+                     proposals.add(convertedValue);
+                  }
+               }
             }
+         };
+         List<String> choices;
+         if (pipeline == null)
+         {
+            choices = new ArrayList<>();
+            source.addProposals(choices);
+         }
+         else
+         {
+            choices = pipeline.complete(key.forValue(completeValue), source);
          }
          // Remove already set values in many valued components
          if (input instanceof ManyValued)
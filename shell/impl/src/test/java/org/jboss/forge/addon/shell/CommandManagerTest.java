@@ -0,0 +1,285 @@
+/**
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.shell;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.forge.addon.shell.ui.ShellContext;
+import org.jboss.forge.addon.ui.command.AbstractUICommand;
+import org.jboss.forge.addon.ui.command.CommandFactory;
+import org.jboss.forge.addon.ui.command.UICommand;
+import org.jboss.forge.addon.ui.context.UIBuilder;
+import org.jboss.forge.addon.ui.context.UIContext;
+import org.jboss.forge.addon.ui.context.UIExecutionContext;
+import org.jboss.forge.addon.ui.context.UINavigationContext;
+import org.jboss.forge.addon.ui.metadata.UICommandMetadata;
+import org.jboss.forge.addon.ui.result.NavigationResult;
+import org.jboss.forge.addon.ui.result.Result;
+import org.jboss.forge.addon.ui.util.Metadata;
+import org.jboss.forge.addon.ui.wizard.UIWizardStep;
+import org.jboss.forge.furnace.addons.AddonRegistry;
+import org.jboss.forge.furnace.services.Imported;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CommandManagerTest
+{
+   private final List<UICommand> commands = new ArrayList<>();
+   private final AtomicInteger commandLookups = new AtomicInteger();
+   private long registryVersion = 1;
+
+   private CommandManager manager;
+   private ShellContext context;
+
+   @Before
+   public void setUp()
+   {
+      manager = new CommandManager(registry());
+      context = proxy(ShellContext.class, new InvocationHandler()
+      {
+         @Override
+         public Object invoke(Object proxy, Method method, Object[] args)
+         {
+            if ("getInitialSelection".equals(method.getName()))
+               return null;
+            throw new UnsupportedOperationException(method.getName());
+         }
+      });
+   }
+
+   @Test
+   public void testCommandsAreFoundByShellName()
+   {
+      TestCommand first = new FirstCommand();
+      TestCommand second = new SecondCommand();
+      commands.addAll(Arrays.<UICommand> asList(first, second));
+
+      Assert.assertEquals(Arrays.asList("first-command", "second"),
+               new ArrayList<>(manager.getAllCommandNames(context)));
+      UICommand found = manager.findCommand(context, "first-command");
+      Assert.assertNotNull(found);
+      Assert.assertNotSame("The catalog instance must not be used for execution", first, found);
+      Assert.assertEquals("first-command", manager.getCommandName(context, found));
+      Assert.assertNull(manager.findCommand(context, "unknown"));
+   }
+
+   @Test
+   public void testCatalogIsOnlyRebuiltWhenTheRegistryChanges()
+   {
+      commands.add(new FirstCommand());
+      manager.getAllCommandNames(context);
+      manager.findCommand(context, "first-command");
+      manager.findCommand(context, "first-command");
+      Assert.assertEquals(1, commandLookups.get());
+
+      commands.add(new SecondCommand());
+      Assert.assertNull("The catalog must be reused while the registry is unchanged",
+               manager.findCommand(context, "second"));
+
+      registryVersion++;
+      Assert.assertNotNull(manager.findCommand(context, "second"));
+      Assert.assertEquals(2, commandLookups.get());
+   }
+
+   @Test
+   public void testDisabledCommandsAreNotFound()
+   {
+      ToggledCommand command = new ToggledCommand();
+      command.enabled = false;
+      commands.add(command);
+
+      Assert.assertTrue(manager.getAllCommandNames(context).isEmpty());
+      Assert.assertNull(manager.findCommand(context, "toggled"));
+   }
+
+   @Test
+   public void testEnablementIsReevaluatedAfterCommandExecution()
+   {
+      ToggledCommand command = new ToggledCommand();
+      command.enabled = false;
+      commands.add(command);
+
+      Assert.assertNull(manager.findCommand(context, "toggled"));
+      manager.getAllCommandNames(context);
+      Assert.assertEquals("Enablement must be remembered between lookups", 1, command.enabledChecks);
+
+      command.enabled = true;
+      Assert.assertNull(manager.findCommand(context, "toggled"));
+
+      manager.commandExecuted();
+      Assert.assertNotNull(manager.findCommand(context, "toggled"));
+      Assert.assertEquals(2, command.enabledChecks);
+   }
+
+   @Test
+   public void testWizardStepsAreNotListed()
+   {
+      commands.add(new SecondCommand());
+      commands.add(new TestWizardStep());
+
+      Assert.assertEquals(Arrays.asList("second"), new ArrayList<>(manager.getAllCommandNames(context)));
+      Assert.assertNull(manager.findCommand(context, "step"));
+   }
+
+   private AddonRegistry registry()
+   {
+      final CommandFactory factory = proxy(CommandFactory.class, new InvocationHandler()
+      {
+         @Override
+         public Object invoke(Object proxy, Method method, Object[] args)
+         {
+            if ("getCommands".equals(method.getName()))
+            {
+               commandLookups.incrementAndGet();
+               return new ArrayList<>(commands);
+            }
+            throw new UnsupportedOperationException(method.getName());
+         }
+      });
+      return proxy(AddonRegistry.class, new InvocationHandler()
+      {
+         @Override
+         public Object invoke(Object proxy, Method method, Object[] args)
+         {
+            switch (method.getName())
+            {
+            case "getVersion":
+               return registryVersion;
+            case "getServices":
+               if (CommandFactory.class.equals(args[0]))
+                  return imported(factory);
+               return imported(newInstance((Class<?>) args[0]));
+            default:
+               throw new UnsupportedOperationException(method.getName());
+            }
+         }
+      });
+   }
+
+   private static Imported<?> imported(final Object service)
+   {
+      return proxy(Imported.class, new InvocationHandler()
+      {
+         @Override
+         public Object invoke(Object proxy, Method method, Object[] args)
+         {
+            switch (method.getName())
+            {
+            case "get":
+               return service;
+            case "isUnsatisfied":
+               return service == null;
+            case "isAmbiguous":
+               return false;
+            default:
+               throw new UnsupportedOperationException(method.getName());
+            }
+         }
+      });
+   }
+
+   private static Object newInstance(Class<?> type)
+   {
+      try
+      {
+         return type.newInstance();
+      }
+      catch (ReflectiveOperationException e)
+      {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   private static <T> T proxy(Class<T> type, InvocationHandler handler)
+   {
+      return (T) Proxy.newProxyInstance(CommandManagerTest.class.getClassLoader(), new Class<?>[] { type }, handler);
+   }
+
+   private abstract static class TestCommand extends AbstractUICommand
+   {
+      private final String name;
+      boolean enabled = true;
+      int enabledChecks;
+
+      TestCommand(String name)
+      {
+         this.name = name;
+      }
+
+      @Override
+      public UICommandMetadata getMetadata(UIContext context)
+      {
+         return Metadata.forCommand(getClass()).name(name);
+      }
+
+      @Override
+      public boolean isEnabled(UIContext context)
+      {
+         enabledChecks++;
+         return enabled;
+      }
+
+      @Override
+      public void initializeUI(UIBuilder builder) throws Exception
+      {
+      }
+
+      @Override
+      public Result execute(UIExecutionContext context) throws Exception
+      {
+         return null;
+      }
+
+   }
+
+   public static class FirstCommand extends TestCommand
+   {
+      public FirstCommand()
+      {
+         super("First Command");
+      }
+   }
+
+   public static class SecondCommand extends TestCommand
+   {
+      public SecondCommand()
+      {
+         super("second");
+      }
+   }
+
+   public static class ToggledCommand extends TestCommand
+   {
+      public ToggledCommand()
+      {
+         super("toggled");
+      }
+   }
+
+   public static class TestWizardStep extends TestCommand implements UIWizardStep
+   {
+      public TestWizardStep()
+      {
+         super("step");
+      }
+
+      @Override
+      public NavigationResult next(UINavigationContext context) throws Exception
+      {
+         return null;
+      }
+   }
+}
@@ -0,0 +1,204 @@
+/**
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.shell.aesh.completion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.jboss.forge.addon.shell.aesh.completion.CompletionPipeline.ProposalSource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompletionPipelineTest
+{
+   private static final long TIMEOUT = 200;
+
+   private final Logger logger = Logger.getLogger(CompletionPipeline.class.getName());
+   private final List<LogRecord> records = Collections.synchronizedList(new ArrayList<LogRecord>());
+   private final Handler handler = new Handler()
+   {
+      @Override
+      public void publish(LogRecord record)
+      {
+         records.add(record);
+      }
+
+      @Override
+      public void flush()
+      {
+      }
+
+      @Override
+      public void close()
+      {
+      }
+   };
+
+   private CompletionPipeline pipeline;
+
+   @Before
+   public void setUp()
+   {
+      pipeline = new CompletionPipeline(TIMEOUT);
+      logger.addHandler(handler);
+   }
+
+   @After
+   public void tearDown()
+   {
+      logger.removeHandler(handler);
+   }
+
+   @Test
+   public void testCompletedProposalsAreCached()
+   {
+      CountingSource source = new CountingSource("first", "second");
+      Assert.assertEquals(Arrays.asList("first", "second"), pipeline.complete("key", source));
+      Assert.assertEquals(Arrays.asList("first", "second"), pipeline.complete("key", source));
+      Assert.assertEquals(1, source.calls.get());
+
+      pipeline.complete("other", source);
+      Assert.assertEquals(2, source.calls.get());
+
+      pipeline.invalidate();
+      pipeline.complete("key", source);
+      Assert.assertEquals(3, source.calls.get());
+   }
+
+   @Test
+   public void testBlockingSourceReturnsWithinBudget() throws Exception
+   {
+      final CountDownLatch release = new CountDownLatch(1);
+      final AtomicInteger calls = new AtomicInteger();
+      ProposalSource source = new ProposalSource()
+      {
+         @Override
+         public void addProposals(List<String> proposals)
+         {
+            calls.incrementAndGet();
+            proposals.add("partial");
+            // Ignores interruption, like a completer computing all of its proposals at once
+            while (true)
+            {
+               try
+               {
+                  release.await();
+                  break;
+               }
+               catch (InterruptedException e)
+               {
+                  continue;
+               }
+            }
+            proposals.add("late");
+         }
+      };
+
+      long start = System.nanoTime();
+      Assert.assertEquals(Arrays.asList("partial"), pipeline.complete("key", source));
+      Assert.assertTrue("The completion must return once the time budget is exceeded",
+               TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < TIMEOUT * 5);
+
+      // A running completion is joined rather than started again
+      Assert.assertEquals(Arrays.asList("partial"), pipeline.complete("key", source));
+      Assert.assertEquals(1, calls.get());
+
+      // Once done, the background completion caches all of its proposals
+      release.countDown();
+      List<String> proposals = pipeline.complete("key", source);
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (proposals.size() < 2 && System.nanoTime() < deadline)
+      {
+         proposals = pipeline.complete("key", source);
+      }
+      Assert.assertEquals(Arrays.asList("partial", "late"), proposals);
+      Assert.assertEquals(1, calls.get());
+   }
+
+   @Test
+   public void testInvalidateInterruptsRunningCompletions() throws Exception
+   {
+      final CountDownLatch interrupted = new CountDownLatch(1);
+      ProposalSource source = new ProposalSource()
+      {
+         @Override
+         public void addProposals(List<String> proposals) throws Exception
+         {
+            try
+            {
+               Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            }
+            catch (InterruptedException e)
+            {
+               interrupted.countDown();
+               throw e;
+            }
+         }
+      };
+      Assert.assertEquals(Collections.emptyList(), pipeline.complete("key", source));
+      pipeline.invalidate();
+      Assert.assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+
+      CountingSource counting = new CountingSource("first");
+      Assert.assertEquals(Arrays.asList("first"), pipeline.complete("key", counting));
+      Assert.assertEquals(1, counting.calls.get());
+   }
+
+   @Test
+   public void testFailuresAreLoggedAndNotCached()
+   {
+      final AtomicInteger calls = new AtomicInteger();
+      ProposalSource source = new ProposalSource()
+      {
+         @Override
+         public void addProposals(List<String> proposals) throws Exception
+         {
+            calls.incrementAndGet();
+            proposals.add("partial");
+            throw new IllegalStateException("Expected");
+         }
+      };
+
+      Assert.assertEquals(Arrays.asList("partial"), pipeline.complete("key", source));
+      pipeline.complete("key", source);
+      Assert.assertEquals(2, calls.get());
+
+      Assert.assertEquals(2, records.size());
+      Assert.assertEquals(Level.WARNING, records.get(0).getLevel());
+      Assert.assertEquals("Expected", records.get(0).getThrown().getMessage());
+   }
+
+   private static class CountingSource implements ProposalSource
+   {
+      private final List<String> values;
+      private final AtomicInteger calls = new AtomicInteger();
+
+      public CountingSource(String... values)
+      {
+         this.values = Arrays.asList(values);
+      }
+
+      @Override
+      public void addProposals(List<String> proposals)
+      {
+         calls.incrementAndGet();
+         proposals.addAll(values);
+      }
+   }
+}
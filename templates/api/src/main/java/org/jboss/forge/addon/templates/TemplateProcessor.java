@@ -9,6 +9,9 @@ package org.jboss.forge.addon.templates;
 import java.io.IOException;
 import java.io.Writer;
 
+import org.jboss.forge.addon.resource.FileOperations;
+import org.jboss.forge.addon.resource.FileResource;
+
 /**
  * Process a template
  * 
@@ -25,4 +28,14 @@ public interface TemplateProcessor
     * Writes the output to the {@link Writer}
     */
    void process(Object dataModel, Writer output) throws IOException;
+
+   /**
+    * Writes the output to the given {@link FileResource}, creating it if it does not exist, using the platform default
+    * charset as {@link FileResource#setContents(String)} does. The output is streamed through the current
+    * {@link FileOperations}, so it takes part in any started resource transaction. The output is rendered into a
+    * temporary file first, so the given {@link FileResource} is left unchanged if processing fails, and then renamed
+    * over it in one step. Within a started transaction the output is written with
+    * {@link FileResource#setContents(java.io.InputStream)} instead.
+    */
+   void process(Object dataModel, FileResource<?> output) throws IOException;
 }
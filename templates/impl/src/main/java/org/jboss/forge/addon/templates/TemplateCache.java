@@ -0,0 +1,197 @@
+/**
+ * Copyright 2014 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Eclipse Public License version 1.0, available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package org.jboss.forge.addon.templates;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Singleton;
+
+import org.jboss.forge.addon.resource.FileOperations;
+import org.jboss.forge.addon.resource.FileResource;
+import org.jboss.forge.addon.resource.Resource;
+
+/**
+ * A bounded, LRU cache of compiled templates shared by all {@link TemplateProcessor} instances, keyed by the type of the
+ * compiled template and the fully qualified name of the template {@link Resource}.
+ *
+ * Entries for {@link FileResource} templates are only valid while the last-modified time of the file is unchanged;
+ * other templates, such as those loaded from the classpath, are assumed not to change. Concurrent requests for the same
+ * template wait for a single compilation.
+ *
+ * The maximum number of entries may be configured with the <code>template.cache.size</code> system property.
+ */
+@Singleton
+public class TemplateCache
+{
+   private static final int MAX_ENTRIES = Integer.getInteger("template.cache.size", 128);
+
+   private final AtomicLong hits = new AtomicLong();
+   private final AtomicLong misses = new AtomicLong();
+   private final AtomicLong evictions = new AtomicLong();
+
+   private final Map<String, CacheEntry> entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true)
+   {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Entry<String, CacheEntry> eldest)
+      {
+         if (size() > MAX_ENTRIES)
+         {
+            evictions.incrementAndGet();
+            return true;
+         }
+         return false;
+      }
+   };
+
+   /**
+    * Return the compiled form of the given template, using the given compiler if no valid entry exists.
+    */
+   public <T> T get(Resource<?> template, Class<T> type, Callable<T> compiler) throws IOException
+   {
+      String key = type.getName() + "|" + template.getFullyQualifiedName();
+      long lastModified = getLastModified(template);
+      if (lastModified != 0L && System.currentTimeMillis() - lastModified <= FileOperations.TIMESTAMP_GRANULARITY)
+      {
+         misses.incrementAndGet();
+         FutureTask<T> task = new FutureTask<T>(compiler);
+         task.run();
+         return type.cast(getResult(task));
+      }
+
+      CacheEntry entry;
+      boolean compile = false;
+      synchronized (entries)
+      {
+         entry = entries.get(key);
+         if (entry != null && entry.lastModified == lastModified)
+         {
+            hits.incrementAndGet();
+         }
+         else
+         {
+            misses.incrementAndGet();
+            entry = new CacheEntry(lastModified, new FutureTask<T>(compiler));
+            entries.put(key, entry);
+            compile = true;
+         }
+      }
+
+      if (compile)
+      {
+         entry.task.run();
+      }
+      try
+      {
+         return type.cast(getResult(entry.task));
+      }
+      catch (IOException | RuntimeException e)
+      {
+         synchronized (entries)
+         {
+            if (entries.get(key) == entry)
+               entries.remove(key);
+         }
+         throw e;
+      }
+   }
+
+   /**
+    * Discard all cached entries.
+    */
+   public void invalidateAll()
+   {
+      synchronized (entries)
+      {
+         entries.clear();
+      }
+   }
+
+   public long getHitCount()
+   {
+      return hits.get();
+   }
+
+   public long getMissCount()
+   {
+      return misses.get();
+   }
+
+   public long getEvictionCount()
+   {
+      return evictions.get();
+   }
+
+   public int size()
+   {
+      synchronized (entries)
+      {
+         return entries.size();
+      }
+   }
+
+   @Override
+   public String toString()
+   {
+      return "TemplateCache [size=" + size() + ", hits=" + hits + ", misses=" + misses + ", evictions="
+               + evictions + "]";
+   }
+
+   private static long getLastModified(Resource<?> template)
+   {
+      if (template instanceof FileResource)
+      {
+         return ((FileResource<?>) template).getUnderlyingResourceObject().lastModified();
+      }
+      return 0L;
+   }
+
+   private static Object getResult(FutureTask<?> task) throws IOException
+   {
+      try
+      {
+         return task.get();
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new IOException("Interrupted while waiting for template compilation", e);
+      }
+      catch (ExecutionException e)
+      {
+         Throwable cause = e.getCause();
+         if (cause instanceof IOException)
+            throw (IOException) cause;
+         if (cause instanceof RuntimeException)
+            throw (RuntimeException) cause;
+         if (cause instanceof Error)
+            throw (Error) cause;
+         throw new RuntimeException(cause);
+      }
+   }
+
+   private static class CacheEntry
+   {
+      private final long lastModified;
+      private final FutureTask<?> task;
+
+      public CacheEntry(long lastModified, FutureTask<?> task)
+      {
+         this.lastModified = lastModified;
+         this.task = task;
+      }
+   }
+}
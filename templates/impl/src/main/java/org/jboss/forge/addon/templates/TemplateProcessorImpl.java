@@ -7,10 +7,21 @@
 
 package org.jboss.forge.addon.templates;
 
+import java.io.BufferedWriter;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
 
+import org.jboss.forge.addon.resource.FileOperations;
+import org.jboss.forge.addon.resource.FileResource;
 import org.jboss.forge.addon.resource.Resource;
 
 /**
@@ -43,4 +54,84 @@ public class TemplateProcessorImpl implements TemplateProcessor
    {
       generator.process(dataModel, resource, output);
    }
-}
\ No newline at end of file
+
+   @Override
+   public void process(Object dataModel, FileResource<?> output) throws IOException
+   {
+      FileOperations fileOperations = output.getResourceFactory().getFileOperations();
+      File file = output.getUnderlyingResourceObject();
+      File parent = file.getAbsoluteFile().getParentFile();
+      if (!fileOperations.fileExistsAndIsDirectory(parent) && !fileOperations.mkdirs(parent))
+      {
+         throw new IOException("Failed to create directory: " + parent);
+      }
+
+      /*
+       * Render into a temporary file next to the target, so that a failing template does not leave a truncated file
+       */
+      File temp = new File(parent, "." + file.getName() + "." + UUID.randomUUID() + ".tmp");
+      if (!fileOperations.createNewFile(temp))
+      {
+         throw new IOException("Failed to create file: " + temp);
+      }
+      boolean moved = false;
+      try
+      {
+         Writer writer = new BufferedWriter(new OutputStreamWriter(fileOperations.createOutputStream(temp),
+                  Charset.defaultCharset()));
+         try
+         {
+            process(dataModel, writer);
+         }
+         finally
+         {
+            writer.close();
+         }
+         if (output.getResourceFactory().getTransaction().isStarted())
+         {
+            /*
+             * The transaction only applies the changes on commit, so write through the resource to keep its
+             * setContents() behavior
+             */
+            InputStream contents = fileOperations.createInputStream(temp);
+            try
+            {
+               output.setContents(contents);
+            }
+            finally
+            {
+               contents.close();
+            }
+         }
+         else
+         {
+            replace(temp, file);
+            moved = true;
+            output.refresh();
+         }
+      }
+      finally
+      {
+         if (!moved && fileOperations.fileExists(temp))
+         {
+            fileOperations.deleteFile(temp);
+         }
+      }
+   }
+
+   /**
+    * Moves the source over the target in a single rename, so that readers never see a missing or partial file
+    */
+   private static void replace(File source, File target) throws IOException
+   {
+      try
+      {
+         Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                  StandardCopyOption.ATOMIC_MOVE);
+      }
+      catch (AtomicMoveNotSupportedException e)
+      {
+         Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+   }
+}
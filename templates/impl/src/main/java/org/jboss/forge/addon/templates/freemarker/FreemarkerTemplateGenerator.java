@@ -8,19 +8,24 @@
 package org.jboss.forge.addon.templates.freemarker;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.Writer;
+import java.util.concurrent.Callable;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.jboss.forge.addon.resource.Resource;
+import org.jboss.forge.addon.templates.TemplateCache;
 import org.jboss.forge.addon.templates.TemplateGenerator;
 
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
 
 /**
- * A Freemarker implementation of a {@link TemplateGenerator}
+ * A Freemarker implementation of a {@link TemplateGenerator}. Compiled templates are kept in the {@link TemplateCache},
+ * so each template is only parsed once.
  * 
  * @author <a href="ggastald@redhat.com">George Gastaldi</a>
  */
@@ -32,13 +37,31 @@ public class FreemarkerTemplateGenerator implements TemplateGenerator
    @Inject
    private ResourceTemplateLoader loader;
 
+   @Inject
+   private TemplateCache cache;
+
    @Override
-   public void process(Object dataModel, Resource<?> resource, Writer writer) throws IOException
+   public void process(Object dataModel, final Resource<?> resource, Writer writer) throws IOException
    {
-      String id = loader.register(resource);
+      Template templateFile = cache.get(resource, Template.class, new Callable<Template>()
+      {
+         @Override
+         public Template call() throws IOException
+         {
+            freemarker.template.Configuration config = getFreemarkerConfig();
+            Reader reader = new InputStreamReader(resource.getResourceInputStream(), config.getDefaultEncoding());
+            try
+            {
+               return new Template(resource.getName(), reader, config);
+            }
+            finally
+            {
+               reader.close();
+            }
+         }
+      });
       try
       {
-         Template templateFile = getFreemarkerConfig().getTemplate(id);
          templateFile.process(dataModel, writer);
          writer.flush();
       }
@@ -46,10 +69,6 @@ public class FreemarkerTemplateGenerator implements TemplateGenerator
       {
          throw new RuntimeException(e);
       }
-      finally
-      {
-         loader.dispose(id);
-      }
    }
 
    @Override
@@ -58,7 +77,7 @@ public class FreemarkerTemplateGenerator implements TemplateGenerator
       return true;
    }
 
-   public freemarker.template.Configuration getFreemarkerConfig()
+   public synchronized freemarker.template.Configuration getFreemarkerConfig()
    {
       if (freemarkerConfig == null)
       {
@@ -21,6 +21,7 @@ import org.jboss.forge.arquillian.AddonDependency;
 import org.jboss.forge.arquillian.Dependencies;
 import org.jboss.forge.arquillian.archive.ForgeArchive;
 import org.jboss.forge.furnace.repositories.AddonDependencyEntry;
+import org.jboss.forge.furnace.util.OperatingSystemUtils;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.junit.Assert;
 import org.junit.Test;
@@ -55,6 +56,9 @@ public class TemplateTestCase
    @Inject
    private TemplateProcessorFactory templateProcessorFactory;
 
+   @Inject
+   private TemplateCache templateCache;
+
    @Test
    public void testProcessorFactoryInjection() throws Exception
    {
@@ -104,4 +108,100 @@ public class TemplateTestCase
       String actual = processor.process(dataModel);
       Assert.assertEquals(expected, actual);
    }
-}
\ No newline at end of file
+
+   @Test
+   public void testClasspathTemplateIsCompiledOnce() throws Exception
+   {
+      URL template = getClass().getResource("template.ftl");
+      Resource<?> resource = resourceFactory.create(template);
+      templateProcessorFactory.fromTemplate(resource).process(Collections.singletonMap("name", "JBoss Forge"));
+
+      long misses = templateCache.getMissCount();
+      long hits = templateCache.getHitCount();
+      String actual = templateProcessorFactory.fromTemplate(resource).process(
+               Collections.singletonMap("name", "Forge"));
+      Assert.assertEquals("Hello Forge!", actual);
+      Assert.assertEquals(misses, templateCache.getMissCount());
+      Assert.assertEquals(hits + 1, templateCache.getHitCount());
+   }
+
+   @Test
+   @SuppressWarnings("rawtypes")
+   public void testChangedTemplateIsRecompiled() throws Exception
+   {
+      File tempFile = File.createTempFile("template", ".tmp");
+      tempFile.deleteOnExit();
+      FileResource resource = resourceFactory.create(tempFile).reify(FileResource.class);
+      resource.setContents("Hello ${name}!");
+      // Templates modified within the last seconds are not cached, so make the file look older
+      long now = System.currentTimeMillis();
+      Assert.assertTrue(tempFile.setLastModified(now - 60000L));
+      TemplateProcessor processor = templateProcessorFactory.fromTemplate(resource);
+      Assert.assertEquals("Hello JBoss Forge!", processor.process(Collections.singletonMap("name", "JBoss Forge")));
+
+      long hits = templateCache.getHitCount();
+      Assert.assertEquals("Hello JBoss Forge!", processor.process(Collections.singletonMap("name", "JBoss Forge")));
+      Assert.assertEquals(hits + 1, templateCache.getHitCount());
+
+      resource.setContents("Goodbye ${name}!");
+      Assert.assertTrue(tempFile.setLastModified(now - 30000L));
+      Assert.assertEquals("Goodbye JBoss Forge!", processor.process(Collections.singletonMap("name", "JBoss Forge")));
+   }
+
+   @Test
+   @SuppressWarnings("rawtypes")
+   public void testTemplateProcessorToFileResource() throws Exception
+   {
+      URL template = getClass().getResource("template.ftl");
+      Resource<?> resource = resourceFactory.create(template);
+      File tempFile = File.createTempFile("output", ".tmp");
+      tempFile.delete();
+      tempFile.deleteOnExit();
+      FileResource output = resourceFactory.create(tempFile).reify(FileResource.class);
+      TemplateProcessor processor = templateProcessorFactory.fromTemplate(resource);
+      processor.process(Collections.singletonMap("name", "JBoss Forge"), output);
+      Assert.assertTrue(output.exists());
+      Assert.assertEquals("Hello JBoss Forge!", output.getContents());
+   }
+
+   @Test
+   @SuppressWarnings("rawtypes")
+   public void testFailedProcessingLeavesFileResourceUnchanged() throws Exception
+   {
+      File directory = OperatingSystemUtils.createTempDir();
+      FileResource template = resourceFactory.create(new File(directory, "broken.ftl")).reify(FileResource.class);
+      template.setContents("Hello ${name}! ${missing.value}");
+      FileResource output = resourceFactory.create(new File(directory, "output.txt")).reify(FileResource.class);
+      output.setContents("Previous contents");
+
+      TemplateProcessor processor = templateProcessorFactory.fromTemplate(template);
+      try
+      {
+         processor.process(Collections.singletonMap("name", "JBoss Forge"), output);
+         Assert.fail("Expected the template to fail");
+      }
+      catch (Exception e)
+      {
+         // expected
+      }
+      Assert.assertEquals("Previous contents", output.getContents());
+      Assert.assertEquals("No temporary file is left behind", 2, directory.listFiles().length);
+   }
+
+   @Test
+   @SuppressWarnings("rawtypes")
+   public void testProcessingReplacesExistingFileResource() throws Exception
+   {
+      File directory = OperatingSystemUtils.createTempDir();
+      FileResource template = resourceFactory.create(new File(directory, "hello.ftl")).reify(FileResource.class);
+      template.setContents("Hello ${name}!");
+      FileResource output = resourceFactory.create(new File(directory, "output.txt")).reify(FileResource.class);
+      output.setContents("Previous contents");
+
+      TemplateProcessor processor = templateProcessorFactory.fromTemplate(template);
+      processor.process(Collections.singletonMap("name", "JBoss Forge"), output);
+      Assert.assertEquals("Hello JBoss Forge!", output.getContents());
+      Assert.assertFalse(output.isStale());
+      Assert.assertEquals("No temporary file is left behind", 2, directory.listFiles().length);
+   }
+}